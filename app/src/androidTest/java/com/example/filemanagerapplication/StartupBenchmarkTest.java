@@ -0,0 +1,89 @@
+package com.example.filemanagerapplication;
+
+import android.Manifest;
+import android.app.Instrumentation;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Environment;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Startup benchmark: time until the storage root's first rows are on screen.
+ *
+ * The first launch in the instrumentation process is the cold one, where the listing started
+ * by {@link StartupPrefetch} at process start is handed over; the later launches are warm.
+ * Results go to logcat and to the instrumentation status ({@code am instrument -r}), so CI can
+ * track them. Needs storage permission, e.g. {@code adb shell pm grant <package>
+ * android.permission.READ_EXTERNAL_STORAGE} or All files access on Android 11+.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmarkTest {
+
+    private static final String TAG = "StartupBenchmark";
+    private static final long TIMEOUT_MS = 10_000;
+    private static final int WARM_LAUNCHES = 5;
+
+    @Test
+    public void timeToFirstRowOfStorageRoot() {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        Context context = instrumentation.getTargetContext();
+        assumeTrue("Storage permission not granted", canReadStorage(context));
+        Intent intent = new Intent(context, FileListActivity.class)
+                .putExtra("path", Environment.getExternalStorageDirectory().getPath());
+
+        for (int launch = 1; launch <= 1 + WARM_LAUNCHES; launch++) {
+            try (ActivityScenario<FileListActivity> ignored = ActivityScenario.launch(intent)) {
+                assertTrue("No rows shown within " + TIMEOUT_MS + " ms", awaitSamples(FileListActivity.METRIC_FIRST_ROW, launch));
+            }
+        }
+
+        Bundle results = new Bundle();
+        report(results, StartupPrefetch.METRIC_FIRST_ROW);
+        report(results, StartupPrefetch.METRIC_PREFETCH);
+        report(results, FileListActivity.METRIC_FIRST_ROW);
+        instrumentation.sendStatus(0, results);
+    }
+
+    private static boolean canReadStorage(Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R && Environment.isExternalStorageManager()) {
+            return true;
+        }
+        return context.checkSelfPermission(Manifest.permission.READ_EXTERNAL_STORAGE) == PackageManager.PERMISSION_GRANTED;
+    }
+
+    private static boolean awaitSamples(String metric, long count) {
+        long deadline = SystemClock.uptimeMillis() + TIMEOUT_MS;
+        while (SystemClock.uptimeMillis() < deadline) {
+            PerfMetrics.Summary summary = PerfMetrics.summary(metric);
+            if (summary != null && summary.count >= count) {
+                return true;
+            }
+            SystemClock.sleep(20);
+        }
+        return false;
+    }
+
+    private static void report(Bundle results, String metric) {
+        PerfMetrics.Summary summary = PerfMetrics.summary(metric);
+        if (summary == null) {
+            return; // E.g. no prefetch when the storage root could not be listed
+        }
+        Log.i(TAG, summary.toString());
+        results.putLong(metric + ".p50_ms", summary.p50Millis);
+        results.putLong(metric + ".max_ms", summary.maxMillis);
+    }
+}
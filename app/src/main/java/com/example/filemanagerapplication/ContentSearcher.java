@@ -0,0 +1,325 @@
+package com.example.filemanagerapplication;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Searches file contents below a folder for a literal string ("grep").
+ *
+ * One thread walks the tree and hands regular files to a pool of scanner threads. A scanner
+ * maps the file read-only (small files are read into the heap, mapping them costs more
+ * than it saves), skips it if the first block contains a NUL byte (binary, same rule as
+ * grep), and runs Boyer-Moore-Horspool over at most {@link #MAX_BYTES_PER_FILE} bytes.
+ * ASCII letters match case-insensitively; other bytes must match exactly. Each matching
+ * line is reported once, with its number and the lines around it.
+ */
+public class ContentSearcher {
+
+    private static final String TAG = "ContentSearcher";
+    static final String METRIC_TOTAL = "grep.total";
+
+    static final long MAX_BYTES_PER_FILE = 16L * 1024 * 1024;
+    private static final int MAP_THRESHOLD = 64 * 1024;
+    private static final int SNIFF_BYTES = 4096;
+    private static final int MAX_MATCHES_PER_FILE = 50;
+    private static final int MAX_CONTEXT_BYTES = 160; // Per side of the match within its line
+    private static final int QUEUED_FILES_PER_THREAD = 64;
+
+    /** One matching line. */
+    public static final class Match {
+        public final File file;
+        public final int lineNumber;
+        public final String line;
+        /** Neighbouring lines, or null at the start/end of the file. */
+        public final String before;
+        public final String after;
+
+        Match(File file, int lineNumber, String line, String before, String after) {
+            this.file = file;
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.before = before;
+            this.after = after;
+        }
+    }
+
+    /** Callbacks arrive on scanner threads. */
+    public interface Listener {
+        void onMatch(FileSearcher.Handle search, Match match);
+
+        /** Called exactly once, also after a cancel. */
+        void onFinished(FileSearcher.Handle search, int filesScanned, long bytesScanned, boolean cancelled);
+    }
+
+    private final int parallelism;
+    private final ExecutorService walkers = Executors.newSingleThreadExecutor();
+    private final ExecutorService scanners;
+
+    public ContentSearcher(int parallelism) {
+        this.parallelism = parallelism;
+        this.scanners = Executors.newFixedThreadPool(parallelism);
+    }
+
+    /** Starts searching every file below {@code root} for {@code query}. */
+    public FileSearcher.Handle search(File root, String query, Listener listener) {
+        FileSearcher.Handle handle = new FileSearcher.Handle();
+        Search search = new Search(handle, BytePattern.compile(query), listener);
+        walkers.execute(() -> walk(root, search));
+        return handle;
+    }
+
+    public void shutdown() {
+        walkers.shutdownNow();
+        scanners.shutdownNow();
+    }
+
+    private static final class Search {
+        final FileSearcher.Handle handle;
+        final BytePattern pattern;
+        final Listener listener;
+        final AtomicInteger pending = new AtomicInteger(1); // The walk itself
+        final AtomicInteger files = new AtomicInteger();
+        final AtomicLong bytes = new AtomicLong();
+
+        Search(FileSearcher.Handle handle, BytePattern pattern, Listener listener) {
+            this.handle = handle;
+            this.pattern = pattern;
+            this.listener = listener;
+        }
+
+        void taskDone() {
+            if (pending.decrementAndGet() == 0) {
+                long millis = PerfMetrics.recordSince(METRIC_TOTAL, handle.getStartNanos());
+                Log.d(TAG, String.format(Locale.US, "Scanned %d files, %.1f MB in %d ms (%.1f MB/s)",
+                        files.get(), bytes.get() / 1e6, millis, megabytesPerSecond(bytes.get(), millis)));
+                listener.onFinished(handle, files.get(), bytes.get(), handle.isCancelled());
+            }
+        }
+    }
+
+    static double megabytesPerSecond(long bytes, long millis) {
+        return millis > 0 ? bytes / 1e3 / millis : 0;
+    }
+
+    private void walk(File root, Search search) {
+        // Bounds the files waiting for a scanner, so a huge tree does not pile up in the queue
+        Semaphore queued = new Semaphore(parallelism * QUEUED_FILES_PER_THREAD);
+        try {
+            new TreeWalker(TreeWalker.SymlinkPolicy.SKIP).walk(root, new TreeWalker.SimpleVisitor() {
+                @Override
+                public TreeWalker.Action preVisitDirectory(TreeWalker.Entry dir) {
+                    return search.handle.isCancelled() ? TreeWalker.Action.TERMINATE : TreeWalker.Action.CONTINUE;
+                }
+
+                @Override
+                public TreeWalker.Action visitFile(TreeWalker.Entry file) throws IOException {
+                    if (search.handle.isCancelled()) {
+                        return TreeWalker.Action.TERMINATE;
+                    }
+                    if (!file.isRegularFile() || file.getSize() < search.pattern.length()) {
+                        return TreeWalker.Action.CONTINUE;
+                    }
+                    try {
+                        queued.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return TreeWalker.Action.TERMINATE;
+                    }
+                    search.pending.incrementAndGet();
+                    scanners.execute(() -> {
+                        try {
+                            if (!search.handle.isCancelled()) {
+                                scan(file.getFile(), file.getSize(), search);
+                            }
+                        } finally {
+                            queued.release();
+                            search.taskDone();
+                        }
+                    });
+                    return TreeWalker.Action.CONTINUE;
+                }
+
+                @Override
+                public TreeWalker.Action visitFailed(File file, TreeWalker.Entry entry, IOException error) {
+                    return TreeWalker.Action.CONTINUE; // Unreadable folders are simply not searched
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Content search walk failed in " + root.getAbsolutePath(), e);
+        } finally {
+            search.taskDone();
+        }
+    }
+
+    private static void scan(File file, long size, Search search) {
+        int length = (int) Math.min(size, MAX_BYTES_PER_FILE);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            ByteBuffer buffer;
+            if (length >= MAP_THRESHOLD) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            } else {
+                buffer = ByteBuffer.allocate(length);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // Keep reading until full or EOF
+                }
+                length = buffer.position();
+            }
+            if (isBinary(buffer, length)) {
+                return;
+            }
+            search.files.incrementAndGet();
+            search.bytes.addAndGet(length);
+            findMatches(file, buffer, length, search);
+        } catch (IOException | RuntimeException e) {
+            // Unreadable files are skipped; a file truncated while mapped surfaces as an InternalError
+            Log.w(TAG, "Could not scan " + file.getAbsolutePath() + ": " + e.getMessage());
+        } catch (InternalError e) {
+            Log.w(TAG, "File changed while scanning " + file.getAbsolutePath());
+        }
+    }
+
+    static boolean isBinary(ByteBuffer buffer, int length) {
+        int end = Math.min(length, SNIFF_BYTES);
+        for (int i = 0; i < end; i++) {
+            if (buffer.get(i) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void findMatches(File file, ByteBuffer buffer, int length, Search search) {
+        int matches = 0;
+        int lineNumber = 1;
+        int counted = 0; // Newlines before this offset are included in lineNumber
+        int from = 0;
+        while (matches < MAX_MATCHES_PER_FILE && !search.handle.isCancelled()) {
+            int at = search.pattern.indexOf(buffer, from, length);
+            if (at < 0) {
+                break;
+            }
+            for (; counted < at; counted++) {
+                if (buffer.get(counted) == '\n') {
+                    lineNumber++;
+                }
+            }
+            int lineStart = lineStart(buffer, at);
+            int lineEnd = lineEnd(buffer, at, length);
+            String line = text(buffer, Math.max(lineStart, at - MAX_CONTEXT_BYTES),
+                    Math.min(lineEnd, at + search.pattern.length() + MAX_CONTEXT_BYTES));
+            String before = lineStart > 0 ? lineText(buffer, lineStart(buffer, lineStart - 1), lineStart - 1) : null;
+            String after = lineEnd < length ? lineText(buffer, lineEnd + 1, lineEnd(buffer, lineEnd + 1, length)) : null;
+            search.listener.onMatch(search.handle, new Match(file, lineNumber, line, before, after));
+            matches++;
+            from = lineEnd + 1; // One report per line
+        }
+    }
+
+    /** Offset just after the previous newline, looking back at most a few KB. */
+    private static int lineStart(ByteBuffer buffer, int offset) {
+        int limit = Math.max(0, offset - SNIFF_BYTES);
+        for (int i = offset - 1; i >= limit; i--) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+
+    /** Offset of the next newline (or the end), looking ahead at most a few KB. */
+    private static int lineEnd(ByteBuffer buffer, int offset, int length) {
+        int limit = Math.min(length, offset + SNIFF_BYTES);
+        for (int i = offset; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    private static String lineText(ByteBuffer buffer, int start, int end) {
+        return text(buffer, start, Math.min(end, start + 2 * MAX_CONTEXT_BYTES));
+    }
+
+    private static String text(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[Math.max(0, end - start)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+    }
+
+    /**
+     * A compiled query for Boyer-Moore-Horspool: the pattern's UTF-8 bytes, ASCII letters
+     * folded to lower case, and the shift for each byte that can end a mismatched window.
+     */
+    static final class BytePattern {
+        private static final byte[] FOLD = new byte[256];
+
+        static {
+            for (int i = 0; i < 256; i++) {
+                FOLD[i] = (byte) (i >= 'A' && i <= 'Z' ? i + ('a' - 'A') : i);
+            }
+        }
+
+        private final byte[] bytes;
+        private final int[] shift = new int[256];
+
+        private BytePattern(byte[] bytes) {
+            this.bytes = bytes;
+            Arrays.fill(shift, bytes.length);
+            for (int i = 0; i < bytes.length - 1; i++) {
+                shift[bytes[i] & 0xFF] = bytes.length - 1 - i;
+            }
+        }
+
+        static BytePattern compile(String query) {
+            byte[] bytes = query.getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = FOLD[bytes[i] & 0xFF];
+            }
+            return new BytePattern(bytes);
+        }
+
+        int length() {
+            return bytes.length;
+        }
+
+        /** First offset in [from, end) where the pattern starts, or -1. */
+        int indexOf(ByteBuffer buffer, int from, int end) {
+            int last = bytes.length - 1;
+            if (last < 0) {
+                return from <= end ? from : -1;
+            }
+            byte lastByte = bytes[last];
+            for (int i = from; i + last < end; ) {
+                byte b = FOLD[buffer.get(i + last) & 0xFF];
+                if (b == lastByte) {
+                    int j = last - 1;
+                    while (j >= 0 && FOLD[buffer.get(i + j) & 0xFF] == bytes[j]) {
+                        j--;
+                    }
+                    if (j < 0) {
+                        return i;
+                    }
+                }
+                i += shift[b & 0xFF];
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package com.example.filemanagerapplication;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.LruCache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Detects a file's type from its first bytes, for files whose extension is missing or unknown.
+ *
+ * At most {@link #HEADER_BYTES} are read per file. Rows ask through {@link #request}; the
+ * requests made while one frame is bound are flushed together as a single background task,
+ * and all of its verdicts come back in one main-thread message. Verdicts are cached by path
+ * and checked against the file's size and mtime before being reused off the main thread.
+ */
+public class ContentTypeSniffer {
+
+    static final int HEADER_BYTES = 512; // Enough for the tar magic at offset 257
+    private static final int CACHE_ENTRIES = 4096;
+
+    /** What a file looks like; {@link #UNKNOWN} if nothing matched. */
+    public static final class Verdict {
+        public static final Verdict UNKNOWN = new Verdict(FileTypeClassifier.Category.OTHER, null);
+
+        public final FileTypeClassifier.Category category;
+        public final String mimeType; // Null if unknown
+        final long length;
+        final long lastModified;
+
+        Verdict(FileTypeClassifier.Category category, String mimeType) {
+            this(category, mimeType, -1, 0);
+        }
+
+        private Verdict(FileTypeClassifier.Category category, String mimeType, long length, long lastModified) {
+            this.category = category;
+            this.mimeType = mimeType;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        Verdict stamped(long length, long lastModified) {
+            return new Verdict(category, mimeType, length, lastModified);
+        }
+    }
+
+    /** Called on the main thread. */
+    public interface Callback {
+        void onVerdict(File file, Verdict verdict);
+    }
+
+    private static ContentTypeSniffer instance;
+
+    public static synchronized ContentTypeSniffer get() {
+        if (instance == null) {
+            instance = new ContentTypeSniffer();
+        }
+        return instance;
+    }
+
+    private final LruCache<String, Verdict> cache = new LruCache<>(CACHE_ENTRIES);
+    private final Map<Object, Pending> requests = new ConcurrentHashMap<>(); // Owner (row) -> its latest request
+    private final List<Pending> batch = new ArrayList<>(); // Main thread only
+    private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(() -> {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        r.run();
+    }, "ContentTypeSniffer"));
+    private final Runnable flush = this::flushBatch;
+
+    private ContentTypeSniffer() {
+    }
+
+    private static final class Pending {
+        final File file;
+        final Object owner;
+        final Callback callback;
+        volatile Verdict verdict;
+
+        Pending(File file, Object owner, Callback callback) {
+            this.file = file;
+            this.owner = owner;
+            this.callback = callback;
+        }
+    }
+
+    /** Memoized verdict, or null; never touches the disk. */
+    public Verdict getCached(File file) {
+        return cache.get(file.getAbsolutePath());
+    }
+
+    /** Queues {@code file} for {@code owner}, replacing whatever it asked before. Main thread only. */
+    public void request(File file, Object owner, Callback callback) {
+        Pending pending = new Pending(file, owner, callback);
+        requests.put(owner, pending);
+        if (batch.isEmpty()) {
+            mainThreadHandler.post(flush); // After the current layout pass has bound its rows
+        }
+        batch.add(pending);
+    }
+
+    /** Forgets the request of {@code owner} (e.g. its row scrolled off). Main thread only. */
+    public void cancel(Object owner) {
+        requests.remove(owner);
+    }
+
+    /** Forgets {@code file} and everything below it. */
+    public void invalidate(File file) {
+        String path = file.getAbsolutePath();
+        for (String key : cache.snapshot().keySet()) {
+            if (FileIndex.isInside(key, path)) {
+                cache.remove(key);
+            }
+        }
+    }
+
+    private void flushBatch() {
+        List<Pending> work = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            if (requests.get(pending.owner) == pending) {
+                work.add(pending); // Rows rebound or recycled before the flush are skipped
+            }
+        }
+        batch.clear();
+        if (work.isEmpty()) {
+            return;
+        }
+        executor.execute(() -> {
+            byte[] header = new byte[HEADER_BYTES];
+            for (Pending pending : work) {
+                if (requests.get(pending.owner) == pending) {
+                    pending.verdict = sniff(pending.file, header);
+                }
+            }
+            mainThreadHandler.post(() -> {
+                for (Pending pending : work) {
+                    if (pending.verdict != null && requests.remove(pending.owner, pending)) {
+                        pending.callback.onVerdict(pending.file, pending.verdict);
+                    }
+                }
+            });
+        });
+    }
+
+    /** Blocking; reads at most {@link #HEADER_BYTES}. Uses the cache while size and mtime match. */
+    public Verdict sniff(File file) {
+        return sniff(file, new byte[HEADER_BYTES]);
+    }
+
+    private Verdict sniff(File file, byte[] header) {
+        String path = file.getAbsolutePath();
+        long length = file.length();
+        long lastModified = file.lastModified();
+        Verdict cached = cache.get(path);
+        if (cached != null && cached.length == length && cached.lastModified == lastModified) {
+            return cached;
+        }
+        int read = 0;
+        try (InputStream in = new FileInputStream(file)) {
+            int n;
+            while (read < header.length && (n = in.read(header, read, header.length - read)) > 0) {
+                read += n;
+            }
+        } catch (IOException e) {
+            return Verdict.UNKNOWN; // Unreadable: not cached, it may become readable
+        }
+        Verdict verdict = detect(header, read).stamped(length, lastModified);
+        cache.put(path, verdict);
+        return verdict;
+    }
+
+    /** Classifies the first {@code length} bytes of a file. */
+    static Verdict detect(byte[] h, int length) {
+        if (length == 0) {
+            return Verdict.UNKNOWN;
+        }
+        // Images
+        if (startsWith(h, length, 0, 0xFF, 0xD8, 0xFF)) {
+            return image("image/jpeg");
+        }
+        if (startsWith(h, length, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return image("image/png");
+        }
+        if (startsWith(h, length, 0, 'G', 'I', 'F', '8') && length > 5 && (h[4] == '7' || h[4] == '9') && h[5] == 'a') {
+            return image("image/gif");
+        }
+        if (startsWith(h, length, 0, 'R', 'I', 'F', 'F')) {
+            if (startsWith(h, length, 8, 'W', 'E', 'B', 'P')) {
+                return image("image/webp");
+            }
+            if (startsWith(h, length, 8, 'W', 'A', 'V', 'E')) {
+                return new Verdict(FileTypeClassifier.Category.AUDIO, "audio/x-wav");
+            }
+            if (startsWith(h, length, 8, 'A', 'V', 'I', ' ')) {
+                return new Verdict(FileTypeClassifier.Category.VIDEO, "video/x-msvideo");
+            }
+        }
+        if (startsWith(h, length, 0, 'B', 'M') && length >= 14 && h[6] == 0 && h[7] == 0 && h[8] == 0 && h[9] == 0) {
+            return image("image/bmp"); // Reserved header words are zero
+        }
+        // ISO base media (MP4, MOV, 3GP, M4A, HEIC): a box size, then "ftyp" and the brand
+        if (startsWith(h, length, 4, 'f', 't', 'y', 'p') && length >= 12) {
+            return isoMedia(new String(h, 8, 4, StandardCharsets.US_ASCII));
+        }
+        if (startsWith(h, length, 0, 0x1A, 0x45, 0xDF, 0xA3)) { // EBML: Matroska or WebM
+            boolean webm = indexOf(h, length, "webm".getBytes(StandardCharsets.US_ASCII)) >= 0;
+            return new Verdict(FileTypeClassifier.Category.VIDEO, webm ? "video/webm" : "video/x-matroska");
+        }
+        // Audio
+        if (startsWith(h, length, 0, 'I', 'D', '3')) {
+            return new Verdict(FileTypeClassifier.Category.AUDIO, "audio/mpeg");
+        }
+        if (startsWith(h, length, 0, 'f', 'L', 'a', 'C')) {
+            return new Verdict(FileTypeClassifier.Category.AUDIO, "audio/flac");
+        }
+        if (startsWith(h, length, 0, 'O', 'g', 'g', 'S')) {
+            return new Verdict(FileTypeClassifier.Category.AUDIO, "audio/ogg");
+        }
+        if (length >= 3 && (h[0] & 0xFF) == 0xFF && (h[1] & 0xE0) == 0xE0) {
+            int version = (h[1] >> 3) & 3;
+            int layer = (h[1] >> 1) & 3;
+            int bitrate = (h[2] >> 4) & 0xF;
+            if (layer == 0 && (h[1] & 0xF6) == 0xF0) {
+                return new Verdict(FileTypeClassifier.Category.AUDIO, "audio/aac"); // ADTS
+            }
+            if (layer != 0 && version != 1 && bitrate != 0xF) {
+                return new Verdict(FileTypeClassifier.Category.AUDIO, "audio/mpeg"); // MPEG frame sync
+            }
+        }
+        // Documents
+        if (startsWith(h, length, 0, '%', 'P', 'D', 'F', '-')) {
+            return new Verdict(FileTypeClassifier.Category.PDF, "application/pdf");
+        }
+        if (startsWith(h, length, 0, 'P', 'K', 0x03, 0x04)) {
+            return zip(h, length);
+        }
+        // Archives
+        if (startsWith(h, length, 0, 'R', 'a', 'r', '!', 0x1A, 0x07)) {
+            return archive("application/x-rar-compressed");
+        }
+        if (startsWith(h, length, 0, '7', 'z', 0xBC, 0xAF, 0x27, 0x1C)) {
+            return archive("application/x-7z-compressed");
+        }
+        if (startsWith(h, length, 0, 0x1F, 0x8B)) {
+            return archive("application/gzip");
+        }
+        if (startsWith(h, length, 0, 0xFD, '7', 'z', 'X', 'Z', 0x00)) {
+            return archive("application/x-xz");
+        }
+        if (startsWith(h, length, 0, 'B', 'Z', 'h') && length > 3 && h[3] >= '1' && h[3] <= '9') {
+            return archive("application/x-bzip2");
+        }
+        if (startsWith(h, length, 257, 'u', 's', 't', 'a', 'r')) {
+            return archive("application/x-tar");
+        }
+        return text(h, length);
+    }
+
+    private static Verdict image(String mimeType) {
+        return new Verdict(FileTypeClassifier.Category.IMAGE, mimeType);
+    }
+
+    private static Verdict archive(String mimeType) {
+        return new Verdict(FileTypeClassifier.Category.ARCHIVE, mimeType);
+    }
+
+    private static Verdict isoMedia(String brand) {
+        switch (brand) {
+            case "heic":
+            case "heix":
+            case "heim":
+            case "heis":
+            case "mif1":
+            case "msf1":
+                return image("image/heic");
+            case "avif":
+                return image("image/avif");
+            case "M4A ":
+            case "M4B ":
+                return new Verdict(FileTypeClassifier.Category.AUDIO, "audio/mp4");
+            case "qt  ":
+                return new Verdict(FileTypeClassifier.Category.VIDEO, "video/quicktime");
+            default:
+                if (brand.startsWith("3g")) {
+                    return new Verdict(FileTypeClassifier.Category.VIDEO, "video/3gpp");
+                }
+                return new Verdict(FileTypeClassifier.Category.VIDEO, "video/mp4");
+        }
+    }
+
+    /** ZIP containers are told apart by the name (and, for ODF, the content) of their first entry. */
+    private static Verdict zip(byte[] h, int length) {
+        if (length >= 30) {
+            int nameLength = (h[26] & 0xFF) | (h[27] & 0xFF) << 8;
+            int extraLength = (h[28] & 0xFF) | (h[29] & 0xFF) << 8;
+            if (30 + nameLength <= length) {
+                String name = new String(h, 30, nameLength, StandardCharsets.UTF_8);
+                if (name.equals("AndroidManifest.xml") || name.equals("classes.dex")
+                        || name.startsWith("META-INF/com/android/")) {
+                    return new Verdict(FileTypeClassifier.Category.APK, "application/vnd.android.package-archive");
+                }
+                int content = 30 + nameLength + extraLength;
+                boolean uncompressed = (h[8] | h[9]) == 0 && (h[20] | h[21]) == 0; // Method 0, size under 64 KB
+                int stored = uncompressed ? (h[18] & 0xFF) | (h[19] & 0xFF) << 8 : 0;
+                if (name.equals("mimetype") && stored > 0 && stored <= 80 && content + stored <= length) {
+                    // ODF stores its MIME type uncompressed as the first entry
+                    String mimeType = new String(h, content, stored, StandardCharsets.US_ASCII);
+                    if (mimeType.startsWith("application/vnd.oasis.opendocument.")) {
+                        return new Verdict(FileTypeClassifier.Category.DOCUMENT, mimeType);
+                    }
+                }
+            }
+        }
+        return archive("application/zip");
+    }
+
+    /** Text if it has no NUL, no stray control characters and decodes as UTF-8 (a cut final character is fine). */
+    private static Verdict text(byte[] h, int length) {
+        int i = 0;
+        while (i < length) {
+            int b = h[i] & 0xFF;
+            if (b < 0x80) {
+                if (b < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f' && b != 0x1B) {
+                    return Verdict.UNKNOWN;
+                }
+                i++;
+                continue;
+            }
+            int continuation;
+            if (b >= 0xC2 && b <= 0xDF) {
+                continuation = 1;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                continuation = 2;
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                continuation = 3;
+            } else {
+                return Verdict.UNKNOWN; // Not a lead byte
+            }
+            for (int k = 1; k <= continuation; k++) {
+                if (i + k >= length) {
+                    break; // Header ends mid-character
+                }
+                if ((h[i + k] & 0xC0) != 0x80) {
+                    return Verdict.UNKNOWN;
+                }
+            }
+            i += continuation + 1;
+        }
+        String start = new String(h, 0, Math.min(length, 64), StandardCharsets.ISO_8859_1).trim().toLowerCase(Locale.ROOT);
+        if (start.startsWith("<!doctype html") || start.startsWith("<html")) {
+            return new Verdict(FileTypeClassifier.Category.DOCUMENT, "text/html");
+        }
+        if (start.startsWith("<?xml")) {
+            return new Verdict(FileTypeClassifier.Category.DOCUMENT, "text/xml");
+        }
+        return new Verdict(FileTypeClassifier.Category.DOCUMENT, "text/plain");
+    }
+
+    private static boolean startsWith(byte[] h, int length, int offset, int... magic) {
+        if (offset + magic.length > length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((h[offset + i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] h, int length, byte[] needle) {
+        outer:
+        for (int i = 0; i + needle.length <= length; i++) {
+            for (int k = 0; k < needle.length; k++) {
+                if (h[i + k] != needle[k]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
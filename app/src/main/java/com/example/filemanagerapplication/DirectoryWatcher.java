@@ -0,0 +1,64 @@
+package com.example.filemanagerapplication;
+
+import android.os.FileObserver;
+
+import java.io.File;
+
+/**
+ * Watches one folder for entries created or removed by other apps. {@link FileObserver}
+ * (inotify) is not recursive, so only the folder being shown is watched; changes elsewhere
+ * reach {@link FileIndex} through operation callbacks or the periodic rebuild.
+ */
+public class DirectoryWatcher {
+
+    private static final int EVENTS = FileObserver.CREATE | FileObserver.DELETE
+            | FileObserver.MOVED_FROM | FileObserver.MOVED_TO;
+
+    /** Called on the observer's own thread. */
+    public interface Listener {
+        void onChildCreated(File child);
+
+        void onChildDeleted(File child);
+    }
+
+    private final File directory;
+    private final FileObserver observer;
+
+    @SuppressWarnings("deprecation") // FileObserver(File, int) needs API 29
+    public DirectoryWatcher(File directory, Listener listener) {
+        this.directory = directory;
+        this.observer = new FileObserver(directory.getAbsolutePath(), EVENTS) {
+            @Override
+            public void onEvent(int event, String path) {
+                if (path == null) {
+                    return;
+                }
+                File child = new File(directory, path);
+                switch (event & FileObserver.ALL_EVENTS) {
+                    case FileObserver.CREATE:
+                    case FileObserver.MOVED_TO:
+                        listener.onChildCreated(child);
+                        break;
+                    case FileObserver.DELETE:
+                    case FileObserver.MOVED_FROM:
+                        listener.onChildDeleted(child);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        };
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public void start() {
+        observer.startWatching();
+    }
+
+    public void stop() {
+        observer.stopWatching();
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.filemanagerapplication;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Finds files with identical contents below a folder.
+ *
+ * Work is cut down in three stages: files are grouped by size (one walk, no reads); files
+ * sharing a size are hashed over their first and last {@link #EDGE_BYTES}; only files that
+ * still collide are hashed in full. Hashing runs on a thread pool and reads through
+ * read-only memory maps, a window at a time so huge files do not exhaust address space.
+ */
+public class DuplicateFinder {
+
+    private static final String TAG = "DuplicateFinder";
+    static final String METRIC_TOTAL = "duplicates.total";
+
+    static final int EDGE_BYTES = 4096;
+    private static final long MAP_WINDOW = 8L * 1024 * 1024;
+
+    /** Files with the same contents, oldest first. */
+    public static final class Group {
+        public final long size;
+        public final List<File> files;
+
+        Group(long size, List<File> files) {
+            this.size = size;
+            this.files = files;
+        }
+
+        /** Bytes freed by keeping only one copy. */
+        public long getReclaimableBytes() {
+            return size * (files.size() - 1);
+        }
+    }
+
+    /** Progress callbacks arrive on the calling thread. */
+    public interface ProgressListener {
+        void onProgress(String stage, int done, int total);
+    }
+
+    private final ExecutorService hashers;
+
+    public DuplicateFinder(int parallelism) {
+        hashers = Executors.newFixedThreadPool(parallelism);
+    }
+
+    public void shutdown() {
+        hashers.shutdownNow();
+    }
+
+    /**
+     * Blocks until done; call it from a background thread. Groups are sorted by reclaimable
+     * bytes, largest first. Returns what was found so far if {@code handle} is cancelled.
+     */
+    public List<Group> find(File root, FileSearcher.Handle handle, ProgressListener progress) throws InterruptedException {
+        long start = System.nanoTime();
+        Map<Long, List<TreeWalker.Entry>> bySize = new HashMap<>();
+        try {
+            new TreeWalker(TreeWalker.SymlinkPolicy.SKIP).walk(root, new TreeWalker.SimpleVisitor() {
+                @Override
+                public TreeWalker.Action visitFile(TreeWalker.Entry file) {
+                    if (handle.isCancelled()) {
+                        return TreeWalker.Action.TERMINATE;
+                    }
+                    if (file.isRegularFile() && file.getSize() > 0) {
+                        List<TreeWalker.Entry> sameSize = bySize.get(file.getSize());
+                        if (sameSize == null) {
+                            sameSize = new ArrayList<>(2);
+                            bySize.put(file.getSize(), sameSize);
+                        }
+                        sameSize.add(file);
+                    }
+                    return TreeWalker.Action.CONTINUE;
+                }
+
+                @Override
+                public TreeWalker.Action visitFailed(File file, TreeWalker.Entry entry, IOException error) {
+                    return TreeWalker.Action.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            Log.w(TAG, "Walk failed below " + root.getAbsolutePath(), e);
+        }
+
+        List<List<TreeWalker.Entry>> candidates = new ArrayList<>();
+        for (List<TreeWalker.Entry> sameSize : bySize.values()) {
+            if (sameSize.size() > 1) {
+                candidates.add(sameSize);
+            }
+        }
+        candidates = regroup(candidates, true, handle, progress);
+        // Files no larger than both edges were read completely by the partial hash already
+        List<List<TreeWalker.Entry>> needFullHash = new ArrayList<>();
+        List<List<TreeWalker.Entry>> confirmed = new ArrayList<>();
+        for (List<TreeWalker.Entry> group : candidates) {
+            (group.get(0).getSize() > 2L * EDGE_BYTES ? needFullHash : confirmed).add(group);
+        }
+        confirmed.addAll(regroup(needFullHash, false, handle, progress));
+
+        List<Group> groups = new ArrayList<>(confirmed.size());
+        for (List<TreeWalker.Entry> entries : confirmed) {
+            Collections.sort(entries, (a, b) -> Long.compare(a.getLastModified(), b.getLastModified()));
+            List<File> files = new ArrayList<>(entries.size());
+            for (TreeWalker.Entry entry : entries) {
+                files.add(entry.getFile());
+            }
+            groups.add(new Group(entries.get(0).getSize(), files));
+        }
+        Collections.sort(groups, (a, b) -> Long.compare(b.getReclaimableBytes(), a.getReclaimableBytes()));
+        PerfMetrics.recordSince(METRIC_TOTAL, start);
+        return groups;
+    }
+
+    /** Splits every group by hash (edges only or full contents); keeps the parts with 2+ files. */
+    private List<List<TreeWalker.Entry>> regroup(List<List<TreeWalker.Entry>> groups, boolean edgesOnly,
+                                                 FileSearcher.Handle handle, ProgressListener progress)
+            throws InterruptedException {
+        List<TreeWalker.Entry> files = new ArrayList<>();
+        for (List<TreeWalker.Entry> group : groups) {
+            files.addAll(group);
+        }
+        List<Future<ByteBuffer>> hashes = new ArrayList<>(files.size());
+        for (TreeWalker.Entry file : files) {
+            hashes.add(hashers.submit(() -> handle.isCancelled() ? null : hash(file.getFile(), file.getSize(), edgesOnly)));
+        }
+        String stage = edgesOnly ? "Comparing file edges" : "Comparing full contents";
+        List<List<TreeWalker.Entry>> result = new ArrayList<>();
+        int done = 0;
+        for (List<TreeWalker.Entry> group : groups) {
+            Map<ByteBuffer, List<TreeWalker.Entry>> byHash = new HashMap<>();
+            for (TreeWalker.Entry file : group) {
+                ByteBuffer hash;
+                try {
+                    hash = hashes.get(done++).get();
+                } catch (ExecutionException e) {
+                    Log.w(TAG, "Could not hash " + file.getFile().getAbsolutePath() + ": " + e.getCause());
+                    continue; // Unreadable files cannot be proven duplicates
+                }
+                if (hash == null) {
+                    continue;
+                }
+                List<TreeWalker.Entry> sameHash = byHash.get(hash);
+                if (sameHash == null) {
+                    sameHash = new ArrayList<>(2);
+                    byHash.put(hash, sameHash);
+                }
+                sameHash.add(file);
+            }
+            for (List<TreeWalker.Entry> sameHash : byHash.values()) {
+                if (sameHash.size() > 1) {
+                    result.add(sameHash);
+                }
+            }
+            if (progress != null) {
+                progress.onProgress(stage, done, files.size());
+            }
+        }
+        return result;
+    }
+
+    /** SHA-1 of the whole file, or of its first and last {@link #EDGE_BYTES}. */
+    static ByteBuffer hash(File file, long size, boolean edgesOnly) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            if (edgesOnly && size > 2L * EDGE_BYTES) {
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, EDGE_BYTES));
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, size - EDGE_BYTES, EDGE_BYTES));
+            } else {
+                for (long position = 0; position < size; position += MAP_WINDOW) {
+                    digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, size - position)));
+                }
+            }
+        } catch (InternalError e) {
+            throw new IOException("File changed while hashing", e); // Truncated under a mapping
+        }
+        return ByteBuffer.wrap(digest.digest());
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.filemanagerapplication;
+
+import android.content.Context;
+import android.text.format.Formatter;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.CheckBox;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Adapter cho kết quả tìm file trùng lặp: mỗi nhóm có một dòng tiêu đề, sau đó là các bản sao
+ * kèm checkbox. Mặc định chọn mọi bản trừ bản cũ nhất.
+ */
+public class DuplicateGroupAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+    private static final int TYPE_HEADER = 0;
+    private static final int TYPE_FILE = 1;
+
+    interface OnSelectionChangedListener {
+        void onSelectionChanged(int count, long bytes);
+    }
+
+    /** A header (file == null) or one copy of a group. */
+    private static final class Row {
+        final DuplicateFinder.Group group;
+        final File file;
+
+        Row(DuplicateFinder.Group group, File file) {
+            this.group = group;
+            this.file = file;
+        }
+    }
+
+    private final Context context;
+    private final List<Row> rows = new ArrayList<>();
+    private final Set<File> selected = new HashSet<>();
+    private final OnSelectionChangedListener listener;
+    private long selectedBytes;
+
+    public DuplicateGroupAdapter(Context context, OnSelectionChangedListener listener) {
+        this.context = context;
+        this.listener = listener;
+    }
+
+    public void setGroups(List<DuplicateFinder.Group> groups) {
+        rows.clear();
+        selected.clear();
+        selectedBytes = 0;
+        for (DuplicateFinder.Group group : groups) {
+            rows.add(new Row(group, null));
+            for (int i = 0; i < group.files.size(); i++) {
+                File file = group.files.get(i);
+                rows.add(new Row(group, file));
+                if (i > 0) {
+                    selected.add(file);
+                    selectedBytes += group.size;
+                }
+            }
+        }
+        notifyDataSetChanged();
+        listener.onSelectionChanged(selected.size(), selectedBytes);
+    }
+
+    public List<File> getSelectedFiles() {
+        List<File> files = new ArrayList<>();
+        for (Row row : rows) {
+            if (row.file != null && selected.contains(row.file)) {
+                files.add(row.file);
+            }
+        }
+        return files;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return rows.get(position).file == null ? TYPE_HEADER : TYPE_FILE;
+    }
+
+    @NonNull
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        LayoutInflater inflater = LayoutInflater.from(context);
+        if (viewType == TYPE_HEADER) {
+            return new HeaderViewHolder(inflater.inflate(R.layout.duplicate_group_header, parent, false));
+        }
+        return new FileViewHolder(inflater.inflate(R.layout.recycler_item, parent, false));
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        Row row = rows.get(position);
+        if (holder instanceof HeaderViewHolder) {
+            ((HeaderViewHolder) holder).textView.setText(row.group.files.size() + " copies × "
+                    + Formatter.formatShortFileSize(context, row.group.size) + " — "
+                    + Formatter.formatShortFileSize(context, row.group.getReclaimableBytes()) + " reclaimable");
+            return;
+        }
+        FileViewHolder fileHolder = (FileViewHolder) holder;
+        fileHolder.textView.setText(row.file.getName() + "\n" + row.file.getParent());
+        fileHolder.imageView.setImageResource(R.drawable.ic_baseline_insert_drive_file_24);
+        fileHolder.checkBox.setChecked(selected.contains(row.file));
+        View.OnClickListener toggle = v -> {
+            if (selected.remove(row.file)) {
+                selectedBytes -= row.group.size;
+            } else {
+                selected.add(row.file);
+                selectedBytes += row.group.size;
+            }
+            fileHolder.checkBox.setChecked(selected.contains(row.file));
+            listener.onSelectionChanged(selected.size(), selectedBytes);
+        };
+        fileHolder.checkBox.setOnClickListener(toggle);
+        fileHolder.itemView.setOnClickListener(toggle);
+    }
+
+    @Override
+    public int getItemCount() {
+        return rows.size();
+    }
+
+    static class HeaderViewHolder extends RecyclerView.ViewHolder {
+        final TextView textView;
+
+        HeaderViewHolder(View itemView) {
+            super(itemView);
+            textView = itemView.findViewById(R.id.duplicate_group_text_view);
+        }
+    }
+
+    static class FileViewHolder extends RecyclerView.ViewHolder {
+        final TextView textView;
+        final ImageView imageView;
+        final CheckBox checkBox;
+
+        FileViewHolder(View itemView) {
+            super(itemView);
+            textView = itemView.findViewById(R.id.file_name_text_view);
+            imageView = itemView.findViewById(R.id.icon_view);
+            checkBox = itemView.findViewById(R.id.checkbox);
+        }
+    }
+}
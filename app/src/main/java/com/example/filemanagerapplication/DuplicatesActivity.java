@@ -0,0 +1,164 @@
+package com.example.filemanagerapplication;
+
+import android.app.Activity;
+import android.app.ProgressDialog;
+import android.content.DialogInterface;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.format.Formatter;
+import android.util.Log;
+import android.widget.Button;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Tìm các file trùng lặp trong thư mục hiện tại.
+ *
+ * The scan runs in the background behind a cancellable progress dialog. Deleting does not
+ * happen here: the selected files go back to {@link FileListActivity}, which removes them
+ * through its usual confirmed, locked delete. They are handed over in process by
+ * {@link #takeFilesToDelete()}, not as an Intent extra: thousands of paths would overflow
+ * the Binder transaction and throw TransactionTooLargeException.
+ */
+public class DuplicatesActivity extends AppCompatActivity implements DuplicateGroupAdapter.OnSelectionChangedListener {
+
+    private static final String TAG = "DuplicatesActivity";
+    public static final String EXTRA_ROOT_PATH = "path";
+
+    private static List<File> filesToDelete; // Guarded by DuplicatesActivity.class; set with RESULT_OK
+
+    private TextView statusTextView;
+    private Button deleteButton;
+    private DuplicateGroupAdapter adapter;
+    private Handler mainThreadHandler;
+    private ExecutorService executorService;
+    private DuplicateFinder finder;
+    private FileSearcher.Handle scan;
+    private ProgressDialog progressDialog;
+    private String summary = "";
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_duplicates);
+
+        statusTextView = findViewById(R.id.duplicates_status_text_view);
+        deleteButton = findViewById(R.id.delete_duplicates_button);
+        RecyclerView recyclerView = findViewById(R.id.duplicates_recycler_view);
+
+        mainThreadHandler = new Handler(Looper.getMainLooper());
+        executorService = Executors.newSingleThreadExecutor();
+        finder = new DuplicateFinder(Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+        adapter = new DuplicateGroupAdapter(this, this);
+        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        recyclerView.setAdapter(adapter);
+        deleteButton.setOnClickListener(v -> returnSelection());
+
+        String path = getIntent().getStringExtra(EXTRA_ROOT_PATH);
+        File root = new File(path != null ? path : "/");
+        setTitle("Duplicates in " + root.getName());
+        startScan(root);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (scan != null) {
+            scan.cancel();
+        }
+        if (progressDialog != null && progressDialog.isShowing()) {
+            progressDialog.dismiss();
+        }
+        executorService.shutdownNow();
+        finder.shutdown();
+    }
+
+    private void startScan(File root) {
+        FileSearcher.Handle handle = new FileSearcher.Handle();
+        scan = handle;
+        progressDialog = new ProgressDialog(this);
+        progressDialog.setTitle("Finding duplicates");
+        progressDialog.setMessage("Grouping files by size...");
+        progressDialog.setCancelable(false);
+        progressDialog.setButton(DialogInterface.BUTTON_NEGATIVE, "Cancel", (dialog, which) -> handle.cancel());
+        progressDialog.show();
+
+        executorService.execute(() -> {
+            List<DuplicateFinder.Group> groups;
+            try {
+                groups = finder.find(root, handle, (stage, done, total) -> mainThreadHandler.post(() -> {
+                    if (progressDialog != null && progressDialog.isShowing()) {
+                        progressDialog.setMessage(stage + " (" + done + "/" + total + ")...");
+                    }
+                }));
+            } catch (InterruptedException e) {
+                return; // Activity destroyed
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Duplicate scan failed", e);
+                groups = new ArrayList<>();
+            }
+            long millis = (System.nanoTime() - handle.getStartNanos()) / 1_000_000;
+            List<DuplicateFinder.Group> finalGroups = groups;
+            mainThreadHandler.post(() -> {
+                if (isFinishing() || isDestroyed()) {
+                    return;
+                }
+                if (progressDialog != null && progressDialog.isShowing()) {
+                    progressDialog.dismiss();
+                }
+                progressDialog = null;
+                long reclaimable = 0;
+                for (DuplicateFinder.Group group : finalGroups) {
+                    reclaimable += group.getReclaimableBytes();
+                }
+                summary = String.format(Locale.US, "%s%d group(s), %s reclaimable (%d ms)",
+                        handle.isCancelled() ? "Cancelled: " : "", finalGroups.size(),
+                        Formatter.formatShortFileSize(this, reclaimable), millis);
+                adapter.setGroups(finalGroups);
+                if (finalGroups.isEmpty()) {
+                    Toast.makeText(this, "No duplicates found.", Toast.LENGTH_SHORT).show();
+                }
+            });
+        });
+    }
+
+    @Override
+    public void onSelectionChanged(int count, long bytes) {
+        statusTextView.setText(summary + "\n" + count + " selected, "
+                + Formatter.formatShortFileSize(this, bytes));
+        deleteButton.setEnabled(count > 0);
+    }
+
+    private void returnSelection() {
+        List<File> files = adapter.getSelectedFiles();
+        synchronized (DuplicatesActivity.class) {
+            filesToDelete = files;
+        }
+        setResult(Activity.RESULT_OK);
+        finish();
+    }
+
+    /**
+     * The files picked by the last RESULT_OK, or an empty list; each pick is handed out once.
+     * After process death it is empty, so nothing is deleted without a new pick.
+     */
+    static synchronized List<File> takeFilesToDelete() {
+        List<File> files = filesToDelete;
+        filesToDelete = null;
+        return files != null ? files : Collections.emptyList();
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.filemanagerapplication;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Two-stage pipeline for sequential archive extraction.
+ *
+ * The calling thread inflates entry data (from a {@link java.util.zip.ZipInputStream},
+ * {@link TarArchiveReader}, ...) into a fixed ring of pooled buffers, while a dedicated
+ * writer thread drains them to disk in order. When all buffers are in flight the inflating
+ * side blocks until the writer hands one back, so memory stays at
+ * {@code bufferCount * bufferSize} no matter how far the disk falls behind.
+ *
+ * Not thread-safe on the producer side: one thread calls {@link #extract}, then {@link #close}.
+ */
+public class ExtractionPipeline implements Closeable {
+
+    public static final int DEFAULT_BUFFER_COUNT = 8;
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final int OPEN = 0;
+    private static final int DATA = 1;
+    private static final int CLOSE = 2;
+    private static final int STOP = 3;
+
+    /** One slot in the queue to the writer: either a data buffer or a control marker. */
+    private static final class Chunk {
+        final byte[] data;
+        int kind;
+        int length;
+        File file;
+        long lastModified;
+
+        Chunk(byte[] data) {
+            this.data = data;
+        }
+    }
+
+    private final BlockingQueue<Chunk> freeBuffers;
+    private final BlockingQueue<Chunk> filled;
+    private final Thread writerThread;
+    private volatile IOException failure;
+    private boolean closed;
+
+    // Statistics, read after close()
+    private long bytesWritten;        // writer thread only
+    private long producerStallNanos;  // producer thread only
+    private volatile long writerIdleNanos;
+
+    public ExtractionPipeline() {
+        this(DEFAULT_BUFFER_COUNT, DEFAULT_BUFFER_SIZE);
+    }
+
+    public ExtractionPipeline(int bufferCount, int bufferSize) {
+        freeBuffers = new ArrayBlockingQueue<>(bufferCount);
+        for (int i = 0; i < bufferCount; i++) {
+            freeBuffers.add(new Chunk(new byte[bufferSize]));
+        }
+        // Room for every data buffer plus the open/close markers around them.
+        filled = new ArrayBlockingQueue<>(bufferCount * 2 + 4);
+        writerThread = new Thread(this::runWriter, "extract-writer");
+        writerThread.start();
+    }
+
+    /**
+     * Queues the remaining content of {@code source} to be written to {@code target}. Returns
+     * once everything has been read; the write itself may still be in progress. Does not
+     * close {@code source}.
+     *
+     * @param lastModified modification time to set on the file, or 0 to leave it alone.
+     * @throws IOException if reading fails or an earlier write failed.
+     */
+    public void extract(InputStream source, File target, long lastModified) throws IOException {
+        ensureUsable();
+        Chunk open = new Chunk(null);
+        open.kind = OPEN;
+        open.file = target;
+        enqueue(open);
+
+        while (true) {
+            Chunk chunk = takeFreeBuffer();
+            int length = fill(source, chunk.data);
+            if (length == 0) {
+                freeBuffers.add(chunk);
+                break;
+            }
+            chunk.kind = DATA;
+            chunk.length = length;
+            enqueue(chunk);
+            if (length < chunk.data.length) {
+                break; // fill() only stops short at end of stream
+            }
+        }
+
+        Chunk close = new Chunk(null);
+        close.kind = CLOSE;
+        close.lastModified = lastModified;
+        enqueue(close);
+    }
+
+    /**
+     * Waits until every queued write has reached the disk and stops the writer thread.
+     *
+     * @throws IOException the first write error, if any.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        Chunk stop = new Chunk(null);
+        stop.kind = STOP;
+        try {
+            filled.put(stop);
+            writerThread.join();
+        } catch (InterruptedException e) {
+            writerThread.interrupt();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while finishing extraction", e);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /** Time the inflating thread spent waiting for a free buffer, i.e. waiting on the disk. */
+    public long getProducerStallMillis() {
+        return producerStallNanos / 1_000_000;
+    }
+
+    /** Time the writer thread spent waiting for data, i.e. waiting on inflation. */
+    public long getWriterIdleMillis() {
+        return writerIdleNanos / 1_000_000;
+    }
+
+    // --- Producer side ---
+
+    private void ensureUsable() throws IOException {
+        if (closed) {
+            throw new IOException("Pipeline closed");
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private Chunk takeFreeBuffer() throws IOException {
+        Chunk chunk = freeBuffers.poll();
+        if (chunk != null) {
+            return chunk;
+        }
+        long start = System.nanoTime();
+        try {
+            chunk = freeBuffers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting", e);
+        }
+        producerStallNanos += System.nanoTime() - start;
+        if (failure != null) {
+            freeBuffers.add(chunk);
+            throw failure;
+        }
+        return chunk;
+    }
+
+    private void enqueue(Chunk chunk) throws IOException {
+        try {
+            filled.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting", e);
+        }
+    }
+
+    /** Reads until {@code buffer} is full or the stream ends; fewer handoffs than one read per chunk. */
+    private static int fill(InputStream source, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int n = source.read(buffer, total, buffer.length - total);
+            if (n == -1) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+
+    // --- Writer side ---
+
+    private void runWriter() {
+        FileOutputStream current = null;
+        File currentFile = null;
+        try {
+            while (true) {
+                Chunk chunk = filled.poll();
+                if (chunk == null) {
+                    long start = System.nanoTime();
+                    chunk = filled.take();
+                    writerIdleNanos += System.nanoTime() - start;
+                }
+                if (chunk.kind == STOP) {
+                    return;
+                }
+                if (failure != null) {
+                    // Keep draining so the producer never blocks on a dead writer.
+                    if (chunk.kind == DATA) {
+                        freeBuffers.add(chunk);
+                    }
+                    continue;
+                }
+                try {
+                    switch (chunk.kind) {
+                        case OPEN:
+                            currentFile = chunk.file;
+                            current = new FileOutputStream(currentFile);
+                            break;
+                        case DATA:
+                            current.write(chunk.data, 0, chunk.length);
+                            bytesWritten += chunk.length;
+                            break;
+                        case CLOSE:
+                            current.close();
+                            current = null;
+                            if (chunk.lastModified > 0) {
+                                //noinspection ResultOfMethodCallIgnored
+                                currentFile.setLastModified(chunk.lastModified);
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                    closeQuietly(current);
+                    current = null;
+                } finally {
+                    if (chunk.kind == DATA) {
+                        freeBuffers.add(chunk);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            failure = new IOException("Extraction writer interrupted", e);
+        } finally {
+            closeQuietly(current);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.filemanagerapplication;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Draggable thumb along the right edge of a long {@link RecyclerView}, with a bubble showing
+ * the {@link SectionIndex} label of the row under the finger.
+ *
+ * Laid over the list with the same size; touches outside the thumb strip are not handled and
+ * reach the list below. A drag frame maps the finger to a row position, looks up its label
+ * and jumps there with one scrollToPosition, so only the rows that end up visible are bound,
+ * and nothing happens while the finger stays on the same row. Works with any layout manager
+ * (grid included): the thumb follows the list's own scroll range.
+ */
+public class FastScroller extends View {
+
+    private static final long HIDE_DELAY_MS = 1500;
+    private static final int MIN_SCREENS = 5; // Shorter lists scroll fine with a fling
+
+    private final float thumbWidth;
+    private final float thumbHeight;
+    private final float touchWidth;
+    private final float bubbleHeight;
+    private final float margin;
+    private final Paint thumbPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint bubblePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF rect = new RectF();
+    private final Runnable hideThumb = () -> {
+        shown = false;
+        invalidate();
+    };
+
+    private RecyclerView recyclerView;
+    private SectionIndex sections; // Of the rows now in the adapter; null while not built yet
+    private boolean shown;
+    private boolean dragging;
+    private float dragFraction;
+    private int dragPosition = RecyclerView.NO_POSITION;
+
+    public FastScroller(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        float density = context.getResources().getDisplayMetrics().density;
+        thumbWidth = 6 * density;
+        thumbHeight = 48 * density;
+        touchWidth = 32 * density;
+        bubbleHeight = 56 * density;
+        margin = 4 * density;
+        thumbPaint.setColor(Color.argb(160, 96, 96, 96));
+        bubblePaint.setColor(Color.argb(220, 33, 150, 243));
+        textPaint.setColor(Color.WHITE);
+        textPaint.setTextSize(24 * density);
+        textPaint.setTextAlign(Paint.Align.CENTER);
+        textPaint.setFakeBoldText(true);
+    }
+
+    /** Follows {@code list}'s scrolling; call once. */
+    public void attachTo(RecyclerView list) {
+        recyclerView = list;
+        list.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView view, int dx, int dy) {
+                if (dy != 0 && !dragging && isScrollable()) {
+                    shown = true;
+                    removeCallbacks(hideThumb);
+                    postDelayed(hideThumb, HIDE_DELAY_MS);
+                }
+                invalidate();
+            }
+        });
+    }
+
+    /** Sections of the rows the list now shows; null when they changed and are not indexed yet. */
+    public void setSections(SectionIndex sections) {
+        this.sections = sections;
+        invalidate();
+    }
+
+    private boolean isScrollable() {
+        RecyclerView.LayoutManager layoutManager = recyclerView != null ? recyclerView.getLayoutManager() : null;
+        if (layoutManager == null || layoutManager.getChildCount() == 0) {
+            return false;
+        }
+        return layoutManager.getItemCount() >= layoutManager.getChildCount() * MIN_SCREENS;
+    }
+
+    private float scrollFraction() {
+        if (dragging) {
+            return dragFraction;
+        }
+        int range = recyclerView.computeVerticalScrollRange() - recyclerView.computeVerticalScrollExtent();
+        return range <= 0 ? 0 : Math.min(1f, (float) recyclerView.computeVerticalScrollOffset() / range);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (!(shown || dragging) || !isScrollable()) {
+            return;
+        }
+        float top = scrollFraction() * (getHeight() - thumbHeight);
+        float right = getWidth() - margin;
+        rect.set(right - thumbWidth, top, right, top + thumbHeight);
+        canvas.drawRoundRect(rect, thumbWidth / 2, thumbWidth / 2, thumbPaint);
+
+        String label = dragging && sections != null ? sections.labelAt(dragPosition) : null;
+        if (label == null) {
+            return;
+        }
+        float bubbleWidth = Math.max(bubbleHeight, textPaint.measureText(label) + bubbleHeight / 2);
+        float bubbleTop = Math.max(0, Math.min(getHeight() - bubbleHeight, top + (thumbHeight - bubbleHeight) / 2));
+        float bubbleRight = right - touchWidth;
+        rect.set(bubbleRight - bubbleWidth, bubbleTop, bubbleRight, bubbleTop + bubbleHeight);
+        canvas.drawRoundRect(rect, bubbleHeight / 2, bubbleHeight / 2, bubblePaint);
+        float baseline = bubbleTop + bubbleHeight / 2 - (textPaint.ascent() + textPaint.descent()) / 2;
+        canvas.drawText(label, bubbleRight - bubbleWidth / 2, baseline, textPaint);
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                if (!isScrollable() || event.getX() < getWidth() - touchWidth) {
+                    return false; // Not ours: the list below gets the gesture
+                }
+                dragging = true;
+                dragPosition = RecyclerView.NO_POSITION;
+                removeCallbacks(hideThumb);
+                recyclerView.stopScroll();
+                dragTo(event.getY());
+                return true;
+            case MotionEvent.ACTION_MOVE:
+                if (dragging) {
+                    dragTo(event.getY());
+                }
+                return dragging;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                if (!dragging) {
+                    return false;
+                }
+                dragging = false;
+                shown = true;
+                postDelayed(hideThumb, HIDE_DELAY_MS);
+                invalidate();
+                return true;
+            default:
+                return dragging;
+        }
+    }
+
+    private void dragTo(float y) {
+        float track = getHeight() - thumbHeight;
+        dragFraction = track <= 0 ? 0 : Math.max(0f, Math.min(1f, (y - thumbHeight / 2) / track));
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        int position = Math.round(dragFraction * (layoutManager.getItemCount() - 1));
+        invalidate();
+        if (position == dragPosition) {
+            return; // Same row as the last frame: no scroll, no bind
+        }
+        dragPosition = position;
+        if (layoutManager instanceof LinearLayoutManager) { // GridLayoutManager too
+            ((LinearLayoutManager) layoutManager).scrollToPositionWithOffset(position, 0);
+        } else {
+            recyclerView.scrollToPosition(position);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.filemanagerapplication;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Files gathered for one copy or move, possibly from several folders. They are kept as a
+ * {@link PathTrie}, so a huge selection from one folder stores the folder path once. The
+ * clipboard is saved to the app's files directory after each change, so it survives
+ * navigation and process death.
+ *
+ * The file is read on first use, so the first call must not run on the main thread. After
+ * that, {@link #sizeIfLoaded()} is safe anywhere. {@link #forget} may be called from any
+ * thread; it runs on the clipboard's own worker.
+ */
+public final class FileClipboard {
+
+    private static final String TAG = "FileClipboard";
+    private static final int VERSION = 1;
+
+    private static FileClipboard instance;
+
+    public static synchronized FileClipboard get(Context context) {
+        if (instance == null) {
+            instance = new FileClipboard(new File(MainThreadIoGuard.privateDir(context, "files"), "clipboard"));
+        }
+        return instance;
+    }
+
+    private final File file;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "FileClipboard");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private PathTrie entries; // Guarded by this; null until read from disk
+    private boolean savePending; // Guarded by this
+    private volatile int loadedSize = -1;
+
+    FileClipboard(File file) {
+        this.file = file;
+    }
+
+    /** Adds {@code files}; returns how many were new (files inside a folder already on it are not). Off the main thread. */
+    public synchronized int addAll(Collection<File> files) {
+        int added = entries().addAll(files);
+        changed();
+        return added;
+    }
+
+    /** Number of entries. Off the main thread until the clipboard has been read. */
+    public synchronized int size() {
+        return entries().size();
+    }
+
+    /** Number of entries, or -1 if the clipboard has not been read yet; never touches the disk. */
+    public int sizeIfLoaded() {
+        return loadedSize;
+    }
+
+    /** A copy of the entries, for an operation to run on. Off the main thread until the clipboard has been read. */
+    public synchronized PathTrie snapshot() {
+        return entries().copy();
+    }
+
+    /** Drops {@code paths} and everything below them, e.g. after they were moved. Off the main thread. */
+    public synchronized void removeAll(Collection<File> paths) {
+        PathTrie trie = entries();
+        for (File path : paths) {
+            trie.remove(path.getAbsolutePath());
+        }
+        changed();
+    }
+
+    /** Drops {@code path} (and what is below it) once it no longer exists; any thread. */
+    public void forget(File path) {
+        worker.execute(() -> {
+            synchronized (this) {
+                if (entries().remove(path.getAbsolutePath()) > 0) {
+                    changed();
+                }
+            }
+        });
+    }
+
+    public synchronized void clear() {
+        entries().clear();
+        changed();
+    }
+
+    /** Waits until pending saves are written. */
+    void awaitIdle() throws InterruptedException {
+        try {
+            worker.submit(() -> { }).get();
+        } catch (java.util.concurrent.ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Caller holds the lock
+    private PathTrie entries() {
+        if (entries == null) {
+            entries = load();
+            loadedSize = entries.size();
+        }
+        return entries;
+    }
+
+    // Caller holds the lock. Several changes in a row are saved once
+    private void changed() {
+        loadedSize = entries.size();
+        if (!savePending) {
+            savePending = true;
+            worker.execute(this::save);
+        }
+    }
+
+    private PathTrie load() {
+        if (!file.isFile()) {
+            return new PathTrie();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != VERSION) {
+                return new PathTrie();
+            }
+            return PathTrie.readFrom(in);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read the clipboard; starting empty", e);
+            return new PathTrie();
+        }
+    }
+
+    private void save() {
+        byte[] bytes;
+        synchronized (this) {
+            savePending = false;
+            if (entries.isEmpty()) {
+                if (file.exists() && !file.delete()) {
+                    Log.w(TAG, "Could not delete " + file);
+                }
+                return;
+            }
+            bytes = entries.toBytes();
+        }
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            Log.w(TAG, "Could not create " + dir);
+            return;
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(VERSION);
+            out.write(bytes);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not save the clipboard", e);
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            Log.w(TAG, "Could not replace " + file);
+        }
+    }
+}
@@ -0,0 +1,791 @@
+package com.example.filemanagerapplication;
+
+import android.content.Context;
+import android.os.Environment;
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Persistent file name index of the whole shared storage volume, so search does not have
+ * to walk every folder.
+ *
+ * A background build walks the volume once and writes a compact file: an entry table
+ * (parent id, name offset, type), a pool of UTF-8 names and, for every trigram of the
+ * lower-cased names, a delta/varint-encoded posting list of entry ids. Queries memory-map
+ * that file read-only, intersect the postings of the query's trigrams and only decode the
+ * few candidate names. Changes made since the build live in a small delta (additions and
+ * removed subtrees) that is journaled next to the index and fed from operation callbacks
+ * and {@link DirectoryWatcher}; once it grows too large, or the index is a day old, the
+ * index is rebuilt. Build, update and query times go to {@link PerfMetrics}.
+ */
+public class FileIndex {
+
+    private static final String TAG = "FileIndex";
+    static final String METRIC_BUILD = "index.build";
+    static final String METRIC_UPDATE = "index.update";
+    static final String METRIC_QUERY = "index.query";
+
+    private static final long MAX_AGE_MS = 24L * 60 * 60 * 1000;
+    private static final int MAX_DELTA_PATHS = 20_000;
+    // Intersecting more posting lists than this costs more than verifying the extra candidates
+    private static final int MAX_INTERSECTED_LISTS = 4;
+
+    /** A query hit; the type comes from the index, so showing it never has to stat. */
+    public static final class Hit {
+        public final File file;
+        public final boolean directory;
+
+        Hit(File file, boolean directory) {
+            this.file = file;
+            this.directory = directory;
+        }
+    }
+
+    private static FileIndex instance;
+
+    /** The process-wide index of the shared storage volume; the first call starts loading or building it. */
+    public static synchronized FileIndex get(Context context) {
+        if (instance == null) {
+            File root = Environment.getExternalStorageDirectory();
+            instance = new FileIndex(new File(MainThreadIoGuard.privateDir(context, "files"), "index"),
+                    root != null ? root : new File("/"));
+            instance.start();
+        }
+        return instance;
+    }
+
+    private final File indexFile;
+    private final File journalFile;
+    private final File root;
+    private final String rootPath;
+    // Builds and updates run one at a time, in order; updates queued behind a rebuild apply on top of it
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "FileIndex");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private volatile MappedIndex base;
+    private volatile Delta delta = Delta.EMPTY;
+    private DataOutputStream journal; // Worker thread only
+
+    FileIndex(File indexDir, File root) {
+        File canonicalRoot;
+        try {
+            // The walker does not follow links, so index the link target (e.g. /sdcard)
+            canonicalRoot = root.getCanonicalFile();
+        } catch (IOException e) {
+            canonicalRoot = root.getAbsoluteFile();
+        }
+        this.root = canonicalRoot;
+        this.rootPath = canonicalRoot.getPath();
+        this.indexFile = new File(indexDir, "names.idx");
+        this.journalFile = new File(indexDir, "names.journal");
+    }
+
+    void start() {
+        worker.execute(this::openOrBuild);
+    }
+
+    /** Waits until queued builds and updates have been applied. */
+    void awaitIdle() throws InterruptedException {
+        try {
+            worker.submit(() -> { }).get();
+        } catch (java.util.concurrent.ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** True once a built index can answer queries. */
+    public boolean isReady() {
+        return base != null;
+    }
+
+    public File getRoot() {
+        return root;
+    }
+
+    /** Whether {@code dir} lies inside the indexed volume. */
+    public boolean covers(File dir) {
+        return relativeTo(dir.getAbsolutePath()) != null;
+    }
+
+    /** Records a new file or folder (a whole copied/extracted tree is indexed). Runs asynchronously. */
+    public void onCreated(File file) {
+        worker.execute(() -> {
+            long start = System.nanoTime();
+            String path = resolve(file);
+            if (path == null) {
+                return;
+            }
+            List<Change> changes = new ArrayList<>();
+            try {
+                new TreeWalker(TreeWalker.SymlinkPolicy.SKIP).walk(new File(path), new TreeWalker.SimpleVisitor() {
+                    @Override
+                    public TreeWalker.Action preVisitDirectory(TreeWalker.Entry dir) {
+                        changes.add(new Change(true, true, dir.getFile().getPath()));
+                        return TreeWalker.Action.CONTINUE;
+                    }
+
+                    @Override
+                    public TreeWalker.Action visitFile(TreeWalker.Entry entry) {
+                        changes.add(new Change(true, entry.isDirectory(), entry.getFile().getPath()));
+                        return TreeWalker.Action.CONTINUE;
+                    }
+
+                    @Override
+                    public TreeWalker.Action visitFailed(File failed, TreeWalker.Entry entry, IOException error) {
+                        return TreeWalker.Action.CONTINUE;
+                    }
+                });
+            } catch (IOException | RuntimeException e) {
+                Log.w(TAG, "Could not index " + path, e);
+            }
+            apply(changes);
+            PerfMetrics.recordSince(METRIC_UPDATE, start);
+        });
+    }
+
+    /** Records that a file or a whole folder is gone. Runs asynchronously. */
+    public void onDeleted(File file) {
+        worker.execute(() -> {
+            long start = System.nanoTime();
+            String path = resolveDeleted(file);
+            if (path != null) {
+                apply(Collections.singletonList(new Change(false, false, path)));
+                PerfMetrics.recordSince(METRIC_UPDATE, start);
+            }
+        });
+    }
+
+    /**
+     * Names below {@code under} accepted by {@code matcher}, at most {@code limit} of them,
+     * or null if the index is not ready or does not cover {@code under}.
+     */
+    public List<Hit> query(NameMatcher matcher, File under, int limit) {
+        MappedIndex index = base;
+        String underPath = under.getAbsolutePath();
+        if (index == null || relativeTo(underPath) == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        Delta changes = delta;
+        List<Hit> hits = new ArrayList<>();
+        // Newer additions first: they also replace stale base entries with the same path
+        for (Map.Entry<String, Boolean> added : changes.added.entrySet()) {
+            if (hits.size() >= limit) {
+                break;
+            }
+            String path = added.getKey();
+            if (isInside(path, underPath) && !path.equals(underPath)
+                    && matcher.matches(path.substring(path.lastIndexOf('/') + 1))) {
+                hits.add(new Hit(new File(path), added.getValue()));
+            }
+        }
+        if (hits.size() < limit) {
+            index.query(matcher, underPath, limit - hits.size(), changes, hits);
+        }
+        PerfMetrics.recordSince(METRIC_QUERY, start);
+        return hits;
+    }
+
+    // --- Worker thread ---
+
+    private void openOrBuild() {
+        if (indexFile.isFile()) {
+            try {
+                base = MappedIndex.open(indexFile);
+                replayJournal();
+                Log.d(TAG, "Opened index: " + base.entryCount + " entries, " + delta.size() + " journaled changes");
+            } catch (IOException e) {
+                Log.w(TAG, "Index unreadable, rebuilding", e);
+                base = null;
+            }
+        }
+        if (base == null || !base.rootPath.equals(rootPath)
+                || System.currentTimeMillis() - base.buildTime > MAX_AGE_MS || delta.size() > MAX_DELTA_PATHS) {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        long start = System.nanoTime();
+        Builder builder = new Builder();
+        try {
+            builder.addTree(root);
+            File tmp = new File(indexFile.getPath() + ".tmp");
+            File dir = indexFile.getParentFile();
+            if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Could not create " + dir);
+            }
+            builder.writeTo(tmp);
+            if (!tmp.renameTo(indexFile)) {
+                throw new IOException("Could not replace " + indexFile);
+            }
+            base = MappedIndex.open(indexFile);
+            delta = Delta.EMPTY;
+            resetJournal();
+            long millis = PerfMetrics.recordSince(METRIC_BUILD, start);
+            Log.i(TAG, "Indexed " + builder.size() + " entries in " + millis + " ms, "
+                    + indexFile.length() / 1024 + " KB");
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Index build failed", e);
+        }
+    }
+
+    private void apply(List<Change> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        delta = delta.with(changes);
+        try {
+            if (journal == null) {
+                journal = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(journalFile, true)));
+            }
+            for (Change change : changes) {
+                change.writeTo(journal);
+            }
+            journal.flush();
+        } catch (IOException e) {
+            Log.w(TAG, "Could not journal index changes", e); // They are still applied in memory
+        }
+        if (delta.size() > MAX_DELTA_PATHS) {
+            rebuild();
+        }
+    }
+
+    private void replayJournal() {
+        if (!journalFile.isFile()) {
+            return;
+        }
+        List<Change> changes = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new FileInputStream(journalFile))) {
+            while (true) {
+                changes.add(Change.readFrom(in));
+            }
+        } catch (EOFException end) {
+            // A torn last record after a crash is simply dropped
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read index journal", e);
+        }
+        delta = Delta.EMPTY.with(changes);
+    }
+
+    private void resetJournal() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+        if (journalFile.exists() && !journalFile.delete()) {
+            throw new IOException("Could not reset " + journalFile);
+        }
+    }
+
+    private String resolve(File file) {
+        String path = file.getAbsolutePath();
+        if (relativeTo(path) != null) {
+            return path;
+        }
+        try {
+            path = file.getCanonicalPath(); // e.g. reached through /sdcard
+        } catch (IOException e) {
+            return null;
+        }
+        return relativeTo(path) != null ? path : null;
+    }
+
+    /** Like {@link #resolve(File)}, but the file itself is gone, so only its parent can be resolved. */
+    private String resolveDeleted(File file) {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent == null) {
+            return null;
+        }
+        String parentPath = resolve(parent);
+        return parentPath != null ? parentPath + "/" + file.getName() : null;
+    }
+
+    private String relativeTo(String path) {
+        if (path.equals(rootPath)) {
+            return "";
+        }
+        return isInside(path, rootPath) ? path.substring(rootPath.length() + 1) : null;
+    }
+
+    /** Whether {@code path} is {@code dir} or lies below it. */
+    static boolean isInside(String path, String dir) {
+        if (dir.equals("/")) {
+            return path.startsWith("/");
+        }
+        return path.startsWith(dir) && (path.length() == dir.length() || path.charAt(dir.length()) == '/');
+    }
+
+    /** One journaled change: a path added (with its type) or a subtree removed. */
+    private static final class Change {
+        final boolean added;
+        final boolean directory;
+        final String path;
+
+        Change(boolean added, boolean directory, String path) {
+            this.added = added;
+            this.directory = directory;
+            this.path = path;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeByte(added ? (directory ? 'd' : 'f') : '-');
+            out.writeUTF(path);
+        }
+
+        static Change readFrom(DataInputStream in) throws IOException {
+            int type = in.readByte();
+            return new Change(type != '-', type == 'd', in.readUTF());
+        }
+    }
+
+    /**
+     * Immutable overlay of changes since the build; replaced (copy-on-write, once per
+     * operation) so queries read it without locking.
+     */
+    static final class Delta {
+        static final Delta EMPTY = new Delta(Collections.emptyMap(), Collections.emptySet());
+
+        final Map<String, Boolean> added; // Path -> is directory
+        final Set<String> removed;        // Subtrees gone since the build
+
+        private Delta(Map<String, Boolean> added, Set<String> removed) {
+            this.added = added;
+            this.removed = removed;
+        }
+
+        int size() {
+            return added.size() + removed.size();
+        }
+
+        Delta with(List<Change> changes) {
+            Map<String, Boolean> newAdded = new HashMap<>(added);
+            Set<String> newRemoved = new HashSet<>(removed);
+            for (Change change : changes) {
+                if (change.added) {
+                    newAdded.put(change.path, change.directory);
+                } else {
+                    newRemoved.add(change.path);
+                    newAdded.keySet().removeIf(path -> isInside(path, change.path));
+                }
+            }
+            return new Delta(newAdded, newRemoved);
+        }
+
+        Delta withAdded(String path, boolean directory) {
+            return with(Collections.singletonList(new Change(true, directory, path)));
+        }
+
+        Delta withRemoved(String path) {
+            return with(Collections.singletonList(new Change(false, false, path)));
+        }
+
+        /** Whether a base entry is hidden: removed (itself or an ancestor) or re-added with fresh data. */
+        boolean hides(String path) {
+            if (added.containsKey(path)) {
+                return true;
+            }
+            if (removed.isEmpty()) {
+                return false;
+            }
+            for (String p = path; p.length() > 0; p = p.substring(0, Math.max(0, p.lastIndexOf('/')))) {
+                if (removed.contains(p)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // --- On-disk format ---
+
+    private static final int MAGIC = 0x464D4958; // "FMIX"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 40;
+    private static final int ENTRY_SIZE = 12;
+    private static final int KEY_SIZE = 12;
+    private static final int DIRECTORY_FLAG = 0x80000000;
+    private static final int LENGTH_MASK = 0x7FFFFFFF;
+
+    /** Packs three bytes of a lower-cased UTF-8 name into a posting key. */
+    private static int trigram(byte[] bytes, int i) {
+        return (bytes[i] & 0xFF) << 16 | (bytes[i + 1] & 0xFF) << 8 | (bytes[i + 2] & 0xFF);
+    }
+
+    private static byte[] fold(String name) {
+        return name.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Collects entries in walk order and writes the index file. Entry 0 is the root, whose
+     * name is its absolute path; postings are appended as ids grow, so each list is sorted
+     * and can be delta-encoded on the fly.
+     */
+    static final class Builder {
+        private int count;
+        private int[] parents = new int[1024];
+        private int[] nameOffsets = new int[1024];
+        private int[] nameLengths = new int[1024]; // With DIRECTORY_FLAG
+        private byte[] names = new byte[16 * 1024];
+        private int namesSize;
+        private final Map<Integer, Postings> postings = new HashMap<>();
+
+        int size() {
+            return count;
+        }
+
+        /** Adds an entry below {@code parent} (-1 for the root) and returns its id. */
+        int add(int parent, String name, boolean directory) {
+            if (count == parents.length) {
+                parents = Arrays.copyOf(parents, count * 2);
+                nameOffsets = Arrays.copyOf(nameOffsets, count * 2);
+                nameLengths = Arrays.copyOf(nameLengths, count * 2);
+            }
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            if (namesSize + bytes.length > names.length) {
+                names = Arrays.copyOf(names, Math.max(names.length * 2, namesSize + bytes.length));
+            }
+            System.arraycopy(bytes, 0, names, namesSize, bytes.length);
+            int id = count++;
+            parents[id] = parent;
+            nameOffsets[id] = namesSize;
+            nameLengths[id] = bytes.length | (directory ? DIRECTORY_FLAG : 0);
+            namesSize += bytes.length;
+            if (parent >= 0) {
+                byte[] folded = fold(name);
+                for (int i = 0; i + 3 <= folded.length; i++) {
+                    Integer key = trigram(folded, i);
+                    Postings list = postings.get(key);
+                    if (list == null) {
+                        list = new Postings();
+                        postings.put(key, list);
+                    }
+                    list.add(id);
+                }
+            }
+            return id;
+        }
+
+        /** Walks {@code root} without following links and adds everything below it. */
+        void addTree(File root) throws IOException {
+            int[][] stack = {new int[64]}; // Id of the open directory at each depth
+            new TreeWalker(TreeWalker.SymlinkPolicy.SKIP).walk(root, new TreeWalker.SimpleVisitor() {
+                @Override
+                public TreeWalker.Action preVisitDirectory(TreeWalker.Entry dir) {
+                    int depth = dir.getDepth();
+                    int id = depth == 0 ? add(-1, dir.getFile().getPath(), true)
+                            : add(stack[0][depth - 1], dir.getFile().getName(), true);
+                    if (depth == stack[0].length) {
+                        stack[0] = Arrays.copyOf(stack[0], depth * 2);
+                    }
+                    stack[0][depth] = id;
+                    return TreeWalker.Action.CONTINUE;
+                }
+
+                @Override
+                public TreeWalker.Action visitFile(TreeWalker.Entry file) {
+                    add(stack[0][file.getDepth() - 1], file.getFile().getName(), file.isDirectory());
+                    return TreeWalker.Action.CONTINUE;
+                }
+
+                @Override
+                public TreeWalker.Action visitFailed(File file, TreeWalker.Entry entry, IOException error) {
+                    if (entry != null && entry.getDepth() == 0) {
+                        return TreeWalker.Action.TERMINATE; // The root itself is unreadable
+                    }
+                    return TreeWalker.Action.CONTINUE; // Unreadable folders are left out
+                }
+            });
+            if (count == 0) {
+                throw new IOException("Could not read " + root);
+            }
+        }
+
+        void writeTo(File file) throws IOException {
+            int[] keys = new int[postings.size()];
+            int k = 0;
+            for (Integer key : postings.keySet()) {
+                keys[k++] = key;
+            }
+            Arrays.sort(keys);
+            long postingsSize = 0;
+            for (Postings list : postings.values()) {
+                postingsSize += list.size;
+            }
+            if (HEADER_SIZE + (long) count * ENTRY_SIZE + namesSize + (long) keys.length * KEY_SIZE + postingsSize > Integer.MAX_VALUE) {
+                throw new IOException("Index larger than 2 GB"); // A single mapping is limited to that
+            }
+            int namesOffset = HEADER_SIZE + count * ENTRY_SIZE;
+            int keysOffset = namesOffset + namesSize;
+            int postingsOffset = keysOffset + keys.length * KEY_SIZE;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(count);
+                out.writeInt(keys.length);
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt(namesOffset);
+                out.writeInt(keysOffset);
+                out.writeInt(postingsOffset);
+                out.writeInt(0); // Reserved
+                for (int i = 0; i < count; i++) {
+                    out.writeInt(parents[i]);
+                    out.writeInt(nameOffsets[i]);
+                    out.writeInt(nameLengths[i]);
+                }
+                out.write(names, 0, namesSize);
+                int position = 0;
+                for (int key : keys) {
+                    Postings list = postings.get(key);
+                    out.writeInt(key);
+                    out.writeInt(position);
+                    out.writeInt(list.count);
+                    position += list.size;
+                }
+                for (int key : keys) {
+                    Postings list = postings.get(key);
+                    out.write(list.bytes, 0, list.size);
+                }
+            }
+        }
+    }
+
+    /** Growable varint-encoded list of increasing ids, stored as gaps. */
+    private static final class Postings {
+        byte[] bytes = new byte[4];
+        int size;
+        int count;
+        int last = -1;
+
+        void add(int id) {
+            if (id == last) {
+                return; // Trigram repeats within one name
+            }
+            if (size + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            int gap = id - last;
+            while ((gap & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((gap & 0x7F) | 0x80);
+                gap >>>= 7;
+            }
+            bytes[size++] = (byte) gap;
+            last = id;
+            count++;
+        }
+    }
+
+    /** Read-only view of an index file; only absolute reads, so it is safe to share between threads. */
+    static final class MappedIndex {
+        final int entryCount;
+        final long buildTime;
+        final String rootPath;
+        private final ByteBuffer buffer;
+        private final int keyCount;
+        private final int namesOffset;
+        private final int keysOffset;
+        private final int postingsOffset;
+
+        private MappedIndex(ByteBuffer buffer) throws IOException {
+            this.buffer = buffer;
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not an index file");
+            }
+            entryCount = buffer.getInt(8);
+            keyCount = buffer.getInt(12);
+            buildTime = buffer.getLong(16);
+            namesOffset = buffer.getInt(24);
+            keysOffset = buffer.getInt(28);
+            postingsOffset = buffer.getInt(32);
+            if (entryCount < 1 || namesOffset != HEADER_SIZE + entryCount * ENTRY_SIZE
+                    || keysOffset < namesOffset || postingsOffset != keysOffset + keyCount * KEY_SIZE
+                    || postingsOffset > buffer.capacity()) {
+                throw new IOException("Corrupt index header");
+            }
+            rootPath = name(0);
+        }
+
+        static MappedIndex open(File file) throws IOException {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+                // The mapping stays valid after the channel is closed
+                return new MappedIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+
+        private int parent(int id) {
+            return buffer.getInt(HEADER_SIZE + id * ENTRY_SIZE);
+        }
+
+        boolean isDirectory(int id) {
+            return (buffer.getInt(HEADER_SIZE + id * ENTRY_SIZE + 8) & DIRECTORY_FLAG) != 0;
+        }
+
+        String name(int id) {
+            int entry = HEADER_SIZE + id * ENTRY_SIZE;
+            byte[] bytes = new byte[buffer.getInt(entry + 8) & LENGTH_MASK];
+            int offset = namesOffset + buffer.getInt(entry + 4);
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(offset + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /** Absolute path of an entry; folder paths are memoized in {@code dirPaths} for the query. */
+        String path(int id, Map<Integer, String> dirPaths) {
+            if (id == 0) {
+                return rootPath;
+            }
+            int parent = parent(id);
+            String parentPath = dirPaths.get(parent);
+            if (parentPath == null) {
+                parentPath = path(parent, dirPaths);
+                dirPaths.put(parent, parentPath);
+            }
+            return (parentPath.equals("/") ? "" : parentPath) + "/" + name(id);
+        }
+
+        void query(NameMatcher matcher, String underPath, int limit, Delta delta, List<Hit> hits) {
+            String literal = matcher.requiredLiteral();
+            int[] candidates = literal != null ? candidates(fold(literal)) : null;
+            Map<Integer, String> dirPaths = new HashMap<>();
+            boolean wholeIndex = underPath.equals(rootPath);
+            int n = candidates != null ? candidates.length : entryCount;
+            int found = 0;
+            for (int i = 0; i < n && found < limit; i++) {
+                int id = candidates != null ? candidates[i] : i;
+                if (id == 0 || !matcher.matches(name(id))) {
+                    continue;
+                }
+                String path = path(id, dirPaths);
+                if ((!wholeIndex && (!isInside(path, underPath) || path.equals(underPath))) || delta.hides(path)) {
+                    continue;
+                }
+                hits.add(new Hit(new File(path), isDirectory(id)));
+                found++;
+            }
+        }
+
+        /** Ids whose names contain every trigram of {@code folded}, or null if it is too short to have any. */
+        int[] candidates(byte[] folded) {
+            if (folded.length < 3) {
+                return null;
+            }
+            int[] keys = new int[folded.length - 2];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = trigram(folded, i);
+            }
+            // Slots of the distinct keys, shortest posting list first
+            List<Integer> slots = new ArrayList<>();
+            for (int key : keys) {
+                int slot = findKey(key);
+                if (slot < 0) {
+                    return new int[0];
+                }
+                if (!slots.contains(slot)) {
+                    slots.add(slot);
+                }
+            }
+            slots.sort((a, b) -> Integer.compare(postingCount(a), postingCount(b)));
+            int[] result = decode(slots.get(0));
+            for (int i = 1; i < slots.size() && i < MAX_INTERSECTED_LISTS && result.length > 0; i++) {
+                result = intersect(result, slots.get(i));
+            }
+            return result;
+        }
+
+        private int findKey(int key) {
+            int low = 0;
+            int high = keyCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midKey = buffer.getInt(keysOffset + mid * KEY_SIZE);
+                if (midKey < key) {
+                    low = mid + 1;
+                } else if (midKey > key) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        private int postingCount(int slot) {
+            return buffer.getInt(keysOffset + slot * KEY_SIZE + 8);
+        }
+
+        private int[] decode(int slot) {
+            int[] ids = new int[postingCount(slot)];
+            int position = postingsOffset + buffer.getInt(keysOffset + slot * KEY_SIZE + 4);
+            int id = -1;
+            for (int i = 0; i < ids.length; i++) {
+                int gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = buffer.get(position++);
+                    gap |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                id += gap;
+                ids[i] = id;
+            }
+            return ids;
+        }
+
+        /** Keeps the ids of {@code ids} that also occur in the list at {@code slot}; both are sorted. */
+        private int[] intersect(int[] ids, int slot) {
+            int count = postingCount(slot);
+            int position = postingsOffset + buffer.getInt(keysOffset + slot * KEY_SIZE + 4);
+            int[] result = new int[ids.length];
+            int kept = 0;
+            int next = 0;
+            int id = -1;
+            for (int i = 0; i < count && next < ids.length; i++) {
+                int gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = buffer.get(position++);
+                    gap |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                id += gap;
+                while (next < ids.length && ids[next] < id) {
+                    next++;
+                }
+                if (next < ids.length && ids[next] == id) {
+                    result[kept++] = id;
+                    next++;
+                }
+            }
+            return Arrays.copyOf(result, kept);
+        }
+    }
+}
@@ -11,8 +11,11 @@ import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;                 // Import Handler
 import android.os.Looper;                  // Import Looper
+import android.os.Parcelable;
 import android.os.Environment;
+import android.text.Editable;
 import android.text.InputType;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.View;
 import android.widget.EditText;
@@ -44,14 +47,18 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;    // Import Executors
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
 
@@ -67,24 +74,101 @@ public class FileListActivity extends AppCompatActivity{
 
     // --- UI Elements ---
     private RecyclerView recyclerView;
+    private FastScroller fastScroller;
     private TextView pathTextView;
     private TextView noFilesTextView;
     private FloatingActionButton fabAddFolder;
+    private EditText filterEditText;
 
     // --- Data and Adapter ---
     private MyAdapter adapter;
     private List<File> fileList;
     private String currentPath; // Stores the absolute path of the currently displayed directory
     private ActivityResultLauncher<Intent> customFolderPickerLauncher; // Handles the result from FolderPickerActivity
+    private ActivityResultLauncher<Intent> duplicatesLauncher; // Duplicates chosen for deletion in DuplicatesActivity
     private enum OperationType { NONE, COPY, MOVE } // Enum để phân biệt thao tác
-    private List<File> fileToOperatePending = null;      // File đang chờ xử lý (cho cả copy và move)
+    private enum ArchiveFormat {
+        ZIP(".zip", "Zip (.zip)"),
+        TAR(".tar", "Tar (.tar)"),
+        TAR_GZ(".tar.gz", "Gzipped tar (.tar.gz)");
+
+        final String extension;
+        final String label;
+
+        ArchiveFormat(String extension, String label) {
+            this.extension = extension;
+            this.label = label;
+        }
+    }
+    private PathTrie fileToOperatePending = null;      // File đang chờ xử lý (cho cả copy và move)
     private OperationType pendingOperation = OperationType.NONE; // Trạng thái hiện tại
     private ActionMode currentActionMode;
     private ActionMode.Callback actionModeCallback;
     // --- KHAI BÁO ExecutorService và Handler ---
     private ExecutorService executorService;
+    // Operations on disjoint paths run in parallel; conflicting ones wait for each other here.
+    // Static because every FileListActivity instance works on the same file system.
+    private static final PathLockManager PATH_LOCKS = new PathLockManager();
+    private static final int OPERATION_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
     private Handler mainThreadHandler;
-    private ProgressDialog progressDialog;
+    // Operations report what they created/removed so the search index and row details stay current
+    private FileIndex fileIndex;
+    private ListingStore listingStore; // Danh sách thư mục lớn lưu trên đĩa, dùng lại sau khi khởi động lại
+    // Đoán trước thư mục sắp mở (thư mục cha, thư mục con đang hiển thị) khi người dùng dừng lại
+    private ListingPrefetcher prefetcher;
+    private static final long DWELL_MS = 400;
+    private final Runnable dwellPrefetch = this::prefetchLikelyFolders;
+    private String lastOpenedPath; // Last folder counted as opened: reloads of it are not visits
+    private DirectoryWatcher directoryWatcher;
+    // Clipboard gom file từ nhiều thư mục cho một lần sao chép/di chuyển; giữ qua điều hướng và khi tiến trình bị tắt
+    private FileClipboard clipboard;
+    private static final int CLIPBOARD_PREVIEW_ITEMS = 5;
+    // Điều hướng thư mục trong cùng một màn hình: mỗi mức chỉ giữ đường dẫn và vị trí cuộn,
+    // danh sách file được giữ (có giới hạn) trong ListingCache
+    private static final String STATE_PATH = "current_path";
+    private static final String STATE_BACK_STACK = "back_stack";
+    private static final String STATE_SORT_MODE = "sort_mode";
+    private final Deque<BackStackEntry> backStack = new ArrayDeque<>();
+    private LinearLayoutManager layoutManager;
+    // Mọi lệnh stat/list/mkdir của giao diện chạy trên luồng này (không chạy trên luồng chính),
+    // tách khỏi executorService để không phải chờ sau một thao tác sao chép dài
+    private ExecutorService listingExecutor;
+    private int loadGeneration; // Main thread only; a listing posted for an older load is dropped
+    // Thư mục riêng của ứng dụng (getExternalFilesDir có thể tạo thư mục): tính một lần ở luồng nền
+    private volatile String appExternalRoot;
+    private volatile String appInternalRoot;
+    // Thứ tự sắp xếp; đổi thứ tự chỉ sắp lại bản liệt kê đang hiển thị, không đọc lại thư mục
+    private SortMode sortMode = SortMode.DEFAULT;
+    private ListingCache.Listing shownListing; // Snapshot currently in fileList, null after an error
+    private SortMode shownSortMode; // Order of shownListing on screen (sortMode may be ahead while re-sorting)
+    private static final String[] SORT_LABELS = {
+            "Name (A to Z)", "Name (Z to A)", "Size (largest first)", "Size (smallest first)",
+            "Date (newest first)", "Date (oldest first)", "Type", "Type (reversed)"};
+    private static final SortMode.Key[] SORT_KEYS = {
+            SortMode.Key.NAME, SortMode.Key.NAME, SortMode.Key.SIZE, SortMode.Key.SIZE,
+            SortMode.Key.DATE, SortMode.Key.DATE, SortMode.Key.TYPE, SortMode.Key.TYPE};
+    private static final boolean[] SORT_DESCENDING = {false, true, true, false, true, false, false, true};
+    // Lọc theo tên khi gõ: mỗi phím chỉ lọc lại kết quả trước; danh sách lớn được lọc ở luồng nền
+    static final String METRIC_FILTER = "list.filter_keystroke";
+    private static final int FILTER_OFF_MAIN_THREAD_ROWS = 5000;
+    private ListingFilter listingFilter; // Over shownListing, null while nothing is shown
+    private int filterGeneration; // Main thread only; a filter result for an older keystroke is dropped
+    // Nhãn phần cho thanh cuộn nhanh: tính ở luồng nền cho đúng các dòng đang hiển thị
+    private int[] shownRows;
+    // Thời gian từ onCreate đến khi danh sách đầu tiên hiện ra (tính từ lúc khởi động tiến trình: StartupPrefetch)
+    static final String METRIC_FIRST_ROW = "list.time_to_first_row";
+    private long createdNanos;
+    private boolean firstRowsShown;
+
+    private static final class BackStackEntry {
+        final String path;
+        final Parcelable scrollState; // Null when restored after the activity was recreated
+
+        BackStackEntry(String path, Parcelable scrollState) {
+            this.path = path;
+            this.scrollState = scrollState;
+        }
+    }
 
     /**
      * Initializes the activity, sets up the UI, configures the RecyclerView,
@@ -98,51 +182,144 @@ public class FileListActivity extends AppCompatActivity{
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        createdNanos = System.nanoTime();
         setContentView(R.layout.activity_file_list);
 
         // Initialize UI Components
         recyclerView = findViewById(R.id.recycler_view);
+        fastScroller = findViewById(R.id.fast_scroller);
         pathTextView = findViewById(R.id.path_text_view);
         noFilesTextView = findViewById(R.id.nofiles_textview);
         fabAddFolder = findViewById(R.id.fab_add_folder); // Khởi tạo FAB
+        filterEditText = findViewById(R.id.filter_edit_text);
 
         fileList = new ArrayList<>();
-        executorService = Executors.newSingleThreadExecutor();
+        executorService = Executors.newFixedThreadPool(OPERATION_THREADS);
+        listingExecutor = Executors.newSingleThreadExecutor();
         mainThreadHandler = new Handler(Looper.getMainLooper());
+        fileIndex = FileIndex.get(this);
+        listingStore = ListingStore.get(this);
+        prefetcher = ListingPrefetcher.get(this);
+        clipboard = FileClipboard.get(this);
+        runOffMainThread(clipboard::size, count -> invalidateOptionsMenu()); // Đọc clipboard đã lưu ở luồng nền
 
         // Setup RecyclerView
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
         // Khởi tạo adapter, truyền 'this' làm listener
         adapter = new MyAdapter(this, fileList);
         recyclerView.setAdapter(adapter);
+        fastScroller.attachTo(recyclerView);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView view, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    schedulePrefetch(); // Stopped on a screen: its subfolders are likely next
+                } else {
+                    mainThreadHandler.removeCallbacks(dwellPrefetch);
+                }
+            }
+        });
 
         customFolderPickerLauncher = registerForActivityResult(
                 new ActivityResultContracts.StartActivityForResult(),
                 // Gọi phương thức xử lý riêng
                 this::handleFolderPickerResult
         );
+        duplicatesLauncher = registerForActivityResult(
+                new ActivityResultContracts.StartActivityForResult(),
+                this::handleDuplicatesResult
+        );
         // -----------------------------------------------------------
 
 
         // Determine initial path (giữ nguyên logic cũ)
         String pathFromIntent = getIntent().getStringExtra("path");
-        if (pathFromIntent != null && !pathFromIntent.isEmpty()) {
+        String savedPath = savedInstanceState != null ? savedInstanceState.getString(STATE_PATH) : null;
+        if (savedPath != null) {
+            currentPath = savedPath; // Recreated (e.g. rotation): keep the folder, back stack and sort order
+            sortMode = SortMode.decode(savedInstanceState.getString(STATE_SORT_MODE));
+            String[] stackPaths = savedInstanceState.getStringArray(STATE_BACK_STACK);
+            if (stackPaths != null) {
+                for (String stackPath : stackPaths) {
+                    backStack.push(new BackStackEntry(stackPath, null));
+                }
+            }
+        } else if (pathFromIntent != null && !pathFromIntent.isEmpty()) {
             currentPath = pathFromIntent;
-        } else {
-            File externalFilesDir = getExternalFilesDir(null);
-            currentPath = (externalFilesDir != null && externalFilesDir.canRead()) ? externalFilesDir.getAbsolutePath() : getFilesDir().getAbsolutePath();
-            Log.d(TAG, "No path in intent, starting at default: " + currentPath);
         }
         setupActionModeCallback();
-        // --- Cập nhật UI và Kiểm tra Quyền ---
         updateActivityTitle(); // Đặt tiêu đề ban đầu
-        // Quan trọng: Kiểm tra quyền trước khi cố gắng load file
-        checkAndRequestPermissions(); // Sẽ gọi loadFilesAndFolders nếu có quyền
+        // Thư mục mặc định (khi intent không có đường dẫn) cần stat, nên được xác định ở luồng nền
+        runOffMainThread(this::resolveAppRoots, defaultPath -> {
+            if (currentPath == null) {
+                currentPath = defaultPath;
+                Log.d(TAG, "No path in intent, starting at default: " + currentPath);
+                updateActivityTitle();
+            }
+            // Quan trọng: Kiểm tra quyền trước khi cố gắng load file
+            checkAndRequestPermissions(); // Sẽ gọi loadFilesAndFolders nếu có quyền
+        });
+
+        filterEditText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                applyFilter(); // The selection is kept by listing index: it survives the filter
+            }
+        });
 
         // --- Thiết lập Listener cho FAB ---
         fabAddFolder.setOnClickListener(v -> showCreateFolderDialog()); // Đảm bảo bạn có hàm này
 
     }
+    /**
+     * Resolves the app's own storage folders, which {@link #getDisplayPath} and
+     * {@link #onBackPressed} compare paths against, and returns the default start folder.
+     * Runs on {@link #listingExecutor}: {@code getExternalFilesDir} may create the folder.
+     */
+    private String resolveAppRoots() {
+        File externalFilesDir = getExternalFilesDir(null);
+        String internal = getFilesDir().getAbsolutePath();
+        appInternalRoot = internal;
+        appExternalRoot = externalFilesDir != null ? externalFilesDir.getAbsolutePath() : null;
+        return (externalFilesDir != null && externalFilesDir.canRead()) ? externalFilesDir.getAbsolutePath() : internal;
+    }
+
+    /**
+     * Runs {@code work} (stat, list, mkdir...) on {@link #listingExecutor}, then hands its result to
+     * {@code then} on the main thread unless the activity is gone by then.
+     */
+    private <T> void runOffMainThread(Supplier<T> work, Consumer<T> then) {
+        listingExecutor.execute(() -> {
+            T result = work.get();
+            mainThreadHandler.post(() -> {
+                if (!isDestroyed()) {
+                    then.accept(result);
+                }
+            });
+        });
+    }
+
+    /** Xóa các bản sao được chọn trong DuplicatesActivity, qua luồng xóa thông thường (có xác nhận). */
+    private void handleDuplicatesResult(ActivityResult result) {
+        if (result.getResultCode() != Activity.RESULT_OK) {
+            return;
+        }
+        List<File> files = DuplicatesActivity.takeFilesToDelete();
+        if (files.isEmpty()) {
+            return;
+        }
+        handleDeleteSelected(files);
+    }
+
     /**
      * Xử lý kết quả trả về từ FolderPickerActivity.
      * Phương thức này sẽ được gọi bởi ActivityResultLauncher.
@@ -156,80 +333,7 @@ public class FileListActivity extends AppCompatActivity{
                 // Kiểm tra trạng thái và danh sách file đang chờ
                 if (fileToOperatePending != null && !fileToOperatePending.isEmpty() && pendingOperation != OperationType.NONE) {
                     Log.d(TAG, "FolderPicker returned destination: " + selectedPath + " for operation: " + pendingOperation + " on " + fileToOperatePending.size() + " items.");
-
-                    // Chạy các thao tác trên luồng nền
-                    // Sao chép danh sách để tránh ConcurrentModificationException nếu fileToOperatePending được sửa đổi ở nơi khác
-                    // Mặc dù ở đây nó được reset ngay sau đó, nhưng đây là một thói quen tốt.
-                    List<File> filesToProcess = new ArrayList<>(fileToOperatePending);
-                    OperationType operationToPerform = pendingOperation; // Lưu lại operation type
-
-                    // --- THÊM CODE HIỂN THỊ PROGRESSDIALOG ---
-                    progressDialog = new ProgressDialog(this);
-                    progressDialog.setTitle(operationToPerform.toString()); // "COPY" hoặc "MOVE"
-                    progressDialog.setMessage("Processing " + filesToProcess.size() + " item(s)...");
-                    progressDialog.setIndeterminate(true); // True nếu không có tiến trình cụ thể từng file
-                    progressDialog.setCancelable(false); // Tạm thời không cho hủy
-                    progressDialog.show();
-                    // -----------------------------------------
-
-                    executorService.execute(() -> {
-                        boolean allSuccessful = true;
-                        int successCount = 0;
-                        int failureCount = 0;
-                        String firstErrorMessage = null;
-
-                        for (File sourceFile : filesToProcess) {
-                            File actualDestination = new File(destinationDirectory, sourceFile.getName());
-                             actualDestination = getUniqueDestinationFile(actualDestination);
-
-                            if (operationToPerform == OperationType.MOVE) {
-                                // Giả sử handleMoveOperationFileBasedInternal cũng trả về boolean
-                                if (handleMoveOperationInternal(sourceFile, destinationDirectory)) {
-                                    successCount++;
-                                } else {
-                                    allSuccessful = false; failureCount++;
-                                    if(firstErrorMessage == null) firstErrorMessage = "Move failed for " + sourceFile.getName();
-                                    // Hàm handleMoveOperationInternal đã log lỗi chi tiết và có thể đã hiển thị Toast cho các lỗi validation ban đầu.
-                                }
-                            } else if (operationToPerform == OperationType.COPY) {
-                                if (copyFileOrDirectoryRecursiveInternal(sourceFile, actualDestination)) {
-                                    successCount++;
-                                    Log.d(TAG, "Successfully copied: " + sourceFile.getName());
-                                } else {
-                                    allSuccessful = false; failureCount++;
-                                    if(firstErrorMessage == null) firstErrorMessage = "Copy failed for " + sourceFile.getName();
-                                    // Hàm copyFileOrDirectoryRecursiveInternal đã log lỗi chi tiết
-                                }
-                            }
-                        } // Kết thúc vòng lặp for
-
-                        // Cập nhật UI trên luồng chính
-                        final boolean finalAllSuccessful = allSuccessful;
-                        final int finalSuccessCount = successCount;
-                        final int finalFailureCount = failureCount;
-                        final String finalFirstErrorMessage = firstErrorMessage;
-                        final OperationType finalOperationPerformed = operationToPerform; // Để dùng trong Toast
-
-                        mainThreadHandler.post(() -> {
-                            // --- THÊM CODE ẨN PROGRESSDIALOG ---
-                            if (progressDialog != null && progressDialog.isShowing()) {
-                                progressDialog.dismiss();
-                            }
-                            progressDialog = null; // Dọn dẹp tham chiếu
-                            // ---------------------------------
-                            if (finalAllSuccessful && finalFailureCount == 0) {
-                                Toast.makeText(this, finalOperationPerformed + " " + finalSuccessCount + " item(s) successful.", Toast.LENGTH_SHORT).show();
-                            } else {
-                                String message = finalOperationPerformed + " completed with " + finalSuccessCount + " success(es) and " + finalFailureCount + " failure(s).";
-                                if (finalFirstErrorMessage != null) {
-                                    message += "\nFirst error: " + finalFirstErrorMessage;
-                                }
-                                Toast.makeText(this, message, Toast.LENGTH_LONG).show();
-                            }
-                            loadFilesAndFolders(); // Làm mới danh sách
-                        });
-                    }); // Kết thúc executorService.execute
-
+                    runTransfer(pendingOperation, fileToOperatePending.files(), destinationDirectory);
                 } else {
                     Log.w(TAG, "Folder picker returned OK, but state is invalid (pendingFile=" + fileToOperatePending + ", pendingOp=" + pendingOperation + ")");
                     Toast.makeText(this, "Operation cancelled or invalid state.", Toast.LENGTH_SHORT).show();
@@ -251,6 +355,89 @@ public class FileListActivity extends AppCompatActivity{
         fileToOperatePending = null;
         pendingOperation = OperationType.NONE;
     }
+
+    /**
+     * Copies or moves {@code filesToProcess}, which may come from several folders, into
+     * {@code destinationDirectory} as one batch: one set of path locks, one progress dialog and
+     * one summary.
+     */
+    private void runTransfer(OperationType operationToPerform, List<File> filesToProcess, File destinationDirectory) {
+        // --- THÊM CODE HIỂN THỊ PROGRESSDIALOG ---
+        // One dialog per transfer: a second transfer started meanwhile must not dismiss this one
+        ProgressDialog progressDialog = new ProgressDialog(this);
+        progressDialog.setTitle(operationToPerform.toString()); // "COPY" hoặc "MOVE"
+        progressDialog.setMessage("Processing " + filesToProcess.size() + " item(s)...");
+        progressDialog.setIndeterminate(true); // True nếu không có tiến trình cụ thể từng file
+        progressDialog.setCancelable(false); // Tạm thời không cho hủy
+        progressDialog.show();
+        // -----------------------------------------
+
+        PathLockManager.LockSet locks = new PathLockManager.LockSet().exclusive(destinationDirectory);
+        if (operationToPerform == OperationType.MOVE) {
+            locks.exclusive(filesToProcess);
+        } else {
+            locks.shared(filesToProcess);
+        }
+        executeLocked(locks, () -> {
+            boolean allSuccessful = true;
+            int successCount = 0;
+            int failureCount = 0;
+            String firstErrorMessage = null;
+
+            for (File sourceFile : filesToProcess) {
+                if (operationToPerform == OperationType.MOVE) {
+                    // Giả sử handleMoveOperationFileBasedInternal cũng trả về boolean
+                    if (handleMoveOperationInternal(sourceFile, destinationDirectory)) {
+                        successCount++;
+                        notifyDeleted(sourceFile);
+                        notifyCreated(new File(destinationDirectory, sourceFile.getName()));
+                    } else {
+                        allSuccessful = false; failureCount++;
+                        if(firstErrorMessage == null) firstErrorMessage = "Move failed for " + sourceFile.getName();
+                        // Hàm handleMoveOperationInternal đã log lỗi chi tiết và có thể đã hiển thị Toast cho các lỗi validation ban đầu.
+                    }
+                } else if (operationToPerform == OperationType.COPY) {
+                    // Tên không trùng: "a (1).txt" nếu đích đã có "a.txt"
+                    File actualDestination = getUniqueDestinationFile(new File(destinationDirectory, sourceFile.getName()));
+                    if (copyFileOrDirectoryRecursiveInternal(sourceFile, actualDestination)) {
+                        successCount++;
+                        notifyCreated(actualDestination);
+                        Log.d(TAG, "Successfully copied: " + sourceFile.getName());
+                    } else {
+                        allSuccessful = false; failureCount++;
+                        if(firstErrorMessage == null) firstErrorMessage = "Copy failed for " + sourceFile.getName();
+                        // Hàm copyFileOrDirectoryRecursiveInternal đã log lỗi chi tiết
+                    }
+                }
+            } // Kết thúc vòng lặp for
+
+            // Cập nhật UI trên luồng chính
+            final boolean finalAllSuccessful = allSuccessful;
+            final int finalSuccessCount = successCount;
+            final int finalFailureCount = failureCount;
+            final String finalFirstErrorMessage = firstErrorMessage;
+            final OperationType finalOperationPerformed = operationToPerform; // Để dùng trong Toast
+
+            mainThreadHandler.post(() -> {
+                // --- THÊM CODE ẨN PROGRESSDIALOG ---
+                if (progressDialog.isShowing()) {
+                    progressDialog.dismiss();
+                }
+                // ---------------------------------
+                if (finalAllSuccessful && finalFailureCount == 0) {
+                    Toast.makeText(this, finalOperationPerformed + " " + finalSuccessCount + " item(s) successful.", Toast.LENGTH_SHORT).show();
+                } else {
+                    String message = finalOperationPerformed + " completed with " + finalSuccessCount + " success(es) and " + finalFailureCount + " failure(s).";
+                    if (finalFirstErrorMessage != null) {
+                        message += "\nFirst error: " + finalFirstErrorMessage;
+                    }
+                    Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+                }
+                loadFilesAndFolders(); // Làm mới danh sách
+            });
+        }); // Kết thúc executeLocked
+    }
+
     public void onSelectionModeChanged(boolean enabled) {
         if (enabled) {
             if (currentActionMode == null) {
@@ -288,8 +475,11 @@ public class FileListActivity extends AppCompatActivity{
                 MenuItem deleteItem = menu.findItem(R.id.action_delete_selected);
                 MenuItem moveItem = menu.findItem(R.id.action_move_selected);
                 MenuItem copyItem = menu.findItem(R.id.action_copy_selected);
+                MenuItem clipboardItem = menu.findItem(R.id.action_add_to_clipboard);
                 MenuItem compressItem = menu.findItem(R.id.action_compress_selected);
                 MenuItem extractItem = menu.findItem(R.id.action_extract_selected);
+                MenuItem addToArchiveItem = menu.findItem(R.id.action_add_to_archive);
+                MenuItem removeFromArchiveItem = menu.findItem(R.id.action_remove_from_archive);
                 MenuItem renameItem = menu.findItem(R.id.action_rename_selected);
 
                 int selectedCount = adapter.getSelectedItemCount();
@@ -297,22 +487,22 @@ public class FileListActivity extends AppCompatActivity{
                 if (deleteItem != null) deleteItem.setVisible(selectedCount > 0);
                 if (moveItem != null) moveItem.setVisible(selectedCount > 0);
                 if (copyItem != null) copyItem.setVisible(selectedCount > 0);
+                if (clipboardItem != null) clipboardItem.setVisible(selectedCount > 0);
                 if (compressItem != null) compressItem.setVisible(selectedCount > 0);
+                if (addToArchiveItem != null) addToArchiveItem.setVisible(selectedCount > 0);
                 if (renameItem != null) renameItem.setVisible(selectedCount == 1);
                 // --- Xử lý visibility cho nút EXTRACT ---
-                if (extractItem != null) {
-                    boolean isVisibleForExtract = false; // Mặc định là ẩn
-                    if (selectedCount == 1) {
-                        // Lấy mục duy nhất đã chọn
-                        List<File> selectedFiles = adapter.getSelectedItems(); // Hàm này trả về List
-                        if (!selectedFiles.isEmpty()) {
-                            File selectedFile = selectedFiles.get(0); // Lấy phần tử đầu tiên (và duy nhất)
-                            if (selectedFile.isFile() && selectedFile.getName().toLowerCase().endsWith(".zip")) {
-                                isVisibleForExtract = true;
-                            }
-                        }
-                    }
-                    extractItem.setVisible(isVisibleForExtract);
+                boolean isVisibleForExtract = false; // Mặc định là ẩn
+                // Chỉ lấy mục đầu tiên, không tạo cả danh sách (hàm này chạy sau mỗi lần chọn/bỏ chọn)
+                File selectedFile = selectedCount == 1 ? adapter.getFirstSelectedItem() : null;
+                // Loại của dòng đã có từ lúc liệt kê: không stat lại trên luồng chính
+                if (selectedFile != null && adapter.getFirstSelectedCategory() != FileTypeClassifier.Category.FOLDER
+                        && isExtractableArchive(selectedFile.getName())) {
+                    isVisibleForExtract = true;
+                }
+                if (extractItem != null) extractItem.setVisible(isVisibleForExtract);
+                if (removeFromArchiveItem != null) {
+                    removeFromArchiveItem.setVisible(isVisibleForExtract && selectedFile.getName().toLowerCase().endsWith(".zip"));
                 }
                 // ------------------------------------------
                 // Nút "Select All" có thể luôn hiển thị hoặc ẩn khi tất cả đã được chọn
@@ -321,24 +511,32 @@ public class FileListActivity extends AppCompatActivity{
 
             @Override
             public boolean onActionItemClicked(ActionMode mode, MenuItem item) {
-                List<File> selectedFiles = adapter.getSelectedItems();
-                if (selectedFiles.isEmpty() && item.getItemId() != R.id.action_select_all) {
+                int itemId = item.getItemId();
+                if (itemId == R.id.action_select_all) {
+                    adapter.selectAll();
+                    return true; // Không kết thúc mode
+                }
+                if (adapter.getSelectedItemCount() == 0) {
                     Toast.makeText(FileListActivity.this, "No items selected.", Toast.LENGTH_SHORT).show();
                     mode.finish(); // Thoát ActionMode
                     return true;
                 }
 
-                int itemId = item.getItemId();
+                List<File> selectedFiles = adapter.getSelectedItems(); // Chỉ tạo danh sách khi thực sự thực hiện thao tác
                 if (itemId == R.id.action_delete_selected) {
                     handleDeleteSelected(selectedFiles);
                     mode.finish(); // Kết thúc ActionMode sau khi hành động
                     return true;
                 } else if (itemId == R.id.action_copy_selected) {
-                    handleCopySelected(selectedFiles);
+                    handleCopySelected(selectedFiles, adapter.getSelectedFolders());
                     mode.finish();
                     return true;
                 } else if (itemId == R.id.action_move_selected) {
-                    handleMoveSelected(selectedFiles);
+                    handleMoveSelected(selectedFiles, adapter.getSelectedFolders());
+                    mode.finish();
+                    return true;
+                } else if (itemId == R.id.action_add_to_clipboard) {
+                    handleAddToClipboard(selectedFiles);
                     mode.finish();
                     return true;
                 } else if (itemId == R.id.action_compress_selected) {
@@ -349,13 +547,18 @@ public class FileListActivity extends AppCompatActivity{
                     extractItem(selectedFiles.get(0));
                     mode.finish();
                     return true;
+                } else if (itemId == R.id.action_add_to_archive) {
+                    handleAddToArchiveSelected(selectedFiles);
+                    mode.finish();
+                    return true;
+                } else if (itemId == R.id.action_remove_from_archive) {
+                    handleRemoveFromArchive(selectedFiles.get(0));
+                    mode.finish();
+                    return true;
                 } else if (itemId == R.id.action_rename_selected) {
                     showRenameDialog(selectedFiles.get(0));
                     mode.finish();
                     return true;
-                } else if (itemId == R.id.action_select_all) {
-                    adapter.selectAll();
-                    return true; // Không kết thúc mode
                 }
                 return false; // Hành động không được xử lý
             }
@@ -378,12 +581,13 @@ public class FileListActivity extends AppCompatActivity{
                 .setMessage("Are you sure you want to delete " + filesToDelete.size() + " item(s)?")
                 .setPositiveButton("Delete", (dialog, which) -> {
                     // Thực hiện xóa trên luồng nền (quan trọng)
-                    executorService.execute(() -> {
+                    executeLocked(new PathLockManager.LockSet().exclusive(filesToDelete), () -> {
                         int successCount = 0;
                         File parentOfFirst = filesToDelete.get(0).getParentFile(); // Để refresh
                         for (File file : filesToDelete) {
                             if (deleteRecursiveInternal(file)) { // Sử dụng hàm xóa đệ quy hiện có
                                 successCount++;
+                                notifyDeleted(file);
                             } else {
                                 Log.e(TAG, "Failed to delete: " + file.getAbsolutePath());
                                 // Có thể hiển thị lỗi cho từng file
@@ -403,19 +607,81 @@ public class FileListActivity extends AppCompatActivity{
                 .setNegativeButton("Cancel", null)
                 .show();
     }
-    private void handleCopySelected(List<File> filesToCopy) {
+    private void handleCopySelected(List<File> filesToCopy, List<File> selectedFolders) {
         if (filesToCopy.isEmpty()) return;
-        // Ví dụ: nếu bạn quyết định copy từng file và mở FolderPicker cho file đầu tiên
-        if (!filesToCopy.isEmpty()) {
-            // Đặt trạng thái cho copy và file đầu tiên
-            this.fileToOperatePending = filesToCopy; // Chỉ ví dụ, bạn cần xử lý list
-            this.pendingOperation = OperationType.COPY;
+        // Đặt trạng thái cho copy (cả danh sách, dạng trie gọn) rồi mở FolderPicker
+        this.fileToOperatePending = new PathTrie();
+        this.fileToOperatePending.addAll(filesToCopy);
+        this.pendingOperation = OperationType.COPY;
+
+        Intent intent = new Intent(this, FolderPickerActivity.class);
+        intent.putExtra(FolderPickerActivity.EXTRA_SOURCE_PATHS, sourceFoldersExtra(selectedFolders));
+        intent.putExtra(FolderPickerActivity.EXTRA_INITIAL_PATH, currentPath);
+        customFolderPickerLauncher.launch(intent);
+    }
 
-            Intent intent = new Intent(this, FolderPickerActivity.class);
-            intent.putExtra(FolderPickerActivity.EXTRA_SOURCE_PATH_TO_MOVE, filesToCopy.get(0).getAbsolutePath());
-            intent.putExtra(FolderPickerActivity.EXTRA_INITIAL_PATH, currentPath);
-            customFolderPickerLauncher.launch(intent);
-        }
+    /**
+     * The selected folders for the picker, which must not offer them or anything inside them as
+     * a destination. Files cannot contain a destination, so a selection of 100k files sends nothing.
+     */
+    private static byte[] sourceFoldersExtra(List<File> selectedFolders) {
+        PathTrie folders = new PathTrie();
+        folders.addAll(selectedFolders);
+        return folders.toBytes();
+    }
+
+    /** Thêm các mục đang chọn vào clipboard (gom được từ nhiều thư mục), ở luồng nền. */
+    private void handleAddToClipboard(List<File> selectedFiles) {
+        runOffMainThread(() -> {
+            int added = clipboard.addAll(selectedFiles);
+            return new int[] {added, clipboard.size()};
+        }, counts -> {
+            invalidateOptionsMenu();
+            String message = counts[0] + " item(s) added to clipboard (" + counts[1] + " in total).";
+            if (counts[0] < selectedFiles.size()) {
+                message += "\n" + (selectedFiles.size() - counts[0]) + " already on it or inside a folder on it.";
+            }
+            Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
+        });
+    }
+
+    /** Hiện nội dung clipboard: sao chép hoặc di chuyển tất cả vào thư mục hiện tại trong một lần, hoặc xóa clipboard. */
+    private void showClipboardDialog() {
+        final File destination = new File(currentPath);
+        runOffMainThread(clipboard::snapshot, entries -> {
+            if (entries.isEmpty()) {
+                Toast.makeText(this, "Clipboard is empty.", Toast.LENGTH_SHORT).show();
+                invalidateOptionsMenu();
+                return;
+            }
+            List<String> paths = entries.paths();
+            StringBuilder message = new StringBuilder(entries.size() + " item(s) on the clipboard:");
+            for (int i = 0; i < Math.min(paths.size(), CLIPBOARD_PREVIEW_ITEMS); i++) {
+                message.append('\n').append(getDisplayPath(paths.get(i)));
+            }
+            if (paths.size() > CLIPBOARD_PREVIEW_ITEMS) {
+                message.append("\n… and ").append(paths.size() - CLIPBOARD_PREVIEW_ITEMS).append(" more");
+            }
+            new AlertDialog.Builder(this)
+                    .setTitle("Clipboard")
+                    .setMessage(message.toString())
+                    .setPositiveButton("Copy here", (dialog, which) ->
+                            runTransfer(OperationType.COPY, entries.files(), destination))
+                    .setNegativeButton("Move here", (dialog, which) -> {
+                        // Không di chuyển thư mục vào chính nó hoặc thư mục con của nó
+                        if (entries.covers(destination.getAbsolutePath())) {
+                            Toast.makeText(this, "Cannot move folder into itself or subfolder", Toast.LENGTH_SHORT).show();
+                            return;
+                        }
+                        runTransfer(OperationType.MOVE, entries.files(), destination);
+                    })
+                    .setNeutralButton("Clear", (dialog, which) ->
+                            runOffMainThread(() -> {
+                                clipboard.clear();
+                                return null;
+                            }, ignored -> invalidateOptionsMenu()))
+                    .show();
+        });
     }
     private void handleCompressSelected(List<File> filesToCompress) {
         if (filesToCompress.isEmpty()) {
@@ -423,18 +689,38 @@ public class FileListActivity extends AppCompatActivity{
             return;
         }
         File parentDir = new File(currentPath);
-        // Kiểm tra thư mục cha và quyền ghi sớm
-        if (!parentDir.exists() || !parentDir.isDirectory() || !parentDir.canWrite()) {
-            Toast.makeText(this, "Cannot create compressed file in the current directory (check permissions or path).", Toast.LENGTH_LONG).show();
-            Log.e(TAG, "handleCompressSelected: Invalid or non-writable parent directory: " + currentPath);
-            return;
+        final List<File> selection = new ArrayList<>(filesToCompress);
+        // Kiểm tra thư mục cha và quyền ghi sớm (ở luồng nền)
+        runOffMainThread(() -> parentDir.exists() && parentDir.isDirectory() && parentDir.canWrite(), writable -> {
+            if (!writable) {
+                Toast.makeText(this, "Cannot create compressed file in the current directory (check permissions or path).", Toast.LENGTH_LONG).show();
+                Log.e(TAG, "handleCompressSelected: Invalid or non-writable parent directory: " + parentDir);
+                return;
+            }
+            showCompressFormatDialog(selection, parentDir);
+        });
+    }
+
+    private void showCompressFormatDialog(List<File> selection, File parentDir) {
+        ArchiveFormat[] formats = ArchiveFormat.values();
+        CharSequence[] formatLabels = new CharSequence[formats.length];
+        for (int i = 0; i < formats.length; i++) {
+            formatLabels[i] = formats[i].label;
         }
+        new AlertDialog.Builder(this)
+                .setTitle("Compress as")
+                .setItems(formatLabels, (dialog, which) -> compressSelected(selection, parentDir, formats[which]))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void compressSelected(List<File> filesToCompress, File parentDir, ArchiveFormat format) {
         String zipFileName; // Khai báo biến
             String baseName = filesToCompress.get(0).getName();
             if(filesToCompress.size() == 1){
-                zipFileName = baseName + ".zip";
+                zipFileName = baseName + format.extension;
             } else {
-                zipFileName = baseName + "_and_" + (filesToCompress.size() - 1) + "_more.zip";
+                zipFileName = baseName + "_and_" + (filesToCompress.size() - 1) + "_more" + format.extension;
             }
             ProgressDialog progressDialog = new ProgressDialog(this);
             progressDialog.setTitle("Compressing");
@@ -447,7 +733,7 @@ public class FileListActivity extends AppCompatActivity{
         final List<File> itemsToProcess = new ArrayList<>(filesToCompress);
         final String initialZipName = zipFileName; // Lưu tên ban đầu để dùng trong luồng nền
 
-            executorService.execute(() -> {
+            executeLocked(new PathLockManager.LockSet().shared(itemsToProcess).exclusive(parentDir), () -> {
                 boolean success = true; // Giả sử thành công
                 String errorMessage = "Failed to compress items."; // Thông báo lỗi mặc định
                 File destinationZipFile = new File(parentDir, initialZipName); // Dùng initialZipName
@@ -461,27 +747,43 @@ public class FileListActivity extends AppCompatActivity{
                     }
                 });
 
-                try (FileOutputStream fos = new FileOutputStream(destinationZipFile);
-                     ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(fos))) {
-
-                    int itemCount = 0;
-                    for (File item : itemsToProcess) {
-                        itemCount++;
-                        final int currentItemNum = itemCount;
-                        final String itemName = item.getName();
-                        //Cập nhật tiến trình chi tiết hơn
-                        mainThreadHandler.post(() -> {
-                            if (progressDialog.isShowing()) {
-                                progressDialog.setMessage("Adding: " + itemName + "\n(" + currentItemNum + "/" + itemsToProcess.size() + ")");
+                try {
+                    if (format == ArchiveFormat.ZIP) {
+                        try (FileOutputStream fos = new FileOutputStream(destinationZipFile);
+                             ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(fos))) {
+                            int itemCount = 0;
+                            for (File item : itemsToProcess) {
+                                itemCount++;
+                                postCompressProgress(progressDialog, item.getName(), itemCount, itemsToProcess.size());
+                                if (item.isDirectory()) {
+                                    addFolderToZip(item, item.getName(), zos);
+                                } else {
+                                    addFileToZip(item, item.getName(), zos);
+                                }
+                            }
+                            // zos.close() sẽ được gọi bởi try-with-resources
+                        }
+                    } else {
+                        // The file gets its own resource: the gzip stream writes its header when created and may throw
+                        try (FileOutputStream fos = new FileOutputStream(destinationZipFile)) {
+                            OutputStream archiveStream = new BufferedOutputStream(fos, 64 * 1024);
+                            if (format == ArchiveFormat.TAR_GZ) {
+                                archiveStream = new ParallelGzipOutputStream(archiveStream);
+                            }
+                            try (TarArchiveWriter tar = new TarArchiveWriter(archiveStream)) {
+                                int itemCount = 0;
+                                for (File item : itemsToProcess) {
+                                    itemCount++;
+                                    postCompressProgress(progressDialog, item.getName(), itemCount, itemsToProcess.size());
+                                    if (item.isDirectory()) {
+                                        addFolderToTar(item, item.getName(), tar);
+                                    } else {
+                                        tar.putFile(item, item.getName());
+                                    }
+                                }
                             }
-                        });
-                        if (item.isDirectory()) {
-                            addFolderToZip(item, item.getName(), zos);
-                        } else {
-                            addFileToZip(item, item.getName(), zos);
                         }
                     }
-                    // zos.close() sẽ được gọi bởi try-with-resources
                 } catch (IOException e) {
                     Log.e(TAG, "IOException during compression to " + finalActualZipName, e);
                     success = false;
@@ -499,6 +801,9 @@ public class FileListActivity extends AppCompatActivity{
                     destinationZipFile.delete();
                 }
 
+                if (success) {
+                    notifyCreated(destinationZipFile);
+                }
                 final boolean finalSuccess = success;
                 final String finalMessage = success ? "Compressed " + filesToCompress.size() + " items to " + destinationZipFile.getName() : "Failed to compress items.";
 
@@ -514,37 +819,116 @@ public class FileListActivity extends AppCompatActivity{
 
             });
         }
-        private void addFolderToZip(File folder, String baseEntryPath, ZipOutputStream zos) throws IOException {
-        File[] files = folder.listFiles();
-        if (files == null) {
-            Log.w(TAG, "Cannot list files in folder (permissions?): " + folder.getAbsolutePath());
-            return; // Bỏ qua thư mục không thể đọc
-        }
-
-        // Thêm entry cho chính thư mục này (quan trọng để giữ cấu trúc)
-        // Đảm bảo tên entry kết thúc bằng "/"
-        String folderEntry = baseEntryPath.endsWith("/") ? baseEntryPath : baseEntryPath + "/";
-        if (!folderEntry.isEmpty() && !folderEntry.equals("/")){ // Không thêm entry rỗng nếu baseEntryPath là "" (trường hợp gốc)
+    /**
+     * Runs {@code task} on the executor once {@code locks} are held, releasing them afterwards.
+     * Every background file operation goes through here.
+     */
+    private void executeLocked(PathLockManager.LockSet locks, Runnable task) {
+        executorService.execute(() -> {
+            PathLockManager.Lease lease;
             try {
-                zos.putNextEntry(new ZipEntry(folderEntry));
-                zos.closeEntry();
-            } catch (Exception e){
-                // Có thể xảy ra nếu entry đã tồn tại (ít khả năng với ZipOutputStream mới)
-                Log.w(TAG, "Could not add folder entry: " + folderEntry, e);
+                lease = PATH_LOCKS.acquire(locks);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                Log.w(TAG, "Interrupted while waiting for path locks; operation dropped.");
+                return;
             }
-        }
+            try {
+                task.run();
+            } finally {
+                lease.close();
+            }
+        });
+    }
 
+    private void postCompressProgress(ProgressDialog progressDialog, String itemName, int currentItemNum, int total) {
+        //Cập nhật tiến trình chi tiết hơn
+        mainThreadHandler.post(() -> {
+            if (progressDialog.isShowing()) {
+                progressDialog.setMessage("Adding: " + itemName + "\n(" + currentItemNum + "/" + total + ")");
+            }
+        });
+    }
 
-        for (File file : files) {
-            String entryName = baseEntryPath + "/" + file.getName();
-            if (file.isDirectory()) {
-                addFolderToZip(file, entryName, zos);
-            } else {
-                addFileToZip(file, entryName, zos);
+    private void addFolderToTar(File folder, String baseEntryPath, TarArchiveWriter tar) throws IOException {
+        walkIntoArchive(folder, baseEntryPath, new ArchiveSink() {
+            @Override
+            public void putDirectory(String entryName, TreeWalker.Entry dir) throws IOException {
+                tar.putDirectory(entryName, dir.getLastModified());
             }
-        }
+
+            @Override
+            public void putFile(String entryName, TreeWalker.Entry file) throws IOException {
+                tar.putFile(file.getFile(), entryName);
+            }
+        });
+    }
+
+    private void addFolderToZip(File folder, String baseEntryPath, ZipOutputStream zos) throws IOException {
+        walkIntoArchive(folder, baseEntryPath, new ArchiveSink() {
+            @Override
+            public void putDirectory(String entryName, TreeWalker.Entry dir) {
+                // Thêm entry cho chính thư mục này (quan trọng để giữ cấu trúc)
+                try {
+                    zos.putNextEntry(new ZipEntry(entryName + "/"));
+                    zos.closeEntry();
+                } catch (Exception e) {
+                    // Có thể xảy ra nếu entry đã tồn tại (ít khả năng với ZipOutputStream mới)
+                    Log.w(TAG, "Could not add folder entry: " + entryName, e);
+                }
+            }
+
+            @Override
+            public void putFile(String entryName, TreeWalker.Entry file) throws IOException {
+                addFileToZip(file.getFile(), entryName, zos);
+            }
+        });
+    }
+
+    /** Target of {@link #walkIntoArchive}: one method per kind of entry. */
+    private interface ArchiveSink {
+        void putDirectory(String entryName, TreeWalker.Entry dir) throws IOException;
+
+        void putFile(String entryName, TreeWalker.Entry file) throws IOException;
+    }
+
+    /**
+     * Walks {@code folder} and hands every directory and regular file to {@code sink} under
+     * {@code baseEntryPath}. Unreadable folders are skipped with a warning; a file that
+     * cannot be read aborts, since the archive stream may already hold part of it.
+     */
+    private void walkIntoArchive(File folder, String baseEntryPath, ArchiveSink sink) throws IOException {
+        new TreeWalker(TreeWalker.SymlinkPolicy.FOLLOW).walk(folder, new TreeWalker.SimpleVisitor() {
+            @Override
+            public TreeWalker.Action preVisitDirectory(TreeWalker.Entry dir) throws IOException {
+                sink.putDirectory(archiveEntryName(baseEntryPath, dir), dir);
+                return TreeWalker.Action.CONTINUE;
+            }
+
+            @Override
+            public TreeWalker.Action visitFile(TreeWalker.Entry file) throws IOException {
+                if (file.isRegularFile()) {
+                    sink.putFile(archiveEntryName(baseEntryPath, file), file);
+                }
+                return TreeWalker.Action.CONTINUE;
+            }
+
+            @Override
+            public TreeWalker.Action visitFailed(File file, TreeWalker.Entry entry, IOException error) throws IOException {
+                if (entry != null && entry.isDirectory()) {
+                    Log.w(TAG, "Cannot list files in folder (permissions?): " + file.getAbsolutePath(), error);
+                    return TreeWalker.Action.CONTINUE; // Bỏ qua thư mục không thể đọc
+                }
+                throw error;
+            }
+        });
+    }
+
+    private static String archiveEntryName(String baseEntryPath, TreeWalker.Entry entry) {
+        return entry.getRelativePath().isEmpty() ? baseEntryPath : baseEntryPath + "/" + entry.getRelativePath();
     }
-        private void addFileToZip(File file, String entryName, ZipOutputStream zos) throws IOException {
+
+    private void addFileToZip(File file, String entryName, ZipOutputStream zos) throws IOException {
         byte[] buffer = new byte[4096]; // Buffer 4KB
         FileInputStream fis = new FileInputStream(file);
         BufferedInputStream bis = new BufferedInputStream(fis, buffer.length);
@@ -565,6 +949,178 @@ public class FileListActivity extends AppCompatActivity{
         bis.close();
         fis.close();
     }
+
+    /**
+     * Lets the user pick one of the zip archives in the current folder and appends the
+     * selected items to it in place (see {@link ZipArchiveEditor}). Items already present
+     * in the archive under the same name are replaced.
+     */
+    private void handleAddToArchiveSelected(List<File> filesToAdd) {
+        if (filesToAdd.isEmpty()) return;
+        final List<File> archives = new ArrayList<>();
+        for (File file : fileList) {
+            if (file.getName().toLowerCase().endsWith(".zip") && !filesToAdd.contains(file)) {
+                archives.add(file);
+            }
+        }
+        if (archives.isEmpty()) {
+            Toast.makeText(this, "No zip archive in this folder to add to.", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        CharSequence[] archiveNames = new CharSequence[archives.size()];
+        for (int i = 0; i < archives.size(); i++) {
+            archiveNames[i] = archives.get(i).getName();
+        }
+        final List<File> itemsToProcess = new ArrayList<>(filesToAdd);
+        new AlertDialog.Builder(this)
+                .setTitle("Add to archive")
+                .setItems(archiveNames, (dialog, which) -> addItemsToArchive(itemsToProcess, archives.get(which)))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void addItemsToArchive(List<File> itemsToAdd, File archive) {
+        ProgressDialog progressDialog = new ProgressDialog(this);
+        progressDialog.setTitle("Adding to archive");
+        progressDialog.setMessage("Opening '" + archive.getName() + "'...");
+        progressDialog.setCancelable(false);
+        progressDialog.setIndeterminate(true);
+        progressDialog.show();
+
+        executeLocked(new PathLockManager.LockSet().shared(itemsToAdd).exclusive(archive), () -> {
+            boolean success = false;
+            String errorMessage = "Failed to add items to " + archive.getName() + ".";
+            ZipArchiveEditor editor = null;
+            try {
+                editor = ZipArchiveEditor.open(archive);
+                int itemCount = 0;
+                for (File item : itemsToAdd) {
+                    itemCount++;
+                    final int currentItemNum = itemCount;
+                    final String itemName = item.getName();
+                    mainThreadHandler.post(() -> {
+                        if (progressDialog.isShowing()) {
+                            progressDialog.setMessage("Adding: " + itemName + "\n(" + currentItemNum + "/" + itemsToAdd.size() + ")");
+                        }
+                    });
+                    if (item.isDirectory()) {
+                        addFolderToArchive(item, item.getName(), editor);
+                    } else {
+                        editor.addFile(item, item.getName());
+                    }
+                }
+                editor.commit();
+                success = true;
+            } catch (IOException e) {
+                Log.e(TAG, "IOException while adding to archive " + archive.getAbsolutePath(), e);
+                errorMessage = "Error while adding to archive: " + e.getMessage();
+            } catch (SecurityException e) {
+                Log.e(TAG, "SecurityException while adding to archive " + archive.getAbsolutePath(), e);
+                errorMessage = "Permission denied while adding to archive.";
+            } finally {
+                if (editor != null) {
+                    try {
+                        editor.close(); // On failure, drops what was appended: the archive stays as it was
+                    } catch (IOException e) {
+                        Log.e(TAG, "Could not finalize archive " + archive.getAbsolutePath(), e);
+                    }
+                }
+            }
+
+            ItemDetailsLoader.get().invalidate(archive); // Size changed if the commit went through
+            final boolean finalSuccess = success;
+            final String finalMessage = success ? "Added " + itemsToAdd.size() + " item(s) to " + archive.getName() : errorMessage;
+            mainThreadHandler.post(() -> {
+                if (progressDialog.isShowing()) {
+                    progressDialog.dismiss();
+                }
+                Toast.makeText(this, finalMessage, finalSuccess ? Toast.LENGTH_SHORT : Toast.LENGTH_LONG).show();
+                onOperationComplete(archive.getParentFile());
+            });
+        });
+    }
+
+    private void addFolderToArchive(File folder, String baseEntryPath, ZipArchiveEditor editor) throws IOException {
+        walkIntoArchive(folder, baseEntryPath, new ArchiveSink() {
+            @Override
+            public void putDirectory(String entryName, TreeWalker.Entry dir) throws IOException {
+                editor.addDirectory(entryName);
+            }
+
+            @Override
+            public void putFile(String entryName, TreeWalker.Entry file) throws IOException {
+                editor.addFile(file.getFile(), entryName);
+            }
+        });
+    }
+
+    /**
+     * Shows the entries of {@code archive} and removes the checked ones in place. Removed
+     * entries only leave dead space behind until the archive gets compacted.
+     */
+    private void handleRemoveFromArchive(File archive) {
+        executeLocked(new PathLockManager.LockSet().shared(archive), () -> {
+            List<String> names = null;
+            try (ZipArchiveEditor editor = ZipArchiveEditor.open(archive)) {
+                names = editor.getEntryNames();
+            } catch (IOException e) {
+                Log.e(TAG, "Cannot read archive " + archive.getAbsolutePath(), e);
+            }
+            final List<String> entryNames = names;
+            mainThreadHandler.post(() -> {
+                if (entryNames == null) {
+                    Toast.makeText(this, "Cannot read archive: " + archive.getName(), Toast.LENGTH_LONG).show();
+                    return;
+                }
+                if (entryNames.isEmpty()) {
+                    Toast.makeText(this, "Archive is empty.", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                final boolean[] checked = new boolean[entryNames.size()];
+                new AlertDialog.Builder(this)
+                        .setTitle("Remove from " + archive.getName())
+                        .setMultiChoiceItems(entryNames.toArray(new CharSequence[0]), checked,
+                                (dialog, which, isChecked) -> checked[which] = isChecked)
+                        .setPositiveButton("Remove", (dialog, which) -> {
+                            List<String> toRemove = new ArrayList<>();
+                            for (int i = 0; i < checked.length; i++) {
+                                if (checked[i]) toRemove.add(entryNames.get(i));
+                            }
+                            if (!toRemove.isEmpty()) removeEntriesFromArchive(archive, toRemove);
+                        })
+                        .setNegativeButton("Cancel", null)
+                        .show();
+            });
+        });
+    }
+
+    private void removeEntriesFromArchive(File archive, List<String> entryNames) {
+        executeLocked(new PathLockManager.LockSet().exclusive(archive), () -> {
+            int removed = 0;
+            String errorMessage = null;
+            try (ZipArchiveEditor editor = ZipArchiveEditor.open(archive)) {
+                for (String name : entryNames) {
+                    if (editor.remove(name)) removed++;
+                }
+                editor.commit();
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to remove entries from " + archive.getAbsolutePath(), e);
+                errorMessage = "Failed to update archive: " + e.getMessage();
+            }
+            ItemDetailsLoader.get().invalidate(archive);
+            final int finalRemoved = removed;
+            final String finalErrorMessage = errorMessage;
+            mainThreadHandler.post(() -> {
+                if (finalErrorMessage != null) {
+                    Toast.makeText(this, finalErrorMessage, Toast.LENGTH_LONG).show();
+                } else {
+                    Toast.makeText(this, "Removed " + finalRemoved + " entr" + (finalRemoved == 1 ? "y" : "ies") + " from " + archive.getName(), Toast.LENGTH_SHORT).show();
+                }
+                onOperationComplete(archive.getParentFile());
+            });
+        });
+    }
+
       private void extractItem(File zipFile) {
         File parentDir = zipFile.getParentFile();
         if (parentDir == null) {
@@ -572,22 +1128,7 @@ public class FileListActivity extends AppCompatActivity{
             return;
         }
 
-        String baseName = zipFile.getName();
-        int dotIndex = baseName.lastIndexOf('.');
-        if (dotIndex > 0) {
-            baseName = baseName.substring(0, dotIndex);
-        }
-
-        String extractDirName = baseName + "_extracted";
-        File extractDir = new File(parentDir, extractDirName);
-
-        // Xử lý trường hợp thư mục giải nén đã tồn tại
-        int count = 1;
-        while (extractDir.exists()) {
-            extractDirName = baseName + "_extracted_" + count;
-            extractDir = new File(parentDir, extractDirName);
-            count++;
-        }
+        String baseName = stripArchiveExtension(zipFile.getName());
 
         // Hiển thị dialog tiến trình
         ProgressDialog progressDialog = new ProgressDialog(this);
@@ -597,11 +1138,11 @@ public class FileListActivity extends AppCompatActivity{
         progressDialog.setIndeterminate(true);
         progressDialog.show();
 
-        final File finalExtractDir = extractDir; // Biến final
-        executorService.execute(() -> {
+        executeLocked(new PathLockManager.LockSet().shared(zipFile).exclusive(parentDir), () -> {
+            // Chọn tên thư mục giải nén ở luồng nền, khi đã giữ khóa thư mục cha
+            final File finalExtractDir = uniqueExtractDir(parentDir, baseName);
             boolean success = false;
             String errorMessage = "Extraction failed.";
-            ZipInputStream zis = null;
             try {
                 if (!finalExtractDir.mkdirs()) {
                     // Thử tạo lại nếu cần, hoặc báo lỗi nếu không tạo được thư mục đích
@@ -610,72 +1151,39 @@ public class FileListActivity extends AppCompatActivity{
                     }
                 }
 
-                FileInputStream fis = new FileInputStream(zipFile);
-                zis = new ZipInputStream(new BufferedInputStream(fis));
-                ZipEntry zipEntry;
-                byte[] buffer = new byte[4096];
-
-                while ((zipEntry = zis.getNextEntry()) != null) {
-                    File newFile = new File(finalExtractDir, zipEntry.getName());
-
-                    // Ngăn chặn lỗ hổng Zip Slip
-                    if (!newFile.getCanonicalPath().startsWith(finalExtractDir.getCanonicalPath() + File.separator)) {
-                        throw new IOException("Zip entry is trying to escape the target directory: " + zipEntry.getName());
-                    }
-
-
-                    // Tạo thư mục cha nếu cần thiết
-                    if (zipEntry.isDirectory()) {
-                        if (!newFile.mkdirs() && !newFile.isDirectory()) {
-                            Log.w(TAG, "Failed to create directory: " + newFile.getAbsolutePath());
-                            // Có thể tiếp tục hoặc báo lỗi tùy theo yêu cầu
-                        }
+                long startTime = System.nanoTime();
+                ExtractionPipeline pipeline = new ExtractionPipeline();
+                // Closing waits for the writer to drain and rethrows a write error; if extraction
+                // already failed, that error is kept and the close failure is added as suppressed
+                try (pipeline) {
+                    if (isTarArchive(zipFile.getName())) {
+                        extractTarEntries(zipFile, finalExtractDir, pipeline);
                     } else {
-                        // Tạo thư mục cha cho file nếu chưa tồn tại
-                        File parent = newFile.getParentFile();
-                        if (parent != null && !parent.exists()) {
-                            if (!parent.mkdirs() && !parent.isDirectory()) {
-                                throw new IOException("Could not create parent directory: " + parent.getAbsolutePath());
-                            }
-                        }
-
-                        // Ghi file
-                        FileOutputStream fos = new FileOutputStream(newFile);
-                        BufferedOutputStream bos = new BufferedOutputStream(fos, buffer.length);
-                        int len;
-                        while ((len = zis.read(buffer)) > 0) {
-                            bos.write(buffer, 0, len);
-                        }
-                        bos.close();
-                        fos.close();
+                        extractZipEntries(zipFile, finalExtractDir, pipeline);
                     }
-                    zis.closeEntry();
                 }
-                zis.closeEntry(); // Đảm bảo entry cuối cùng đóng lại
+                Log.d(TAG, "Extracted " + pipeline.getBytesWritten() + " bytes in "
+                        + (System.nanoTime() - startTime) / 1_000_000 + " ms (inflate stalled on disk "
+                        + pipeline.getProducerStallMillis() + " ms, writer idle " + pipeline.getWriterIdleMillis() + " ms)");
                 success = true;
             } catch (IOException e) {
                 Log.e(TAG, "IOException during extraction", e);
-                errorMessage = "Extraction failed: I/O Error or Corrupt ZIP.";
+                errorMessage = "Extraction failed: I/O Error or Corrupt Archive.";
                 // Cố gắng xóa thư mục giải nén bị lỗi
                 deleteRecursiveInternal(finalExtractDir);
             } catch (SecurityException e) {
                 Log.e(TAG, "SecurityException during extraction", e);
                 errorMessage = "Extraction failed: Permission Denied.";
                 deleteRecursiveInternal(finalExtractDir);
-            } catch (Exception e) {
-                Log.e(TAG, "Unexpected error during extraction", e);
-                errorMessage = "An unexpected error occurred during extraction.";
-                deleteRecursiveInternal(finalExtractDir);
-            } finally {
-                if (zis != null) {
-                    try {
-                        zis.close(); // Luôn đóng ZipInputStream
-                    } catch (IOException e) {
-                        Log.e(TAG, "Error closing ZipInputStream", e);
-                    }
-                }
+            } catch (Exception e) {
+                Log.e(TAG, "Unexpected error during extraction", e);
+                errorMessage = "An unexpected error occurred during extraction.";
+                deleteRecursiveInternal(finalExtractDir);
             }
 
+            if (success) {
+                notifyCreated(finalExtractDir);
+            }
             final boolean finalSuccess = success;
             final String finalErrorMessage = errorMessage;
 
@@ -693,11 +1201,122 @@ public class FileListActivity extends AppCompatActivity{
             });
         });
     }
+
+    private static boolean isTarArchive(String fileName) {
+        String lower = fileName.toLowerCase();
+        return lower.endsWith(".tar") || lower.endsWith(".tar.gz") || lower.endsWith(".tgz");
+    }
+
+    private static boolean isExtractableArchive(String fileName) {
+        return fileName.toLowerCase().endsWith(".zip") || isTarArchive(fileName);
+    }
+
+    private static String stripArchiveExtension(String fileName) {
+        String lower = fileName.toLowerCase();
+        for (String suffix : new String[]{".tar.gz", ".tgz", ".tar", ".zip"}) {
+            if (lower.endsWith(suffix) && lower.length() > suffix.length()) {
+                return fileName.substring(0, fileName.length() - suffix.length());
+            }
+        }
+        int dotIndex = fileName.lastIndexOf('.');
+        return dotIndex > 0 ? fileName.substring(0, dotIndex) : fileName;
+    }
+
+    /** {@code <baseName>_extracted}, or the first free {@code <baseName>_extracted_<n>}; stats the disk. */
+    private static File uniqueExtractDir(File parentDir, String baseName) {
+        File extractDir = new File(parentDir, baseName + "_extracted");
+        // Xử lý trường hợp thư mục giải nén đã tồn tại
+        int count = 1;
+        while (extractDir.exists()) {
+            extractDir = new File(parentDir, baseName + "_extracted_" + count);
+            count++;
+        }
+        return extractDir;
+    }
+
+    /**
+     * Streams a .tar / .tar.gz archive straight into {@code extractDir}: the gzip layer is
+     * decoded on the fly, nothing is staged in temporary files. Links and special entries
+     * are skipped. File contents are handed to {@code pipeline} for writing.
+     */
+    /**
+     * Extracts the entries listed in the zip's central directory. An archive edited in place by
+     * {@link ZipArchiveEditor} keeps stale local headers in front of the live ones and appends
+     * new entries after the old central directory, so it must not be read front to back.
+     */
+    static void extractZipEntries(File archive, File extractDir, ExtractionPipeline pipeline) throws IOException {
+        String canonicalRoot = extractDir.getCanonicalPath();
+        try (ZipFile zip = new ZipFile(archive)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry zipEntry = entries.nextElement();
+                File newFile = new File(extractDir, zipEntry.getName());
+
+                // Ngăn chặn lỗ hổng Zip Slip
+                if (!newFile.getCanonicalPath().startsWith(canonicalRoot + File.separator)) {
+                    throw new IOException("Zip entry is trying to escape the target directory: " + zipEntry.getName());
+                }
+
+                // Tạo thư mục cha nếu cần thiết
+                if (zipEntry.isDirectory()) {
+                    if (!newFile.mkdirs() && !newFile.isDirectory()) {
+                        Log.w(TAG, "Failed to create directory: " + newFile.getAbsolutePath());
+                    }
+                } else {
+                    // Tạo thư mục cha cho file nếu chưa tồn tại
+                    File parent = newFile.getParentFile();
+                    if (parent != null && !parent.exists() && !parent.mkdirs() && !parent.isDirectory()) {
+                        throw new IOException("Could not create parent directory: " + parent.getAbsolutePath());
+                    }
+                    // Ghi file: inflate here, the pipeline's writer thread does the disk I/O
+                    try (InputStream in = zip.getInputStream(zipEntry)) {
+                        pipeline.extract(in, newFile, Math.max(0, zipEntry.getTime()));
+                    }
+                }
+            }
+        }
+    }
+
+    private void extractTarEntries(File archive, File extractDir, ExtractionPipeline pipeline) throws IOException {
+        String canonicalRoot = extractDir.getCanonicalPath();
+        InputStream in = new BufferedInputStream(new FileInputStream(archive), 64 * 1024);
+        String lower = archive.getName().toLowerCase();
+        if (lower.endsWith(".gz") || lower.endsWith(".tgz")) {
+            in = new GZIPInputStream(in, 64 * 1024);
+        }
+        try (TarArchiveReader tar = new TarArchiveReader(in)) {
+            TarArchiveReader.Entry entry;
+            while ((entry = tar.getNextEntry()) != null) {
+                File newFile = new File(extractDir, entry.getName());
+                String canonicalPath = newFile.getCanonicalPath();
+                if (canonicalPath.equals(canonicalRoot)) {
+                    continue; // "./" entry
+                }
+                // Same protection as for zip entries ("Zip Slip")
+                if (!canonicalPath.startsWith(canonicalRoot + File.separator)) {
+                    throw new IOException("Tar entry is trying to escape the target directory: " + entry.getName());
+                }
+                if (entry.isDirectory()) {
+                    if (!newFile.mkdirs() && !newFile.isDirectory()) {
+                        Log.w(TAG, "Failed to create directory: " + newFile.getAbsolutePath());
+                    }
+                } else if (entry.isFile()) {
+                    File parent = newFile.getParentFile();
+                    if (parent != null && !parent.exists() && !parent.mkdirs() && !parent.isDirectory()) {
+                        throw new IOException("Could not create parent directory: " + parent.getAbsolutePath());
+                    }
+                    pipeline.extract(tar, newFile, entry.getLastModified());
+                } else {
+                    Log.d(TAG, "Skipping non-regular tar entry: " + entry.getName());
+                }
+            }
+        }
+    }
     // --- Di chuyển và sửa đổi hàm showRenameDialog ---
     private void showRenameDialog(final File fileToRename) { // Thêm final cho fileToRename
-        if (fileToRename == null || !fileToRename.exists()) {
+        if (fileToRename == null) {
             Toast.makeText(this, "Cannot rename: Item not found.", Toast.LENGTH_SHORT).show();
-            Log.e(TAG, "showRenameDialog: fileToRename is null or does not exist.");
+            Log.e(TAG, "showRenameDialog: fileToRename is null.");
             loadFilesAndFolders(); // Làm mới để đảm bảo UI đồng bộ
             return;
         }
@@ -738,27 +1357,24 @@ public class FileListActivity extends AppCompatActivity{
                 Log.e(TAG,"Cannot get parent directory for renaming: "+ fileToRename.getAbsolutePath());
                 return;
             }
-            if (!parentDirectory.canWrite()) {
-                Toast.makeText(this, "Cannot rename: No write permission in parent directory.", Toast.LENGTH_LONG).show();
-                Log.e(TAG, "No write permission in parent directory: " + parentDirectory.getAbsolutePath());
-                return;
-            }
-
-
             File newFile = new File(parentDirectory, newName);
-            if (newFile.exists()) {
-                Toast.makeText(this, "An item with this name already exists in this folder.", Toast.LENGTH_LONG).show();
-                return;
-            }
 
             // --- Attempt Rename on Background Thread ---
-            // Sử dụng executorService của FileListActivity
-            executorService.execute(() -> {
+            // Sử dụng executorService của FileListActivity; các kiểm tra tồn tại/quyền ghi cũng chạy ở đây
+            executeLocked(new PathLockManager.LockSet().exclusive(fileToRename).exclusive(newFile), () -> {
                 boolean success = false;
                 String errorMessage = "Rename failed. Check permissions or storage."; // Default error
 
                 try {
-                    if (fileToRename.renameTo(newFile)) {
+                    if (!fileToRename.exists()) {
+                        Log.e(TAG, "showRenameDialog: fileToRename does not exist: " + fileToRename.getAbsolutePath());
+                        errorMessage = "Cannot rename: Item not found.";
+                    } else if (!parentDirectory.canWrite()) {
+                        Log.e(TAG, "No write permission in parent directory: " + parentDirectory.getAbsolutePath());
+                        errorMessage = "Cannot rename: No write permission in parent directory.";
+                    } else if (newFile.exists()) {
+                        errorMessage = "An item with this name already exists in this folder.";
+                    } else if (fileToRename.renameTo(newFile)) {
                         success = true;
                     } else {
                         // renameTo có thể thất bại vì nhiều lý do (quyền, khác filesystem, file đang mở...)
@@ -776,6 +1392,10 @@ public class FileListActivity extends AppCompatActivity{
                     errorMessage = "An unexpected error occurred during rename.";
                 }
 
+                if (success) {
+                    notifyDeleted(fileToRename);
+                    notifyCreated(newFile);
+                }
                 final boolean finalSuccess = success;
                 final String finalErrorMessage = errorMessage;
 
@@ -893,75 +1513,246 @@ public class FileListActivity extends AppCompatActivity{
 
     /**
      * Loads the list of files and folders for the {@code currentPath}.
-     * Updates the RecyclerView adapter with the new list, sorts the items (folders first, then alphabetically),
+     * Updates the RecyclerView adapter with the new list, in the order of {@link #sortMode},
      * and handles UI visibility (showing the list, an empty message, or an error message).
      * Checks for read/write access to the directory.
      */
     private void loadFilesAndFolders() {
+        loadFilesAndFolders(null);
+    }
+
+    /**
+     * Same as {@link #loadFilesAndFolders()}, running {@code onShown} once the result is on screen.
+     * The access checks and the listing run on {@link #listingExecutor}; the current list stays
+     * visible until they are done, and a result overtaken by a newer load is dropped.
+     */
+    private void loadFilesAndFolders(Runnable onShown) {
         if (currentPath == null) {
             Log.e(TAG, "loadFilesAndFolders: currentPath is null!");
             displayError("Internal Error: Invalid Path");
             return;
         }
+        final String path = currentPath;
+        final SortMode mode = sortMode;
+        final int generation = ++loadGeneration;
+        runOffMainThread(() -> readDirectory(new File(path), mode), state -> {
+            if (generation != loadGeneration) {
+                return; // Navigated or reloaded meanwhile: the newer load shows its own result
+            }
+            showDirectoryState(path, state);
+            if (onShown != null) {
+                onShown.run();
+            }
+        });
+    }
 
-        pathTextView.setText(getDisplayPath(currentPath)); // Update path display
-        noFilesTextView.setVisibility(View.GONE); // Hide empty/error message initially
-        recyclerView.setVisibility(View.VISIBLE); // Show RecyclerView
+    /** What {@link #readDirectory} found: the listing, or the error to show instead. */
+    private static final class DirectoryState {
+        final ListingCache.Listing listing; // Null when error is set
+        final int[] order; // Display order of listing under mode
+        final SortMode mode;
+        final boolean fromCache; // Listing was already in ListingCache (e.g. prefetched)
+        final String error;
+        final boolean writable;
+
+        DirectoryState(ListingCache.Listing listing, int[] order, SortMode mode, boolean fromCache, String error, boolean writable) {
+            this.listing = listing;
+            this.order = order;
+            this.mode = mode;
+            this.fromCache = fromCache;
+            this.error = error;
+            this.writable = writable;
+        }
 
-        File directory = new File(currentPath);
+        DirectoryState(String error, boolean writable) {
+            this(null, null, null, false, error, writable);
+        }
+    }
 
+    /** Access checks, listing and sorting of {@code directory}; runs on {@link #listingExecutor}. */
+    private DirectoryState readDirectory(File directory, SortMode mode) {
         // --- Directory Access Checks ---
         if (!directory.exists()) {
-            Log.e(TAG, "Directory does not exist: " + currentPath);
-            displayError("Directory Not Found");
-            return;
+            Log.e(TAG, "Directory does not exist: " + directory);
+            return new DirectoryState("Directory Not Found", false);
         }
         if (!directory.isDirectory()) {
-            Log.e(TAG, "Path is not a directory: " + currentPath);
-            displayError("Not a Directory");
-            return;
+            Log.e(TAG, "Path is not a directory: " + directory);
+            return new DirectoryState("Not a Directory", false);
         }
         if (!directory.canRead()) {
-            Log.e(TAG, "Cannot read directory: " + currentPath);
+            Log.e(TAG, "Cannot read directory: " + directory);
             // Check if we lack the fundamental permission
             if (ContextCompat.checkSelfPermission(this, Manifest.permission.READ_EXTERNAL_STORAGE) != PackageManager.PERMISSION_GRANTED && Build.VERSION.SDK_INT < Build.VERSION_CODES.R) {
-                displayError("Read Permission Required");
-            } else {
-                // Permission might be present, but filesystem ACLs or other issues prevent access
-                displayError("Access Denied");
+                return new DirectoryState("Read Permission Required", false);
+            }
+            // Permission might be present, but filesystem ACLs or other issues prevent access
+            return new DirectoryState("Access Denied", false); // Cannot write if cannot read (usually)
+        }
+
+        // --- List Files (reusing the prefetched or cached listing while the folder is unchanged) ---
+        ListingCache.Listing listing = StartupPrefetch.take(directory); // Waits if still being listed since process start
+        boolean fromCache = false;
+        if (listing == null) {
+            listing = ListingCache.get().get(directory);
+            fromCache = listing != null;
+        }
+        if (listing == null) {
+            listing = listingStore.load(directory); // Saved by an earlier run; revalidated once shown
+        }
+        if (listing == null) {
+            listing = ListingCache.list(directory);
+            if (listing == null) {
+                // listFiles() can return null if an I/O error occurs or if it's not a directory (already checked)
+                Log.e(TAG, "Failed to list files for: " + directory + ". listFiles() returned null.");
+                return new DirectoryState("Cannot List Contents", directory.canWrite()); // Can we still create here? Maybe.
             }
-            fabAddFolder.setEnabled(false); // Cannot write if cannot read (usually)
+            listingStore.save(directory, listing);
+        }
+        ListingCache.get().put(directory, listing);
+        return new DirectoryState(listing, listing.orderFor(mode), mode, fromCache, null, directory.canWrite());
+    }
+
+    /** Puts the result of {@link #readDirectory} for {@code path} on screen; main thread. */
+    private void showDirectoryState(String path, DirectoryState state) {
+        pathTextView.setText(getDisplayPath(path)); // Update path display
+        noFilesTextView.setVisibility(View.GONE); // Hide empty/error message initially
+        recyclerView.setVisibility(View.VISIBLE); // Show RecyclerView
+        // Enable/disable FAB based on write permission
+        fabAddFolder.setEnabled(state.writable);
+        if (state.error != null) {
+            shownListing = null;
+            listingFilter = null;
+            shownRows = null;
+            fastScroller.setSections(null);
+            displayError(state.error);
             return;
         }
+        if (!state.writable) {
+            Log.w(TAG,"Directory is not writable: "+ path);
+        }
+
+        watchDirectory(new File(path));
+        showListing(state.listing, state.order, state.mode);
+        if (state.listing.takeRestored()) {
+            revalidateRestored(new File(path), state.listing);
+        }
+        if (!path.equals(lastOpenedPath)) {
+            lastOpenedPath = path;
+            prefetcher.onOpened(new File(path), state.fromCache);
+        }
+        schedulePrefetch();
+    }
+
+    /** Predicts the next folders once the user has stayed on this screen for {@link #DWELL_MS}. */
+    private void schedulePrefetch() {
+        mainThreadHandler.removeCallbacks(dwellPrefetch);
+        mainThreadHandler.postDelayed(dwellPrefetch, DWELL_MS);
+    }
 
-        // --- List Files ---
-        File[] filesArray = directory.listFiles();
-        if (filesArray == null) {
-            // listFiles() can return null if an I/O error occurs or if it's not a directory (already checked)
-            Log.e(TAG, "Failed to list files for: " + currentPath + ". listFiles() returned null.");
-            displayError("Cannot List Contents");
-            fabAddFolder.setEnabled(directory.canWrite()); // Can we still create here? Maybe.
+    /** Hands the parent and the subfolders now on screen to {@link ListingPrefetcher}; main thread. */
+    private void prefetchLikelyFolders() {
+        ListingCache.Listing listing = shownListing;
+        int[] rows = shownRows;
+        if (isDestroyed() || listing == null || rows == null || currentPath == null) {
             return;
         }
+        List<File> visibleFolders = new ArrayList<>();
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        for (int position = Math.max(0, first); position <= last && position < rows.length; position++) {
+            if (listing.categories[rows[position]] == FileTypeClassifier.Category.FOLDER) {
+                visibleFolders.add(listing.files[rows[position]]);
+            }
+        }
+        prefetcher.prefetch(new File(currentPath).getParentFile(), visibleFolders, sortMode);
+    }
 
-        // --- Process and Sort File List ---
-        fileList.clear(); // Clear previous list
-        List<File> tempFileList = new ArrayList<>(Arrays.asList(filesArray));
-        // Sort: Folders first, then files, both alphabetically ignoring case
-        Collections.sort(tempFileList, (file1, file2) -> {
-            boolean isDir1 = file1.isDirectory();
-            boolean isDir2 = file2.isDirectory();
-            if (isDir1 != isDir2) {
-                return isDir1 ? -1 : 1; // Directories before files
-            }
-            // Both are dirs or both are files: sort by name
-            return file1.getName().compareToIgnoreCase(file2.getName());
+    /**
+     * Lists a folder shown from {@link ListingStore} again in the background and, if anything
+     * changed, shows the new listing in place of the saved one (unless another folder or
+     * listing is on screen by then).
+     */
+    private void revalidateRestored(File directory, ListingCache.Listing restored) {
+        listingStore.revalidate(directory, restored, fresh -> {
+            ListingCache.get().put(directory, fresh);
+            mainThreadHandler.post(() -> {
+                if (isDestroyed() || shownListing != restored) {
+                    return;
+                }
+                if (currentActionMode != null) {
+                    currentActionMode.finish(); // A new listing clears the selection
+                }
+                final SortMode mode = sortMode;
+                final int generation = ++loadGeneration;
+                runOffMainThread(() -> fresh.orderFor(mode), order -> {
+                    if (generation == loadGeneration) {
+                        showListing(fresh, order, mode);
+                    }
+                });
+            });
+        });
+    }
+
+    /** Shows {@code listing} in {@code order} (its order under {@code mode}), narrowed by the filter box; main thread. */
+    private void showListing(ListingCache.Listing listing, int[] order, SortMode mode) {
+        shownListing = listing;
+        shownSortMode = mode;
+        listingFilter = new ListingFilter(listing.nameKeys(), order); // Names already folded by the sort
+        applyFilter();
+    }
+
+    /**
+     * Narrows the shown listing to the filter box's text. Small listings are filtered right
+     * here; large ones on {@link #listingExecutor}, keeping only the latest keystroke's result.
+     */
+    private void applyFilter() {
+        ListingFilter filter = listingFilter;
+        ListingCache.Listing listing = shownListing;
+        if (filter == null || listing == null) {
+            return;
+        }
+        String query = filterEditText.getText().toString();
+        long start = System.nanoTime();
+        final int generation = ++filterGeneration;
+        if (filter.size() < FILTER_OFF_MAIN_THREAD_ROWS) {
+            showRows(listing, filter.update(query));
+            PerfMetrics.recordSince(METRIC_FILTER, start);
+            return;
+        }
+        runOffMainThread(() -> filter.update(query), rows -> {
+            if (generation != filterGeneration || filter != listingFilter) {
+                return; // Typed again meanwhile, or another folder is shown
+            }
+            showRows(listing, rows);
+            PerfMetrics.recordSince(METRIC_FILTER, start);
         });
-        fileList.addAll(tempFileList);
+    }
+
+    /** Fills the list with the rows of {@code listing} at {@code rows}; main thread. */
+    private void showRows(ListingCache.Listing listing, int[] rows) {
+        if (!firstRowsShown) {
+            firstRowsShown = true;
+            PerfMetrics.recordSince(METRIC_FIRST_ROW, createdNanos);
+            StartupPrefetch.onRowsShown();
+        }
+        indexSections(listing, rows);
+        noFilesTextView.setVisibility(View.GONE);
+        recyclerView.setVisibility(View.VISIBLE);
+        fileList.clear(); // Clear previous list
+        for (int row : rows) {
+            fileList.add(listing.files[row]);
+        }
+        if (adapter != null) {
+            adapter.setRows(listing, rows);
+        }
 
         // --- Update UI based on list content ---
         if (fileList.isEmpty()) {
-            displayEmpty("Folder is Empty");
+            if (adapter != null) {
+                adapter.notifyDataSetChanged();
+            }
+            displayEmpty(listing.files.length > 0 ? "No Matching Items" : "Folder is Empty");
         } else {
             // Use the existing adapter instance and notify it
             if (adapter != null) {
@@ -970,15 +1761,123 @@ public class FileListActivity extends AppCompatActivity{
                 // This case shouldn't happen if initialized correctly in onCreate
                 Log.e(TAG,"Adapter is null during loadFilesAndFolders");
                 adapter = new MyAdapter(this, fileList);
+                adapter.setRows(listing, rows);
                 recyclerView.setAdapter(adapter);
             }
         }
+    }
 
-        // Enable/disable FAB based on write permission
-        fabAddFolder.setEnabled(directory.canWrite());
-        if (!directory.canWrite()) {
-            Log.w(TAG,"Directory is not writable: "+ currentPath);
+    /**
+     * Builds the fast scroller's sections for {@code rows} on {@link #listingExecutor}: each
+     * entry's section is computed once per listing and sort key, so a new filter or direction
+     * only splits the rows again. Until then the scroller drags without a label.
+     */
+    private void indexSections(ListingCache.Listing listing, int[] rows) {
+        shownRows = rows;
+        fastScroller.setSections(null);
+        SortMode mode = shownSortMode;
+        if (rows.length == 0 || mode == null) {
+            return;
+        }
+        runOffMainThread(() -> SectionIndex.of(listing.sectionKeysFor(mode), rows), sections -> {
+            if (rows == shownRows) { // Otherwise other rows were shown meanwhile
+                fastScroller.setSections(sections);
+            }
+        });
+    }
+
+    /**
+     * Switches to {@code mode} and reorders the listing on screen; sort keys not computed yet
+     * (sizes, dates) are read off the main thread. The folder is not listed again.
+     */
+    private void applySortMode(SortMode mode) {
+        if (mode.equals(sortMode)) {
+            return;
+        }
+        sortMode = mode;
+        ListingCache.Listing listing = shownListing;
+        if (listing == null) {
+            return; // Nothing on screen; the next load uses the new mode
+        }
+        final int generation = ++loadGeneration; // Same listing: the selection is kept
+        runOffMainThread(() -> listing.orderFor(mode), order -> {
+            if (generation != loadGeneration) {
+                return;
+            }
+            showListing(listing, order, mode);
+            layoutManager.scrollToPositionWithOffset(0, 0);
+        });
+    }
+
+    /** Shows the filter box, or hides and clears it (showing the whole folder again). */
+    private void toggleFilterBox() {
+        if (filterEditText.getVisibility() == View.VISIBLE) {
+            filterEditText.setText("");
+            filterEditText.setVisibility(View.GONE);
+        } else {
+            filterEditText.setVisibility(View.VISIBLE);
+            filterEditText.requestFocus();
+        }
+    }
+
+    private void showSortDialog() {
+        int checked = -1;
+        for (int i = 0; i < SORT_KEYS.length; i++) {
+            if (SORT_KEYS[i] == sortMode.key && SORT_DESCENDING[i] == sortMode.descending) {
+                checked = i;
+            }
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Sort by")
+                .setSingleChoiceItems(SORT_LABELS, checked, (dialog, which) -> {
+                    dialog.dismiss();
+                    applySortMode(new SortMode(SORT_KEYS[which], SORT_DESCENDING[which], sortMode.foldersFirst));
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /**
+     * Opens {@code directory} in this same screen. The folder being left goes on the back stack
+     * with its scroll position; its listing stays in {@link ListingCache}, so coming back is
+     * usually a cache hit. Called by {@link MyAdapter} when a folder row is clicked.
+     */
+    public void navigateTo(File directory) {
+        if (currentActionMode != null) {
+            currentActionMode.finish();
+        }
+        if (currentPath != null) {
+            backStack.push(new BackStackEntry(currentPath, layoutManager.onSaveInstanceState()));
+        }
+        showDirectory(directory.getAbsolutePath(), null);
+    }
+
+    /** Shows {@code path}, restoring {@code scrollState} if given, otherwise from the top. */
+    private void showDirectory(String path, Parcelable scrollState) {
+        currentPath = path;
+        updateActivityTitle();
+        listingFilter = null; // The filter belongs to the folder being left
+        filterEditText.setText("");
+        loadFilesAndFolders(() -> {
+            if (scrollState != null) {
+                layoutManager.onRestoreInstanceState(scrollState);
+            } else {
+                layoutManager.scrollToPositionWithOffset(0, 0);
+            }
+        });
+    }
+
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putString(STATE_PATH, currentPath);
+        String[] stackPaths = new String[backStack.size()];
+        int i = stackPaths.length;
+        for (BackStackEntry entry : backStack) { // Top first; stored bottom first
+            stackPaths[--i] = entry.path;
         }
+        outState.putStringArray(STATE_BACK_STACK, stackPaths);
+        outState.putString(STATE_SORT_MODE, sortMode.encode());
     }
 
     /**
@@ -993,15 +1892,20 @@ public class FileListActivity extends AppCompatActivity{
             return;
         }
         File currentDir = new File(currentPath);
-        if (!currentDir.canWrite()) {
-            Toast.makeText(this, "Cannot create folder: No write permission.", Toast.LENGTH_SHORT).show();
-            // Optionally check specific permissions if needed for better feedback
-            if(ContextCompat.checkSelfPermission(this, Manifest.permission.WRITE_EXTERNAL_STORAGE) != PackageManager.PERMISSION_GRANTED && Build.VERSION.SDK_INT < Build.VERSION_CODES.R){
-                Toast.makeText(this, "Write Permission Required.", Toast.LENGTH_LONG).show();
+        runOffMainThread(currentDir::canWrite, writable -> {
+            if (!writable) {
+                Toast.makeText(this, "Cannot create folder: No write permission.", Toast.LENGTH_SHORT).show();
+                // Optionally check specific permissions if needed for better feedback
+                if(ContextCompat.checkSelfPermission(this, Manifest.permission.WRITE_EXTERNAL_STORAGE) != PackageManager.PERMISSION_GRANTED && Build.VERSION.SDK_INT < Build.VERSION_CODES.R){
+                    Toast.makeText(this, "Write Permission Required.", Toast.LENGTH_LONG).show();
+                }
+                return;
             }
-            return;
-        }
+            showFolderNameDialog(currentDir);
+        });
+    }
 
+    private void showFolderNameDialog(File currentDir) {
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         builder.setTitle("Create New Folder");
 
@@ -1027,28 +1931,39 @@ public class FileListActivity extends AppCompatActivity{
                 return;
             }
 
-            // --- Folder Creation ---
-            File newFolder = new File(currentPath, folderName);
-            if (newFolder.exists()) {
-                Toast.makeText(this, "Folder already exists.", Toast.LENGTH_SHORT).show();
-            } else {
+            // --- Folder Creation (on a background thread) ---
+            File newFolder = new File(currentDir, folderName);
+            executeLocked(new PathLockManager.LockSet().exclusive(newFolder), () -> {
+                boolean created = false;
+                String message;
                 try {
-                    if (newFolder.mkdir()) { // Attempt to create the directory
-                        Toast.makeText(this, "Folder created successfully.", Toast.LENGTH_SHORT).show();
-                        refreshFileList(); // Update the displayed list
+                    if (newFolder.exists()) {
+                        message = "Folder already exists.";
+                    } else if (newFolder.mkdir()) { // Attempt to create the directory
+                        notifyCreated(newFolder);
+                        created = true;
+                        message = "Folder created successfully.";
                     } else {
                         // mkdir() failed (OS level)
-                        Toast.makeText(this, "Failed to create folder. Check storage or name.", Toast.LENGTH_LONG).show();
                         Log.e(TAG, "mkdir failed for: " + newFolder.getAbsolutePath());
+                        message = "Failed to create folder. Check storage or name.";
                     }
                 } catch (SecurityException e) {
                     Log.e(TAG, "SecurityException during mkdir for: " + newFolder.getAbsolutePath(), e);
-                    Toast.makeText(this, "Failed to create folder: Permission denied.", Toast.LENGTH_LONG).show();
+                    message = "Failed to create folder: Permission denied.";
                 } catch (Exception e) {
                     Log.e(TAG, "Exception during mkdir for: " + newFolder.getAbsolutePath(), e);
-                    Toast.makeText(this, "An error occurred while creating folder.", Toast.LENGTH_SHORT).show();
+                    message = "An error occurred while creating folder.";
                 }
-            }
+                final boolean finalCreated = created;
+                final String finalMessage = message;
+                mainThreadHandler.post(() -> {
+                    Toast.makeText(this, finalMessage, finalCreated ? Toast.LENGTH_SHORT : Toast.LENGTH_LONG).show();
+                    if (finalCreated) {
+                        refreshFileList(); // Update the displayed list
+                    }
+                });
+            });
         });
         builder.setNegativeButton("Cancel", (dialog, which) -> dialog.cancel());
 
@@ -1068,16 +1983,17 @@ public class FileListActivity extends AppCompatActivity{
         runOnUiThread(this::loadFilesAndFolders);
     }
 
-    public void handleMoveSelected(List<File> filesToMove) {
+    public void handleMoveSelected(List<File> filesToMove, List<File> selectedFolders) {
         if (filesToMove.isEmpty()) {
             Log.e(TAG, "onRequestMove called with null file.");
             return;
         }
         if (!filesToMove.isEmpty()){
             this.pendingOperation = OperationType.MOVE;
-            this.fileToOperatePending = filesToMove;
+            this.fileToOperatePending = new PathTrie();
+            this.fileToOperatePending.addAll(filesToMove);
             Intent intent = new Intent(this, FolderPickerActivity.class);
-            intent.putExtra(FolderPickerActivity.EXTRA_SOURCE_PATH_TO_MOVE, filesToMove.get(0).getAbsolutePath());
+            intent.putExtra(FolderPickerActivity.EXTRA_SOURCE_PATHS, sourceFoldersExtra(selectedFolders));
             intent.putExtra(FolderPickerActivity.EXTRA_INITIAL_PATH, currentPath);
             try {
                 customFolderPickerLauncher.launch(intent); // Use the launcher to start and get result
@@ -1286,6 +2202,15 @@ public class FileListActivity extends AppCompatActivity{
             currentActionMode.finish(); // Kết thúc ActionMode nếu đang mở
             return; // Không thực hiện hành động back mặc định
         }
+        if (filterEditText.getVisibility() == View.VISIBLE) {
+            toggleFilterBox(); // Back closes the filter before leaving the folder
+            return;
+        }
+        if (!backStack.isEmpty()) {
+            BackStackEntry previous = backStack.pop(); // Folder we came from, scrolled where it was
+            showDirectory(previous.path, previous.scrollState);
+            return;
+        }
         if (currentPath == null) {
             super.onBackPressed(); // Should not happen, but safety check
             return;
@@ -1297,30 +2222,35 @@ public class FileListActivity extends AppCompatActivity{
 
             // Determine a "root" path to prevent going further up than intended.
             // Using the app-specific external files directory is a common sensible root.
-            File appSpecificExternalRoot = getExternalFilesDir(null);
-            String rootPath = (appSpecificExternalRoot != null)
-                    ? appSpecificExternalRoot.getAbsolutePath()
-                    : getFilesDir().getAbsolutePath(); // Fallback to internal
+            String rootPath = appExternalRoot != null ? appExternalRoot : appInternalRoot; // Fallback to internal
 
-            // Check if a parent exists, is readable, and isn't the same as the defined root
-            // (or handle cases where parent IS the root appropriately if needed).
             // Comparing paths directly prevents issues with symlinks or canonical paths.
-            if (parentDir != null && parentDir.exists() && parentDir.canRead() && !currentPath.equals(rootPath) ) {
-                // Additional check: ensure parent path isn't somehow identical to current path
-                // This can happen with certain root structures or symlinks.
-                if(!parentDir.getAbsolutePath().equals(currentDir.getAbsolutePath())){
-                    Log.d(TAG, "Navigating up to parent: " + parentDir.getAbsolutePath());
-                    currentPath = parentDir.getAbsolutePath(); // Go up one level
-                    updateActivityTitle(); // Update the title bar
-                    refreshFileList(); // Load contents of the parent directory
-                } else {
-                    Log.w(TAG,"Parent path is same as current path, preventing infinite loop. Path: "+ currentPath);
-                    super.onBackPressed(); // Fallback to default behavior
-                }
-            } else {
+            if (parentDir == null || currentPath.equals(rootPath)) {
                 Log.d(TAG, "Reached root or cannot navigate up further. Finishing activity.");
                 super.onBackPressed(); // No parent or at the root, perform default back action
+                return;
             }
+            // Additional check: ensure parent path isn't somehow identical to current path
+            // This can happen with certain root structures or symlinks.
+            if (parentDir.getAbsolutePath().equals(currentDir.getAbsolutePath())) {
+                Log.w(TAG,"Parent path is same as current path, preventing infinite loop. Path: "+ currentPath);
+                super.onBackPressed(); // Fallback to default behavior
+                return;
+            }
+            // Check if the parent exists and is readable, off the main thread
+            final String leaving = currentPath;
+            runOffMainThread(() -> parentDir.exists() && parentDir.canRead(), readable -> {
+                if (!leaving.equals(currentPath)) {
+                    return; // Navigated elsewhere meanwhile
+                }
+                if (readable) {
+                    Log.d(TAG, "Navigating up to parent: " + parentDir.getAbsolutePath());
+                    showDirectory(parentDir.getAbsolutePath(), null); // Go up one level
+                } else {
+                    Log.d(TAG, "Parent is not readable. Finishing activity.");
+                    finish();
+                }
+            });
         } catch (Exception e) {
             Log.e(TAG, "Error during onBackPressed navigation", e);
             super.onBackPressed(); // Fallback to default behavior on error
@@ -1330,6 +2260,60 @@ public class FileListActivity extends AppCompatActivity{
 
     // --- Helper Methods (Internal Implementation Detail) ---
 
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.file_list_menu, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onPrepareOptionsMenu(Menu menu) {
+        MenuItem foldersFirstItem = menu.findItem(R.id.action_folders_first);
+        if (foldersFirstItem != null) {
+            foldersFirstItem.setChecked(sortMode.foldersFirst);
+        }
+        MenuItem clipboardItem = menu.findItem(R.id.action_clipboard);
+        if (clipboardItem != null) {
+            int count = clipboard.sizeIfLoaded(); // Không đọc đĩa: -1 khi clipboard chưa được đọc
+            clipboardItem.setVisible(count > 0);
+            clipboardItem.setTitle("Clipboard (" + count + ")");
+        }
+        return super.onPrepareOptionsMenu(menu);
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(@NonNull MenuItem item) {
+        if (item.getItemId() == R.id.action_search) {
+            Intent intent = new Intent(this, SearchActivity.class);
+            intent.putExtra(SearchActivity.EXTRA_ROOT_PATH, currentPath);
+            startActivity(intent);
+            return true;
+        } else if (item.getItemId() == R.id.action_find_duplicates) {
+            Intent intent = new Intent(this, DuplicatesActivity.class);
+            intent.putExtra(DuplicatesActivity.EXTRA_ROOT_PATH, currentPath);
+            duplicatesLauncher.launch(intent);
+            return true;
+        } else if (item.getItemId() == R.id.action_filter) {
+            toggleFilterBox();
+            return true;
+        } else if (item.getItemId() == R.id.action_sort) {
+            showSortDialog();
+            return true;
+        } else if (item.getItemId() == R.id.action_folders_first) {
+            applySortMode(sortMode.withFoldersFirst(!sortMode.foldersFirst));
+            return true;
+        } else if (item.getItemId() == R.id.action_clipboard) {
+            showClipboardDialog();
+            return true;
+        } else if (item.getItemId() == R.id.action_analyze_storage) {
+            Intent intent = new Intent(this, StorageAnalyzerActivity.class);
+            intent.putExtra(StorageAnalyzerActivity.EXTRA_ROOT_PATH, currentPath);
+            startActivity(intent);
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
     private void updateActivityTitle() {
         if (currentPath != null) {
             File currentFile = new File(currentPath);
@@ -1369,14 +2353,15 @@ public class FileListActivity extends AppCompatActivity{
                 String relativePath = absolutePath.substring(externalRoot.getAbsolutePath().length());
                 return "Storage" + (relativePath.isEmpty() ? "" : relativePath.replaceFirst("^/", "/")); // Ensure leading slash if not empty
             }
-            File appSpecificExternal = getExternalFilesDir(null);
-            if(appSpecificExternal != null && absolutePath.startsWith(appSpecificExternal.getAbsolutePath())){
-                String relativePath = absolutePath.substring(appSpecificExternal.getAbsolutePath().length());
+            // App folders resolved by resolveAppRoots() (null until then): no file-system call here
+            String appSpecificExternal = appExternalRoot;
+            if(appSpecificExternal != null && absolutePath.startsWith(appSpecificExternal)){
+                String relativePath = absolutePath.substring(appSpecificExternal.length());
                 return "AppExternal" + (relativePath.isEmpty() ? "" : relativePath.replaceFirst("^/", "/"));
             }
-            File appSpecificInternal = getFilesDir();
-            if(absolutePath.startsWith(appSpecificInternal.getAbsolutePath())){
-                String relativePath = absolutePath.substring(appSpecificInternal.getAbsolutePath().length());
+            String appSpecificInternal = appInternalRoot;
+            if(appSpecificInternal != null && absolutePath.startsWith(appSpecificInternal)){
+                String relativePath = absolutePath.substring(appSpecificInternal.length());
                 return "AppInternal" + (relativePath.isEmpty() ? "" : relativePath.replaceFirst("^/", "/"));
             }
 
@@ -1418,59 +2403,42 @@ public class FileListActivity extends AppCompatActivity{
             }
 
 
-            if (source.isDirectory()) {
-                // Tạo thư mục đích nếu chưa tồn tại
-                if (!destination.exists()) {
-                    if (!destination.mkdirs()) {
-                        Log.e(TAG, "Cannot create destination directory: " + destination.getAbsolutePath());
-                        return false; // Không thể tạo thư mục đích
+            final boolean[] allCopied = {true};
+            new TreeWalker(TreeWalker.SymlinkPolicy.FOLLOW).walk(source, new TreeWalker.SimpleVisitor() {
+                @Override
+                public TreeWalker.Action preVisitDirectory(TreeWalker.Entry dir) throws IOException {
+                    File target = copyTarget(destination, dir);
+                    // Tạo thư mục đích nếu chưa tồn tại
+                    if (!target.exists()) {
+                        if (!target.mkdirs()) {
+                            throw new IOException("Cannot create destination directory: " + target.getAbsolutePath());
+                        }
+                        Log.d(TAG, "Created directory: " + target.getAbsolutePath());
+                    } else if (!target.isDirectory()) {
+                        throw new IOException("Destination exists but is not a directory: " + target.getAbsolutePath());
                     }
-                    Log.d(TAG, "Created directory: " + destination.getAbsolutePath());
-                } else if (!destination.isDirectory()) {
-                    Log.e(TAG, "Destination exists but is not a directory: " + destination.getAbsolutePath());
-                    return false; // Đích tồn tại nhưng không phải thư mục
+                    return TreeWalker.Action.CONTINUE;
                 }
 
-                String[] children = source.list();
-                if (children == null) {
-                    Log.e(TAG, "Cannot list source directory children (permissions or I/O error): " + source.getAbsolutePath());
-                    return false; // Lỗi khi liệt kê con
-                }
-
-                boolean allChildrenCopied = true;
-                for (String child : children) {
-                    // Gọi đệ quy và nếu bất kỳ con nào thất bại, đánh dấu thất bại chung
-                    if (!copyFileOrDirectoryRecursiveInternal(new File(source, child), new File(destination, child))) {
-                        allChildrenCopied = false;
-                        // Bạn có thể chọn dừng ngay tại đây (return false) hoặc tiếp tục copy các file khác
-                        // return false; // Dừng ngay nếu một file con lỗi
-                    }
-                }
-                return allChildrenCopied; // Trả về true nếu tất cả con được copy thành công
-
-            } else { // Nếu nguồn là một tệp
-                // Đảm bảo thư mục cha của tệp đích tồn tại
-                File parentDir = destination.getParentFile();
-                if (parentDir != null && !parentDir.exists()) {
-                    if (!parentDir.mkdirs()) {
-                        Log.e(TAG, "Cannot create parent directory for destination file: " + parentDir.getAbsolutePath());
-                        return false;
+                @Override
+                public TreeWalker.Action visitFile(TreeWalker.Entry file) throws IOException {
+                    if (!file.isRegularFile()) {
+                        Log.w(TAG, "Skipping special file: " + file.getFile().getAbsolutePath());
+                        return TreeWalker.Action.CONTINUE;
                     }
+                    copySingleFile(file.getFile(), copyTarget(destination, file));
+                    return TreeWalker.Action.CONTINUE;
                 }
 
-                Log.d(TAG, "Copying file: " + source.getName() + " to " + (parentDir != null ? parentDir.getAbsolutePath() : "unknown parent"));
-                try (InputStream in = new FileInputStream(source);
-                     OutputStream out = new FileOutputStream(destination)) { // Mặc định sẽ ghi đè nếu tệp đích đã tồn tại
-                    byte[] buffer = new byte[8192]; // 8KB buffer
-                    int length;
-                    while ((length = in.read(buffer)) > 0) {
-                        out.write(buffer, 0, length);
-                    }
-                    out.flush(); // Đảm bảo dữ liệu được ghi hết
+                @Override
+                public TreeWalker.Action visitFailed(File file, TreeWalker.Entry entry, IOException error) {
+                    // Tiếp tục copy các file khác, nhưng báo thất bại chung
+                    Log.e(TAG, "Copy failed for " + file.getAbsolutePath(), error);
+                    allCopied[0] = false;
+                    return entry != null && entry.isDirectory() ? TreeWalker.Action.SKIP_SUBTREE : TreeWalker.Action.CONTINUE;
                 }
-                // Nếu không có exception nào xảy ra trong try-with-resources, copy file thành công
-                return true;
-            }
+            });
+            return allCopied[0];
         } catch (IOException e) {
             Log.e(TAG, "IOException during copy: " + source.getAbsolutePath() + " -> " + destination.getAbsolutePath(), e);
             // Cố gắng xóa tệp/thư mục đích có thể đã được tạo một phần
@@ -1493,22 +2461,65 @@ public class FileListActivity extends AppCompatActivity{
         }
     }
 
+    /** Destination of {@code entry} when the walk root {@code source} is copied to {@code destination}. */
+    private static File copyTarget(File destination, TreeWalker.Entry entry) {
+        return entry.getRelativePath().isEmpty() ? destination : new File(destination, entry.getRelativePath());
+    }
+
+    private void copySingleFile(File source, File destination) throws IOException {
+        // Đảm bảo thư mục cha của tệp đích tồn tại
+        File parentDir = destination.getParentFile();
+        if (parentDir != null && !parentDir.exists()) {
+            if (!parentDir.mkdirs()) {
+                throw new IOException("Cannot create parent directory for destination file: " + parentDir.getAbsolutePath());
+            }
+        }
+
+        Log.d(TAG, "Copying file: " + source.getName() + " to " + (parentDir != null ? parentDir.getAbsolutePath() : "unknown parent"));
+        try (InputStream in = new FileInputStream(source);
+             OutputStream out = new FileOutputStream(destination)) { // Mặc định sẽ ghi đè nếu tệp đích đã tồn tại
+            byte[] buffer = new byte[8192]; // 8KB buffer
+            int length;
+            while ((length = in.read(buffer)) > 0) {
+                out.write(buffer, 0, length);
+            }
+            out.flush(); // Đảm bảo dữ liệu được ghi hết
+        } catch (IOException e) {
+            // Xóa tệp đích có thể đã được tạo một phần
+            //noinspection ResultOfMethodCallIgnored
+            destination.delete();
+            throw e;
+        }
+    }
+
     private boolean deleteRecursiveInternal(File fileOrDirectory) {
         if (fileOrDirectory == null || !fileOrDirectory.exists()) {
             return true; // Không có gì để xóa, hoặc đã bị xóa
         }
         try {
-            if (fileOrDirectory.isDirectory()) {
-                File[] children = fileOrDirectory.listFiles();
-                if (children != null) {
-                    for (File child : children) {
-                        if (!deleteRecursiveInternal(child)) {
-                            return false; // Nếu xóa con thất bại
-                        }
+            // Links are deleted themselves, never followed into their targets.
+            return new TreeWalker(TreeWalker.SymlinkPolicy.AS_FILE).walk(fileOrDirectory, new TreeWalker.SimpleVisitor() {
+                @Override
+                public TreeWalker.Action visitFile(TreeWalker.Entry file) throws IOException {
+                    deleteOrThrow(file.getFile());
+                    return TreeWalker.Action.CONTINUE;
+                }
+
+                @Override
+                public TreeWalker.Action postVisitDirectory(TreeWalker.Entry dir, boolean complete) throws IOException {
+                    if (!complete) {
+                        return TreeWalker.Action.TERMINATE; // Nếu xóa con thất bại
                     }
+                    deleteOrThrow(dir.getFile());
+                    return TreeWalker.Action.CONTINUE;
                 }
-            }
-            return fileOrDirectory.delete();
+
+                @Override
+                public TreeWalker.Action visitFailed(File file, TreeWalker.Entry entry, IOException error) {
+                    Log.e(TAG, "Delete failed: " + file.getAbsolutePath(), error);
+                    return TreeWalker.Action.TERMINATE;
+                }
+            });
         } catch (SecurityException e) {
             Log.e(TAG, "SecurityException while deleting: " + fileOrDirectory.getAbsolutePath(), e);
             return false;
@@ -1518,6 +2529,12 @@ public class FileListActivity extends AppCompatActivity{
         }
     }
 
+    private static void deleteOrThrow(File file) throws IOException {
+        if (!file.delete()) {
+            throw new IOException("Could not delete " + file.getAbsolutePath());
+        }
+    }
+
     private File getUniqueDestinationFile(File destination) {
         if (!destination.exists()) {
             return destination; // Tên chưa tồn tại, dùng luôn
@@ -1531,7 +2548,7 @@ public class FileListActivity extends AppCompatActivity{
         if (destination.isDirectory()) {
             baseName = name;
         } else {
-            int dotIndex = name.lastIndexOf('.');
+            int dotIndex = name.toLowerCase().endsWith(".tar.gz") ? name.length() - 7 : name.lastIndexOf('.');
             if (dotIndex > 0) {
                 baseName = name.substring(0, dotIndex);
                 extension = name.substring(dotIndex); // Bao gồm cả dấu "."
@@ -1551,13 +2568,69 @@ public class FileListActivity extends AppCompatActivity{
         Log.d(TAG, "Name conflict resolved. Original: " + destination.getName() + ", New: " + uniqueDestination.getName());
         return uniqueDestination;
     }
+    /** Tells the search index and the cached row details that {@code file} (maybe a whole tree) appeared. */
+    private void notifyCreated(File file) {
+        fileIndex.onCreated(file);
+        ItemDetailsLoader.get().invalidate(file);
+        ThumbnailLoader.get(this).invalidate(file);
+        ContentTypeSniffer.get().invalidate(file);
+        ListingCache.get().invalidate(file);
+        listingStore.invalidate(file);
+    }
+
+    private void notifyDeleted(File file) {
+        fileIndex.onDeleted(file);
+        ItemDetailsLoader.get().invalidate(file);
+        ThumbnailLoader.get(this).invalidate(file);
+        ContentTypeSniffer.get().invalidate(file);
+        ListingCache.get().invalidate(file);
+        listingStore.invalidate(file);
+        clipboard.forget(file); // Moved or deleted: no longer there to paste
+    }
+
+    /** Keeps the index informed about changes other apps make in the folder being shown. */
+    private void watchDirectory(File directory) {
+        if (directoryWatcher != null) {
+            if (directoryWatcher.getDirectory().equals(directory)) {
+                return;
+            }
+            directoryWatcher.stop();
+        }
+        directoryWatcher = new DirectoryWatcher(directory, new DirectoryWatcher.Listener() {
+            @Override
+            public void onChildCreated(File child) {
+                notifyCreated(child);
+            }
+
+            @Override
+            public void onChildDeleted(File child) {
+                notifyDeleted(child);
+            }
+        });
+        directoryWatcher.start();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        ThumbnailLoader.get(this).trimMemory(level);
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        mainThreadHandler.removeCallbacks(dwellPrefetch);
+        prefetcher.cancel();
+        if (directoryWatcher != null) {
+            directoryWatcher.stop();
+        }
         if (executorService != null && !executorService.isShutdown()) {
             Log.d(TAG, "Shutting down ExecutorService.");
             executorService.shutdown(); // Ngăn chặn tác vụ mới, hoàn thành tác vụ đang chạy
             // Hoặc executorService.shutdownNow(); // Cố gắng dừng ngay các tác vụ đang chạy (có thể gây gián đoạn)
         }
+        if (listingExecutor != null) {
+            listingExecutor.shutdownNow(); // Chỉ là kiểm tra/liệt kê cho giao diện: bỏ được
+        }
     }
 } // End FileListActivity Class
\ No newline at end of file
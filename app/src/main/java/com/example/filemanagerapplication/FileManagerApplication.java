@@ -0,0 +1,14 @@
+package com.example.filemanagerapplication;
+
+import android.app.Application;
+
+/** Process-wide setup that runs before the first activity is created. */
+public class FileManagerApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        MainThreadIoGuard.install(this); // Debug builds only: disk I/O on the main thread is reported
+        StartupPrefetch.start(this); // Lists the start folder while the first activity inflates
+    }
+}
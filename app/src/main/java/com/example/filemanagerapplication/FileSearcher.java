@@ -0,0 +1,153 @@
+package com.example.filemanagerapplication;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recursive file name search that walks subtrees in parallel.
+ *
+ * Every directory is one {@link CountedCompleter} task on a shared {@link ForkJoinPool}:
+ * the task reads its directory with a {@link TreeWalker} (streaming read, one lstat per
+ * entry), reports matching names and forks a task per subdirectory, so idle threads steal
+ * whole subtrees and an unbalanced tree still keeps every thread busy. Hits are reported
+ * as soon as they are found; a search is cancelled by its {@link Handle}, which every task
+ * checks before and while reading its directory.
+ */
+public class FileSearcher {
+
+    private static final String TAG = "FileSearcher";
+
+    /** Callbacks arrive on pool threads. */
+    public interface Listener {
+        void onMatch(Handle search, File file, boolean isDirectory);
+
+        /** Called exactly once, also after a cancel. */
+        void onFinished(Handle search, int directoriesScanned, boolean cancelled);
+    }
+
+    /** One running search. */
+    public static final class Handle {
+        private final long startNanos = System.nanoTime();
+        private volatile boolean cancelled;
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /** When the search started, on the {@link System#nanoTime()} clock. */
+        public long getStartNanos() {
+            return startNanos;
+        }
+    }
+
+    private final ForkJoinPool pool;
+
+    public FileSearcher(int parallelism) {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    /** Starts searching below {@code root} (which itself is not matched). */
+    public Handle search(File root, NameMatcher matcher, Listener listener) {
+        Handle handle = new Handle();
+        Search search = new Search(handle, matcher, listener);
+        pool.execute(new DirectoryTask(null, root, search));
+        return handle;
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static final class Search {
+        final Handle handle;
+        final NameMatcher matcher;
+        final Listener listener;
+        final AtomicInteger directories = new AtomicInteger();
+
+        Search(Handle handle, NameMatcher matcher, Listener listener) {
+            this.handle = handle;
+            this.matcher = matcher;
+            this.listener = listener;
+        }
+    }
+
+    private static final class DirectoryTask extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L; // ForkJoinTask is Serializable; tasks are never serialized
+
+        private final File directory;
+        private final Search search;
+
+        DirectoryTask(CountedCompleter<?> parent, File directory, Search search) {
+            super(parent);
+            this.directory = directory;
+            this.search = search;
+        }
+
+        @Override
+        public void compute() {
+            if (!search.handle.isCancelled()) {
+                search.directories.incrementAndGet();
+                try {
+                    // Links are skipped: following them in parallel tasks could loop forever.
+                    new TreeWalker(TreeWalker.SymlinkPolicy.SKIP).walk(directory, new TreeWalker.SimpleVisitor() {
+                        @Override
+                        public TreeWalker.Action preVisitDirectory(TreeWalker.Entry dir) {
+                            if (dir.getDepth() == 0) {
+                                return TreeWalker.Action.CONTINUE; // This task's own directory
+                            }
+                            if (search.handle.isCancelled()) {
+                                return TreeWalker.Action.TERMINATE;
+                            }
+                            report(dir);
+                            addToPendingCount(1);
+                            new DirectoryTask(DirectoryTask.this, dir.getFile(), search).fork();
+                            return TreeWalker.Action.SKIP_SUBTREE;
+                        }
+
+                        @Override
+                        public TreeWalker.Action visitFile(TreeWalker.Entry file) {
+                            if (search.handle.isCancelled()) {
+                                return TreeWalker.Action.TERMINATE;
+                            }
+                            report(file);
+                            return TreeWalker.Action.CONTINUE;
+                        }
+
+                        @Override
+                        public TreeWalker.Action visitFailed(File file, TreeWalker.Entry entry, IOException error) {
+                            return TreeWalker.Action.CONTINUE; // Unreadable folders are simply not searched
+                        }
+                    });
+                } catch (IOException ignored) {
+                    // visitFailed never rethrows
+                } catch (RuntimeException e) {
+                    // Must not escape: an exceptionally completed task would never report onFinished
+                    Log.w(TAG, "Search failed in " + directory.getAbsolutePath(), e);
+                }
+            }
+            tryComplete();
+        }
+
+        private void report(TreeWalker.Entry entry) {
+            if (search.matcher.matches(entry.getFile().getName())) {
+                search.listener.onMatch(search.handle, entry.getFile(), entry.isDirectory());
+            }
+        }
+
+        @Override
+        public void onCompletion(CountedCompleter<?> caller) {
+            if (getCompleter() == null) {
+                search.listener.onFinished(search.handle, search.directories.get(), search.handle.isCancelled());
+            }
+        }
+    }
+}
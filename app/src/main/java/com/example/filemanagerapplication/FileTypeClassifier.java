@@ -0,0 +1,115 @@
+package com.example.filemanagerapplication;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Maps a file name to its category (and list icon) through a fixed extension table.
+ *
+ * The table is an open-addressed hash built once. A lookup hashes the extension straight
+ * out of the name, folding ASCII case on the fly, and compares with
+ * {@link String#regionMatches(boolean, int, String, int, int)}, so classifying a name
+ * allocates nothing: no lower-cased copy, no substring, no MIME string.
+ */
+public final class FileTypeClassifier {
+
+    public enum Category {
+        FOLDER(R.drawable.ic_baseline_folder_24),
+        IMAGE(R.drawable.ic_image_file),
+        VIDEO(R.drawable.ic_video_file),
+        AUDIO(R.drawable.ic_audio_file),
+        PDF(R.drawable.ic_pdf_file),
+        DOCUMENT(R.drawable.ic_document_file),
+        ARCHIVE(R.drawable.ic_archive_file),
+        APK(R.drawable.ic_apk_file),
+        OTHER(R.drawable.ic_document_file);
+
+        public final int iconResource;
+
+        Category(int iconResource) {
+            this.iconResource = iconResource;
+        }
+    }
+
+    private static final int MAX_EXTENSION_LENGTH = 8; // Longer ones are in no table row
+    private static final int TABLE_SIZE = 256; // Power of two, under half full
+    private static final String[] KEYS = new String[TABLE_SIZE];
+    private static final Category[] VALUES = new Category[TABLE_SIZE];
+
+    static {
+        put(Category.IMAGE, "jpg", "jpeg", "jpe", "png", "gif", "webp", "bmp", "wbmp", "heic", "heif",
+                "ico", "svg", "tif", "tiff", "dng");
+        put(Category.VIDEO, "mp4", "m4v", "mkv", "webm", "3gp", "3g2", "avi", "mov", "wmv", "flv",
+                "mpg", "mpeg", "ts");
+        put(Category.AUDIO, "mp3", "m4a", "aac", "wav", "ogg", "oga", "opus", "flac", "mid", "midi",
+                "amr", "wma");
+        put(Category.PDF, "pdf");
+        put(Category.DOCUMENT, "doc", "docx", "xls", "xlsx", "ppt", "pptx", "odt", "ods", "odp", "rtf",
+                "txt", "csv", "md", "log", "html", "htm", "xml", "json", "css", "js", "java", "kt",
+                "c", "h", "cpp", "py", "sh");
+        put(Category.ARCHIVE, "zip", "rar", "7z", "gz", "tgz", "tar", "bz2", "xz");
+        put(Category.APK, "apk");
+    }
+
+    private FileTypeClassifier() {
+    }
+
+    private static void put(Category category, String... extensions) {
+        for (String extension : extensions) {
+            int slot = hash(extension, 0, extension.length()) & (TABLE_SIZE - 1);
+            while (KEYS[slot] != null) {
+                slot = (slot + 1) & (TABLE_SIZE - 1);
+            }
+            KEYS[slot] = extension;
+            VALUES[slot] = category;
+        }
+    }
+
+    /** Non-negative case-insensitive (ASCII) hash of {@code s[from, to)}; -1 if a character cannot be in the table. */
+    private static int hash(String s, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            } else if (c > 0x7F) {
+                return -1;
+            }
+            h = h * 31 + c;
+        }
+        return (h ^ (h >>> 7)) & 0x7FFFFFFF;
+    }
+
+    /** Category of a regular file called {@code name}; never allocates. */
+    public static Category forName(String name) {
+        int dot = name.lastIndexOf('.');
+        int length = name.length() - dot - 1;
+        if (dot <= 0 || length == 0 || length > MAX_EXTENSION_LENGTH) {
+            return Category.OTHER; // No extension, or a hidden file like ".nomedia"
+        }
+        int h = hash(name, dot + 1, name.length());
+        if (h == -1) {
+            return Category.OTHER;
+        }
+        for (int slot = h & (TABLE_SIZE - 1); KEYS[slot] != null; slot = (slot + 1) & (TABLE_SIZE - 1)) {
+            String key = KEYS[slot];
+            if (key.length() == length && name.regionMatches(true, dot + 1, key, 0, length)) {
+                return VALUES[slot];
+            }
+        }
+        return Category.OTHER;
+    }
+
+    /** Costs one stat, for the folder check; call it while listing, not while binding. */
+    public static Category classify(File file) {
+        return file.isDirectory() ? Category.FOLDER : forName(file.getName());
+    }
+
+    public static Category[] classifyAll(List<File> files) {
+        Category[] categories = new Category[files.size()];
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] = classify(files.get(i));
+        }
+        return categories;
+    }
+}
@@ -4,49 +4,59 @@ import android.app.Activity;
 import android.content.Intent;
 import android.os.Bundle;
 import android.os.Environment;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.widget.Button;
 import android.widget.TextView;
 import android.widget.Toast;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.ContextCompat; // Cần cho check permission
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import android.Manifest; // Cần cho check permission
 import android.content.pm.PackageManager; // Cần cho check permission
 import android.os.Build;
 
-/** Activity cho phép người dùng duyệt và chọn một thư mục đích. */
+/**
+ * Activity cho phép người dùng duyệt và chọn một thư mục đích, dưới dạng cây thư mục.
+ * Subfolders are listed lazily off the main thread, and the counts of the rows on screen are
+ * prefetched, so picking a deep destination does not load a page per level.
+ */
 public class FolderPickerActivity extends AppCompatActivity {
 
     private static final String TAG = "FolderPickerActivity";
     public static final String EXTRA_SELECTED_PATH = "selected_path";
     public static final String EXTRA_INITIAL_PATH = "initial_path"; // Optional
-    public static final String EXTRA_SOURCE_PATH_TO_MOVE = "source_path_to_move"; // Optional
+    // Optional: the folders being copied or moved, as PathTrie bytes; they and their subfolders cannot be picked
+    public static final String EXTRA_SOURCE_PATHS = "source_paths";
 
     private RecyclerView recyclerViewFolders;
+    private LinearLayoutManager layoutManager;
     private TextView currentPathTextView;
     private Button selectButton;
     private FolderPickerAdapter adapter;
-    private List<File> folderList;
-    private String currentFolderPath;
-    private File sourceFileToMove; // File nguồn để kiểm tra self-move
-
-    // --- Định nghĩa File đại diện cho ".." ---
-    private static class GoUpFile extends File {
-        public GoUpFile(String pathname) { super(pathname); }
-        @Override public String getName() { return ".."; }
-        @Override public boolean isDirectory() { return true; } // Luôn là thư mục
-        @Override public long length() { return 0; }
-        @Override public long lastModified() { return 0; }
-        // Override các phương thức khác nếu cần để tránh lỗi
-    }
-    // ---------------------------------------
-
+    private FolderTree tree; // Null until the start folder's branch has been listed
+    private FolderTree.Node selected;
+    private PathTrie sourceFolders = new PathTrie(); // Thư mục nguồn để kiểm tra self-move
+    // Mọi thao tác đọc đĩa (stat, listFiles) chạy trên luồng này, kết quả đưa về luồng chính
+    private ExecutorService ioExecutor;
+    // Đếm thư mục con cho các dòng đang hiển thị; tách riêng để không chặn thao tác của người dùng
+    private ExecutorService prefetchExecutor;
+    private Handler mainThreadHandler;
+    // Resolved on ioExecutor by resolveRoots()
+    private volatile File defaultRoot;
+    private volatile String appExternalRoot;
+    private volatile String appInternalRoot;
+    private boolean selectedWritable; // Checked on ioExecutor each time the selection changes
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -59,53 +69,67 @@ public class FolderPickerActivity extends AppCompatActivity {
         setTitle("Select Destination Folder"); // Đặt tiêu đề
 
         // Lấy dữ liệu từ Intent
-        String sourcePathString = getIntent().getStringExtra(EXTRA_SOURCE_PATH_TO_MOVE);
-        if (sourcePathString != null) {
-            sourceFileToMove = new File(sourcePathString);
+        byte[] sourcePaths = getIntent().getByteArrayExtra(EXTRA_SOURCE_PATHS);
+        if (sourcePaths != null) {
+            try {
+                sourceFolders = PathTrie.fromBytes(sourcePaths);
+            } catch (IOException e) {
+                Log.e(TAG, "Invalid source paths extra", e);
+            }
         }
         String initialPath = getIntent().getStringExtra(EXTRA_INITIAL_PATH);
-        // Xác định đường dẫn gốc an toàn (thay vì trực tiếp root)
-        File defaultRoot = getDefaultRootDirectory();
-        if (initialPath == null || initialPath.isEmpty() || !new File(initialPath).canRead()) {
-            initialPath = defaultRoot.getAbsolutePath();
-        }
-        currentFolderPath = initialPath;
-
-        folderList = new ArrayList<>();
-
-        // Khởi tạo Adapter với listener để xử lý click
-        adapter = new FolderPickerAdapter(this, folderList, file -> {
-            if ("..".equals(file.getName())) {
-                // Đi lên thư mục cha
-                File parent = new File(currentFolderPath).getParentFile();
-                // Chỉ đi lên nếu parent tồn tại và đọc được, và không vượt qua gốc an toàn
-                if (parent != null && parent.canRead() && parent.getAbsolutePath().length() >= defaultRoot.getAbsolutePath().length()) {
-                    navigateTo(parent.getAbsolutePath());
-                } else {
-                    navigateTo(defaultRoot.getAbsolutePath()); // Quay về gốc nếu không lên được nữa
+        ioExecutor = Executors.newSingleThreadExecutor();
+        prefetchExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "FolderPicker-prefetch");
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        mainThreadHandler = new Handler(Looper.getMainLooper());
+
+        // Khởi tạo Adapter với listener: chạm vào dòng để chọn và mở nhánh, chạm mũi tên để mở/đóng nhánh
+        adapter = new FolderPickerAdapter(this, this::isSourceOrInside, new FolderPickerAdapter.OnFolderClickListener() {
+            @Override
+            public void onFolderClick(FolderTree.Node node) {
+                // Kiểm tra ngăn không cho chọn thư mục nguồn hoặc con của nó; so sánh đường dẫn là đủ,
+                // vì không thư mục nào trùng hoặc nằm dưới đường dẫn của một file
+                if (isSourceOrInside(node.dir)) {
+                    Toast.makeText(FolderPickerActivity.this, "Cannot move folder into itself or subfolder", Toast.LENGTH_SHORT).show();
+                    return;
                 }
-            } else if (file.isDirectory()) {
-                // Đi vào thư mục con
-                // Kiểm tra ngăn không cho chọn thư mục nguồn hoặc con của nó
-                if (sourceFileToMove != null && sourceFileToMove.isDirectory()) {
-                    if (file.getAbsolutePath().equals(sourceFileToMove.getAbsolutePath()) ||
-                            file.getAbsolutePath().startsWith(sourceFileToMove.getAbsolutePath() + File.separator)) {
-                        Toast.makeText(this, "Cannot move folder into itself or subfolder", Toast.LENGTH_SHORT).show();
-                        return; // Không điều hướng
-                    }
+                select(node);
+                expand(node);
+            }
+
+            @Override
+            public void onExpanderClick(FolderTree.Node node) {
+                if (node.expanded) {
+                    collapse(node);
+                } else {
+                    expand(node);
                 }
-                navigateTo(file.getAbsolutePath());
             }
         });
 
-        recyclerViewFolders.setLayoutManager(new LinearLayoutManager(this));
+        layoutManager = new LinearLayoutManager(this);
+        recyclerViewFolders.setLayoutManager(layoutManager);
         recyclerViewFolders.setAdapter(adapter);
+        recyclerViewFolders.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    prefetchVisibleCounts();
+                }
+            }
+        });
 
-        // Nút chọn thư mục hiện tại
+        // Nút chọn thư mục đang được chọn trong cây
+        selectButton.setEnabled(false);
         selectButton.setOnClickListener(v -> {
-            File currentDir = new File(currentFolderPath);
-            if (!currentDir.canWrite()){
-                // Kiểm tra lại quyền ghi trực tiếp
+            if (selected == null) {
+                return;
+            }
+            if (!selectedWritable){
+                // Quyền ghi đã kiểm tra khi chọn thư mục (ở luồng nền)
                 if(ContextCompat.checkSelfPermission(this, Manifest.permission.WRITE_EXTERNAL_STORAGE) != PackageManager.PERMISSION_GRANTED && Build.VERSION.SDK_INT < Build.VERSION_CODES.R) {
                     Toast.makeText(this, "Write permission needed for this folder.", Toast.LENGTH_LONG).show();
                 } else {
@@ -115,16 +139,57 @@ public class FolderPickerActivity extends AppCompatActivity {
             }
 
             Intent resultIntent = new Intent();
-            resultIntent.putExtra(EXTRA_SELECTED_PATH, currentFolderPath);
+            resultIntent.putExtra(EXTRA_SELECTED_PATH, selected.dir.getAbsolutePath());
             setResult(Activity.RESULT_OK, resultIntent);
             finish(); // Đóng picker và trả kết quả
         });
 
-        // Tải danh sách thư mục ban đầu
-        loadFolders(currentFolderPath);
+        // Liệt kê nhánh từ gốc tới thư mục ban đầu ở luồng nền (đường dẫn không đọc được thì dùng gốc an toàn),
+        // rồi mở nhánh đó và chọn sẵn thư mục ban đầu
+        ioExecutor.execute(() -> {
+            resolveRoots();
+            File initial = defaultRoot;
+            if (initialPath != null && !initialPath.isEmpty() && new File(initialPath).canRead()) {
+                initial = new File(initialPath);
+            }
+            List<File> chain = FolderTree.pathFrom(defaultRoot, initial);
+            if (!chain.get(chain.size() - 1).getAbsolutePath().equals(initial.getAbsolutePath())) {
+                chain = Collections.singletonList(initial); // Outside the safe root: the tree starts at the folder itself
+            }
+            List<List<File>> subfolders = new ArrayList<>(chain.size());
+            for (File dir : chain) {
+                subfolders.add(listSubfolders(dir));
+            }
+            final List<File> branch = chain;
+            mainThreadHandler.post(() -> {
+                if (!isDestroyed()) {
+                    showTree(branch, subfolders);
+                }
+            });
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        ioExecutor.shutdownNow();
+        prefetchExecutor.shutdownNow();
+    }
+
+    private boolean isSourceOrInside(File folder) {
+        return sourceFolders.covers(folder.getAbsolutePath());
     }
 
-    /** Lấy thư mục gốc mặc định, ưu tiên bộ nhớ ngoài nếu có, không thì bộ nhớ trong. */
+    /** Background thread: the safe root and the app's own folders, which display and navigation compare against. */
+    private void resolveRoots() {
+        File external = getExternalFilesDir(null);
+        appExternalRoot = external != null ? external.getAbsolutePath() : null;
+        appInternalRoot = getFilesDir().getAbsolutePath();
+        // Xác định đường dẫn gốc an toàn (thay vì trực tiếp root)
+        defaultRoot = getDefaultRootDirectory();
+    }
+
+    /** Lấy thư mục gốc mặc định, ưu tiên bộ nhớ ngoài nếu có, không thì bộ nhớ trong. Đọc đĩa: chỉ gọi ở luồng nền. */
     private File getDefaultRootDirectory() {
         File externalStorage = Environment.getExternalStorageDirectory();
         if (Environment.getExternalStorageState().equals(Environment.MEDIA_MOUNTED) && externalStorage != null && externalStorage.canRead()) {
@@ -137,70 +202,169 @@ public class FolderPickerActivity extends AppCompatActivity {
         }
     }
 
-    /** Điều hướng đến đường dẫn mới và tải lại danh sách thư mục. */
-    private void navigateTo(String path) {
-        File dir = new File(path);
-        if (dir.exists() && dir.isDirectory() && dir.canRead()) {
-            loadFolders(path);
-        } else {
-            Log.e(TAG, "Cannot navigate to: " + path);
-            Toast.makeText(this, "Cannot open folder", Toast.LENGTH_SHORT).show();
-            // Có thể quay về thư mục gốc an toàn nếu điều hướng thất bại
-            // loadFolders(getDefaultRootDirectory().getAbsolutePath());
+    /** Main thread: builds the tree with {@code branch} (root to start folder) expanded and the start folder selected. */
+    private void showTree(List<File> branch, List<List<File>> subfolders) {
+        tree = new FolderTree(branch.get(0));
+        FolderTree.Node node = tree.root();
+        for (int i = 0; i < branch.size(); i++) {
+            node.setChildren(subfolders.get(i));
+            if (i == branch.size() - 1) {
+                break;
+            }
+            tree.expand(node);
+            FolderTree.Node child = tree.childFor(node, branch.get(i + 1));
+            if (child == null) {
+                break; // Hidden or unreadable on the way down: stop at the deepest listed folder
+            }
+            node = child;
         }
+        adapter.setTree(tree, getDisplayPathPicker(tree.root().dir.getAbsolutePath()));
+        if (!select(node)) {
+            select(tree.root());
+        }
+        expand(node);
+        layoutManager.scrollToPositionWithOffset(Math.max(0, tree.indexOf(node) - 2), 0);
+        recyclerViewFolders.post(this::prefetchVisibleCounts);
     }
 
-    /** Tải danh sách thư mục con cho đường dẫn được chỉ định. */
-    private void loadFolders(String path) {
-        currentFolderPath = path;
-        currentPathTextView.setText("Select in: " + getDisplayPathPicker(path)); // Cập nhật đường dẫn hiển thị
-        File directory = new File(path);
+    /** Main thread: selects {@code node} as the destination; false if it is the source folder or inside it. */
+    private boolean select(FolderTree.Node node) {
+        if (isSourceOrInside(node.dir)) {
+            return false;
+        }
+        selected = node;
+        adapter.setSelected(node);
+        currentPathTextView.setText("Select in: " + getDisplayPathPicker(node.dir.getAbsolutePath())); // Cập nhật đường dẫn hiển thị
+        selectedWritable = false;
+        selectButton.setEnabled(false);
+        // Quyền ghi là một lần stat: kiểm tra ở luồng nền, chỉ áp dụng nếu vẫn là thư mục đang chọn
+        ioExecutor.execute(() -> {
+            boolean writable = node.dir.canWrite();
+            mainThreadHandler.post(() -> {
+                if (selected != node || isDestroyed()) {
+                    return;
+                }
+                selectedWritable = writable;
+                // Bật/tắt nút Select dựa trên quyền ghi vào thư mục đang chọn
+                selectButton.setEnabled(writable);
+                if(!writable){
+                    selectButton.setText("Cannot Select (Read Only)"); // Thông báo rõ hơn
+                } else {
+                    selectButton.setText("Select This Folder");
+                }
+            });
+        });
+        return true;
+    }
 
-        folderList.clear();
+    /**
+     * Main thread: shows the subfolders of {@code node}. If they are not listed yet it lists them,
+     * unless the prefetch already is, and they show when the listing arrives if the user has not
+     * collapsed the node by then.
+     */
+    private void expand(FolderTree.Node node) {
+        boolean list = !node.isListed() && !node.loading;
+        int position = tree.indexOf(node);
+        int inserted = tree.expand(node);
+        if (position >= 0) {
+            adapter.notifyItemChanged(position); // Mũi tên xoay
+        }
+        if (inserted > 0) {
+            adapter.notifyItemRangeInserted(position + 1, inserted);
+            recyclerViewFolders.post(this::prefetchVisibleCounts);
+        }
+        if (list) {
+            node.loading = true;
+            ioExecutor.execute(() -> {
+                List<File> children = listSubfolders(node.dir);
+                mainThreadHandler.post(() -> {
+                    if (!isDestroyed()) {
+                        attachChildren(node, children);
+                    }
+                });
+            });
+        }
+    }
 
-        // Thêm mục ".." để đi lên (nếu không phải gốc an toàn)
-        File parent = directory.getParentFile();
-        File defaultRoot = getDefaultRootDirectory();
-        if (parent != null && parent.canRead() && directory.getAbsolutePath().length() > defaultRoot.getAbsolutePath().length()) {
-            folderList.add(new GoUpFile(parent.getAbsolutePath()));
+    /** Main thread: hides everything below {@code node}. */
+    private void collapse(FolderTree.Node node) {
+        int position = tree.indexOf(node);
+        int removed = tree.collapse(node);
+        if (position >= 0) {
+            adapter.notifyItemChanged(position);
+        }
+        if (removed > 0) {
+            adapter.notifyItemRangeRemoved(position + 1, removed);
+        }
+        if (selected != null && selected != node && tree.indexOf(selected) < 0) {
+            select(node); // The selection was inside the closed branch
         }
+    }
 
-        // Lấy danh sách thư mục con
-        File[] filesAndFolders = directory.listFiles();
-        if (filesAndFolders != null) {
-            List<File> tempList = new ArrayList<>();
-            for (File file : filesAndFolders) {
-                // Chỉ thêm thư mục, không ẩn, và đọc được
-                if (file.isDirectory() && !file.isHidden() && file.canRead()) {
-                    // Thêm kiểm tra để làm mờ hoặc không cho click nếu là thư mục nguồn/con
-                    boolean isInvalidTarget = false;
-                    if (sourceFileToMove != null && sourceFileToMove.isDirectory()) {
-                        if (file.getAbsolutePath().equals(sourceFileToMove.getAbsolutePath()) ||
-                                file.getAbsolutePath().startsWith(sourceFileToMove.getAbsolutePath() + File.separator)) {
-                            isInvalidTarget = true; // Đánh dấu là mục tiêu không hợp lệ
-                            // Bạn có thể truyền cờ này vào adapter để hiển thị khác đi
-                        }
-                    }
-                    // if (!isInvalidTarget) // Chỉ thêm nếu hợp lệ, hoặc thêm tất cả và xử lý click trong adapter
-                    tempList.add(file);
-                }
-            }
-            // Sắp xếp thư mục theo tên
-            Collections.sort(tempList, (f1, f2) -> f1.getName().compareToIgnoreCase(f2.getName()));
-            folderList.addAll(tempList); // Thêm thư mục con sau mục ".."
-        } else {
-            Log.w(TAG, "listFiles() returned null for: " + path);
+    /**
+     * Main thread: attaches a listing to {@code node} and rebinds its row if it is visible; opens
+     * the node if it was expanded while loading and is still expanded.
+     */
+    private void attachChildren(FolderTree.Node node, List<File> children) {
+        int position = tree.indexOf(node);
+        int inserted = tree.attachChildren(node, children);
+        if (position >= 0) {
+            adapter.notifyItemChanged(position);
         }
+        if (inserted > 0) {
+            adapter.notifyItemRangeInserted(position + 1, inserted);
+            recyclerViewFolders.post(this::prefetchVisibleCounts);
+        }
+    }
 
-        adapter.notifyDataSetChanged();
+    /**
+     * Main thread: lists, on {@link #prefetchExecutor}, the subfolders of the rows on screen
+     * whose count is still unknown, so their count shows and opening them is instant.
+     */
+    private void prefetchVisibleCounts() {
+        if (tree == null) {
+            return;
+        }
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        if (first < 0 || last < 0) {
+            return;
+        }
+        for (int i = first; i <= last && i < tree.size(); i++) {
+            FolderTree.Node node = tree.get(i);
+            if (node.isListed() || node.loading) {
+                continue;
+            }
+            node.loading = true;
+            prefetchExecutor.execute(() -> {
+                List<File> children = listSubfolders(node.dir);
+                mainThreadHandler.post(() -> {
+                    if (!isDestroyed()) {
+                        attachChildren(node, children);
+                    }
+                });
+            });
+        }
+    }
 
-        // Bật/tắt nút Select dựa trên quyền ghi vào thư mục *hiện tại*
-        selectButton.setEnabled(directory.canWrite());
-        if(!directory.canWrite()){
-            selectButton.setText("Cannot Select (Read Only)"); // Thông báo rõ hơn
-        } else {
-            selectButton.setText("Select This Folder");
+    /** Background thread: the readable, non-hidden subfolders of {@code directory}, sorted by name. */
+    private static List<File> listSubfolders(File directory) {
+        List<File> folders = new ArrayList<>();
+        File[] filesAndFolders = directory.listFiles();
+        if (filesAndFolders == null) {
+            Log.w(TAG, "listFiles() returned null for: " + directory);
+            return folders;
         }
+        for (File file : filesAndFolders) {
+            // Chỉ thêm thư mục, không ẩn, và đọc được
+            // (thư mục nguồn/con của nó vẫn được thêm; việc chặn xử lý khi click)
+            if (file.isDirectory() && !file.isHidden() && file.canRead()) {
+                folders.add(file);
+            }
+        }
+        // Sắp xếp thư mục theo tên (tự nhiên: "Folder 2" trước "Folder 10"), giống danh sách chính
+        SortMode.sortByName(folders);
+        return folders;
     }
 
     /** Lấy đường dẫn hiển thị thân thiện cho Picker. */
@@ -210,24 +374,26 @@ public class FolderPickerActivity extends AppCompatActivity {
             if (externalRoot != null && absolutePath.startsWith(externalRoot.getAbsolutePath())) {
                 String rp = absolutePath.substring(externalRoot.getAbsolutePath().length()); return "Storage" + (rp.isEmpty()?"":rp);
             }
-            File appExt = getExternalFilesDir(null); if (appExt != null && absolutePath.startsWith(appExt.getAbsolutePath())) { String rp = absolutePath.substring(appExt.getAbsolutePath().length()); return "AppExt" + (rp.isEmpty()?"":rp); }
-            File appInt = getFilesDir(); if (absolutePath.startsWith(appInt.getAbsolutePath())) { String rp = absolutePath.substring(appInt.getAbsolutePath().length()); return "AppInt" + (rp.isEmpty()?"":rp); }
+            String appExt = appExternalRoot; if (appExt != null && absolutePath.startsWith(appExt)) { String rp = absolutePath.substring(appExt.length()); return "AppExt" + (rp.isEmpty()?"":rp); }
+            String appInt = appInternalRoot; if (appInt != null && absolutePath.startsWith(appInt)) { String rp = absolutePath.substring(appInt.length()); return "AppInt" + (rp.isEmpty()?"":rp); }
         } catch (Exception e) {}
         return absolutePath; // Fallback
     }
 
-    // Bạn có thể thêm onBackPressed() ở đây để xử lý đi lên thư mục cha thay vì đóng Activity ngay lập tức
     @Override
     public void onBackPressed() {
-        File currentDir = new File(currentFolderPath);
-        File parentDir = currentDir.getParentFile();
-        File defaultRoot = getDefaultRootDirectory();
-
-        if (parentDir != null && parentDir.canRead() && currentDir.getAbsolutePath().length() > defaultRoot.getAbsolutePath().length()) {
-            navigateTo(parentDir.getAbsolutePath()); // Đi lên một cấp
+        // Back chọn thư mục cha trong cây; ở gốc thì hủy
+        if (selected != null && selected.parent != null) {
+            FolderTree.Node parent = selected.parent;
+            select(parent);
+            int position = tree.indexOf(parent);
+            if (position >= 0 && (position < layoutManager.findFirstVisibleItemPosition()
+                    || position > layoutManager.findLastVisibleItemPosition())) {
+                layoutManager.scrollToPositionWithOffset(position, 0);
+            }
         } else {
             setResult(Activity.RESULT_CANCELED); // Đặt kết quả là hủy
             super.onBackPressed(); // Đóng activity nếu không lên được nữa
         }
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package com.example.filemanagerapplication;
 
 import android.content.Context;
+import android.graphics.Color;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -9,69 +10,118 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 import java.io.File;
-import java.util.List;
+import java.util.function.Predicate;
 
-/** Adapter để hiển thị danh sách thư mục trong FolderPickerActivity. */
+/** Adapter hiển thị cây thư mục (các dòng đang mở của {@link FolderTree}) trong FolderPickerActivity. */
 public class FolderPickerAdapter extends RecyclerView.Adapter<FolderPickerAdapter.ViewHolder> {
 
+    private static final int SELECTED_COLOR = 0x302196F3;
+
     private final Context context;
-    private final List<File> folderList;
     private final OnFolderClickListener listener;
+    private final Predicate<File> blocked; // Thư mục nguồn (và con của nó) không được chọn
+    private final int indentPx;
+    private final int verticalPaddingPx;
+    private final int endPaddingPx;
+    private FolderTree tree;
+    private FolderTree.Node selected;
+    private String rootLabel;
 
-    /** Interface để xử lý click vào thư mục. */
+    /** Interface để xử lý click vào thư mục (chọn) và vào mũi tên (mở/đóng nhánh). */
     interface OnFolderClickListener {
-        void onFolderClick(File folder);
+        void onFolderClick(FolderTree.Node node);
+
+        void onExpanderClick(FolderTree.Node node);
     }
 
     /** Constructor */
-    public FolderPickerAdapter(Context context, List<File> folderList, OnFolderClickListener listener) {
+    public FolderPickerAdapter(Context context, Predicate<File> blocked, OnFolderClickListener listener) {
         this.context = context;
-        this.folderList = folderList;
+        this.blocked = blocked;
         this.listener = listener;
+        float density = context.getResources().getDisplayMetrics().density;
+        this.indentPx = Math.round(20 * density);
+        this.verticalPaddingPx = Math.round(4 * density); // As in folder_tree_item.xml
+        this.endPaddingPx = Math.round(8 * density);
+    }
+
+    /** Shows {@code tree}, whose root row is labelled {@code rootLabel}. */
+    public void setTree(FolderTree tree, String rootLabel) {
+        this.tree = tree;
+        this.rootLabel = rootLabel;
+        notifyDataSetChanged();
+    }
+
+    /** Highlights {@code node}; only the old and new rows are rebound. */
+    public void setSelected(FolderTree.Node node) {
+        FolderTree.Node previous = selected;
+        selected = node;
+        if (tree == null) {
+            return;
+        }
+        int oldPosition = previous != null ? tree.indexOf(previous) : -1;
+        if (oldPosition >= 0) {
+            notifyItemChanged(oldPosition);
+        }
+        int newPosition = node != null ? tree.indexOf(node) : -1;
+        if (newPosition >= 0) {
+            notifyItemChanged(newPosition);
+        }
     }
 
     /** Tạo ViewHolder mới. */
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(context).inflate(R.layout.recycler_item, parent, false); // Tái sử dụng layout item
+        View view = LayoutInflater.from(context).inflate(R.layout.folder_tree_item, parent, false);
         return new ViewHolder(view);
     }
 
-    /** Gắn dữ liệu vào ViewHolder. */
+    /** Gắn dữ liệu vào ViewHolder; không đọc đĩa (số thư mục con đã được đếm ở luồng nền). */
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        File file = folderList.get(position);
-        holder.textView.setText(file.getName());
-        // Luôn hiển thị icon thư mục (hoặc icon đặc biệt cho "..")
-        if ("..".equals(file.getName())) {
-            holder.imageView.setImageResource(R.drawable.ic_baseline_arrow_upward_24); // Ví dụ icon đi lên
-        } else {
-            holder.imageView.setImageResource(R.drawable.ic_baseline_folder_24);
-        }
+        FolderTree.Node node = tree.get(position);
+        holder.itemView.setPaddingRelative(node.depth * indentPx, verticalPaddingPx, endPaddingPx, verticalPaddingPx);
+        holder.textView.setText(node.parent == null ? rootLabel : node.dir.getName());
+        holder.countView.setText(countText(node));
+        holder.expanderView.setVisibility(node.childCount() == 0 ? View.INVISIBLE : View.VISIBLE);
+        holder.expanderView.setRotation(node.expanded ? 90 : 0);
+        holder.itemView.setBackgroundColor(node == selected ? SELECTED_COLOR : Color.TRANSPARENT);
+        holder.itemView.setAlpha(blocked.test(node.dir) ? 0.4f : 1f);
 
         // Xử lý click
-        holder.itemView.setOnClickListener(v -> {
-            if (listener != null) {
-                listener.onFolderClick(file);
-            }
-        });
+        holder.itemView.setOnClickListener(v -> listener.onFolderClick(node));
+        holder.expanderView.setOnClickListener(v -> listener.onExpanderClick(node));
+    }
+
+    private static String countText(FolderTree.Node node) {
+        int count = node.childCount();
+        if (count < 0) {
+            return "…";
+        }
+        if (count == 0) {
+            return "No folders";
+        }
+        return count == 1 ? "1 folder" : count + " folders";
     }
 
     /** Trả về số lượng item. */
     @Override
     public int getItemCount() {
-        return folderList.size();
+        return tree != null ? tree.size() : 0;
     }
 
     /** ViewHolder */
     public static class ViewHolder extends RecyclerView.ViewHolder {
         TextView textView;
-        ImageView imageView;
+        TextView countView;
+        ImageView expanderView;
+
         public ViewHolder(View itemView) {
             super(itemView);
             textView = itemView.findViewById(R.id.file_name_text_view);
-            imageView = itemView.findViewById(R.id.icon_view);
+            countView = itemView.findViewById(R.id.folder_count_text_view);
+            expanderView = itemView.findViewById(R.id.expander_view);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,173 @@
+package com.example.filemanagerapplication;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Expandable folder tree for {@link FolderPickerActivity}, kept as the flat list of rows on
+ * screen. Expanding or collapsing a node inserts or removes one contiguous range of rows, so the
+ * adapter is told exactly which rows changed and only those are bound.
+ *
+ * A node's subfolders are listed lazily, on a background thread, and attached with
+ * {@link #attachChildren}; until then its count is unknown. A node opened before its listing
+ * arrives is marked expanded and shows its rows on attach, unless it was closed in between.
+ * Only the main thread touches the tree.
+ */
+final class FolderTree {
+
+    static final class Node {
+        final File dir;
+        final Node parent;
+        final int depth;
+        boolean expanded; // Also set while a listing is pending, for a node opened before it arrived
+        boolean loading; // A listing of its subfolders is queued
+        private List<File> children; // Sorted subfolders; null until listed
+        private List<Node> childNodes; // Created on first expansion, so a collapsed branch keeps its state
+
+        Node(File dir, Node parent) {
+            this.dir = dir;
+            this.parent = parent;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+        }
+
+        /** Number of subfolders, or -1 while they have not been listed. */
+        int childCount() {
+            return children == null ? -1 : children.size();
+        }
+
+        boolean isListed() {
+            return children != null;
+        }
+
+        /** Attaches the listed subfolders; a second listing (e.g. from the prefetch) is ignored. */
+        void setChildren(List<File> subfolders) {
+            if (children == null) {
+                children = subfolders;
+            }
+        }
+    }
+
+    private final Node root;
+    private final List<Node> rows = new ArrayList<>();
+
+    FolderTree(File rootDir) {
+        root = new Node(rootDir, null);
+        rows.add(root);
+    }
+
+    Node root() {
+        return root;
+    }
+
+    int size() {
+        return rows.size();
+    }
+
+    Node get(int position) {
+        return rows.get(position);
+    }
+
+    /** Row of {@code node}, or -1 if it is inside a collapsed branch. */
+    int indexOf(Node node) {
+        return rows.indexOf(node);
+    }
+
+    /**
+     * Shows the subfolders of a visible {@code node} below it, with the branches that were
+     * expanded before it was collapsed. A node still loading or not listed is only marked
+     * expanded; {@link #attachChildren} shows its rows.
+     *
+     * @return the number of rows inserted after the node's row
+     */
+    int expand(Node node) {
+        int position = indexOf(node);
+        if (node.expanded || position < 0) {
+            return 0;
+        }
+        if (node.loading || !node.isListed()) {
+            node.expanded = true;
+            return 0;
+        }
+        if (node.childNodes == null) {
+            node.childNodes = new ArrayList<>(node.children.size());
+            for (File child : node.children) {
+                node.childNodes.add(new Node(child, node));
+            }
+        }
+        node.expanded = true;
+        List<Node> inserted = new ArrayList<>();
+        appendVisibleChildren(node, inserted);
+        rows.addAll(position + 1, inserted);
+        return inserted.size();
+    }
+
+    private static void appendVisibleChildren(Node node, List<Node> out) {
+        for (Node child : node.childNodes) {
+            out.add(child);
+            if (child.expanded && child.childNodes != null) { // Not one waiting for its listing
+                appendVisibleChildren(child, out);
+            }
+        }
+    }
+
+    /**
+     * Attaches the listed subfolders of {@code node} and ends its loading. If the node was
+     * expanded while it loaded and is still expanded and visible, its rows are shown now;
+     * a node that was collapsed in the meantime stays closed.
+     *
+     * @return the number of rows inserted after the node's row
+     */
+    int attachChildren(Node node, List<File> subfolders) {
+        node.setChildren(subfolders);
+        node.loading = false;
+        if (!node.expanded || node.childNodes != null) {
+            return 0; // Not waiting to open, or already open
+        }
+        node.expanded = false;
+        return expand(node); // Hidden meanwhile: stays closed
+    }
+
+    /** Hides everything below {@code node}; returns the number of rows removed after its row. */
+    int collapse(Node node) {
+        int position = indexOf(node);
+        if (!node.expanded || position < 0) {
+            return 0;
+        }
+        node.expanded = false;
+        int end = position + 1;
+        while (end < rows.size() && rows.get(end).depth > node.depth) {
+            end++;
+        }
+        rows.subList(position + 1, end).clear();
+        return end - position - 1;
+    }
+
+    /** The visible child of an expanded {@code node} for {@code dir}, or null. */
+    Node childFor(Node node, File dir) {
+        if (node.childNodes == null) {
+            return null;
+        }
+        for (Node child : node.childNodes) {
+            if (child.dir.equals(dir)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    /** Folders from {@code root} down to {@code target} inclusive, or just the root if {@code target} is not below it. */
+    static List<File> pathFrom(File root, File target) {
+        List<File> chain = new ArrayList<>();
+        String rootPath = root.getAbsolutePath();
+        for (File dir = target.getAbsoluteFile(); dir != null; dir = dir.getParentFile()) {
+            chain.add(0, dir);
+            if (dir.getAbsolutePath().equals(rootPath)) {
+                return chain;
+            }
+        }
+        chain.clear();
+        chain.add(root);
+        return chain;
+    }
+}
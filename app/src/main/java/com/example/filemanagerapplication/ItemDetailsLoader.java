@@ -0,0 +1,171 @@
+package com.example.filemanagerapplication;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import androidx.collection.LruCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Computes the detail line of list rows off the UI thread: size and date for files,
+ * recursive size and item count for folders.
+ *
+ * Work is only requested by rows being bound, so only visible rows are computed; a row
+ * that is recycled cancels its request (interrupting a running folder walk). Threads run
+ * at background priority. Finished results are memoized in a bounded LRU shared by every
+ * list screen; {@link #invalidate(File)} drops an entry together with its ancestors, whose
+ * recursive sizes include it.
+ */
+public class ItemDetailsLoader {
+
+    private static final int CACHE_ENTRIES = 2048;
+    private static final int THREADS = 2;
+
+    /** Sizes of one item. For folders {@link #bytes} is -1 until the walk is done. */
+    public static final class Details {
+        public final long bytes;
+        public final int childCount; // -1 for files
+        public final long lastModified;
+
+        Details(long bytes, int childCount, long lastModified) {
+            this.bytes = bytes;
+            this.childCount = childCount;
+            this.lastModified = lastModified;
+        }
+
+        public boolean isComplete() {
+            return bytes >= 0;
+        }
+    }
+
+    /** Called on the main thread, possibly twice for a folder (counts first, then size). */
+    public interface Callback {
+        void onDetails(File file, Details details);
+    }
+
+    private static ItemDetailsLoader instance;
+
+    public static synchronized ItemDetailsLoader get() {
+        if (instance == null) {
+            instance = new ItemDetailsLoader();
+        }
+        return instance;
+    }
+
+    private final LruCache<String, Details> cache = new LruCache<>(CACHE_ENTRIES);
+    private final Map<Object, Request> requests = new ConcurrentHashMap<>(); // Owner (row) -> its latest request
+    private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS, r -> new Thread(() -> {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        r.run();
+    }, "ItemDetails"));
+
+    private ItemDetailsLoader() {
+    }
+
+    /** Memoized details, or null; never touches the disk. */
+    public Details getCached(File file) {
+        return cache.get(file.getAbsolutePath());
+    }
+
+    /** Computes details for {@code owner}, replacing whatever it requested before. Main thread only. */
+    public void load(File file, Object owner, Callback callback) {
+        cancel(owner);
+        Request request = new Request();
+        requests.put(owner, request);
+        request.future = executor.submit(() -> {
+            Details details = compute(file, partial -> deliver(owner, request, file, partial, callback));
+            if (details != null) {
+                cache.put(file.getAbsolutePath(), details);
+                deliver(owner, request, file, details, callback);
+            }
+        });
+    }
+
+    /** Stops the work requested by {@code owner} (e.g. its row scrolled off). Main thread only. */
+    public void cancel(Object owner) {
+        Request previous = requests.remove(owner);
+        if (previous != null) {
+            previous.future.cancel(true);
+        }
+    }
+
+    private static final class Request {
+        Future<?> future;
+    }
+
+    /** Forgets {@code file}, everything below it and every folder above it. */
+    public void invalidate(File file) {
+        String path = file.getAbsolutePath();
+        for (String key : cache.snapshot().keySet()) {
+            if (FileIndex.isInside(key, path)) {
+                cache.remove(key);
+            }
+        }
+        for (File parent = file.getAbsoluteFile().getParentFile(); parent != null; parent = parent.getParentFile()) {
+            cache.remove(parent.getAbsolutePath());
+        }
+    }
+
+    private void deliver(Object owner, Request request, File file, Details details, Callback callback) {
+        mainThreadHandler.post(() -> {
+            if (requests.get(owner) == request) {
+                if (details.isComplete()) {
+                    requests.remove(owner);
+                }
+                callback.onDetails(file, details);
+            }
+        });
+    }
+
+    private interface PartialListener {
+        void onPartial(Details details);
+    }
+
+    /** Null if interrupted. */
+    private static Details compute(File file, PartialListener partial) {
+        long lastModified = file.lastModified();
+        if (!file.isDirectory()) {
+            return new Details(file.length(), -1, lastModified);
+        }
+        String[] children = file.list();
+        int childCount = children != null ? children.length : 0;
+        partial.onPartial(new Details(-1, childCount, lastModified));
+        long[] bytes = {0};
+        try {
+            new TreeWalker(TreeWalker.SymlinkPolicy.SKIP).walk(file, new TreeWalker.SimpleVisitor() {
+                @Override
+                public TreeWalker.Action preVisitDirectory(TreeWalker.Entry dir) {
+                    return Thread.currentThread().isInterrupted() ? TreeWalker.Action.TERMINATE : TreeWalker.Action.CONTINUE;
+                }
+
+                @Override
+                public TreeWalker.Action visitFile(TreeWalker.Entry entry) {
+                    if (entry.isRegularFile()) {
+                        bytes[0] += entry.getSize();
+                    }
+                    return TreeWalker.Action.CONTINUE;
+                }
+
+                @Override
+                public TreeWalker.Action visitFailed(File failed, TreeWalker.Entry entry, IOException error) {
+                    return TreeWalker.Action.CONTINUE;
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            return null; // Cancelled: the sum is partial
+        }
+        return new Details(bytes[0], childCount, lastModified);
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.filemanagerapplication;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Recently shown folder listings, already classified and with their sort keys, so going
+ * back to a folder does not list, stat and sort it again.
+ *
+ * A listing is reused only while its folder's mtime is unchanged (adding, removing or
+ * renaming an entry moves it); operations of this app also drop it through
+ * {@link #invalidate(File)}, since mtime granularity can hide quick changes. The cache is
+ * bounded by the total number of entries it holds, not by the number of folders, so a deep
+ * back stack does not grow memory.
+ */
+public final class ListingCache {
+
+    private static final int MAX_ENTRIES = 50_000;
+
+    /**
+     * One folder's contents in listing order, with the category of each entry. Sort keys are
+     * computed on first use and kept, as are the order and fast-scroll sections of the last
+     * {@link SortMode} used, so switching sort modes never lists the folder again. {@link #sizes()} and
+     * {@link #mtimes()} may stat every entry: call them off the main thread. They stat without
+     * holding the listing's lock, so the name keys and orders never wait on that I/O.
+     */
+    public static final class Listing {
+        public final File[] files;
+        public final FileTypeClassifier.Category[] categories;
+        final long directoryMtime;
+        // Guarded by this
+        private String[] nameKeys;
+        private String[] extensionKeys;
+        private int[] nameOrder; // Indices A to Z
+        private int[] nameRanks; // Position of each entry in nameOrder
+        private long[] sizes;
+        private long[] mtimes;
+        private SortMode orderMode;
+        private int[] order;
+        private SortMode sectionMode;
+        private SectionIndex.Keys sectionKeys;
+        private boolean restored; // Read back from ListingStore, not yet checked against the folder
+
+        public Listing(File[] files, FileTypeClassifier.Category[] categories, long directoryMtime) {
+            this.files = files;
+            this.categories = categories;
+            this.directoryMtime = directoryMtime;
+        }
+
+        /** A listing read back from {@link ListingStore}, with the sizes and mtimes saved with it. */
+        Listing(File[] files, FileTypeClassifier.Category[] categories, long directoryMtime, long[] sizes, long[] mtimes) {
+            this(files, categories, directoryMtime);
+            this.sizes = sizes;
+            this.mtimes = mtimes;
+            this.restored = true;
+        }
+
+        /** True once, for a listing read back from {@link ListingStore}: whoever gets it revalidates it. */
+        public synchronized boolean takeRestored() {
+            boolean wasRestored = restored;
+            restored = false;
+            return wasRestored;
+        }
+
+        /** Display order under {@code mode}, as indices into {@link #files}. */
+        public int[] orderFor(SortMode mode) {
+            synchronized (this) {
+                if (mode.equals(orderMode)) {
+                    return order;
+                }
+            }
+            int[] sorted = mode.order(this); // Unlocked: a concurrent caller at worst sorts twice
+            synchronized (this) {
+                orderMode = mode;
+                order = sorted;
+            }
+            return sorted;
+        }
+
+        /** Fast-scroll section of each entry under {@code mode}; the same for both directions. */
+        public SectionIndex.Keys sectionKeysFor(SortMode mode) {
+            SortMode ascending = new SortMode(mode.key, false, mode.foldersFirst);
+            synchronized (this) {
+                if (ascending.equals(sectionMode)) {
+                    return sectionKeys;
+                }
+            }
+            SectionIndex.Keys keys = SectionIndex.keysFor(this, ascending);
+            synchronized (this) {
+                sectionMode = ascending;
+                sectionKeys = keys;
+            }
+            return keys;
+        }
+
+        /** Names folded by {@link SortMode#foldName}. */
+        public synchronized String[] nameKeys() {
+            if (nameKeys == null) {
+                String[] keys = new String[files.length];
+                for (int i = 0; i < keys.length; i++) {
+                    keys[i] = SortMode.foldName(files[i].getName());
+                }
+                nameKeys = keys;
+            }
+            return nameKeys;
+        }
+
+        /** Indices in natural name order, computed once and shared by every sort mode. */
+        public int[] nameOrder() {
+            rankNames();
+            synchronized (this) {
+                return nameOrder;
+            }
+        }
+
+        /** Position of each entry in {@link #nameOrder()}. */
+        public int[] nameRanks() {
+            rankNames();
+            synchronized (this) {
+                return nameRanks;
+            }
+        }
+
+        private void rankNames() {
+            synchronized (this) {
+                if (nameOrder != null) {
+                    return;
+                }
+            }
+            int[] order = SortMode.naturalOrder(nameKeys(), files); // Unlocked: a concurrent caller at worst sorts twice
+            int[] ranks = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                ranks[order[i]] = i;
+            }
+            synchronized (this) {
+                if (nameOrder == null) {
+                    nameOrder = order;
+                    nameRanks = ranks;
+                }
+            }
+        }
+
+        /** Folded extension (after the last dot), "" for none and for folders. */
+        public synchronized String[] extensionKeys() {
+            if (extensionKeys == null) {
+                String[] names = nameKeys();
+                String[] keys = new String[names.length];
+                for (int i = 0; i < keys.length; i++) {
+                    int dot = names[i].lastIndexOf('.');
+                    boolean folder = categories[i] == FileTypeClassifier.Category.FOLDER;
+                    keys[i] = folder || dot <= 0 ? "" : names[i].substring(dot + 1);
+                }
+                extensionKeys = keys;
+            }
+            return extensionKeys;
+        }
+
+        /** Byte sizes; -1 for folders, so they sort by name among themselves. Stats each file once. */
+        public long[] sizes() {
+            synchronized (this) {
+                if (sizes != null) {
+                    return sizes;
+                }
+            }
+            statEntries();
+            synchronized (this) {
+                return sizes;
+            }
+        }
+
+        /** Modified times in ms. Stats each entry once. */
+        public long[] mtimes() {
+            synchronized (this) {
+                if (mtimes != null) {
+                    return mtimes;
+                }
+            }
+            statEntries();
+            synchronized (this) {
+                return mtimes;
+            }
+        }
+
+        /**
+         * Stats the entries without holding the lock, so readers of names and orders never wait
+         * on disk; a concurrent caller at worst stats twice, and the first result is kept.
+         */
+        private void statEntries() {
+            long[] lengths = new long[files.length];
+            long[] modified = new long[files.length];
+            for (int i = 0; i < files.length; i++) {
+                lengths[i] = categories[i] == FileTypeClassifier.Category.FOLDER ? -1 : files[i].length();
+                modified[i] = files[i].lastModified();
+            }
+            synchronized (this) {
+                if (sizes == null) {
+                    sizes = lengths;
+                }
+                if (mtimes == null) {
+                    mtimes = modified;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lists and classifies {@code directory}. Each entry is classified once here (one stat for
+     * the folder check); sorting and binding reuse the result instead of asking the file
+     * system again, and {@link SortMode} orders the listing without changing it.
+     *
+     * @return null if the folder cannot be listed.
+     */
+    public static Listing list(File directory) {
+        long mtime = directory.lastModified(); // Read first: a change while listing makes the result stale
+        File[] filesArray = directory.listFiles();
+        if (filesArray == null) {
+            return null;
+        }
+        FileTypeClassifier.Category[] categories = FileTypeClassifier.classifyAll(Arrays.asList(filesArray));
+        return new Listing(filesArray, categories, mtime);
+    }
+
+    private static ListingCache instance;
+
+    public static synchronized ListingCache get() {
+        if (instance == null) {
+            instance = new ListingCache(MAX_ENTRIES);
+        }
+        return instance;
+    }
+
+    private final int maxEntries;
+    private final LinkedHashMap<String, Listing> listings = new LinkedHashMap<>(16, 0.75f, true); // Access order
+    private int entries; // Sum of the listings' lengths
+
+    ListingCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /** The cached listing of {@code directory} if the folder has not changed since; costs one stat. */
+    public synchronized Listing get(File directory) {
+        Listing listing = listings.get(directory.getAbsolutePath());
+        if (listing == null) {
+            return null;
+        }
+        long mtime = directory.lastModified();
+        if (mtime == 0 || mtime != listing.directoryMtime) {
+            remove(directory.getAbsolutePath());
+            return null;
+        }
+        return listing;
+    }
+
+    /** Whether a listing of the folder at {@code path} is held, valid or not; no stat, no change in recency. */
+    public synchronized boolean contains(String path) {
+        return listings.containsKey(path);
+    }
+
+    /** Caches {@code listing}, replacing any older listing of {@code directory}. */
+    public synchronized void put(File directory, Listing listing) {
+        remove(directory.getAbsolutePath());
+        if (listing.directoryMtime == 0 || listing.files.length > maxEntries / 2) {
+            return; // Unknown mtime cannot be validated; a giant folder would evict everything else
+        }
+        listings.put(directory.getAbsolutePath(), listing);
+        entries += listing.files.length;
+        Iterator<Listing> eldest = listings.values().iterator();
+        while (entries > maxEntries && eldest.hasNext()) {
+            entries -= eldest.next().files.length;
+            eldest.remove();
+        }
+    }
+
+    /** Drops the listing of the folder holding {@code file}, and of {@code file} and anything below it. */
+    public synchronized void invalidate(File file) {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            remove(parent.getAbsolutePath());
+        }
+        String path = file.getAbsolutePath();
+        Iterator<Map.Entry<String, Listing>> it = listings.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Listing> entry = it.next();
+            if (FileIndex.isInside(entry.getKey(), path)) {
+                entries -= entry.getValue().files.length;
+                it.remove();
+            }
+        }
+    }
+
+    private void remove(String path) {
+        Listing removed = listings.remove(path);
+        if (removed != null) {
+            entries -= removed.files.length;
+        }
+    }
+}
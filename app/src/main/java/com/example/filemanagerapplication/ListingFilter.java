@@ -0,0 +1,58 @@
+package com.example.filemanagerapplication;
+
+import java.util.Arrays;
+
+/**
+ * Narrows one sorted listing to the rows whose name contains a query, as the user types.
+ *
+ * Names are matched in their folded form ({@link SortMode#foldName}), computed once per
+ * listing, so "anh" finds "Ảnh.jpg" and a keystroke folds only the query. When the new query
+ * contains the previous one, every new match is also an old match, so only the previous
+ * result is scanned: typing one more letter costs a pass over the current matches, not over
+ * the whole folder. Results keep the listing's display order.
+ */
+public final class ListingFilter {
+
+    private final String[] keys;
+    private final int[] all;
+    // Guarded by this
+    private String query = "";
+    private int[] matches;
+
+    /**
+     * @param keys folded names, indexed like the listing's files
+     * @param all  the unfiltered display order (indices into {@code keys})
+     */
+    public ListingFilter(String[] keys, int[] all) {
+        this.keys = keys;
+        this.all = all;
+        this.matches = all;
+    }
+
+    public int size() {
+        return all.length;
+    }
+
+    /** Display order of the rows matching {@code rawQuery}; the full order for an empty query. */
+    public synchronized int[] update(String rawQuery) {
+        String folded = SortMode.foldName(rawQuery.trim());
+        if (folded.equals(query)) {
+            return matches;
+        }
+        int[] candidates = folded.contains(query) ? matches : all; // Refine, or start over after a deletion
+        matches = folded.isEmpty() ? all : select(candidates, folded);
+        query = folded;
+        return matches;
+    }
+
+    private int[] select(int[] candidates, String folded) {
+        int[] selected = new int[candidates.length];
+        int count = 0;
+        for (int index : candidates) {
+            if (keys[index].contains(folded)) {
+                selected[count++] = index;
+            }
+        }
+        return count == selected.length ? selected : Arrays.copyOf(selected, count);
+    }
+}
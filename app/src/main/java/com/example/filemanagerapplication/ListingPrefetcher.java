@@ -0,0 +1,304 @@
+package com.example.filemanagerapplication;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Lists, in the background, the folders the user is likely to open next, so a tap finds its
+ * listing in {@link ListingCache} already classified and sorted.
+ *
+ * The screen asks for a prediction when the user stays on a folder (see
+ * {@link FileListActivity}): the parent, plus the subfolders on screen ranked by how often
+ * they were opened before (visit counts are kept across restarts). A newer request cancels
+ * the rest of an older one. Work is bounded: a few folders per request, folders over
+ * {@link #MAX_FOLDER_ENTRIES} entries are not kept, at most {@link #ENTRY_BUDGET} entries are
+ * listed per {@link #BUDGET_WINDOW_MS}, and no more than {@link #MAX_UNUSED_ENTRIES} entries of
+ * prefetched-but-unopened listings are held, so prefetching cannot push the back stack's
+ * listings out of the cache. Hit rate (opened folders served by a prefetch) and precision
+ * (prefetches later opened) are logged on every open for tuning.
+ */
+public class ListingPrefetcher {
+
+    private static final String TAG = "ListingPrefetcher";
+    static final int MAX_FOLDERS_PER_REQUEST = 4;
+    static final int MAX_FOLDER_ENTRIES = 5_000;
+    static final int ENTRY_BUDGET = 20_000;
+    static final long BUDGET_WINDOW_MS = 60_000;
+    static final int MAX_UNUSED_ENTRIES = 10_000;
+    private static final int MAX_VISITED_FOLDERS = 1_000;
+    private static final int SAVE_EVERY_VISITS = 16;
+    private static final int VISITS_VERSION = 1;
+
+    private static ListingPrefetcher instance;
+
+    public static synchronized ListingPrefetcher get(Context context) {
+        if (instance == null) {
+            instance = new ListingPrefetcher(new File(MainThreadIoGuard.privateDir(context, "files"), "folder_visits"));
+        }
+        return instance;
+    }
+
+    private final File visitsFile;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ListingPrefetcher");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    // Guarded by this
+    private final LinkedHashMap<String, Integer> visits = new LinkedHashMap<>(64, 0.75f, true);
+    private boolean visitsLoaded;
+    private int unsavedVisits;
+    private final LinkedHashMap<String, Integer> unused = new LinkedHashMap<>(); // Prefetched path to entry count
+    private int unusedEntries;
+    private int generation;
+    private long windowStart;
+    private int windowEntries;
+    private int opened;
+    private int hits;
+    private int prefetched;
+
+    ListingPrefetcher(File visitsFile) {
+        this.visitsFile = visitsFile;
+    }
+
+    /**
+     * Lists, in rank order and within the budget, {@code parent} and the most visited of
+     * {@code visibleFolders}, sorted by {@code mode}. Replaces any request still running.
+     */
+    public void prefetch(File parent, List<File> visibleFolders, SortMode mode) {
+        final int request;
+        synchronized (this) {
+            request = ++generation;
+        }
+        List<File> folders = new ArrayList<>(visibleFolders);
+        worker.execute(() -> {
+            List<File> ranked = rank(parent, folders);
+            for (File folder : ranked) {
+                if (!prefetchOne(folder, mode, request)) {
+                    return;
+                }
+            }
+        });
+    }
+
+    /** Drops what is left of the current request, e.g. when the screen goes away. */
+    public synchronized void cancel() {
+        generation++;
+    }
+
+    /** Parent first (going up is common and cheap), then subfolders by visit count; screen order breaks ties. */
+    List<File> rank(File parent, List<File> visibleFolders) {
+        List<File> ranked = new ArrayList<>();
+        if (parent != null) {
+            ranked.add(parent);
+        }
+        int[] counts = new int[visibleFolders.size()];
+        Integer[] order = new Integer[counts.length];
+        synchronized (this) {
+            loadVisits();
+            for (int i = 0; i < counts.length; i++) {
+                Integer count = visits.get(visibleFolders.get(i).getAbsolutePath());
+                counts[i] = count != null ? count : 0;
+                order[i] = i;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(counts[b], counts[a])); // Stable: ties keep screen order
+        for (int i = 0; i < order.length && ranked.size() < MAX_FOLDERS_PER_REQUEST; i++) {
+            ranked.add(visibleFolders.get(order[i]));
+        }
+        return ranked;
+    }
+
+    /** Lists one folder into the cache; false once the request is stale or the budget is spent. Worker thread. */
+    private boolean prefetchOne(File folder, SortMode mode, int request) {
+        String path = folder.getAbsolutePath();
+        synchronized (this) {
+            if (request != generation || unusedEntries >= MAX_UNUSED_ENTRIES || !withinBudget()) {
+                return false;
+            }
+            if (unused.containsKey(path)) {
+                return true;
+            }
+        }
+        if (ListingCache.get().get(folder) != null) {
+            return true; // Already listed (one stat)
+        }
+        ListingCache.Listing listing = ListingCache.list(folder);
+        int entries = listing != null ? listing.files.length : 0;
+        synchronized (this) {
+            windowEntries += entries;
+        }
+        if (listing == null || entries > MAX_FOLDER_ENTRIES) {
+            return true; // Unreadable, or too large to hold on a guess
+        }
+        listing.orderFor(mode);
+        synchronized (this) {
+            if (request != generation) {
+                return false; // Navigated meanwhile: this folder is no longer a likely next one
+            }
+            ListingCache.get().put(folder, listing);
+            unused.put(path, entries);
+            unusedEntries += entries;
+            prefetched++;
+        }
+        return true;
+    }
+
+    // Caller holds the lock
+    private boolean withinBudget() {
+        long now = System.currentTimeMillis();
+        if (now - windowStart >= BUDGET_WINDOW_MS) {
+            windowStart = now;
+            windowEntries = 0;
+        }
+        return windowEntries < ENTRY_BUDGET;
+    }
+
+    /**
+     * Counts a visit of {@code directory}, and a hit if its listing came from the cache after a
+     * prefetch. Called for every folder the user opens; any thread. Only queues the visit: the
+     * counts (read from disk on first use) and the cache are touched on the worker.
+     */
+    public void onOpened(File directory, boolean fromCache) {
+        String path = directory.getAbsolutePath();
+        worker.execute(() -> recordOpen(path, fromCache));
+    }
+
+    /** Worker thread. */
+    private void recordOpen(String path, boolean fromCache) {
+        boolean save;
+        String stats;
+        synchronized (this) {
+            loadVisits();
+            Integer count = visits.get(path);
+            visits.put(path, count != null ? count + 1 : 1);
+            Iterator<String> eldest = visits.keySet().iterator();
+            while (visits.size() > MAX_VISITED_FOLDERS && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+            save = ++unsavedVisits >= SAVE_EVERY_VISITS;
+            if (save) {
+                unsavedVisits = 0;
+            }
+
+            opened++;
+            Integer entries = unused.remove(path);
+            if (entries != null) {
+                unusedEntries -= entries;
+                if (fromCache) {
+                    hits++;
+                }
+            }
+            forgetEvicted();
+            stats = statsLocked();
+        }
+        Log.d(TAG, stats);
+        if (save) {
+            saveVisits();
+        }
+    }
+
+    /** Stops counting prefetched listings the cache has evicted since, so the budget frees up. Worker thread. */
+    private void forgetEvicted() {
+        Iterator<Map.Entry<String, Integer>> it = unused.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Integer> entry = it.next();
+            if (!ListingCache.get().contains(entry.getKey())) {
+                unusedEntries -= entry.getValue();
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized String stats() {
+        return statsLocked();
+    }
+
+    private String statsLocked() {
+        return String.format(java.util.Locale.US, "prefetch: %d/%d opens hit (%.0f%%), %d/%d prefetches used, %d entries held",
+                hits, opened, opened == 0 ? 0.0 : 100.0 * hits / opened, hits, prefetched, unusedEntries);
+    }
+
+    synchronized int hits() {
+        return hits;
+    }
+
+    /** Waits until queued prefetches and visits are done. */
+    void awaitIdle() throws InterruptedException {
+        try {
+            worker.submit(() -> { }).get();
+        } catch (java.util.concurrent.ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Caller holds the lock, on the worker. A few KB at most; read where the counts are first needed
+    private void loadVisits() {
+        if (visitsLoaded) {
+            return;
+        }
+        visitsLoaded = true;
+        if (!visitsFile.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(visitsFile)))) {
+            if (in.readInt() != VISITS_VERSION) {
+                return;
+            }
+            while (true) {
+                String path = in.readUTF();
+                int count = in.readInt();
+                visits.put(path, count);
+            }
+        } catch (EOFException end) {
+            // Whole file read (a torn last record is dropped)
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read visit counts", e);
+        }
+    }
+
+    private void saveVisits() {
+        Map<String, Integer> snapshot;
+        synchronized (this) {
+            snapshot = new LinkedHashMap<>(visits);
+        }
+        File dir = visitsFile.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            Log.w(TAG, "Could not create " + dir);
+            return;
+        }
+        File tmp = new File(visitsFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(VISITS_VERSION);
+            for (Map.Entry<String, Integer> entry : snapshot.entrySet()) { // Least recently visited first
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Could not save visit counts", e);
+            return;
+        }
+        if (!tmp.renameTo(visitsFile)) {
+            Log.w(TAG, "Could not replace " + visitsFile);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.filemanagerapplication;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Large folder listings saved on disk, so the first visit after a restart shows the folder
+ * without listing it and stat-ing every entry again.
+ *
+ * Each folder is one small file (entry names, categories, sizes and mtimes) named after a hash
+ * of its path. A saved listing is used only while the folder's mtime is unchanged; the caller
+ * then shows it at once and asks {@link #revalidate} to list the folder again in the background,
+ * since files rewritten in place do not move their folder's mtime. The store is bounded in
+ * bytes and evicts the least recently used folders first (file mtimes carry the recency over
+ * restarts). Saving, revalidation and eviction run on one low-priority thread.
+ */
+public class ListingStore {
+
+    private static final String TAG = "ListingStore";
+    static final String METRIC_LOAD = "store.load";
+    static final String METRIC_SAVE = "store.save";
+    private static final int VERSION = 1;
+    private static final long MAX_BYTES = 16L * 1024 * 1024;
+    // Smaller folders list fast enough; storing them would only churn the store
+    private static final int MIN_ENTRIES = 256;
+    private static final String SUFFIX = ".lst";
+
+    private static ListingStore instance;
+
+    public static synchronized ListingStore get(Context context) {
+        if (instance == null) {
+            instance = new ListingStore(new File(MainThreadIoGuard.privateDir(context, "cache"), "listings"), MAX_BYTES, MIN_ENTRIES);
+        }
+        return instance;
+    }
+
+    private final File dir;
+    private final long maxBytes;
+    private final int minEntries;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ListingStore");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    // Guarded by this: record file name to its size, least recently used first; null until scanned
+    private LinkedHashMap<String, Long> records;
+    private long totalBytes;
+
+    ListingStore(File dir, long maxBytes, int minEntries) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.minEntries = minEntries;
+    }
+
+    /**
+     * The saved listing of {@code directory} if the folder's mtime still matches, else null.
+     * Costs one stat and one file read; call off the main thread. The result is marked
+     * {@link ListingCache.Listing#takeRestored() restored}.
+     */
+    public ListingCache.Listing load(File directory) {
+        String name = recordName(directory);
+        synchronized (this) {
+            if (scannedRecords().get(name) == null) { // Also marks it recently used
+                return null;
+            }
+        }
+        long start = System.nanoTime();
+        File record = new File(dir, name);
+        ListingCache.Listing listing = null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(record), 64 * 1024))) {
+            listing = read(in, directory);
+        } catch (FileNotFoundException e) {
+            forget(name); // Deleted behind our back
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read " + record, e);
+        }
+        if (listing == null) {
+            return null;
+        }
+        PerfMetrics.recordSince(METRIC_LOAD, start);
+        long now = System.currentTimeMillis();
+        worker.execute(() -> record.setLastModified(now)); // Recency for the next process
+        return listing;
+    }
+
+    private static ListingCache.Listing read(DataInputStream in, File directory) throws IOException {
+        if (in.readInt() != VERSION || !in.readUTF().equals(directory.getAbsolutePath())) {
+            return null; // Older format, or another folder with the same hash
+        }
+        long directoryMtime = in.readLong();
+        if (directoryMtime != directory.lastModified()) {
+            return null; // Entries were added, removed or renamed since
+        }
+        int n = in.readInt();
+        File[] files = new File[n];
+        FileTypeClassifier.Category[] categories = new FileTypeClassifier.Category[n];
+        FileTypeClassifier.Category[] values = FileTypeClassifier.Category.values();
+        long[] sizes = new long[n];
+        long[] mtimes = new long[n];
+        for (int i = 0; i < n; i++) {
+            files[i] = new File(directory, in.readUTF());
+            categories[i] = values[in.readUnsignedByte()];
+            sizes[i] = in.readLong();
+            mtimes[i] = in.readLong();
+        }
+        return new ListingCache.Listing(files, categories, directoryMtime, sizes, mtimes);
+    }
+
+    /** Saves {@code listing} in the background if the folder is large enough; stats its entries there. */
+    public void save(File directory, ListingCache.Listing listing) {
+        if (listing.files.length < minEntries || listing.directoryMtime == 0) {
+            return;
+        }
+        worker.execute(() -> write(directory, listing));
+    }
+
+    /**
+     * Lists {@code directory} again in the background and compares it with {@code shown} (a
+     * restored listing). If any entry, size or mtime differs, the new listing is saved and handed
+     * to {@code changed} on the store's thread.
+     */
+    public void revalidate(File directory, ListingCache.Listing shown, Consumer<ListingCache.Listing> changed) {
+        worker.execute(() -> {
+            ListingCache.Listing fresh = ListingCache.list(directory);
+            if (fresh == null || sameEntries(shown, fresh)) {
+                return;
+            }
+            Log.d(TAG, "Saved listing of " + directory + " was out of date");
+            write(directory, fresh);
+            changed.accept(fresh);
+        });
+    }
+
+    static boolean sameEntries(ListingCache.Listing a, ListingCache.Listing b) {
+        if (a.files.length != b.files.length || a.directoryMtime != b.directoryMtime) {
+            return false;
+        }
+        Map<String, Integer> indexOf = new HashMap<>(a.files.length * 2);
+        for (int i = 0; i < a.files.length; i++) {
+            indexOf.put(a.files[i].getName(), i);
+        }
+        long[] sizesA = a.sizes();
+        long[] mtimesA = a.mtimes();
+        long[] sizesB = b.sizes();
+        long[] mtimesB = b.mtimes();
+        for (int j = 0; j < b.files.length; j++) {
+            Integer i = indexOf.get(b.files[j].getName());
+            if (i == null || a.categories[i] != b.categories[j] || sizesA[i] != sizesB[j] || mtimesA[i] != mtimesB[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Drops the saved listing of the folder holding {@code file}, and of {@code file} itself. */
+    public void invalidate(File file) {
+        File parent = file.getAbsoluteFile().getParentFile();
+        worker.execute(() -> {
+            if (parent != null) {
+                delete(recordName(parent));
+            }
+            delete(recordName(file));
+        });
+    }
+
+    /** Waits until queued saves and revalidations are done. */
+    void awaitIdle() throws InterruptedException {
+        try {
+            worker.submit(() -> { }).get();
+        } catch (java.util.concurrent.ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Worker thread
+    private void write(File directory, ListingCache.Listing listing) {
+        long start = System.nanoTime();
+        long[] sizes = listing.sizes(); // Stats every entry once, unless a size or date sort already did
+        long[] mtimes = listing.mtimes();
+        String name = recordName(directory);
+        File record = new File(dir, name);
+        File tmp = new File(dir, name + ".tmp");
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Log.w(TAG, "Could not create " + dir);
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024))) {
+            out.writeInt(VERSION);
+            out.writeUTF(directory.getAbsolutePath());
+            out.writeLong(listing.directoryMtime);
+            out.writeInt(listing.files.length);
+            for (int i = 0; i < listing.files.length; i++) {
+                out.writeUTF(listing.files[i].getName());
+                out.writeByte(listing.categories[i].ordinal());
+                out.writeLong(sizes[i]);
+                out.writeLong(mtimes[i]);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Could not save listing of " + directory, e);
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(record)) {
+            Log.w(TAG, "Could not replace " + record);
+            tmp.delete();
+            return;
+        }
+        synchronized (this) {
+            LinkedHashMap<String, Long> known = scannedRecords();
+            Long previous = known.remove(name);
+            totalBytes -= previous != null ? previous : 0;
+            known.put(name, record.length());
+            totalBytes += record.length();
+            Iterator<Map.Entry<String, Long>> eldest = known.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Long> entry = eldest.next();
+                if (entry.getKey().equals(name)) {
+                    break; // Only the new record is left
+                }
+                new File(dir, entry.getKey()).delete();
+                totalBytes -= entry.getValue();
+                eldest.remove();
+            }
+        }
+        PerfMetrics.recordSince(METRIC_SAVE, start);
+    }
+
+    private void delete(String name) {
+        if (new File(dir, name).delete()) {
+            forget(name);
+        }
+    }
+
+    private synchronized void forget(String name) {
+        Long bytes = scannedRecords().remove(name);
+        totalBytes -= bytes != null ? bytes : 0;
+    }
+
+    /** Record names by recency, read from the folder the first time; caller holds the lock. */
+    private LinkedHashMap<String, Long> scannedRecords() {
+        if (records == null) {
+            records = new LinkedHashMap<>(64, 0.75f, true);
+            File[] files = dir.listFiles((d, fileName) -> fileName.endsWith(SUFFIX));
+            if (files != null) {
+                long[] recency = new long[files.length];
+                Integer[] order = new Integer[files.length];
+                for (int i = 0; i < files.length; i++) {
+                    recency[i] = files[i].lastModified();
+                    order[i] = i;
+                }
+                Arrays.sort(order, (a, b) -> Long.compare(recency[a], recency[b]));
+                for (int i : order) {
+                    long bytes = files[i].length();
+                    records.put(files[i].getName(), bytes);
+                    totalBytes += bytes;
+                }
+            }
+        }
+        return records;
+    }
+
+    /** File name of {@code directory}'s record: a 64-bit FNV-1a hash of its path. */
+    static String recordName(File directory) {
+        String path = directory.getAbsolutePath();
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < path.length(); i++) {
+            hash ^= path.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return Long.toHexString(hash) + SUFFIX;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.filemanagerapplication;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.StrictMode;
+import android.util.Log;
+
+import java.io.File;
+
+/**
+ * Debug-build check that the main thread does not touch the disk.
+ *
+ * Installs a StrictMode thread policy on the main thread that detects disk reads and writes.
+ * Every violation is logged; on API 28+ a violation whose stack passes through this app's
+ * code also crashes the process, so an instrumentation test that makes the UI thread stat,
+ * list or create a file fails instead of just running slower. Below API 28 StrictMode has no
+ * penalty listener, so there every violation is only logged and nothing crashes. Reads done
+ * by the framework on its own (resources, preferences at startup) are only logged. Release
+ * builds install nothing.
+ */
+public final class MainThreadIoGuard {
+
+    private static final String TAG = "MainThreadIoGuard";
+    static final String APP_PACKAGE = MainThreadIoGuard.class.getName()
+            .substring(0, MainThreadIoGuard.class.getName().lastIndexOf('.') + 1);
+
+    private static boolean installed; // Main thread only
+
+    private MainThreadIoGuard() {
+    }
+
+    /** Installs the policy once per process if the app is debuggable; call on the main thread. */
+    public static void install(Context context) {
+        if (installed || (context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) == 0) {
+            return;
+        }
+        installed = true;
+        StrictMode.ThreadPolicy.Builder policy = new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .penaltyLog();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+            policy.penaltyListener(mainThreadHandler::post, violation -> {
+                if (isFromApp(violation.getStackTrace())) {
+                    // Thrown on the main looper: crashes the app, and with it the running test
+                    throw new IllegalStateException("Disk I/O on the main thread", violation);
+                }
+            });
+        }
+        StrictMode.setThreadPolicy(policy.build());
+        Log.d(TAG, "Main-thread disk I/O detection enabled");
+    }
+
+    /** True if any frame of {@code stack} is in this app's package (not a package that merely starts alike). */
+    static boolean isFromApp(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            if (frame.getClassName().startsWith(APP_PACKAGE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@code <data dir>/<name>} of the app, e.g. "files" or "cache", computed without the stat
+     * (and possible mkdir) of {@link Context#getFilesDir()} / {@link Context#getCacheDir()}.
+     * Whoever writes there creates the folder on its own background thread.
+     */
+    public static File privateDir(Context context, String name) {
+        return new File(context.getApplicationInfo().dataDir, name);
+    }
+}
@@ -1,12 +1,15 @@
 package com.example.filemanagerapplication;
 
-import android.annotation.SuppressLint;
 import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
+import android.graphics.Bitmap;
 import android.net.Uri;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.provider.Settings;
+import android.text.format.Formatter;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -20,23 +23,52 @@ import androidx.appcompat.app.AlertDialog;
 import androidx.core.content.FileProvider;
 import androidx.recyclerview.widget.RecyclerView;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import android.widget.CheckBox; // Import CheckBox
-import java.util.HashSet; // Để lưu các mục đã chọn
-import java.util.Set;   //
-import java.util.ArrayList; // Để trả về danh sách các mục đã chọn
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 // --- Adapter Class ---
 public class MyAdapter extends RecyclerView.Adapter<MyAdapter.ViewHolder> {
 
     private static final String TAG = "MyAdapter";
+    // Mở file: URI và kiểu MIME được xác định ở luồng nền (có thể đọc đĩa), rồi mới mở ở luồng chính
+    private static final ExecutorService OPEN_EXECUTOR = Executors.newSingleThreadExecutor();
+    private static final Handler MAIN_THREAD = new Handler(Looper.getMainLooper());
     private final Context context;
     private final List<File> filesAndFoldersList;
     private boolean isSelectionMode = false; // Cờ bật/tắt chế độ chọn nhiều
-    private Set<File> selectedItems = new HashSet<>(); // Lưu các mục đã chọn
+    // Các mục đã chọn: một bit cho mỗi chỉ số trong listing (không phải vị trí dòng), nên lọc hay
+    // sắp xếp lại không làm mất lựa chọn; danh sách File chỉ được tạo khi thực hiện thao tác
+    private final SelectionModel selection = new SelectionModel();
+    private int selectionAnchor = RecyclerView.NO_POSITION; // Dòng chọn gần nhất, mốc cho chọn theo dải
+    // Kích thước/số mục được tính trên luồng nền, chỉ cho các dòng đang hiển thị
+    private final ItemDetailsLoader detailsLoader = ItemDetailsLoader.get();
+    private final DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault()); // UI thread only
+    // Ảnh thu nhỏ: giải mã trên luồng nền, hủy khi dòng bị tái sử dụng
+    private final ThumbnailLoader thumbnailLoader;
+    private final int thumbnailSizePx;
+    // Đuôi file không rõ: đoán loại từ vài trăm byte đầu (đọc theo lô cho các dòng đang hiển thị)
+    private final ContentTypeSniffer contentTypeSniffer = ContentTypeSniffer.get();
+    // Listing đang hiển thị và chỉ số trong listing của từng dòng; loại file đã tính khi liệt kê
+    private ListingCache.Listing listing;
+    private int[] rows = new int[0];
+    // Đo chi phí bind: cộng dồn rồi ghi PerfMetrics mỗi BIND_SAMPLE_ROWS dòng
+    static final String METRIC_BIND = "list.bind_100_rows";
+    private static final int BIND_SAMPLE_ROWS = 100;
+    private long bindNanos;
+    private int boundRows;
     public MyAdapter(Context context, List<File> filesAndFoldersList) {
         this.context = context;
         this.filesAndFoldersList = filesAndFoldersList;
+        this.thumbnailLoader = ThumbnailLoader.get(context);
+        this.thumbnailSizePx = Math.round(36 * context.getResources().getDisplayMetrics().density); // icon_view is 36dp
     }
 
     @NonNull
@@ -52,13 +84,18 @@ public class MyAdapter extends RecyclerView.Adapter<MyAdapter.ViewHolder> {
             Log.e(TAG, "Invalid position in onBindViewHolder: " + position);
             return;
         }
+        long bindStart = System.nanoTime();
         File file = filesAndFoldersList.get(position);
+        FileTypeClassifier.Category category = categoryAt(position, file);
+        category = sniffIfUnknown(holder, file, category);
 
         holder.textView.setText(file.getName());
-        holder.imageView.setImageResource(getFileIconResource(file)); // Set icon cho từng loại file
+        holder.boundFile = file;
+        bindIcon(holder, file, category);
+        bindDetails(holder, file);
         if (isSelectionMode) {
             holder.checkBox.setVisibility(View.VISIBLE);
-            holder.checkBox.setChecked(selectedItems.contains(file));
+            holder.checkBox.setChecked(selection.isSelected(entryAt(position)));
         } else {
             holder.checkBox.setVisibility(View.GONE);
             holder.checkBox.setChecked(false); // Đảm bảo bỏ check khi thoát selection mode
@@ -71,9 +108,13 @@ public class MyAdapter extends RecyclerView.Adapter<MyAdapter.ViewHolder> {
             File clickedFile = filesAndFoldersList.get(currentPosition);
 
             if (isSelectionMode) {
-                toggleSelection(clickedFile, holder);
+                toggleSelection(currentPosition, holder);
             } else {
-                if (clickedFile.isDirectory()) {
+                boolean isFolder = categoryAt(currentPosition, clickedFile) == FileTypeClassifier.Category.FOLDER;
+                if (isFolder && context instanceof FileListActivity) {
+                    // Mở thư mục con ngay trong màn hình hiện tại (không tạo Activity mới)
+                    ((FileListActivity) context).navigateTo(clickedFile);
+                } else if (isFolder) {
                     Intent intent = new Intent(context, FileListActivity.class);
                     intent.putExtra("path", clickedFile.getAbsolutePath());
                     intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
@@ -89,29 +130,156 @@ public class MyAdapter extends RecyclerView.Adapter<MyAdapter.ViewHolder> {
             int currentPosition = holder.getAdapterPosition();
             if (currentPosition == RecyclerView.NO_POSITION || currentPosition >= filesAndFoldersList.size()) return false;
 
-            File longClickedFile = filesAndFoldersList.get(currentPosition); // Lấy file tại thời điểm nhấn giữ
             if (!isSelectionMode) {
                 // Nếu chưa ở chế độ chọn, nhấn giữ sẽ kích hoạt chế độ chọn và chọn mục này
                 setSelectionMode(true); // Báo cho Activity biết để cập nhật UI
-                toggleSelection(longClickedFile, holder);
+                toggleSelection(currentPosition, holder);
+            } else {
+                // Đang ở chế độ chọn: nhấn giữ chọn cả dải từ mục chọn gần nhất đến mục này
+                selectRangeTo(currentPosition);
             }
             return true;
         });
+        recordBindCost(System.nanoTime() - bindStart);
     }
-    // --- Phương thức để kích hoạt/chọn mục ---
-    private void toggleSelection(File file, ViewHolder holder) {
-        if (selectedItems.contains(file)) {
-            selectedItems.remove(file);
-            holder.checkBox.setChecked(false);
-        } else {
-            selectedItems.add(file);
-            holder.checkBox.setChecked(true);
+
+    private void recordBindCost(long nanos) {
+        bindNanos += nanos;
+        if (++boundRows == BIND_SAMPLE_ROWS) {
+            PerfMetrics.record(METRIC_BIND, bindNanos / 1_000_000);
+            bindNanos = 0;
+            boundRows = 0;
+        }
+    }
+
+    /**
+     * The list shows the entries of {@code listing} at {@code rows}. The selection is kept by
+     * listing index, so filtering and re-sorting keep it; only a new listing clears it.
+     */
+    public void setRows(ListingCache.Listing listing, int[] rows) {
+        if (listing != this.listing) {
+            this.listing = listing;
+            selection.reset(listing.files.length);
+        }
+        this.rows = rows;
+        selectionAnchor = RecyclerView.NO_POSITION; // Positions moved
+    }
+
+    /** Listing index of the row at {@code position}, or -1. */
+    private int entryAt(int position) {
+        return position >= 0 && position < rows.length ? rows[position] : -1;
+    }
+
+    private FileTypeClassifier.Category categoryAt(int position, File file) {
+        int entry = entryAt(position);
+        if (entry >= 0 && rows.length == filesAndFoldersList.size()) {
+            return listing.categories[entry]; // Computed by whoever listed it, off the bind path
+        }
+        return FileTypeClassifier.classify(file); // List changed without new rows
+    }
+    @Override
+    public void onViewRecycled(@NonNull ViewHolder holder) {
+        super.onViewRecycled(holder);
+        detailsLoader.cancel(holder); // Dòng đã cuộn khỏi màn hình: không cần tính nữa
+        thumbnailLoader.cancel(holder);
+        contentTypeSniffer.cancel(holder);
+        holder.boundFile = null;
+    }
+
+    /** Files the extension table does not know get their type from their first bytes. */
+    private FileTypeClassifier.Category sniffIfUnknown(ViewHolder holder, File file, FileTypeClassifier.Category category) {
+        if (category != FileTypeClassifier.Category.OTHER) {
+            contentTypeSniffer.cancel(holder);
+            return category;
+        }
+        ContentTypeSniffer.Verdict cached = contentTypeSniffer.getCached(file);
+        if (cached != null) {
+            contentTypeSniffer.cancel(holder);
+            return cached.category;
+        }
+        contentTypeSniffer.request(file, holder, (sniffedFile, verdict) -> {
+            if (sniffedFile.equals(holder.boundFile) && verdict.category != FileTypeClassifier.Category.OTHER) {
+                bindIcon(holder, sniffedFile, verdict.category);
+            }
+        });
+        return category;
+    }
+
+    /** Shows a memoized thumbnail right away, otherwise the type icon until the decode finishes. */
+    private void bindIcon(ViewHolder holder, File file, FileTypeClassifier.Category category) {
+        boolean canThumbnail = ThumbnailLoader.canThumbnail(category);
+        ItemDetailsLoader.Details details = canThumbnail ? detailsLoader.getCached(file) : null; // Its mtime, without a stat
+        Bitmap cached = details != null ? thumbnailLoader.getCached(file, details.lastModified, thumbnailSizePx) : null;
+        if (cached != null) {
+            thumbnailLoader.cancel(holder);
+            holder.imageView.setImageBitmap(cached);
+            return;
+        }
+        holder.imageView.setImageResource(category.iconResource); // Set icon cho từng loại file
+        if (!canThumbnail) {
+            thumbnailLoader.cancel(holder);
+            return;
+        }
+        thumbnailLoader.load(file, category, thumbnailSizePx, holder, (loadedFile, bitmap) -> {
+            if (loadedFile.equals(holder.boundFile)) {
+                holder.imageView.setImageBitmap(bitmap);
+            }
+        });
+    }
+
+    /** Shows memoized details right away, otherwise a placeholder until the loader delivers. */
+    private void bindDetails(ViewHolder holder, File file) {
+        holder.detailsTextView.setVisibility(View.VISIBLE);
+        ItemDetailsLoader.Details cached = detailsLoader.getCached(file);
+        if (cached != null) {
+            detailsLoader.cancel(holder);
+            holder.detailsTextView.setText(formatDetails(cached));
+            return;
         }
+        holder.detailsTextView.setText("…");
+        detailsLoader.load(file, holder, (loadedFile, details) -> {
+            if (loadedFile.equals(holder.boundFile)) {
+                holder.detailsTextView.setText(formatDetails(details));
+            }
+        });
+    }
+
+    private String formatDetails(ItemDetailsLoader.Details details) {
+        String size = details.isComplete() ? Formatter.formatShortFileSize(context, details.bytes) : "…";
+        String date = dateFormat.format(new Date(details.lastModified));
+        if (details.childCount >= 0) {
+            return details.childCount + (details.childCount == 1 ? " item · " : " items · ") + size + " · " + date;
+        }
+        return size + " · " + date;
+    }
+
+    // --- Phương thức để kích hoạt/chọn mục ---
+    private void toggleSelection(int position, ViewHolder holder) {
+        int entry = entryAt(position);
+        if (entry < 0) return;
+        holder.checkBox.setChecked(selection.toggle(entry));
+        selectionAnchor = position;
         // Thông báo cho Activity về sự thay đổi số lượng mục đã chọn
         if (context instanceof FileListActivity) {
-            ((FileListActivity) context).onSelectionChanged(selectedItems.size());
+            ((FileListActivity) context).onSelectionChanged(selection.count());
         }
     }
+
+    private void selectRangeTo(int position) {
+        if (entryAt(position) < 0) return;
+        int anchor = selectionAnchor != RecyclerView.NO_POSITION && selectionAnchor < rows.length ? selectionAnchor : position;
+        int from = Math.min(anchor, position);
+        int to = Math.max(anchor, position) + 1;
+        for (int p = from; p < to; p++) {
+            selection.set(rows[p], true); // Rows on screen need not be adjacent in the listing
+        }
+        selectionAnchor = position;
+        notifyItemRangeChanged(from, to - from);
+        if (context instanceof FileListActivity) {
+            ((FileListActivity) context).onSelectionChanged(selection.count());
+        }
+    }
+
     // --- Các phương thức quản lý chế độ chọn nhiều ---
     public void setSelectionMode(boolean enabled) {
         this.isSelectionMode = enabled;
@@ -123,34 +291,68 @@ public class MyAdapter extends RecyclerView.Adapter<MyAdapter.ViewHolder> {
         if (context instanceof FileListActivity) {
             ((FileListActivity) context).onSelectionModeChanged(enabled);
             if(enabled) {
-                ((FileListActivity) context).onSelectionChanged(selectedItems.size());
+                ((FileListActivity) context).onSelectionChanged(selection.count());
             }
         }
     }
 
     public void clearSelection() {
-        selectedItems.clear();
+        selection.clear();
+        selectionAnchor = RecyclerView.NO_POSITION;
         if (context instanceof FileListActivity) {
-            ((FileListActivity) context).onSelectionChanged(selectedItems.size());
+            ((FileListActivity) context).onSelectionChanged(selection.count());
         }
     }
 
+    /** Selects every row shown; with a filter, the hidden entries keep their state. */
     public void selectAll() {
-        if (!isSelectionMode || filesAndFoldersList.isEmpty()) return;
-        selectedItems.clear();
-        selectedItems.addAll(filesAndFoldersList);
+        if (!isSelectionMode || rows.length == 0) return;
+        if (rows.length == selection.size()) {
+            selection.selectAll(); // Nothing filtered out: whole words at a time
+        } else {
+            for (int entry : rows) {
+                selection.set(entry, true);
+            }
+        }
         notifyDataSetChanged();
         if (context instanceof FileListActivity) {
-            ((FileListActivity) context).onSelectionChanged(selectedItems.size());
+            ((FileListActivity) context).onSelectionChanged(selection.count());
         }
     }
 
+    /** Builds the list of selected files; only call it when an operation is about to run. */
     public List<File> getSelectedItems() {
-        return new ArrayList<>(selectedItems); // Trả về một bản sao
+        if (listing == null) {
+            return new ArrayList<>();
+        }
+        return selection.materialize(Arrays.asList(listing.files)); // Một danh sách mới mỗi lần gọi
+    }
+
+    /** Category of {@link #getFirstSelectedItem()} from the listing, or null; no file-system call. */
+    public FileTypeClassifier.Category getFirstSelectedCategory() {
+        int index = selection.nextSelected(0);
+        return index >= 0 ? listing.categories[index] : null;
+    }
+
+    /** The selected entries that are folders, by the listing's categories; no file-system call. */
+    public List<File> getSelectedFolders() {
+        List<File> folders = new ArrayList<>();
+        for (int i = selection.nextSelected(0); i >= 0; i = selection.nextSelected(i + 1)) {
+            if (listing.categories[i] == FileTypeClassifier.Category.FOLDER) {
+                folders.add(listing.files[i]);
+            }
+        }
+        return folders;
+    }
+
+    /** The first selected file (in listing order), or null; does not build the whole list. */
+    public File getFirstSelectedItem() {
+        int index = selection.nextSelected(0);
+        return index >= 0 ? listing.files[index] : null;
     }
 
     public int getSelectedItemCount() {
-        return selectedItems.size();
+        return selection.count();
     }
 
     @Override
@@ -158,40 +360,73 @@ public class MyAdapter extends RecyclerView.Adapter<MyAdapter.ViewHolder> {
         return filesAndFoldersList.size();
     }
 
-    @SuppressLint("NotifyDataSetChanged")
-    public void updateData(List<File> newList) {
-        filesAndFoldersList.clear();
-        filesAndFoldersList.addAll(newList);
-        notifyDataSetChanged();
-    }
-
     // --- ViewHolder Class --- (Giữ nguyên)
     public static class ViewHolder extends RecyclerView.ViewHolder {
         final TextView textView;
         final ImageView imageView;
         final CheckBox checkBox;
+        final TextView detailsTextView;
+        File boundFile; // Details that arrive for another file are dropped
 
         public ViewHolder(View itemView) {
             super(itemView);
             textView = itemView.findViewById(R.id.file_name_text_view);
             imageView = itemView.findViewById(R.id.icon_view);
             checkBox = itemView.findViewById(R.id.checkbox);
+            detailsTextView = itemView.findViewById(R.id.file_details_text_view);
         }
     }
 
     // --- Helper Methods (Giữ nguyên openFile, getMimeType, deleteRecursive) ---
     // ...(openFile, getMimeType, deleteRecursive không thay đổi)...
 
+    /**
+     * Opens {@code file} in another app. The content URI (which canonicalizes the path) and the
+     * MIME type (content resolver, then the file's first bytes) are worked out on a background
+     * thread; the chooser is started back on the main thread.
+     */
     private void openFile(File file) {
-        try {
-            Intent intent = new Intent(Intent.ACTION_VIEW);
-            String authority = context.getPackageName() + ".provider";
-            Uri fileUri = FileProvider.getUriForFile(context, authority, file);
+        OPEN_EXECUTOR.execute(() -> {
+            Uri fileUri;
+            String mimeType;
+            try {
+                String authority = context.getPackageName() + ".provider";
+                fileUri = FileProvider.getUriForFile(context, authority, file);
+                mimeType = resolveMimeType(file, fileUri);
+            } catch (IllegalArgumentException e) {
+                Log.e(TAG, "FileProvider error for file: " + file.getAbsolutePath(), e);
+                MAIN_THREAD.post(() -> Toast.makeText(context, "Error sharing file. Check FileProvider configuration.", Toast.LENGTH_LONG).show());
+                return;
+            } catch (Exception e) {
+                Log.e(TAG, "Error opening file: " + file.getAbsolutePath(), e);
+                MAIN_THREAD.post(() -> Toast.makeText(context, "Could not open the file.", Toast.LENGTH_LONG).show());
+                return;
+            }
+            MAIN_THREAD.post(() -> startViewer(file, fileUri, mimeType));
+        });
+    }
 
-            String mimeType = context.getContentResolver().getType(fileUri);
-            if (mimeType == null || mimeType.equals("*/*")) {
-                mimeType = getMimeType(file.getAbsolutePath());
+    /** Background thread: the MIME type to open {@code file} with. */
+    private String resolveMimeType(File file, Uri fileUri) {
+        String mimeType = context.getContentResolver().getType(fileUri);
+        if (mimeType == null || mimeType.equals("*/*")) {
+            mimeType = getMimeType(file.getAbsolutePath());
+        }
+        if (mimeType.equals("application/octet-stream")) {
+            // Đuôi file sai hoặc thiếu: xem nội dung (tối đa vài trăm byte)
+            ContentTypeSniffer.Verdict verdict = contentTypeSniffer.getCached(file);
+            if (verdict == null) {
+                verdict = contentTypeSniffer.sniff(file);
+            }
+            if (verdict.mimeType != null) {
+                mimeType = verdict.mimeType;
             }
+        }
+        return mimeType;
+    }
+
+    private void startViewer(File file, Uri fileUri, String mimeType) {
+        try {
             Log.d(TAG, "Opening file: " + file.getName() + " with MIME type: " + mimeType);
             // --- GỌI HÀM KIỂM TRA QUYỀN APK ---
             if (!handleApkInstallPermission(context, file, mimeType)) {
@@ -200,6 +435,7 @@ public class MyAdapter extends RecyclerView.Adapter<MyAdapter.ViewHolder> {
                 return;
             }
 
+            Intent intent = new Intent(Intent.ACTION_VIEW);
             intent.setDataAndType(fileUri, mimeType);
             intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
             if (!(context instanceof Activity)) {
@@ -213,17 +449,13 @@ public class MyAdapter extends RecyclerView.Adapter<MyAdapter.ViewHolder> {
                 Log.w(TAG, "NO Activity found to handle APK install intent. MIME type was: " + mimeType);
                 Toast.makeText(context, "No application found to open this file type.", Toast.LENGTH_SHORT).show();
             }
-        } catch (IllegalArgumentException e) {
-            Log.e(TAG, "FileProvider error for file: " + file.getAbsolutePath(), e);
-            Toast.makeText(context, "Error sharing file. Check FileProvider configuration.", Toast.LENGTH_LONG).show();
-        }
-        catch (Exception e) {
+        } catch (Exception e) {
             Log.e(TAG, "Error opening file: " + file.getAbsolutePath(), e);
             Toast.makeText(context, "Could not open the file.", Toast.LENGTH_LONG).show();
         }
     }
     private boolean handleApkInstallPermission(final Context context, File apkFile, String mimeType) {
-        if (apkFile.getName().toLowerCase().endsWith(".apk") && "application/vnd.android.package-archive".equals(mimeType)) {
+        if ("application/vnd.android.package-archive".equals(mimeType)) { // Also APKs without the extension
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
                 // Đảm bảo context là Activity để hiển thị Dialog và startActivity một cách chính xác
                 if (!(context instanceof Activity)) {
@@ -288,54 +520,4 @@ public class MyAdapter extends RecyclerView.Adapter<MyAdapter.ViewHolder> {
         }
         return "application/octet-stream";
     }
-    private int getFileIconResource(File file) {
-        if (file.isDirectory()) {
-            // --- Thư mục ---
-            return R.drawable.ic_baseline_folder_24; // Hoặc R.drawable.ic_folder của bạn
-        } else {
-            // --- Tệp ---
-            String fileName = file.getName().toLowerCase();
-            String extension = "";
-            int lastDot = fileName.lastIndexOf('.');
-            if (lastDot > 0 && lastDot < fileName.length() - 1) {
-                extension = fileName.substring(lastDot + 1);
-            }
-
-            // Lấy kiểu MIME từ phần mở rộng (cách này đáng tin cậy hơn chỉ dựa vào extension)
-            String mimeType = MimeTypeMap.getSingleton().getMimeTypeFromExtension(extension);
-
-            if (mimeType != null) {
-                if (mimeType.startsWith("image/")) {
-                    return R.drawable.ic_image_file; // Icon ảnh
-                } else if (mimeType.startsWith("video/")) {
-                    return R.drawable.ic_video_file; // Icon video
-                } else if (mimeType.startsWith("audio/")) {
-                    return R.drawable.ic_audio_file; // Icon âm thanh
-                } else if (mimeType.equals("application/pdf")) {
-                    return R.drawable.ic_pdf_file; // Icon PDF (hoặc icon tài liệu chung)
-                } else if (mimeType.equals("application/msword") ||
-                        mimeType.equals("application/vnd.openxmlformats-officedocument.wordprocessingml.document")) {
-                    return R.drawable.ic_document_file; // Icon Word (hoặc icon tài liệu chung)
-                } else if (mimeType.equals("application/vnd.ms-excel") ||
-                        mimeType.equals("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")) {
-                    return R.drawable.ic_document_file; // Icon Excel (hoặc icon tài liệu chung)
-                } else if (mimeType.equals("application/vnd.ms-powerpoint") ||
-                        mimeType.equals("application/vnd.openxmlformats-officedocument.presentationml.presentation")) {
-                    return R.drawable.ic_document_file; // Icon PowerPoint (hoặc icon tài liệu chung)
-                } else if (mimeType.startsWith("text/")) {
-                    return R.drawable.ic_document_file; // Icon text (hoặc icon tài liệu chung)
-                } else if (mimeType.equals("application/zip") ||
-                        mimeType.equals("application/x-rar-compressed") ||
-                        mimeType.equals("application/x-7z-compressed") ||
-                        mimeType.equals("application/gzip") ||
-                        mimeType.equals("application/x-tar")) {
-                    return R.drawable.ic_archive_file; // Icon file nén
-                } else if (mimeType.equals("application/vnd.android.package-archive")) {
-                    return R.drawable.ic_apk_file; // Icon APK
-                }
-            }
-            // --- Mặc định cho các loại tệp không xác định ---
-            return R.drawable.ic_document_file; // Hoặc R.drawable.ic_generic_file của bạn
-        }
-    }
 } // End Adapter Class
\ No newline at end of file
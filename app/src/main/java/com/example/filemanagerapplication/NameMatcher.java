@@ -0,0 +1,160 @@
+package com.example.filemanagerapplication;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Case-insensitive file name predicate used by search. Instances are immutable and safe to
+ * share between walker threads.
+ */
+public abstract class NameMatcher {
+
+    public enum Mode {
+        /** Name contains the query. */
+        SUBSTRING,
+        /** Whole name matches a shell pattern: {@code *}, {@code ?} and {@code [...]}. */
+        GLOB,
+        /** Java regular expression found anywhere in the name. */
+        REGEX
+    }
+
+    public abstract boolean matches(String name);
+
+    /**
+     * Text that every matching name contains (ignoring case), or null if there is none.
+     * Lets {@link FileIndex} narrow candidates before calling {@link #matches(String)}.
+     */
+    public String requiredLiteral() {
+        return null;
+    }
+
+    /**
+     * @throws java.util.regex.PatternSyntaxException for an invalid regex.
+     */
+    public static NameMatcher create(Mode mode, String query) {
+        switch (mode) {
+            case GLOB:
+                return new PatternMatcher(Pattern.compile(globToRegex(query),
+                        Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE), true, longestGlobLiteral(query));
+            case REGEX:
+                return new PatternMatcher(Pattern.compile(query,
+                        Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE), false, null);
+            case SUBSTRING:
+            default:
+                return new SubstringMatcher(query);
+        }
+    }
+
+    /** Translates a glob into an anchored regex; everything else is quoted literally. */
+    static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder(glob.length() + 8);
+        boolean inClass = false;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (inClass) {
+                if (c == ']') {
+                    inClass = false;
+                    regex.append(']');
+                } else if (c == '\\' || c == '[' || c == '&') {
+                    regex.append('\\').append(c);
+                } else if (c == '!' && glob.charAt(i - 1) == '[') {
+                    regex.append('^');
+                } else {
+                    regex.append(c);
+                }
+                continue;
+            }
+            switch (c) {
+                case '*':
+                    regex.append(".*");
+                    break;
+                case '?':
+                    regex.append('.');
+                    break;
+                case '[':
+                    if (glob.indexOf(']', i + 2) > 0) {
+                        inClass = true;
+                        regex.append('[');
+                    } else {
+                        regex.append("\\[");
+                    }
+                    break;
+                default:
+                    if ("\\.^$+{}()|]".indexOf(c) >= 0) {
+                        regex.append('\\');
+                    }
+                    regex.append(c);
+            }
+        }
+        return regex.toString();
+    }
+
+    /** Longest run of plain characters in a glob, outside wildcards and {@code [...]} classes. */
+    static String longestGlobLiteral(String glob) {
+        String longest = "";
+        int runStart = 0;
+        for (int i = 0; i <= glob.length(); i++) {
+            char c = i < glob.length() ? glob.charAt(i) : '*';
+            boolean special = c == '*' || c == '?' || (c == '[' && glob.indexOf(']', i + 2) > 0);
+            if (!special) {
+                continue;
+            }
+            if (i - runStart > longest.length()) {
+                longest = glob.substring(runStart, i);
+            }
+            if (c == '[') {
+                i = glob.indexOf(']', i + 2); // Skip the class; it matches a single character
+            }
+            runStart = i + 1;
+        }
+        return longest.isEmpty() ? null : longest;
+    }
+
+    /** Allocation-free: compares in place with {@link String#regionMatches(boolean, int, String, int, int)}. */
+    private static final class SubstringMatcher extends NameMatcher {
+        private final String query;
+
+        SubstringMatcher(String query) {
+            this.query = query;
+        }
+
+        @Override
+        public boolean matches(String name) {
+            int last = name.length() - query.length();
+            for (int i = 0; i <= last; i++) {
+                if (name.regionMatches(true, i, query, 0, query.length())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String requiredLiteral() {
+            return query;
+        }
+    }
+
+    private static final class PatternMatcher extends NameMatcher {
+        private final Pattern pattern;
+        private final boolean wholeName;
+        private final String literal;
+
+        PatternMatcher(Pattern pattern, boolean wholeName, String literal) {
+            this.pattern = pattern;
+            this.wholeName = wholeName;
+            this.literal = literal;
+        }
+
+        @Override
+        public boolean matches(String name) {
+            Matcher matcher = pattern.matcher(name);
+            return wholeName ? matcher.matches() : matcher.find();
+        }
+
+        @Override
+        public String requiredLiteral() {
+            return literal;
+        }
+    }
+}
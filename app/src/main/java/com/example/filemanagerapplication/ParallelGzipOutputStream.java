@@ -0,0 +1,178 @@
+package com.example.filemanagerapplication;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzip output stream that deflates independent blocks on several threads, pigz-style.
+ *
+ * Input is cut into fixed-size blocks. Each block is deflated on its own with the last
+ * 32 KB of the previous block as preset dictionary and ends on a sync flush (byte
+ * boundary), so the compressed blocks can simply be concatenated. Only the last block is
+ * finished. The result is one ordinary gzip member that any gunzip can read. The CRC is
+ * computed on the writing thread, which is cheap compared to deflating.
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+    private static final int BLOCK_SIZE = 128 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final byte[] GZIP_HEADER = {
+            0x1f, (byte) 0x8b, // magic
+            8,                 // CM = deflate
+            0,                 // flags
+            0, 0, 0, 0,        // mtime (unknown)
+            0,                 // extra flags
+            (byte) 0xff        // OS = unknown
+    };
+
+    private final OutputStream out;
+    private final int level;
+    private final ExecutorService executor;
+    private final int maxPendingBlocks;
+    /** Blocks being compressed, in output order. */
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private final CRC32 crc = new CRC32();
+    private long totalLength;
+
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int blockLength;
+    private byte[] dictionary;
+    private boolean closed;
+
+    public ParallelGzipOutputStream(OutputStream out) throws IOException {
+        this(out, Deflater.DEFAULT_COMPRESSION, Math.max(1, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public ParallelGzipOutputStream(OutputStream out, int level, int threads) throws IOException {
+        this.out = out;
+        this.level = level;
+        this.executor = Executors.newFixedThreadPool(threads);
+        // Enough blocks in flight to keep every thread busy, but bounded so memory stays flat.
+        this.maxPendingBlocks = threads * 2;
+        out.write(GZIP_HEADER);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        ensureOpen();
+        crc.update(data, offset, length);
+        totalLength += length;
+        while (length > 0) {
+            int n = Math.min(length, BLOCK_SIZE - blockLength);
+            System.arraycopy(data, offset, block, blockLength, n);
+            blockLength += n;
+            offset += n;
+            length -= n;
+            if (blockLength == BLOCK_SIZE) {
+                submitBlock(false);
+            }
+        }
+    }
+
+    /** Finishes the gzip member (last block, CRC and length trailer) and closes the target. */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            submitBlock(true);
+            while (!pending.isEmpty()) {
+                writeOldestBlock();
+            }
+            byte[] trailer = new byte[8];
+            writeIntLE(trailer, 0, (int) crc.getValue());
+            writeIntLE(trailer, 4, (int) totalLength); // ISIZE is the length modulo 2^32
+            out.write(trailer);
+        } finally {
+            executor.shutdownNow();
+            out.close();
+        }
+    }
+
+    private void submitBlock(boolean last) throws IOException {
+        final byte[] input = block;
+        final int inputLength = blockLength;
+        final byte[] presetDictionary = dictionary;
+        // The next block is primed with the tail of this one, so it needs its own copy.
+        dictionary = inputLength >= DICTIONARY_SIZE
+                ? Arrays.copyOfRange(input, inputLength - DICTIONARY_SIZE, inputLength)
+                : null;
+        block = new byte[BLOCK_SIZE];
+        blockLength = 0;
+
+        while (pending.size() >= maxPendingBlocks) {
+            writeOldestBlock();
+        }
+        pending.add(executor.submit(() -> deflateBlock(input, inputLength, presetDictionary, last)));
+    }
+
+    private byte[] deflateBlock(byte[] input, int length, byte[] presetDictionary, boolean last) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            if (presetDictionary != null) {
+                deflater.setDictionary(presetDictionary);
+            }
+            deflater.setInput(input, 0, length);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2 + 64);
+            byte[] buffer = new byte[64 * 1024];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    int n = deflater.deflate(buffer);
+                    compressed.write(buffer, 0, n);
+                }
+            } else {
+                int n;
+                do {
+                    n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    compressed.write(buffer, 0, n);
+                } while (n == buffer.length);
+            }
+            return compressed.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void writeOldestBlock() throws IOException {
+        Future<byte[]> oldest = pending.removeFirst();
+        try {
+            out.write(oldest.get());
+        } catch (ExecutionException e) {
+            throw new IOException("Block compression failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing", e);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private static void writeIntLE(byte[] target, int offset, int value) {
+        target[offset] = (byte) value;
+        target[offset + 1] = (byte) (value >>> 8);
+        target[offset + 2] = (byte) (value >>> 16);
+        target[offset + 3] = (byte) (value >>> 24);
+    }
+}
@@ -0,0 +1,313 @@
+package com.example.filemanagerapplication;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Hierarchical shared/exclusive locks on path subtrees.
+ *
+ * A shared lock on a path protects the whole subtree below it from writers, an exclusive
+ * lock keeps everybody else out of it. Ancestors of a locked path get intention locks
+ * (IS / IX), the classic multi-granularity scheme, so an exclusive lock on {@code /a}
+ * conflicts with a shared lock on {@code /a/b} while {@code /a/b} and {@code /a/c} never
+ * conflict with each other.
+ *
+ * All paths of one operation are requested together in a {@link LockSet} and acquired in
+ * a single global order (parents before children, then by name), which rules out
+ * deadlocks between operations. Waiters on a path are served FIFO, so a stream of readers
+ * cannot starve a writer. Per-path state lives in a fixed number of stripes, each guarded
+ * by its own monitor, so unrelated paths rarely contend on the same internal lock.
+ */
+public final class PathLockManager {
+
+    /** Lock modes; callers only request S and X, the intention modes are derived. */
+    enum Mode { IS, IX, S, SIX, X }
+
+    private static final boolean[][] COMPATIBLE = {
+            //          IS     IX     S      SIX    X
+            /* IS  */ {true,  true,  true,  true,  false},
+            /* IX  */ {true,  true,  false, false, false},
+            /* S   */ {true,  false, true,  false, false},
+            /* SIX */ {true,  false, false, false, false},
+            /* X   */ {false, false, false, false, false},
+    };
+
+    /** Least mode that grants both arguments (for one owner holding several roles on a node). */
+    private static final Mode[][] JOIN = {
+            //          IS        IX        S         SIX       X
+            /* IS  */ {Mode.IS,  Mode.IX,  Mode.S,   Mode.SIX, Mode.X},
+            /* IX  */ {Mode.IX,  Mode.IX,  Mode.SIX, Mode.SIX, Mode.X},
+            /* S   */ {Mode.S,   Mode.SIX, Mode.S,   Mode.SIX, Mode.X},
+            /* SIX */ {Mode.SIX, Mode.SIX, Mode.SIX, Mode.SIX, Mode.X},
+            /* X   */ {Mode.X,   Mode.X,   Mode.X,   Mode.X,   Mode.X},
+    };
+
+    private static final int DEFAULT_STRIPES = 32;
+
+    /** The paths one operation needs. */
+    public static final class LockSet {
+        private final Map<String, Mode> requested = new HashMap<>();
+
+        /** Read access to {@code file} and everything below it. */
+        public LockSet shared(File file) {
+            add(normalize(file), Mode.S);
+            return this;
+        }
+
+        public LockSet shared(Collection<File> files) {
+            for (File file : files) {
+                shared(file);
+            }
+            return this;
+        }
+
+        /** Write access to {@code file} and everything below it, e.g. the folder receiving new items. */
+        public LockSet exclusive(File file) {
+            add(normalize(file), Mode.X);
+            return this;
+        }
+
+        public LockSet exclusive(Collection<File> files) {
+            for (File file : files) {
+                exclusive(file);
+            }
+            return this;
+        }
+
+        private void add(String path, Mode mode) {
+            merge(path, mode);
+            Mode intention = mode == Mode.X ? Mode.IX : Mode.IS;
+            for (String ancestor = parentOf(path); ancestor != null; ancestor = parentOf(ancestor)) {
+                merge(ancestor, intention);
+            }
+        }
+
+        private void merge(String path, Mode mode) {
+            Mode current = requested.get(path);
+            requested.put(path, current == null ? mode : JOIN[current.ordinal()][mode.ordinal()]);
+        }
+    }
+
+    /** Locks held by one operation; release with {@link #close()}. */
+    public final class Lease implements AutoCloseable {
+        private final List<String> paths;
+        private final List<Mode> modes;
+        private boolean released;
+
+        private Lease(List<String> paths, List<Mode> modes) {
+            this.paths = paths;
+            this.modes = modes;
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+            }
+            for (int i = paths.size() - 1; i >= 0; i--) {
+                release(paths.get(i), modes.get(i));
+            }
+        }
+    }
+
+    private static final class Waiter {
+        final Mode mode;
+
+        Waiter(Mode mode) {
+            this.mode = mode;
+        }
+    }
+
+    private static final class Node {
+        final int[] holders = new int[Mode.values().length];
+        final Deque<Waiter> queue = new ArrayDeque<>();
+
+        boolean canGrant(Mode mode) {
+            boolean[] compatible = COMPATIBLE[mode.ordinal()];
+            for (int i = 0; i < holders.length; i++) {
+                if (holders[i] > 0 && !compatible[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean isIdle() {
+            if (!queue.isEmpty()) {
+                return false;
+            }
+            for (int count : holders) {
+                if (count > 0) return false;
+            }
+            return true;
+        }
+    }
+
+    private static final class Stripe {
+        final Map<String, Node> nodes = new HashMap<>();
+    }
+
+    private final Stripe[] stripes;
+
+    public PathLockManager() {
+        this(DEFAULT_STRIPES);
+    }
+
+    PathLockManager(int stripeCount) {
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Blocks until every path in {@code locks} is granted.
+     *
+     * @throws InterruptedException if interrupted while waiting; nothing is held then.
+     */
+    public Lease acquire(LockSet locks) throws InterruptedException {
+        // Global order: a parent sorts before its children because its path is a prefix.
+        TreeMap<String, Mode> ordered = new TreeMap<>(PathLockManager::comparePaths);
+        ordered.putAll(locks.requested);
+
+        List<String> paths = new ArrayList<>(ordered.size());
+        List<Mode> modes = new ArrayList<>(ordered.size());
+        try {
+            for (Map.Entry<String, Mode> entry : ordered.entrySet()) {
+                lockNode(entry.getKey(), entry.getValue());
+                paths.add(entry.getKey());
+                modes.add(entry.getValue());
+            }
+        } catch (InterruptedException e) {
+            for (int i = paths.size() - 1; i >= 0; i--) {
+                release(paths.get(i), modes.get(i));
+            }
+            throw e;
+        }
+        return new Lease(Collections.unmodifiableList(paths), Collections.unmodifiableList(modes));
+    }
+
+    /** Number of paths with holders or waiters, for tests. */
+    int activeNodeCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                count += stripe.nodes.size();
+            }
+        }
+        return count;
+    }
+
+    private void lockNode(String path, Mode mode) throws InterruptedException {
+        Stripe stripe = stripeFor(path);
+        synchronized (stripe) {
+            Node node = stripe.nodes.get(path);
+            if (node == null) {
+                node = new Node();
+                stripe.nodes.put(path, node);
+            }
+            if (node.queue.isEmpty() && node.canGrant(mode)) {
+                node.holders[mode.ordinal()]++;
+                return;
+            }
+            Waiter waiter = new Waiter(mode);
+            node.queue.addLast(waiter);
+            try {
+                while (node.queue.peekFirst() != waiter || !node.canGrant(mode)) {
+                    stripe.wait();
+                }
+            } catch (InterruptedException e) {
+                node.queue.remove(waiter);
+                if (node.isIdle()) {
+                    stripe.nodes.remove(path);
+                }
+                stripe.notifyAll(); // The next waiter may now be at the head
+                throw e;
+            }
+            node.queue.removeFirst();
+            node.holders[mode.ordinal()]++;
+            // A compatible waiter right behind us may proceed too.
+            stripe.notifyAll();
+        }
+    }
+
+    private void release(String path, Mode mode) {
+        Stripe stripe = stripeFor(path);
+        synchronized (stripe) {
+            Node node = stripe.nodes.get(path);
+            if (node == null || node.holders[mode.ordinal()] == 0) {
+                throw new IllegalStateException("Lock not held: " + mode + " " + path);
+            }
+            node.holders[mode.ordinal()]--;
+            if (node.isIdle()) {
+                stripe.nodes.remove(path);
+            }
+            stripe.notifyAll();
+        }
+    }
+
+    private Stripe stripeFor(String path) {
+        int hash = path.hashCode();
+        hash ^= (hash >>> 16);
+        return stripes[(hash & 0x7fffffff) % stripes.length];
+    }
+
+    /** Absolute path without ".", ".." or duplicate separators; "/" for the root. */
+    static String normalize(File file) {
+        String[] parts = file.getAbsolutePath().split("/");
+        Deque<String> components = new ArrayDeque<>();
+        for (String part : parts) {
+            if (part.isEmpty() || part.equals(".")) {
+                continue;
+            }
+            if (part.equals("..")) {
+                components.pollLast();
+            } else {
+                components.addLast(part);
+            }
+        }
+        if (components.isEmpty()) {
+            return "/";
+        }
+        StringBuilder path = new StringBuilder();
+        for (String component : components) {
+            path.append('/').append(component);
+        }
+        return path.toString();
+    }
+
+    /** Parent of a normalized path, or null for the root. */
+    static String parentOf(String path) {
+        if (path.equals("/")) {
+            return null;
+        }
+        int slash = path.lastIndexOf('/');
+        return slash == 0 ? "/" : path.substring(0, slash);
+    }
+
+    /** Compares component by component, so "/a" &lt; "/a/b" &lt; "/a-b" (plain string order would put "/a-b" first). */
+    static int comparePaths(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            char ca = a.charAt(i);
+            char cb = b.charAt(i);
+            if (ca != cb) {
+                if (ca == '/') return -1;
+                if (cb == '/') return 1;
+                return ca < cb ? -1 : 1;
+            }
+        }
+        return Integer.compare(a.length(), b.length());
+    }
+}
@@ -0,0 +1,379 @@
+package com.example.filemanagerapplication;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of absolute paths, stored as a trie of path segments in which every chain of single
+ * children is merged into one node. Paths gathered from a few folders share their folder
+ * prefix, so 100k files picked in one folder cost the folder path once plus 100k names,
+ * instead of 100k {@link File} objects each holding its full path.
+ *
+ * An entry covers everything below it. Adding a folder drops the entries inside it, and adding
+ * a path inside an entry changes nothing, so a batch never copies or moves a file twice.
+ * Entries are exactly the leaves; every other node except the root has at least two children.
+ * Not thread-safe.
+ */
+final class PathTrie {
+
+    private static final int MAX_DEPTH = 4_096; // Nested nodes accepted when reading
+    private static final String SEPARATOR = "/";
+
+    private static final class Node {
+        String label; // One or more segments joined by '/'; "" for the root
+        Map<String, Node> children; // Keyed by the first segment of each child's label; null for an entry
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        boolean isLeaf() {
+            return children == null || children.isEmpty();
+        }
+    }
+
+    private final Node root = new Node("");
+    private int size;
+
+    /** Number of entries. */
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Adds {@code path}, dropping the entries below it.
+     *
+     * @return false if the path, or a folder above it, is already an entry
+     */
+    boolean add(String path) {
+        String rest = relative(path);
+        if (rest.isEmpty()) {
+            return false; // The file-system root is never an entry
+        }
+        Node node = root;
+        while (true) {
+            if (node.children == null) {
+                node.children = new HashMap<>();
+            }
+            String key = firstSegment(rest);
+            Node child = node.children.get(key);
+            if (child == null) {
+                node.children.put(key, new Node(rest));
+                size++;
+                return true;
+            }
+            int common = commonPrefix(child.label, rest);
+            if (common < child.label.length()) {
+                // Split the merged node where the paths part
+                Node branch = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common + 1);
+                branch.children = new HashMap<>();
+                branch.children.put(firstSegment(child.label), child);
+                node.children.put(key, branch);
+                child = branch;
+            } else if (child.isLeaf()) {
+                return false; // Covered by this entry
+            }
+            if (common == rest.length()) {
+                size -= countEntries(child) - 1; // Now covers what was below it
+                child.children = null;
+                return true;
+            }
+            node = child;
+            rest = rest.substring(common + 1);
+        }
+    }
+
+    /** Adds every file; returns how many of them were new entries. */
+    int addAll(Iterable<File> files) {
+        int added = 0;
+        for (File file : files) {
+            if (add(file.getAbsolutePath())) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Removes the entry {@code path} and every entry below it, e.g. after the folder was deleted.
+     * A path inside an entry cannot be removed on its own.
+     *
+     * @return the number of entries removed
+     */
+    int remove(String path) {
+        String rest = relative(path);
+        if (rest.isEmpty()) {
+            int removed = size;
+            clear();
+            return removed;
+        }
+        Node node = root;
+        while (node.children != null) {
+            String key = firstSegment(rest);
+            Node child = node.children.get(key);
+            if (child == null) {
+                return 0;
+            }
+            int common = commonPrefix(child.label, rest);
+            if (common == rest.length()) {
+                int removed = countEntries(child);
+                node.children.remove(key);
+                size -= removed;
+                if (node != root && node.children.size() == 1) {
+                    mergeWithOnlyChild(node);
+                }
+                return removed;
+            }
+            if (common < child.label.length()) {
+                return 0;
+            }
+            node = child;
+            rest = rest.substring(common + 1);
+        }
+        return 0;
+    }
+
+    /** True if {@code path} is an entry or lies below one. */
+    boolean covers(String path) {
+        String rest = relative(path);
+        Node node = root;
+        while (true) {
+            if (node != root && node.isLeaf()) {
+                return true;
+            }
+            if (rest.isEmpty() || node.children == null) {
+                return false;
+            }
+            Node child = node.children.get(firstSegment(rest));
+            if (child == null) {
+                return false;
+            }
+            int common = commonPrefix(child.label, rest);
+            if (common < child.label.length()) {
+                return false;
+            }
+            node = child;
+            rest = common == rest.length() ? "" : rest.substring(common + 1);
+        }
+    }
+
+    void clear() {
+        root.children = null;
+        size = 0;
+    }
+
+    /** The entries as absolute paths, sorted. */
+    List<String> paths() {
+        List<String> out = new ArrayList<>(size);
+        collect(root, new StringBuilder(), out);
+        return out;
+    }
+
+    /** The entries as files, sorted by path; only call it when an operation is about to run. */
+    List<File> files() {
+        List<String> paths = paths();
+        List<File> files = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            files.add(new File(path));
+        }
+        return files;
+    }
+
+    private static void collect(Node node, StringBuilder prefix, List<String> out) {
+        int length = prefix.length();
+        if (node.label.length() > 0) {
+            prefix.append('/').append(node.label);
+        }
+        if (node.isLeaf()) {
+            if (length > 0 || node.label.length() > 0) {
+                out.add(prefix.toString());
+            }
+        } else {
+            List<String> keys = new ArrayList<>(node.children.keySet());
+            Collections.sort(keys);
+            for (String key : keys) {
+                collect(node.children.get(key), prefix, out);
+            }
+        }
+        prefix.setLength(length);
+    }
+
+    PathTrie copy() {
+        PathTrie copy = new PathTrie();
+        copy.root.children = copyChildren(root);
+        copy.size = size;
+        return copy;
+    }
+
+    private static Map<String, Node> copyChildren(Node node) {
+        if (node.children == null) {
+            return null;
+        }
+        Map<String, Node> children = new HashMap<>(node.children.size() * 4 / 3 + 1);
+        for (Map.Entry<String, Node> entry : node.children.entrySet()) {
+            Node child = new Node(entry.getValue().label);
+            child.children = copyChildren(entry.getValue());
+            children.put(entry.getKey(), child);
+        }
+        return children;
+    }
+
+    // --- Serialization: entry count, then the nodes in pre-order (label, varint child count) ---
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        write(root, out);
+    }
+
+    private static void write(Node node, DataOutputStream out) throws IOException {
+        out.writeUTF(node.label);
+        int count = node.children == null ? 0 : node.children.size();
+        writeVarInt(out, count);
+        if (count > 0) {
+            for (Node child : node.children.values()) {
+                write(child, out);
+            }
+        }
+    }
+
+    static PathTrie readFrom(DataInputStream in) throws IOException {
+        int expected = in.readInt();
+        PathTrie trie = new PathTrie();
+        Node root = read(in, 0);
+        if (!root.label.isEmpty()) {
+            throw new IOException("Corrupt path trie: root has a label");
+        }
+        trie.root.children = root.children;
+        trie.size = root.isLeaf() ? 0 : countEntries(root);
+        if (trie.size != expected) {
+            throw new IOException("Corrupt path trie: " + trie.size + " entries, expected " + expected);
+        }
+        return trie;
+    }
+
+    private static Node read(DataInputStream in, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("Corrupt path trie: too deep");
+        }
+        Node node = new Node(in.readUTF());
+        if (depth > 0 && (node.label.isEmpty() || node.label.startsWith(SEPARATOR) || node.label.endsWith(SEPARATOR))) {
+            throw new IOException("Corrupt path trie: bad label '" + node.label + "'");
+        }
+        int count = readVarInt(in);
+        if (count > 0) {
+            node.children = new HashMap<>(count * 4 / 3 + 1);
+            for (int i = 0; i < count; i++) {
+                Node child = read(in, depth + 1);
+                node.children.put(firstSegment(child.label), child);
+            }
+            if (depth > 0 && node.children.size() == 1) {
+                mergeWithOnlyChild(node); // Keeps the invariant even for a file written by hand
+            }
+        }
+        return node;
+    }
+
+    byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeTo(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // In memory: cannot happen
+        }
+        return bytes.toByteArray();
+    }
+
+    static PathTrie fromBytes(byte[] bytes) throws IOException {
+        return readFrom(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    // --- Helpers ---
+
+    private static void mergeWithOnlyChild(Node node) {
+        Node only = node.children.values().iterator().next();
+        node.label = node.label + SEPARATOR + only.label;
+        node.children = only.children;
+    }
+
+    private static int countEntries(Node node) {
+        if (node.isLeaf()) {
+            return 1;
+        }
+        int count = 0;
+        for (Node child : node.children.values()) {
+            count += countEntries(child);
+        }
+        return count;
+    }
+
+    /** {@code path} without leading or trailing separators. */
+    private static String relative(String path) {
+        int start = 0;
+        int end = path.length();
+        while (start < end && path.charAt(start) == '/') {
+            start++;
+        }
+        while (end > start && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        return path.substring(start, end);
+    }
+
+    private static String firstSegment(String relative) {
+        int slash = relative.indexOf('/');
+        return slash < 0 ? relative : relative.substring(0, slash);
+    }
+
+    /** Length of the longest run of whole segments that {@code a} and {@code b} start with. */
+    static int commonPrefix(String a, String b) {
+        int max = Math.min(a.length(), b.length());
+        int lastBoundary = 0;
+        int i = 0;
+        while (i < max && a.charAt(i) == b.charAt(i)) {
+            if (a.charAt(i) == '/') {
+                lastBoundary = i;
+            }
+            i++;
+        }
+        boolean aEnds = i == a.length() || a.charAt(i) == '/';
+        boolean bEnds = i == b.length() || b.charAt(i) == '/';
+        return aEnds && bEnds ? i : lastBoundary;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    throw new IOException("Corrupt path trie: negative count");
+                }
+                return value;
+            }
+        }
+        throw new IOException("Corrupt path trie: varint too long");
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.filemanagerapplication;
+
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Process-wide latency metrics, e.g. search time-to-first-result.
+ *
+ * Each metric keeps a count, a running total and the most recent samples (a fixed ring),
+ * from which percentiles are computed on demand. Every sample is also logged under
+ * {@link #TAG}, so {@code adb logcat -s PerfMetrics} shows them live.
+ */
+public final class PerfMetrics {
+
+    public static final String TAG = "PerfMetrics";
+    private static final int RECENT_SAMPLES = 128;
+
+    /** Immutable view of one metric. */
+    public static final class Summary {
+        public final String name;
+        public final long count;
+        public final double averageMillis;
+        public final long p50Millis;
+        public final long p90Millis;
+        public final long maxMillis;
+
+        Summary(String name, long count, double averageMillis, long p50Millis, long p90Millis, long maxMillis) {
+            this.name = name;
+            this.count = count;
+            this.averageMillis = averageMillis;
+            this.p50Millis = p50Millis;
+            this.p90Millis = p90Millis;
+            this.maxMillis = maxMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(java.util.Locale.US, "%s: n=%d avg=%.1fms p50=%dms p90=%dms max=%dms",
+                    name, count, averageMillis, p50Millis, p90Millis, maxMillis);
+        }
+    }
+
+    private static final class Metric {
+        final long[] recent = new long[RECENT_SAMPLES];
+        long count;
+        long totalMillis;
+        long maxMillis;
+    }
+
+    private static final Map<String, Metric> METRICS = new HashMap<>();
+
+    private PerfMetrics() {
+    }
+
+    public static void record(String name, long millis) {
+        synchronized (METRICS) {
+            Metric metric = METRICS.get(name);
+            if (metric == null) {
+                metric = new Metric();
+                METRICS.put(name, metric);
+            }
+            metric.recent[(int) (metric.count % RECENT_SAMPLES)] = millis;
+            metric.count++;
+            metric.totalMillis += millis;
+            metric.maxMillis = Math.max(metric.maxMillis, millis);
+        }
+        Log.d(TAG, name + " = " + millis + " ms");
+    }
+
+    /** Convenience for {@code record(name, elapsed since startNanos)}; returns the elapsed millis. */
+    public static long recordSince(String name, long startNanos) {
+        long millis = (System.nanoTime() - startNanos) / 1_000_000;
+        record(name, millis);
+        return millis;
+    }
+
+    /** Returns null if nothing was recorded under {@code name} yet. */
+    public static Summary summary(String name) {
+        synchronized (METRICS) {
+            Metric metric = METRICS.get(name);
+            if (metric == null || metric.count == 0) {
+                return null;
+            }
+            int samples = (int) Math.min(metric.count, RECENT_SAMPLES);
+            long[] sorted = Arrays.copyOf(metric.recent, samples);
+            Arrays.sort(sorted);
+            return new Summary(name, metric.count, (double) metric.totalMillis / metric.count,
+                    sorted[(samples - 1) / 2], sorted[(int) ((samples - 1) * 0.9)], metric.maxMillis);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.example.filemanagerapplication;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.util.Log;
+import android.widget.EditText;
+import android.widget.RadioGroup;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Tìm kiếm tên file đệ quy từ thư mục hiện tại.
+ *
+ * Every keystroke cancels the running search; a new one starts after a short pause in
+ * typing. Hits stream in from {@link FileSearcher} worker threads and are appended to the
+ * list in batches, at most every {@link #BATCH_INTERVAL_MS}, so the UI thread is not flooded
+ * with one message per hit. Time-to-first-result is recorded in {@link PerfMetrics}.
+ * Once {@link FileIndex} is built, queries are answered from it instead of walking.
+ * The "Text" mode searches file contents with {@link ContentSearcher} instead.
+ */
+public class SearchActivity extends AppCompatActivity implements SearchResultAdapter.OnResultClickListener {
+
+    private static final String TAG = "SearchActivity";
+    public static final String EXTRA_ROOT_PATH = "path";
+    static final String METRIC_FIRST_RESULT = "search.time_to_first_result";
+    static final String METRIC_TOTAL = "search.total";
+
+    private static final long TYPING_PAUSE_MS = 150;
+    private static final long BATCH_INTERVAL_MS = 100;
+    private static final int MAX_RESULTS = 5000;
+
+    private EditText queryEditText;
+    private RadioGroup modeGroup;
+    private TextView statusTextView;
+    private SearchResultAdapter adapter;
+    private Handler mainThreadHandler;
+    private FileSearcher searcher;
+    private ContentSearcher contentSearcher;
+    private FileIndex fileIndex;
+    private ExecutorService indexQueryExecutor; // Queries touch the mapped file, so not on the UI thread
+    private File rootDir;
+    private SearchSession currentSession;
+
+    private final Runnable startSearchRunnable = this::startSearch;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_search);
+
+        queryEditText = findViewById(R.id.search_query_edit_text);
+        modeGroup = findViewById(R.id.search_mode_group);
+        statusTextView = findViewById(R.id.search_status_text_view);
+        RecyclerView resultsView = findViewById(R.id.search_results_recycler_view);
+
+        mainThreadHandler = new Handler(Looper.getMainLooper());
+        searcher = new FileSearcher(Math.max(2, Runtime.getRuntime().availableProcessors()));
+        contentSearcher = new ContentSearcher(Math.max(2, Runtime.getRuntime().availableProcessors()));
+        fileIndex = FileIndex.get(this);
+        indexQueryExecutor = Executors.newSingleThreadExecutor();
+
+        String path = getIntent().getStringExtra(EXTRA_ROOT_PATH);
+        rootDir = new File(path != null ? path : "/");
+        setTitle("Search in " + rootDir.getName());
+
+        adapter = new SearchResultAdapter(this, rootDir, this);
+        // e.g. /sdcard is a link; the walker does not follow links, so start from the target.
+        // Resolving it reads the disk: done off the main thread, long before typing pauses.
+        File requestedRoot = rootDir;
+        indexQueryExecutor.execute(() -> {
+            File canonicalRoot;
+            try {
+                canonicalRoot = requestedRoot.getCanonicalFile();
+            } catch (IOException e) {
+                Log.w(TAG, "Could not resolve search root: " + requestedRoot.getAbsolutePath(), e);
+                return;
+            }
+            mainThreadHandler.post(() -> {
+                rootDir = canonicalRoot;
+                setTitle("Search in " + canonicalRoot.getName());
+                adapter.setRoot(canonicalRoot);
+            });
+        });
+        resultsView.setLayoutManager(new LinearLayoutManager(this));
+        resultsView.setAdapter(adapter);
+
+        queryEditText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                scheduleSearch();
+            }
+        });
+        modeGroup.setOnCheckedChangeListener((group, checkedId) -> scheduleSearch());
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        mainThreadHandler.removeCallbacks(startSearchRunnable);
+        cancelCurrentSearch();
+        searcher.shutdown();
+        contentSearcher.shutdown();
+        indexQueryExecutor.shutdownNow();
+    }
+
+    @Override
+    public void onResultClick(File file, boolean isDirectory) {
+        // Mở thư mục (hoặc thư mục chứa file) trong FileListActivity
+        File target = isDirectory ? file : file.getParentFile();
+        if (target == null) {
+            return;
+        }
+        Intent intent = new Intent(this, FileListActivity.class);
+        intent.putExtra("path", target.getAbsolutePath());
+        startActivity(intent);
+    }
+
+    /** Cancel-on-keystroke: the old walk stops right away, the new one waits for a pause in typing. */
+    private void scheduleSearch() {
+        cancelCurrentSearch();
+        mainThreadHandler.removeCallbacks(startSearchRunnable);
+        mainThreadHandler.postDelayed(startSearchRunnable, TYPING_PAUSE_MS);
+    }
+
+    private void cancelCurrentSearch() {
+        if (currentSession != null) {
+            currentSession.handle.cancel();
+            currentSession = null;
+        }
+    }
+
+    private void startSearch() {
+        adapter.clear();
+        String query = queryEditText.getText().toString().trim();
+        if (query.isEmpty()) {
+            statusTextView.setText("");
+            return;
+        }
+        if (modeGroup.getCheckedRadioButtonId() == R.id.search_mode_content) {
+            statusTextView.setText("Searching file contents…");
+            SearchSession session = new SearchSession();
+            currentSession = session;
+            session.handle = contentSearcher.search(rootDir, query, session);
+            return;
+        }
+        NameMatcher matcher;
+        try {
+            matcher = NameMatcher.create(selectedMode(), query);
+        } catch (PatternSyntaxException e) {
+            statusTextView.setText("Invalid pattern: " + e.getDescription());
+            return;
+        }
+        statusTextView.setText("Searching…");
+        SearchSession session = new SearchSession();
+        currentSession = session;
+        if (fileIndex.isReady() && fileIndex.covers(rootDir)) {
+            session.handle = new FileSearcher.Handle();
+            indexQueryExecutor.execute(() -> queryIndex(session, matcher));
+        } else {
+            session.handle = searcher.search(rootDir, matcher, session);
+        }
+    }
+
+    /** Answers from the index in one go; falls back to walking if the index became unusable. */
+    private void queryIndex(SearchSession session, NameMatcher matcher) {
+        if (session.handle.isCancelled()) {
+            return;
+        }
+        List<FileIndex.Hit> hits = fileIndex.query(matcher, rootDir, MAX_RESULTS);
+        if (hits == null) {
+            mainThreadHandler.post(() -> {
+                if (currentSession == session) {
+                    session.handle = searcher.search(rootDir, matcher, session);
+                }
+            });
+            return;
+        }
+        List<SearchResultAdapter.Result> results = new ArrayList<>(hits.size());
+        for (FileIndex.Hit hit : hits) {
+            results.add(new SearchResultAdapter.Result(hit.file, hit.directory));
+        }
+        mainThreadHandler.post(() -> {
+            if (currentSession != session) {
+                return;
+            }
+            long totalMillis = PerfMetrics.recordSince(METRIC_FIRST_RESULT, session.handle.getStartNanos());
+            PerfMetrics.record(METRIC_TOTAL, totalMillis);
+            adapter.addAll(results);
+            statusTextView.setText(String.format(Locale.US, "%s%d result(s) from index, %d ms",
+                    results.size() >= MAX_RESULTS ? "Stopped at " : "", results.size(), totalMillis));
+        });
+    }
+
+    private NameMatcher.Mode selectedMode() {
+        int checkedId = modeGroup.getCheckedRadioButtonId();
+        if (checkedId == R.id.search_mode_glob) {
+            return NameMatcher.Mode.GLOB;
+        } else if (checkedId == R.id.search_mode_regex) {
+            return NameMatcher.Mode.REGEX;
+        }
+        return NameMatcher.Mode.SUBSTRING;
+    }
+
+    /** State of one search; results of a superseded session are dropped. */
+    private final class SearchSession implements FileSearcher.Listener, ContentSearcher.Listener {
+        volatile FileSearcher.Handle handle;
+        private final ConcurrentLinkedQueue<SearchResultAdapter.Result> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+        private final Runnable flushRunnable = this::flush;
+        // UI thread only
+        private int shown;
+        private volatile long firstResultMillis = -1; // Also read by onMatch() for the batching delay
+        private boolean limitReached;
+
+        @Override
+        public void onMatch(FileSearcher.Handle search, File file, boolean isDirectory) {
+            enqueue(new SearchResultAdapter.Result(file, isDirectory));
+        }
+
+        @Override
+        public void onMatch(FileSearcher.Handle search, ContentSearcher.Match match) {
+            StringBuilder detail = new StringBuilder();
+            if (match.before != null) {
+                detail.append("  ").append(match.before.trim()).append('\n');
+            }
+            detail.append(match.lineNumber).append(": ").append(match.line.trim());
+            if (match.after != null) {
+                detail.append('\n').append("  ").append(match.after.trim());
+            }
+            enqueue(new SearchResultAdapter.Result(match.file, false, detail.toString()));
+        }
+
+        private void enqueue(SearchResultAdapter.Result result) {
+            pending.add(result);
+            if (flushScheduled.compareAndSet(false, true)) {
+                // The very first hit goes out immediately, later ones are batched.
+                mainThreadHandler.postDelayed(flushRunnable, firstResultMillis < 0 ? 0 : BATCH_INTERVAL_MS);
+            }
+        }
+
+        @Override
+        public void onFinished(FileSearcher.Handle search, int directoriesScanned, boolean cancelled) {
+            long totalMillis = (System.nanoTime() - search.getStartNanos()) / 1_000_000;
+            mainThreadHandler.post(() -> {
+                if (currentSession != this) {
+                    return;
+                }
+                flush();
+                if (!cancelled) {
+                    PerfMetrics.record(METRIC_TOTAL, totalMillis);
+                }
+                statusTextView.setText(String.format(Locale.US, "%s%d result(s) in %d folders, %d ms%s",
+                        limitReached ? "Stopped at " : "", shown, directoriesScanned, totalMillis,
+                        firstResultMillis >= 0 ? " (first after " + firstResultMillis + " ms)" : ""));
+            });
+        }
+
+        @Override
+        public void onFinished(FileSearcher.Handle search, int filesScanned, long bytesScanned, boolean cancelled) {
+            long totalMillis = (System.nanoTime() - search.getStartNanos()) / 1_000_000;
+            mainThreadHandler.post(() -> {
+                if (currentSession != this) {
+                    return;
+                }
+                flush();
+                statusTextView.setText(String.format(Locale.US, "%s%d match(es) in %d text files, %.1f MB in %d ms (%.1f MB/s)",
+                        limitReached ? "Stopped at " : "", shown, filesScanned, bytesScanned / 1e6, totalMillis,
+                        ContentSearcher.megabytesPerSecond(bytesScanned, totalMillis)));
+            });
+        }
+
+        private void flush() {
+            flushScheduled.set(false);
+            if (currentSession != this) {
+                pending.clear();
+                return;
+            }
+            List<SearchResultAdapter.Result> batch = new ArrayList<>();
+            SearchResultAdapter.Result result;
+            while (shown + batch.size() < MAX_RESULTS && (result = pending.poll()) != null) {
+                batch.add(result);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            if (firstResultMillis < 0) {
+                firstResultMillis = PerfMetrics.recordSince(METRIC_FIRST_RESULT, handle.getStartNanos());
+            }
+            adapter.addAll(batch);
+            shown += batch.size();
+            if (shown >= MAX_RESULTS && !limitReached) {
+                limitReached = true;
+                pending.clear();
+                handle.cancel();
+            }
+            statusTextView.setText(String.format(Locale.US, "Searching… %d result(s), first after %d ms", shown, firstResultMillis));
+        }
+    }
+}
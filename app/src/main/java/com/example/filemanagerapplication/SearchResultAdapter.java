@@ -0,0 +1,122 @@
+package com.example.filemanagerapplication;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.CheckBox;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Adapter cho danh sách kết quả tìm kiếm: tên file và thư mục chứa nó (tương đối so với gốc tìm kiếm). */
+public class SearchResultAdapter extends RecyclerView.Adapter<SearchResultAdapter.ViewHolder> {
+
+    /** A hit; the type comes from the walker so binding never has to stat. */
+    public static final class Result {
+        final File file;
+        final boolean directory;
+        final String detail; // Matching text for content search, else null
+
+        public Result(File file, boolean directory) {
+            this(file, directory, null);
+        }
+
+        public Result(File file, boolean directory, String detail) {
+            this.file = file;
+            this.directory = directory;
+            this.detail = detail;
+        }
+    }
+
+    interface OnResultClickListener {
+        void onResultClick(File file, boolean isDirectory);
+    }
+
+    private final Context context;
+    private String rootPath;
+    private final List<Result> results = new ArrayList<>();
+    private final OnResultClickListener listener;
+
+    public SearchResultAdapter(Context context, File root, OnResultClickListener listener) {
+        this.context = context;
+        this.rootPath = root.getAbsolutePath();
+        this.listener = listener;
+    }
+
+    /** Shows paths relative to {@code root} from now on (e.g. once its canonical form is known). */
+    public void setRoot(File root) {
+        rootPath = root.getAbsolutePath();
+        notifyDataSetChanged();
+    }
+
+    /** Appends a batch of streamed results. */
+    public void addAll(List<Result> batch) {
+        int start = results.size();
+        results.addAll(batch);
+        notifyItemRangeInserted(start, batch.size());
+    }
+
+    public void clear() {
+        int count = results.size();
+        results.clear();
+        notifyItemRangeRemoved(0, count);
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(context).inflate(R.layout.recycler_item, parent, false); // Tái sử dụng layout item
+        return new ViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        Result result = results.get(position);
+        String text = result.file.getName() + "\n" + displayParent(result.file);
+        holder.textView.setText(result.detail != null ? text + "\n" + result.detail : text);
+        holder.imageView.setImageResource(result.directory
+                ? R.drawable.ic_baseline_folder_24
+                : R.drawable.ic_baseline_insert_drive_file_24);
+        holder.itemView.setOnClickListener(v -> {
+            if (listener != null) {
+                listener.onResultClick(result.file, result.directory);
+            }
+        });
+    }
+
+    @Override
+    public int getItemCount() {
+        return results.size();
+    }
+
+    private String displayParent(File file) {
+        String parent = file.getParent();
+        if (parent == null) {
+            return "/";
+        }
+        if (parent.equals(rootPath)) {
+            return "./";
+        }
+        return parent.startsWith(rootPath + "/") ? "./" + parent.substring(rootPath.length() + 1) : parent;
+    }
+
+    public static class ViewHolder extends RecyclerView.ViewHolder {
+        final TextView textView;
+        final ImageView imageView;
+
+        public ViewHolder(View itemView) {
+            super(itemView);
+            textView = itemView.findViewById(R.id.file_name_text_view);
+            imageView = itemView.findViewById(R.id.icon_view);
+            CheckBox checkBox = itemView.findViewById(R.id.checkbox);
+            checkBox.setVisibility(View.GONE);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.filemanagerapplication;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Sections of a sorted list for the fast scroller: the first letter of the name, the month
+ * modified, a size range or the file type, following the sort key.
+ *
+ * The section of every entry is computed once per listing and sort key
+ * ({@link ListingCache.Listing#sectionKeysFor}); splitting the rows on screen into sections
+ * is then one pass over ints, and the label of a scroll position is a binary search over the
+ * (few hundred at most) section starts, so dragging the scroller reads no file and no name.
+ */
+public final class SectionIndex {
+
+    // Lower bounds of the size ranges, largest first (decimal units, like Formatter.formatFileSize)
+    private static final long[] SIZE_BOUNDS = {1_000_000_000L, 100_000_000L, 10_000_000L, 1_000_000L, 100_000L, 10_000L, 1_000L, 0};
+    private static final String[] SIZE_LABELS = {"1 GB+", "100 MB+", "10 MB+", "1 MB+", "100 KB+", "10 KB+", "1 KB+", "< 1 KB"};
+    private static final String FOLDERS_LABEL = "Folders";
+
+    /** Section of each entry of one listing, as an index into its labels. */
+    public static final class Keys {
+        final int[] ofEntry;
+        final String[] labels;
+
+        Keys(int[] ofEntry, String[] labels) {
+            this.ofEntry = ofEntry;
+            this.labels = labels;
+        }
+    }
+
+    private final int[] starts; // Row position where each section begins, increasing
+    private final String[] labels;
+    private final int rowCount;
+
+    private SectionIndex(int[] starts, String[] labels, int rowCount) {
+        this.starts = starts;
+        this.labels = labels;
+        this.rowCount = rowCount;
+    }
+
+    /** Splits {@code rows} (indices into the listing, in display order) where the section changes. */
+    public static SectionIndex of(Keys keys, int[] rows) {
+        int[] starts = new int[16];
+        List<String> labels = new ArrayList<>();
+        int previous = -1;
+        for (int position = 0; position < rows.length; position++) {
+            int section = keys.ofEntry[rows[position]];
+            if (section != previous) {
+                if (labels.size() == starts.length) {
+                    starts = Arrays.copyOf(starts, starts.length * 2);
+                }
+                starts[labels.size()] = position;
+                labels.add(keys.labels[section]);
+                previous = section;
+            }
+        }
+        return new SectionIndex(Arrays.copyOf(starts, labels.size()), labels.toArray(new String[0]), rows.length);
+    }
+
+    public int size() {
+        return labels.length;
+    }
+
+    /** Section holding row {@code position}; -1 outside the rows this index was built for. */
+    public int sectionAt(int position) {
+        if (position < 0 || position >= rowCount) {
+            return -1;
+        }
+        int found = Arrays.binarySearch(starts, position);
+        return found >= 0 ? found : -found - 2; // Insertion point minus one: the section started before
+    }
+
+    public int startOf(int section) {
+        return starts[section];
+    }
+
+    public String labelOf(int section) {
+        return labels[section];
+    }
+
+    /** Label of the section holding row {@code position}, or null outside the rows. */
+    public String labelAt(int position) {
+        int section = sectionAt(position);
+        return section < 0 ? null : labels[section];
+    }
+
+    /**
+     * Section of every entry of {@code listing} under {@code mode}'s key; the direction does not
+     * matter. With folders first, folders never share a section with files. Date and size
+     * sections read the listing's stat results: call off the main thread.
+     */
+    static Keys keysFor(ListingCache.Listing listing, SortMode mode) {
+        int n = listing.files.length;
+        int[] ofEntry = new int[n];
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> labels = new ArrayList<>();
+        String[] names = mode.key == SortMode.Key.NAME ? listing.nameKeys() : null;
+        long[] sizes = mode.key == SortMode.Key.SIZE ? listing.sizes() : null;
+        long[] mtimes = mode.key == SortMode.Key.DATE ? listing.mtimes() : null;
+        Calendar calendar = mtimes != null ? Calendar.getInstance() : null;
+        SimpleDateFormat monthFormat = mtimes != null ? new SimpleDateFormat("MMM yyyy", Locale.getDefault()) : null;
+        for (int i = 0; i < n; i++) {
+            boolean folder = listing.categories[i] == FileTypeClassifier.Category.FOLDER;
+            String id; // Distinct per section, even where two sections show the same label
+            String label;
+            if (names != null) {
+                label = initialOf(names[i]);
+                id = label;
+            } else if (sizes != null) {
+                int bucket = sizeBucket(sizes[i]);
+                label = bucket < 0 ? FOLDERS_LABEL : SIZE_LABELS[bucket];
+                id = label;
+            } else if (mtimes != null) {
+                if (mtimes[i] <= 0) {
+                    id = label = "?";
+                } else {
+                    calendar.setTimeInMillis(mtimes[i]);
+                    int month = calendar.get(Calendar.YEAR) * 12 + calendar.get(Calendar.MONTH);
+                    id = Integer.toString(month);
+                    label = null; // Formatted once per section, below
+                }
+            } else {
+                label = folder ? FOLDERS_LABEL : typeLabel(listing.categories[i]);
+                id = label;
+            }
+            if (mode.foldersFirst && folder) {
+                id = "/" + id;
+            }
+            Integer section = ids.get(id);
+            if (section == null) {
+                section = labels.size();
+                ids.put(id, section);
+                labels.add(label != null ? label : monthFormat.format(new Date(mtimes[i])));
+            }
+            ofEntry[i] = section;
+        }
+        return new Keys(ofEntry, labels.toArray(new String[0]));
+    }
+
+    /** "A" for "anh.jpg", "#" for names starting with a digit, "•" for other symbols. */
+    static String initialOf(String foldedName) {
+        if (foldedName.isEmpty()) {
+            return "•";
+        }
+        int first = foldedName.codePointAt(0);
+        if (first >= '0' && first <= '9') {
+            return "#";
+        }
+        if (!Character.isLetter(first)) {
+            return "•";
+        }
+        return new String(Character.toChars(first)).toUpperCase(Locale.ROOT);
+    }
+
+    /** Index into {@link #SIZE_LABELS}; -1 for folders (size -1). */
+    private static int sizeBucket(long size) {
+        if (size < 0) {
+            return -1;
+        }
+        int bucket = 0;
+        while (size < SIZE_BOUNDS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private static String typeLabel(FileTypeClassifier.Category category) {
+        String name = category.name();
+        return name.length() <= 3 ? name : name.charAt(0) + name.substring(1).toLowerCase(Locale.ROOT); // PDF, APK stay upper-case
+    }
+}
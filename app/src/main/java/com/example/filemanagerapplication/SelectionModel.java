@@ -0,0 +1,137 @@
+package com.example.filemanagerapplication;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Which entries of a listing are selected, as one bit per entry index.
+ *
+ * Toggling and counting are O(1); select-all and range selection fill whole 64-bit words,
+ * so selecting 100k rows touches about 1.6k longs and hashes nothing. Entries are only turned
+ * back into files by {@link #materialize(List)}, when an operation actually runs. Indices
+ * are positions in the listing, not in the filtered or sorted rows shown, so they stay valid
+ * until another listing loads: call {@link #reset(int)} then.
+ */
+public final class SelectionModel {
+
+    private long[] words = new long[0];
+    private int size;
+    private int count;
+
+    /** Empties the selection and makes it cover {@code size} rows. */
+    public void reset(int size) {
+        this.size = size;
+        int needed = (size + 63) >>> 6;
+        if (words.length < needed || words.length > needed * 4 + 16) {
+            words = new long[needed]; // Grows, or shrinks after a huge folder
+        } else {
+            Arrays.fill(words, 0L);
+        }
+        count = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public boolean isSelected(int index) {
+        return index >= 0 && index < size && (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /** Returns the new state of {@code index}. */
+    public boolean toggle(int index) {
+        checkIndex(index);
+        long bit = 1L << index;
+        words[index >>> 6] ^= bit;
+        boolean selected = (words[index >>> 6] & bit) != 0;
+        count += selected ? 1 : -1;
+        return selected;
+    }
+
+    /** Selects or deselects one entry; returns true if that changed it. */
+    public boolean set(int index, boolean selected) {
+        checkIndex(index);
+        long bit = 1L << index;
+        long before = words[index >>> 6];
+        long after = selected ? before | bit : before & ~bit;
+        words[index >>> 6] = after;
+        count += Long.bitCount(after) - Long.bitCount(before);
+        return after != before;
+    }
+
+    public void selectAll() {
+        setRange(0, size, true);
+    }
+
+    public void clear() {
+        Arrays.fill(words, 0, (size + 63) >>> 6, 0L);
+        count = 0;
+    }
+
+    /** Selects (or deselects) rows {@code from} to {@code to}, end exclusive. */
+    public void setRange(int from, int to, boolean selected) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("range " + from + ".." + to + " of " + size);
+        }
+        if (from == to) {
+            return;
+        }
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        for (int w = first; w <= last; w++) {
+            long mask = -1L;
+            if (w == first) {
+                mask &= -1L << from; // Shifts are mod 64: this keeps bits from (from % 64) up
+            }
+            if (w == last) {
+                mask &= -1L >>> (-to & 63); // Keeps bits below (to % 64), or all of them
+            }
+            long before = words[w];
+            words[w] = selected ? before | mask : before & ~mask;
+            count += Long.bitCount(words[w]) - Long.bitCount(before);
+        }
+    }
+
+    /** Index of the first selected row at or after {@code from}, or -1. */
+    public int nextSelected(int from) {
+        if (from < 0) {
+            from = 0;
+        }
+        if (from >= size) {
+            return -1;
+        }
+        int w = from >>> 6;
+        long word = words[w] & (-1L << from);
+        int lastWord = (size - 1) >>> 6;
+        while (word == 0) {
+            if (++w > lastWord) {
+                return -1;
+            }
+            word = words[w];
+        }
+        int index = (w << 6) + Long.numberOfTrailingZeros(word);
+        return index < size ? index : -1;
+    }
+
+    /** The selected rows of {@code rows} (which this selection indexes), in list order. */
+    public <T> List<T> materialize(List<T> rows) {
+        List<T> selected = new ArrayList<>(count);
+        for (int i = nextSelected(0); i >= 0; i = nextSelected(i + 1)) {
+            if (i < rows.size()) {
+                selected.add(rows.get(i));
+            }
+        }
+        return selected;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("row " + index + " of " + size);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.filemanagerapplication;
+
+import java.io.File;
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * How a folder listing is ordered: by name (natural, so "file2" comes before "file10"),
+ * size, modified date or type, ascending or descending, optionally with folders first.
+ *
+ * Sorting never asks the file system or folds a name inside the comparator. A
+ * {@link ListingCache.Listing} computes its keys once per entry (folded names, sizes, mtimes)
+ * and its name order once; each mode then sorts one packed {@code long} per entry and returns
+ * a permutation, so changing the mode reorders the same snapshot. Large listings use
+ * {@link Arrays#parallelSort}.
+ */
+public final class SortMode {
+
+    public enum Key { NAME, SIZE, DATE, TYPE }
+
+    public static final SortMode DEFAULT = new SortMode(Key.NAME, false, true);
+
+    // Below this, fork/join costs more than it saves (the JDK's own parallel-sort granularity)
+    static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    public final Key key;
+    public final boolean descending;
+    public final boolean foldersFirst;
+
+    public SortMode(Key key, boolean descending, boolean foldersFirst) {
+        this.key = key;
+        this.descending = descending;
+        this.foldersFirst = foldersFirst;
+    }
+
+    public SortMode withFoldersFirst(boolean foldersFirst) {
+        return new SortMode(key, descending, foldersFirst);
+    }
+
+    /**
+     * Display order of {@code listing}: indices into its arrays. Computes missing keys (stats for
+     * size/date). Each entry gets one {@code long} packing its group (folders first), its rank
+     * under the mode's key and its rank in name order; a primitive sort of those replaces a
+     * comparator over boxed indices.
+     */
+    public int[] order(ListingCache.Listing listing) {
+        int n = listing.files.length;
+        int[] byName = listing.nameOrder();
+        int[] nameRanks = listing.nameRanks();
+        int[] primary = key == Key.NAME ? null : primaryRanks(listing);
+        int maxPrimary = 0;
+        if (primary != null) {
+            for (int rank : primary) {
+                maxPrimary = Math.max(maxPrimary, rank);
+            }
+        }
+        boolean reverseNames = descending && key == Key.NAME; // Ties on size, date or type stay A to Z
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            long group = foldersFirst && listing.categories[i] != FileTypeClassifier.Category.FOLDER ? 1 : 0;
+            long rank = primary == null ? 0 : descending ? maxPrimary - primary[i] : primary[i];
+            long name = reverseNames ? n - 1 - nameRanks[i] : nameRanks[i];
+            keys[i] = group << 62 | rank << 31 | name;
+        }
+        if (n >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSort(keys);
+        } else {
+            Arrays.sort(keys);
+        }
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            int name = (int) (keys[i] & Integer.MAX_VALUE);
+            order[i] = byName[reverseNames ? n - 1 - name : name];
+        }
+        return order;
+    }
+
+    /** Dense rank of each entry under {@link #key} (SIZE, DATE or TYPE), ascending; equal keys share a rank. */
+    private int[] primaryRanks(ListingCache.Listing listing) {
+        if (key == Key.TYPE) {
+            String[] extensions = listing.extensionKeys();
+            Map<String, Integer> extensionRanks = new HashMap<>();
+            for (String extension : extensions) {
+                extensionRanks.put(extension, 0);
+            }
+            String[] distinct = extensionRanks.keySet().toArray(new String[0]);
+            Arrays.sort(distinct, SortMode::compareNatural); // A handful of strings
+            for (int i = 0; i < distinct.length; i++) {
+                extensionRanks.put(distinct[i], i);
+            }
+            int[] ranks = new int[extensions.length];
+            for (int i = 0; i < ranks.length; i++) {
+                ranks[i] = listing.categories[i].ordinal() * distinct.length + extensionRanks.get(extensions[i]);
+            }
+            return ranks;
+        }
+        long[] values = key == Key.SIZE ? listing.sizes() : listing.mtimes();
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[distinct - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        int[] ranks = new int[values.length];
+        for (int i = 0; i < ranks.length; i++) {
+            ranks[i] = Arrays.binarySearch(sorted, 0, distinct, values[i]);
+        }
+        return ranks;
+    }
+
+    /**
+     * Indices of {@code files} in natural order of their folded {@code names}; names that fold
+     * alike order by their exact spelling. Compares precomputed {@link #collationKey}s.
+     */
+    static int[] naturalOrder(String[] names, File[] files) {
+        int n = names.length;
+        String[] keys = new String[n];
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = collationKey(names[i]);
+            order[i] = i;
+        }
+        sortIndices(order, (a, b) -> {
+            int c = keys[a].compareTo(keys[b]);
+            return c != 0 ? c : files[a].getName().compareTo(files[b].getName()); // Differ only by case or accents
+        });
+        return order;
+    }
+
+    /** Sorts {@code files} by natural name order, folding each name once; for short lists like the folder picker's. */
+    public static void sortByName(List<File> files) {
+        int n = files.size();
+        File[] array = files.toArray(new File[0]);
+        String[] names = new String[n];
+        for (int i = 0; i < n; i++) {
+            names[i] = foldName(array[i].getName());
+        }
+        int[] order = naturalOrder(names, array);
+        for (int i = 0; i < n; i++) {
+            files.set(i, array[order[i]]);
+        }
+    }
+
+    /**
+     * A string whose plain {@link String#compareTo} order is the {@link #compareNatural} order of
+     * {@code folded}. Each run of digits becomes '0' (any digit compares the same way against a
+     * non-digit), the number of significant digits, the significant digits and the number of
+     * leading zeros, the last two counts as chars offset by one. Names without digits are
+     * returned as they are.
+     */
+    static String collationKey(String folded) {
+        int length = folded.length();
+        int first = 0;
+        while (first < length && !isDigit(folded.charAt(first))) {
+            first++;
+        }
+        if (first == length) {
+            return folded;
+        }
+        StringBuilder key = new StringBuilder(length + 8).append(folded, 0, first);
+        int i = first;
+        while (i < length) {
+            char c = folded.charAt(i);
+            if (!isDigit(c)) {
+                key.append(c);
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && folded.charAt(i) == '0') i++;
+            int value = i;
+            while (i < length && isDigit(folded.charAt(i))) i++;
+            key.append('0').append((char) (i - value + 1)).append(folded, value, i).append((char) (value - start + 1));
+        }
+        return key.toString();
+    }
+
+    /** Stable merge sort of {@code indices} by {@code comparator}, without boxing them. */
+    static void sortIndices(int[] indices, IntBinaryOperator comparator) {
+        mergeSort(indices.clone(), indices, 0, indices.length, comparator);
+    }
+
+    // src and dest hold the same values in [low, high) on entry; the sorted run ends up in dest
+    private static void mergeSort(int[] src, int[] dest, int low, int high, IntBinaryOperator comparator) {
+        if (high - low < 16) {
+            for (int i = low + 1; i < high; i++) {
+                for (int j = i; j > low && comparator.applyAsInt(dest[j - 1], dest[j]) > 0; j--) {
+                    int swap = dest[j];
+                    dest[j] = dest[j - 1];
+                    dest[j - 1] = swap;
+                }
+            }
+            return;
+        }
+        int mid = (low + high) >>> 1;
+        mergeSort(dest, src, low, mid, comparator);
+        mergeSort(dest, src, mid, high, comparator);
+        if (comparator.applyAsInt(src[mid - 1], src[mid]) <= 0) {
+            System.arraycopy(src, low, dest, low, high - low); // Already in order
+            return;
+        }
+        for (int i = low, p = low, q = mid; i < high; i++) {
+            if (q >= high || p < mid && comparator.applyAsInt(src[p], src[q]) <= 0) {
+                dest[i] = src[p++];
+            } else {
+                dest[i] = src[q++];
+            }
+        }
+    }
+
+    /**
+     * Lower-cased name with accents removed ("Ảnh Đẹp.JPG" becomes "anh dep.jpg"), the form
+     * names are compared and filtered in. ASCII names only get lower-cased.
+     */
+    public static String foldName(String name) {
+        boolean ascii = true;
+        for (int i = 0; i < name.length() && ascii; i++) {
+            ascii = name.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            return name.toLowerCase(Locale.ROOT);
+        }
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            folded.append(c == 'Đ' || c == 'đ' ? 'd' : c); // Đ has no decomposition
+        }
+        return folded.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Compares folded names with runs of ASCII digits compared by value, so "img9" sorts
+     * before "img10". Equal values with different zero padding ("7" and "007") order by padding.
+     */
+    public static int compareNatural(String a, String b) {
+        int i = 0;
+        int j = 0;
+        int lengthA = a.length();
+        int lengthB = b.length();
+        while (i < lengthA && j < lengthB) {
+            char ca = a.charAt(i);
+            char cb = b.charAt(j);
+            if (isDigit(ca) && isDigit(cb)) {
+                int startA = i;
+                int startB = j;
+                while (i < lengthA && a.charAt(i) == '0') i++;
+                while (j < lengthB && b.charAt(j) == '0') j++;
+                int valueA = i;
+                int valueB = j;
+                while (i < lengthA && isDigit(a.charAt(i))) i++;
+                while (j < lengthB && isDigit(b.charAt(j))) j++;
+                int digitsA = i - valueA;
+                int digitsB = j - valueB;
+                if (digitsA != digitsB) {
+                    return digitsA < digitsB ? -1 : 1; // Fewer significant digits: smaller number
+                }
+                for (int k = 0; k < digitsA; k++) {
+                    char da = a.charAt(valueA + k);
+                    char db = b.charAt(valueB + k);
+                    if (da != db) {
+                        return da < db ? -1 : 1;
+                    }
+                }
+                int paddingA = valueA - startA;
+                int paddingB = valueB - startB;
+                if (paddingA != paddingB) {
+                    return paddingA < paddingB ? -1 : 1;
+                }
+                continue;
+            }
+            if (ca != cb) {
+                return ca < cb ? -1 : 1;
+            }
+            i++;
+            j++;
+        }
+        return Integer.compare(lengthA - i, lengthB - j);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /** Compact form for saved instance state, e.g. "SIZE,desc,folders". */
+    public String encode() {
+        return key.name() + (descending ? ",desc" : ",asc") + (foldersFirst ? ",folders" : ",mixed");
+    }
+
+    /** Inverse of {@link #encode()}; {@link #DEFAULT} for null or unknown input. */
+    public static SortMode decode(String encoded) {
+        if (encoded == null) {
+            return DEFAULT;
+        }
+        String[] parts = encoded.split(",");
+        if (parts.length != 3) {
+            return DEFAULT;
+        }
+        try {
+            return new SortMode(Key.valueOf(parts[0]), "desc".equals(parts[1]), "folders".equals(parts[2]));
+        } catch (IllegalArgumentException e) {
+            return DEFAULT;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof SortMode)) {
+            return false;
+        }
+        SortMode other = (SortMode) o;
+        return key == other.key && descending == other.descending && foldersFirst == other.foldersFirst;
+    }
+
+    @Override
+    public int hashCode() {
+        return key.hashCode() * 4 + (descending ? 2 : 0) + (foldersFirst ? 1 : 0);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.filemanagerapplication;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.Environment;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import java.io.File;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Lists the storage root, where the app opens, at process start, while the first activity is
+ * still inflating its layout.
+ *
+ * {@link #start} runs from {@link FileManagerApplication#onCreate} and lists, classifies and
+ * sorts (default order) the folder on its own thread. The first {@link FileListActivity} to
+ * read that folder takes the result through {@link #take}, waiting for it if the listing is
+ * still running instead of listing the folder a second time. A listing saved by the last run
+ * ({@link ListingStore}) is used when the folder is unchanged. The listing also goes into
+ * {@link ListingCache}. Nothing is read without storage permission.
+ *
+ * Also records {@link #METRIC_FIRST_ROW}: time from process start to the first rows on screen.
+ */
+public final class StartupPrefetch {
+
+    private static final String TAG = "StartupPrefetch";
+    public static final String METRIC_FIRST_ROW = "startup.time_to_first_row";
+    public static final String METRIC_PREFETCH = "startup.prefetch_listing";
+
+    // Guarded by StartupPrefetch.class
+    private static String pendingPath;
+    private static FutureTask<ListingCache.Listing> pending;
+    private static boolean firstRowRecorded; // Main thread only
+
+    private StartupPrefetch() {
+    }
+
+    /** Starts listing the storage root in the background; call once, from the main thread. */
+    public static void start(Context context) {
+        Context appContext = context.getApplicationContext();
+        File root = Environment.getExternalStorageDirectory(); // Path only, no stat
+        FutureTask<ListingCache.Listing> task = new FutureTask<>(() -> prefetch(appContext, root));
+        synchronized (StartupPrefetch.class) {
+            pendingPath = root.getAbsolutePath();
+            pending = task;
+        }
+        new Thread(task, "startup-prefetch").start(); // Default priority: the first screen waits for it
+    }
+
+    private static ListingCache.Listing prefetch(Context context, File directory) {
+        if (!canReadStorage(context)) {
+            return null; // FileListActivity asks for permission and lists the folder itself
+        }
+        long start = System.nanoTime();
+        ListingStore store = ListingStore.get(context);
+        ListingCache.Listing listing = store.load(directory); // Saved by the last run, if unchanged
+        if (listing == null) {
+            listing = ListingCache.list(directory);
+            if (listing == null) {
+                return null;
+            }
+            store.save(directory, listing);
+        }
+        listing.orderFor(SortMode.DEFAULT); // Also folds the names, which the filter reuses
+        ListingCache.get().put(directory, listing);
+        PerfMetrics.recordSince(METRIC_PREFETCH, start);
+        return listing;
+    }
+
+    private static boolean canReadStorage(Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R && Environment.isExternalStorageManager()) {
+            return true;
+        }
+        return ContextCompat.checkSelfPermission(context, Manifest.permission.READ_EXTERNAL_STORAGE) == PackageManager.PERMISSION_GRANTED;
+    }
+
+    /**
+     * The listing of {@code directory} prefetched at start, waiting for it if it is still
+     * running. Only the first call of the process can get it; later loads find it in
+     * {@link ListingCache}. Null for any other folder, when nothing was prefetched, or when the
+     * folder changed since. May block: call off the main thread.
+     */
+    public static ListingCache.Listing take(File directory) {
+        FutureTask<ListingCache.Listing> task;
+        synchronized (StartupPrefetch.class) {
+            task = pending;
+            pending = null;
+            if (task == null || !pendingPath.equals(directory.getAbsolutePath())) {
+                return null;
+            }
+        }
+        ListingCache.Listing listing;
+        try {
+            listing = task.get();
+        } catch (ExecutionException e) {
+            Log.w(TAG, "Prefetch of " + directory + " failed", e.getCause());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        if (listing == null || listing.directoryMtime != directory.lastModified()) {
+            return null; // Changed since: list it again
+        }
+        return listing;
+    }
+
+    /** Records {@link #METRIC_FIRST_ROW} the first time rows are shown in this process; main thread. */
+    public static void onRowsShown() {
+        if (firstRowRecorded) {
+            return;
+        }
+        firstRowRecorded = true;
+        PerfMetrics.record(METRIC_FIRST_ROW, SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime());
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.filemanagerapplication;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recursive folder sizes and file counts, for "what is using my storage".
+ *
+ * Every folder is one {@link RecursiveTask} on a {@link ForkJoinPool}, so subtrees are
+ * summed in parallel. What a folder directly contains (bytes and count of its files, names
+ * of its subfolders) is cached under the folder's mtime, which changes whenever an entry is
+ * added, removed or renamed in it. Re-analysis therefore costs one stat per folder; only
+ * folders whose mtime moved are listed again. A file rewritten in place does not touch its
+ * folder's mtime, so such growth shows up after {@link #clearCache()} or once the folder
+ * changes. The cache is saved to disk between runs and only keeps the folders of the last
+ * finished analysis: folders that were deleted, or that lie outside the analyzed root, are
+ * dropped before saving.
+ */
+public class StorageAnalyzer {
+
+    private static final String TAG = "StorageAnalyzer";
+    static final String METRIC_ANALYZE = "storage.analyze";
+    private static final int CACHE_VERSION = 1;
+
+    /** Totals of one folder and its subtree; children are sorted largest first. */
+    public static final class Node {
+        public final File dir;
+        public final long ownBytes;
+        public final int ownFiles;
+        public final List<Node> children;
+        public final long totalBytes;
+        public final int totalFiles;
+
+        Node(File dir, long ownBytes, int ownFiles, List<Node> children) {
+            this.dir = dir;
+            this.ownBytes = ownBytes;
+            this.ownFiles = ownFiles;
+            this.children = children;
+            long bytes = ownBytes;
+            int files = ownFiles;
+            for (Node child : children) {
+                bytes += child.totalBytes;
+                files += child.totalFiles;
+            }
+            this.totalBytes = bytes;
+            this.totalFiles = files;
+        }
+    }
+
+    /** Called from pool threads. */
+    public interface ProgressListener {
+        void onProgress(int foldersDone);
+    }
+
+    /** What a folder directly contains, valid while its mtime is {@link #mtime}. */
+    private static final class CacheEntry {
+        final long mtime;
+        final long ownBytes;
+        final int ownFiles;
+        final String[] childDirs;
+
+        CacheEntry(long mtime, long ownBytes, int ownFiles, String[] childDirs) {
+            this.mtime = mtime;
+            this.ownBytes = ownBytes;
+            this.ownFiles = ownFiles;
+            this.childDirs = childDirs;
+        }
+    }
+
+    private static StorageAnalyzer instance;
+
+    /** Process-wide analyzer, so the cache outlives the activity showing it. */
+    public static synchronized StorageAnalyzer get(Context context) {
+        if (instance == null) {
+            instance = new StorageAnalyzer(new File(MainThreadIoGuard.privateDir(context, "cache"), "storage_sizes.cache"));
+        }
+        return instance;
+    }
+
+    private final File cacheFile;
+    private final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    private final ForkJoinPool pool = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    private boolean cacheLoaded; // Guarded by this
+
+    StorageAnalyzer(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * Blocks until the tree below {@code root} is summed; call it from a background thread.
+     * If {@code handle} is cancelled the unfinished folders count as empty.
+     */
+    public synchronized Node analyze(File root, FileSearcher.Handle handle, ProgressListener progress) {
+        if (!cacheLoaded) {
+            loadCache();
+            cacheLoaded = true;
+        }
+        long start = System.nanoTime();
+        Run run = new Run(handle, progress);
+        Node node = pool.invoke(new FolderTask(root, run));
+        long millis = PerfMetrics.recordSince(METRIC_ANALYZE, start);
+        Log.d(TAG, "Analyzed " + root + ": " + run.listed.get() + " folders listed, "
+                + run.reused.get() + " from cache, " + millis + " ms");
+        if (!handle.isCancelled()) {
+            // A cancelled run has not seen every folder, so only a finished one may prune
+            int before = cache.size();
+            cache.keySet().retainAll(run.seen);
+            if (run.listed.get() > 0 || cache.size() != before) {
+                saveCache();
+            }
+        }
+        return node;
+    }
+
+    /** Number of folders in the cache, for tests. */
+    synchronized int cachedFolders() {
+        return cache.size();
+    }
+
+    public void clearCache() {
+        cache.clear();
+        if (cacheFile.exists() && !cacheFile.delete()) {
+            Log.w(TAG, "Could not delete " + cacheFile);
+        }
+    }
+
+    private static final class Run {
+        final FileSearcher.Handle handle;
+        final ProgressListener progress;
+        final AtomicInteger listed = new AtomicInteger();
+        final AtomicInteger reused = new AtomicInteger();
+        final Set<String> seen = ConcurrentHashMap.newKeySet();
+
+        Run(FileSearcher.Handle handle, ProgressListener progress) {
+            this.handle = handle;
+            this.progress = progress;
+        }
+    }
+
+    private final class FolderTask extends RecursiveTask<Node> {
+        private static final long serialVersionUID = 1L; // ForkJoinTask is Serializable; tasks are never serialized
+
+        private final File dir;
+        private final Run run;
+
+        FolderTask(File dir, Run run) {
+            this.dir = dir;
+            this.run = run;
+        }
+
+        @Override
+        protected Node compute() {
+            if (run.handle.isCancelled()) {
+                return new Node(dir, 0, 0, Collections.emptyList());
+            }
+            CacheEntry entry = contentsOf(dir);
+            List<FolderTask> tasks = new ArrayList<>(entry.childDirs.length);
+            for (String name : entry.childDirs) {
+                tasks.add(new FolderTask(new File(dir, name), run));
+            }
+            invokeAll(tasks);
+            List<Node> children = new ArrayList<>(tasks.size());
+            for (FolderTask task : tasks) {
+                children.add(task.join());
+            }
+            Collections.sort(children, (a, b) -> Long.compare(b.totalBytes, a.totalBytes));
+            int done = run.listed.get() + run.reused.get();
+            if (run.progress != null && done % 64 == 0) {
+                run.progress.onProgress(done);
+            }
+            return new Node(dir, entry.ownBytes, entry.ownFiles, children);
+        }
+
+        private CacheEntry contentsOf(File dir) {
+            String path = dir.getAbsolutePath();
+            long mtime = dir.lastModified();
+            run.seen.add(path);
+            CacheEntry cached = cache.get(path);
+            if (cached != null && mtime != 0 && cached.mtime == mtime) {
+                run.reused.incrementAndGet();
+                return cached;
+            }
+            run.listed.incrementAndGet();
+            long[] ownBytes = {0};
+            int[] ownFiles = {0};
+            List<String> childDirs = new ArrayList<>();
+            try {
+                // Links are skipped: a linked folder would be counted twice, or forever
+                new TreeWalker(TreeWalker.SymlinkPolicy.SKIP).walk(dir, new TreeWalker.SimpleVisitor() {
+                    @Override
+                    public TreeWalker.Action preVisitDirectory(TreeWalker.Entry child) {
+                        if (child.getDepth() == 0) {
+                            return TreeWalker.Action.CONTINUE;
+                        }
+                        childDirs.add(child.getFile().getName());
+                        return TreeWalker.Action.SKIP_SUBTREE;
+                    }
+
+                    @Override
+                    public TreeWalker.Action visitFile(TreeWalker.Entry file) {
+                        if (file.isRegularFile()) {
+                            ownBytes[0] += file.getSize();
+                            ownFiles[0]++;
+                        }
+                        return TreeWalker.Action.CONTINUE;
+                    }
+
+                    @Override
+                    public TreeWalker.Action visitFailed(File file, TreeWalker.Entry entry, IOException error) {
+                        return TreeWalker.Action.CONTINUE; // Unreadable folders count as empty
+                    }
+                });
+            } catch (IOException | RuntimeException e) {
+                Log.w(TAG, "Could not list " + path, e);
+            }
+            CacheEntry entry = new CacheEntry(mtime, ownBytes[0], ownFiles[0], childDirs.toArray(new String[0]));
+            if (mtime != 0) {
+                cache.put(path, entry);
+            }
+            return entry;
+        }
+    }
+
+    private void loadCache() {
+        if (!cacheFile.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (in.readInt() != CACHE_VERSION) {
+                return;
+            }
+            while (true) {
+                String path = in.readUTF();
+                long mtime = in.readLong();
+                long ownBytes = in.readLong();
+                int ownFiles = in.readInt();
+                String[] childDirs = new String[in.readInt()];
+                for (int i = 0; i < childDirs.length; i++) {
+                    childDirs[i] = in.readUTF();
+                }
+                cache.put(path, new CacheEntry(mtime, ownBytes, ownFiles, childDirs));
+            }
+        } catch (EOFException end) {
+            // Whole file read (a torn last record is dropped)
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read size cache", e);
+        }
+    }
+
+    private void saveCache() {
+        File tmp = new File(cacheFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(CACHE_VERSION);
+            for (Map.Entry<String, CacheEntry> e : cache.entrySet()) {
+                CacheEntry entry = e.getValue();
+                out.writeUTF(e.getKey());
+                out.writeLong(entry.mtime);
+                out.writeLong(entry.ownBytes);
+                out.writeInt(entry.ownFiles);
+                out.writeInt(entry.childDirs.length);
+                for (String name : entry.childDirs) {
+                    out.writeUTF(name);
+                }
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Could not save size cache", e);
+            return;
+        }
+        if (!tmp.renameTo(cacheFile)) {
+            Log.w(TAG, "Could not replace " + cacheFile);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.filemanagerapplication;
+
+import android.app.ProgressDialog;
+import android.content.DialogInterface;
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.format.Formatter;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Phân tích dung lượng: kích thước đệ quy của từng thư mục con, lớn nhất trước.
+ *
+ * The whole tree is summed once by {@link StorageAnalyzer}; drilling down and back up
+ * only moves through the in-memory result. A long press opens the folder in
+ * {@link FileListActivity}.
+ */
+public class StorageAnalyzerActivity extends AppCompatActivity implements StorageNodeAdapter.OnNodeClickListener {
+
+    public static final String EXTRA_ROOT_PATH = "path";
+
+    private TextView pathTextView;
+    private StorageNodeAdapter adapter;
+    private Handler mainThreadHandler;
+    private ExecutorService executorService;
+    private FileSearcher.Handle analysis;
+    private ProgressDialog progressDialog;
+    private final Deque<StorageAnalyzer.Node> shownNodes = new ArrayDeque<>(); // Top is the folder on screen
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_storage);
+
+        pathTextView = findViewById(R.id.storage_path_text_view);
+        RecyclerView recyclerView = findViewById(R.id.storage_recycler_view);
+        mainThreadHandler = new Handler(Looper.getMainLooper());
+        executorService = Executors.newSingleThreadExecutor();
+
+        adapter = new StorageNodeAdapter(this, this);
+        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        recyclerView.setAdapter(adapter);
+
+        String path = getIntent().getStringExtra(EXTRA_ROOT_PATH);
+        File root = new File(path != null ? path : "/");
+        setTitle("Storage: " + root.getName());
+        analyze(root);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (analysis != null) {
+            analysis.cancel();
+        }
+        if (progressDialog != null && progressDialog.isShowing()) {
+            progressDialog.dismiss();
+        }
+        executorService.shutdown();
+    }
+
+    private void analyze(File root) {
+        FileSearcher.Handle handle = new FileSearcher.Handle();
+        analysis = handle;
+        progressDialog = new ProgressDialog(this);
+        progressDialog.setTitle("Analyzing storage");
+        progressDialog.setMessage("Scanning folders...");
+        progressDialog.setCancelable(false);
+        progressDialog.setButton(DialogInterface.BUTTON_NEGATIVE, "Cancel", (dialog, which) -> {
+            handle.cancel();
+            finish();
+        });
+        progressDialog.show();
+
+        StorageAnalyzer analyzer = StorageAnalyzer.get(this);
+        executorService.execute(() -> {
+            StorageAnalyzer.Node node = analyzer.analyze(root, handle, done -> mainThreadHandler.post(() -> {
+                if (progressDialog != null && progressDialog.isShowing()) {
+                    progressDialog.setMessage("Scanned " + done + " folders...");
+                }
+            }));
+            long millis = (System.nanoTime() - handle.getStartNanos()) / 1_000_000;
+            mainThreadHandler.post(() -> {
+                if (isFinishing() || isDestroyed()) {
+                    return;
+                }
+                if (progressDialog != null && progressDialog.isShowing()) {
+                    progressDialog.dismiss();
+                }
+                progressDialog = null;
+                setTitle(String.format(Locale.US, "Storage: %s (%d ms)", root.getName(), millis));
+                show(node);
+            });
+        });
+    }
+
+    private void show(StorageAnalyzer.Node node) {
+        shownNodes.push(node);
+        pathTextView.setText(node.dir.getAbsolutePath() + "\n"
+                + Formatter.formatShortFileSize(this, node.totalBytes)
+                + String.format(Locale.US, " in %,d files", node.totalFiles));
+        adapter.setNode(node);
+    }
+
+    @Override
+    public void onNodeClick(StorageAnalyzer.Node node) {
+        show(node);
+    }
+
+    @Override
+    public void onNodeLongClick(StorageAnalyzer.Node node) {
+        Intent intent = new Intent(this, FileListActivity.class);
+        intent.putExtra("path", node.dir.getAbsolutePath());
+        startActivity(intent);
+    }
+
+    @Override
+    public void onBackPressed() {
+        if (shownNodes.size() > 1) {
+            shownNodes.pop();
+            StorageAnalyzer.Node parent = shownNodes.pop();
+            show(parent); // Pushes it back
+            return;
+        }
+        super.onBackPressed();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.filemanagerapplication;
+
+import android.content.Context;
+import android.text.format.Formatter;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Adapter cho màn hình phân tích dung lượng: các thư mục con (lớn nhất trước) và một dòng
+ * cho các file nằm trực tiếp trong thư mục, mỗi dòng có thanh tỷ lệ so với thư mục cha.
+ */
+public class StorageNodeAdapter extends RecyclerView.Adapter<StorageNodeAdapter.ViewHolder> {
+
+    interface OnNodeClickListener {
+        void onNodeClick(StorageAnalyzer.Node node);
+
+        void onNodeLongClick(StorageAnalyzer.Node node);
+    }
+
+    /** A subfolder, or (node == null) the files directly inside the shown folder. */
+    private static final class Row {
+        final StorageAnalyzer.Node node;
+        final long bytes;
+        final int files;
+
+        Row(StorageAnalyzer.Node node, long bytes, int files) {
+            this.node = node;
+            this.bytes = bytes;
+            this.files = files;
+        }
+    }
+
+    private final Context context;
+    private final OnNodeClickListener listener;
+    private final List<Row> rows = new ArrayList<>();
+    private long parentBytes;
+
+    public StorageNodeAdapter(Context context, OnNodeClickListener listener) {
+        this.context = context;
+        this.listener = listener;
+    }
+
+    public void setNode(StorageAnalyzer.Node parent) {
+        rows.clear();
+        parentBytes = parent.totalBytes;
+        boolean filesAdded = parent.ownFiles == 0;
+        for (StorageAnalyzer.Node child : parent.children) {
+            if (!filesAdded && parent.ownBytes >= child.totalBytes) {
+                rows.add(new Row(null, parent.ownBytes, parent.ownFiles));
+                filesAdded = true;
+            }
+            rows.add(new Row(child, child.totalBytes, child.totalFiles));
+        }
+        if (!filesAdded) {
+            rows.add(new Row(null, parent.ownBytes, parent.ownFiles));
+        }
+        notifyDataSetChanged();
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(context).inflate(R.layout.storage_item, parent, false);
+        return new ViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        Row row = rows.get(position);
+        int permille = parentBytes > 0 ? (int) (row.bytes * 1000 / parentBytes) : 0;
+        holder.nameTextView.setText(row.node != null ? row.node.dir.getName() : "(files in this folder)");
+        holder.detailTextView.setText(String.format(Locale.US, "%s · %,d files · %.1f%%",
+                Formatter.formatShortFileSize(context, row.bytes), row.files, permille / 10.0));
+        holder.shareBar.setProgress(permille);
+        holder.iconView.setImageResource(row.node != null
+                ? R.drawable.ic_baseline_folder_24
+                : R.drawable.ic_baseline_insert_drive_file_24);
+        if (row.node != null) {
+            holder.itemView.setOnClickListener(v -> listener.onNodeClick(row.node));
+            holder.itemView.setOnLongClickListener(v -> {
+                listener.onNodeLongClick(row.node);
+                return true;
+            });
+        } else {
+            holder.itemView.setOnClickListener(null);
+            holder.itemView.setOnLongClickListener(null);
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return rows.size();
+    }
+
+    public static class ViewHolder extends RecyclerView.ViewHolder {
+        final ImageView iconView;
+        final TextView nameTextView;
+        final TextView detailTextView;
+        final ProgressBar shareBar;
+
+        public ViewHolder(View itemView) {
+            super(itemView);
+            iconView = itemView.findViewById(R.id.storage_icon_view);
+            nameTextView = itemView.findViewById(R.id.storage_name_text_view);
+            detailTextView = itemView.findViewById(R.id.storage_detail_text_view);
+            shareBar = itemView.findViewById(R.id.storage_share_bar);
+        }
+    }
+}
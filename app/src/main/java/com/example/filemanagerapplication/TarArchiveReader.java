@@ -0,0 +1,279 @@
+package com.example.filemanagerapplication;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sequential tar reader, used like {@link java.util.zip.ZipInputStream}: call
+ * {@link #getNextEntry()}, then {@link #read(byte[], int, int)} until it returns -1.
+ *
+ * Understands ustar (name prefix), GNU long names ('L') and PAX extended headers ('x')
+ * for path and size. Works on any stream, e.g. a {@link java.util.zip.GZIPInputStream}
+ * for .tar.gz, so nothing is staged to disk.
+ */
+public class TarArchiveReader extends InputStream {
+
+    private static final int BLOCK_SIZE = TarArchiveWriter.BLOCK_SIZE;
+
+    /** One archive member. Only regular files carry data. */
+    public static final class Entry {
+        private final String name;
+        private final long size;
+        private final long lastModified;
+        private final char type;
+
+        Entry(String name, long size, long lastModified, char type) {
+            this.name = name;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.type = type;
+        }
+
+        public String getName() { return name; }
+        public long getSize() { return size; }
+        public long getLastModified() { return lastModified; }
+        public boolean isDirectory() { return type == '5' || name.endsWith("/"); }
+        /** Regular file ('0', old-style NUL, or contiguous '7'); links and devices are not. */
+        public boolean isFile() { return !isDirectory() && (type == '0' || type == 0 || type == '7'); }
+    }
+
+    private final InputStream in;
+    private final byte[] header = new byte[BLOCK_SIZE];
+    private long entryRemaining;
+    private long entryPadding;
+    private boolean finished;
+
+    public TarArchiveReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Skips whatever is left of the current entry and reads the next header.
+     *
+     * @return the next entry, or null at the end of the archive.
+     */
+    public Entry getNextEntry() throws IOException {
+        if (finished) {
+            return null;
+        }
+        skipFully(entryRemaining + entryPadding);
+        entryRemaining = 0;
+        entryPadding = 0;
+
+        String longName = null;
+        long paxSize = -1;
+        while (true) {
+            if (!readBlock(header)) {
+                finished = true;
+                return null;
+            }
+            if (isZeroBlock(header)) {
+                finished = true; // End-of-archive marker
+                return null;
+            }
+            verifyChecksum(header);
+            char type = (char) header[156];
+            long size = parseNumber(header, 124, 12);
+
+            if (type == 'L' || type == 'x' || type == 'g') {
+                byte[] data = readData(size);
+                if (type == 'L') {
+                    longName = trimNul(new String(data, StandardCharsets.UTF_8));
+                } else if (type == 'x') {
+                    String[] pax = parsePax(data);
+                    if (pax[0] != null) longName = pax[0];
+                    if (pax[1] != null) paxSize = Long.parseLong(pax[1]);
+                }
+                continue; // Metadata applies to the header that follows
+            }
+
+            String name = longName != null ? longName : headerName(header);
+            if (paxSize >= 0) {
+                size = paxSize;
+            }
+            long lastModified = parseNumber(header, 136, 12) * 1000;
+            Entry entry = new Entry(name, size, lastModified, type);
+            // Only regular files have a data section; directories and links report size 0 or ignore it.
+            long dataSize = (type == '5' || type == '1' || type == '2' || type == '3' || type == '4' || type == '6') ? 0 : size;
+            entryRemaining = dataSize;
+            entryPadding = padding(dataSize);
+            return entry;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (entryRemaining <= 0) {
+            return -1;
+        }
+        int n = in.read(buffer, offset, (int) Math.min(length, entryRemaining));
+        if (n == -1) {
+            throw new EOFException("Truncated tar entry");
+        }
+        entryRemaining -= n;
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // --- Parsing helpers ---
+
+    private static String headerName(byte[] header) {
+        String name = cString(header, 0, 100);
+        boolean ustar = header[257] == 'u' && header[258] == 's' && header[259] == 't'
+                && header[260] == 'a' && header[261] == 'r';
+        if (ustar) {
+            String prefix = cString(header, 345, 155);
+            if (!prefix.isEmpty()) {
+                name = prefix + "/" + name;
+            }
+        }
+        return name;
+    }
+
+    /** Returns {path, size} from PAX records, either element may be null. */
+    private static String[] parsePax(byte[] data) throws IOException {
+        String[] result = new String[2];
+        int pos = 0;
+        while (pos < data.length) {
+            int space = pos;
+            while (space < data.length && data[space] != ' ') space++;
+            if (space >= data.length) break;
+            int length;
+            try {
+                length = Integer.parseInt(new String(data, pos, space - pos, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed PAX header", e);
+            }
+            if (length <= 0 || pos + length > data.length) {
+                throw new IOException("Malformed PAX record length");
+            }
+            String record = new String(data, space + 1, pos + length - space - 2, StandardCharsets.UTF_8);
+            int equals = record.indexOf('=');
+            if (equals > 0) {
+                String key = record.substring(0, equals);
+                String value = record.substring(equals + 1);
+                if (key.equals("path")) result[0] = value;
+                else if (key.equals("size")) result[1] = value;
+            }
+            pos += length;
+        }
+        return result;
+    }
+
+    /** Octal field, or GNU base-256 when the high bit of the first byte is set. */
+    private static long parseNumber(byte[] header, int offset, int length) throws IOException {
+        if ((header[offset] & 0x80) != 0) {
+            long value = header[offset] & 0x7F;
+            for (int i = 1; i < length; i++) {
+                value = (value << 8) | (header[offset + i] & 0xFF);
+            }
+            return value;
+        }
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = header[i];
+            if (b == 0 || b == ' ') {
+                if (value != 0) break;
+                continue;
+            }
+            if (b < '0' || b > '7') {
+                throw new IOException("Invalid octal number in tar header");
+            }
+            value = (value << 3) + (b - '0');
+        }
+        return value;
+    }
+
+    private static void verifyChecksum(byte[] header) throws IOException {
+        long expected = parseNumber(header, 148, 8);
+        long actual = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            actual += (i >= 148 && i < 156) ? ' ' : (header[i] & 0xFF);
+        }
+        if (expected != actual) {
+            throw new IOException("Tar header checksum mismatch");
+        }
+    }
+
+    private static String cString(byte[] bytes, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && bytes[end] != 0) end++;
+        return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static String trimNul(String value) {
+        int nul = value.indexOf('\0');
+        return nul >= 0 ? value.substring(0, nul) : value;
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) return false;
+        }
+        return true;
+    }
+
+    private static long padding(long size) {
+        long remainder = size % BLOCK_SIZE;
+        return remainder == 0 ? 0 : BLOCK_SIZE - remainder;
+    }
+
+    private byte[] readData(long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Tar metadata entry too large");
+        }
+        ByteArrayOutputStream data = new ByteArrayOutputStream((int) size);
+        byte[] block = new byte[BLOCK_SIZE];
+        long remaining = size;
+        while (remaining > 0) {
+            if (!readBlock(block)) {
+                throw new EOFException("Truncated tar metadata entry");
+            }
+            data.write(block, 0, (int) Math.min(BLOCK_SIZE, remaining));
+            remaining -= BLOCK_SIZE;
+        }
+        return data.toByteArray();
+    }
+
+    /** Reads one full block; returns false on a clean end of stream. */
+    private boolean readBlock(byte[] block) throws IOException {
+        int total = 0;
+        while (total < BLOCK_SIZE) {
+            int n = in.read(block, total, BLOCK_SIZE - total);
+            if (n == -1) {
+                if (total == 0) return false;
+                throw new EOFException("Truncated tar header");
+            }
+            total += n;
+        }
+        return true;
+    }
+
+    private void skipFully(long count) throws IOException {
+        byte[] scratch = null;
+        while (count > 0) {
+            long skipped = in.skip(count);
+            if (skipped <= 0) {
+                // Some streams (e.g. GZIPInputStream at a boundary) return 0; fall back to reading.
+                if (scratch == null) scratch = new byte[8192];
+                int n = in.read(scratch, 0, (int) Math.min(scratch.length, count));
+                if (n == -1) throw new EOFException("Truncated tar entry");
+                skipped = n;
+            }
+            count -= skipped;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.filemanagerapplication;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Streams files and folders into a POSIX ustar archive.
+ *
+ * Names that do not fit the 100-byte name / 155-byte prefix fields, and files of 8 GB or
+ * more, get a PAX extended header ('x'), which GNU tar, bsdtar and {@link TarArchiveReader}
+ * all understand. Wrap the target in a {@link ParallelGzipOutputStream} for .tar.gz.
+ */
+public class TarArchiveWriter implements Closeable {
+
+    static final int BLOCK_SIZE = 512;
+    static final long MAX_OCTAL_SIZE = 077777777777L; // 11 octal digits
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final byte[] copyBuffer = new byte[COPY_BUFFER_SIZE];
+    private boolean closed;
+
+    public TarArchiveWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /** Writes a directory entry; {@code entryName} gets a trailing "/" if missing. */
+    public void putDirectory(String entryName, long lastModified) throws IOException {
+        String name = entryName.endsWith("/") ? entryName : entryName + "/";
+        writeHeader(name, 0, lastModified, '5', 0755);
+    }
+
+    /** Writes {@code source} as a regular file entry named {@code entryName}. */
+    public void putFile(File source, String entryName) throws IOException {
+        long size = source.length();
+        writeHeader(entryName, size, source.lastModified(), '0', 0644);
+        long written = 0;
+        try (InputStream in = new FileInputStream(source)) {
+            int read;
+            while (written < size && (read = in.read(copyBuffer, 0, (int) Math.min(copyBuffer.length, size - written))) != -1) {
+                out.write(copyBuffer, 0, read);
+                written += read;
+            }
+        }
+        if (written != size) {
+            // The header already promised `size` bytes; a shorter entry would corrupt the stream.
+            throw new IOException("File changed while archiving: " + source.getAbsolutePath());
+        }
+        writePadding(size);
+    }
+
+    /** Writes the two zero blocks that end the archive and closes the target stream. */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            out.write(new byte[BLOCK_SIZE * 2]);
+        } finally {
+            out.close();
+        }
+    }
+
+    // Package-private so tests can write the header of an entry too large to create
+    void writeHeader(String entryName, long size, long lastModified, char type, int mode) throws IOException {
+        String name = entryName.replace('\\', '/');
+        while (name.startsWith("/")) {
+            name = name.substring(1);
+        }
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        byte[] nameField = nameBytes;
+        byte[] prefixField = new byte[0];
+        boolean pathFits = true;
+        if (nameBytes.length > 100) {
+            int split = findPrefixSplit(nameBytes);
+            if (split > 0) {
+                prefixField = Arrays.copyOfRange(nameBytes, 0, split);
+                nameField = Arrays.copyOfRange(nameBytes, split + 1, nameBytes.length);
+            } else {
+                pathFits = false;
+                nameField = Arrays.copyOf(nameBytes, 100); // Readers without PAX support see a truncated name
+            }
+        }
+        boolean sizeFits = size <= MAX_OCTAL_SIZE;
+
+        if (!pathFits || !sizeFits) {
+            StringBuilder records = new StringBuilder();
+            if (!pathFits) {
+                records.append(paxRecord("path", name));
+            }
+            if (!sizeFits) {
+                records.append(paxRecord("size", Long.toString(size)));
+            }
+            byte[] paxData = records.toString().getBytes(StandardCharsets.UTF_8);
+            out.write(headerBlock("PaxHeader".getBytes(StandardCharsets.US_ASCII), new byte[0],
+                    paxData.length, lastModified, 'x', 0644));
+            out.write(paxData);
+            writePadding(paxData.length);
+        }
+        out.write(headerBlock(nameField, prefixField, sizeFits ? size : 0, lastModified, type, mode));
+    }
+
+    private static byte[] headerBlock(byte[] name, byte[] prefix, long size, long lastModified, char type, int mode) {
+        byte[] header = new byte[BLOCK_SIZE];
+        System.arraycopy(name, 0, header, 0, Math.min(name.length, 100));
+        writeOctal(header, 100, 8, mode);
+        writeOctal(header, 108, 8, 0);                       // uid
+        writeOctal(header, 116, 8, 0);                       // gid
+        writeOctal(header, 124, 12, size);
+        writeOctal(header, 136, 12, Math.max(0, lastModified / 1000));
+        header[156] = (byte) type;
+        System.arraycopy("ustar\0".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 6);
+        header[263] = '0';
+        header[264] = '0';
+        System.arraycopy(prefix, 0, header, 345, Math.min(prefix.length, 155));
+
+        // Checksum is computed with its own field filled with spaces.
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xFF;
+        }
+        writeOctal(header, 148, 7, checksum);
+        header[155] = ' ';
+        return header;
+    }
+
+    /** Index of a '/' that splits {@code name} into a prefix of at most 155 bytes and a name of at most 100. */
+    private static int findPrefixSplit(byte[] name) {
+        for (int i = Math.min(155, name.length - 1); i > 0; i--) {
+            if (name[i] == '/' && name.length - i - 1 <= 100 && name.length - i - 1 > 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** A PAX record is "LEN KEY=VALUE\n" where LEN counts the whole record, itself included. */
+    private static String paxRecord(String key, String value) {
+        int payload = key.getBytes(StandardCharsets.UTF_8).length + value.getBytes(StandardCharsets.UTF_8).length + 3;
+        int length = payload + Integer.toString(payload).length();
+        if (Integer.toString(length).length() != Integer.toString(payload).length()) {
+            length++;
+        }
+        return length + " " + key + "=" + value + "\n";
+    }
+
+    private void writePadding(long size) throws IOException {
+        int remainder = (int) (size % BLOCK_SIZE);
+        if (remainder != 0) {
+            out.write(new byte[BLOCK_SIZE - remainder]);
+        }
+    }
+
+    /** Writes {@code value} as zero-padded octal digits followed by a NUL. */
+    private static void writeOctal(byte[] header, int offset, int length, long value) {
+        String octal = Long.toOctalString(value);
+        int digits = length - 1;
+        int pad = digits - octal.length();
+        for (int i = 0; i < digits; i++) {
+            header[offset + i] = (byte) (i < pad ? '0' : octal.charAt(i - pad));
+        }
+        header[offset + digits] = 0;
+    }
+}
@@ -0,0 +1,392 @@
+package com.example.filemanagerapplication;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.drawable.Drawable;
+import android.graphics.pdf.PdfRenderer;
+import android.media.ThumbnailUtils;
+import android.os.Build;
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.ParcelFileDescriptor;
+import android.os.Process;
+import android.util.Log;
+import android.util.LruCache;
+import android.util.Size;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Thumbnails for images, videos, APK icons and the first page of PDFs.
+ *
+ * Decoding happens on a small background-priority pool and is always subsampled to about
+ * the size it is shown at, so a 50 MP photo never reaches the heap at full size. Results
+ * live in a memory LRU bounded by bytes (an eighth of the heap), keyed by path and mtime,
+ * and in a disk cache whose key is path, length and mtime, so an edited file simply misses. Like
+ * {@link ItemDetailsLoader}, requests belong to an owner (a row) and are cancelled when it
+ * is recycled or rebound, which keeps a fast fling from queueing work for rows long gone.
+ */
+public class ThumbnailLoader {
+
+    private static final String TAG = "ThumbnailLoader";
+    static final String METRIC_DECODE = "thumbnail.decode";
+    private static final int THREADS = 2;
+    private static final long DISK_CACHE_BYTES = 64L * 1024 * 1024;
+    private static final int TRIM_EVERY_WRITES = 64;
+
+    /** Called on the main thread with a bitmap at most {@code sizePx} on its longer side. */
+    public interface Callback {
+        void onThumbnail(File file, Bitmap bitmap);
+    }
+
+    private static ThumbnailLoader instance;
+
+    public static synchronized ThumbnailLoader get(Context context) {
+        if (instance == null) {
+            Context app = context.getApplicationContext();
+            instance = new ThumbnailLoader(app, new File(MainThreadIoGuard.privateDir(app, "cache"), "thumbnails"));
+        }
+        return instance;
+    }
+
+    private final Context context;
+    private final File diskDir;
+    private final LruCache<String, Bitmap> memory;
+    private final Map<Object, Request> requests = new ConcurrentHashMap<>(); // Owner (row) -> its latest request
+    private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS, r -> new Thread(() -> {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        r.run();
+    }, "Thumbnails"));
+    private int diskWrites; // Guarded by this
+
+    private ThumbnailLoader(Context context, File diskDir) {
+        this.context = context;
+        this.diskDir = diskDir;
+        int maxBytes = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 8);
+        memory = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+    }
+
+    /** Whether files of {@code category} have thumbnails. */
+    public static boolean canThumbnail(FileTypeClassifier.Category category) {
+        switch (category) {
+            case IMAGE:
+            case VIDEO:
+            case APK:
+            case PDF:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Memoized thumbnail of {@code file} as it was at {@code lastModified}, or null; never
+     * touches the disk. The caller passes an mtime it already knows, e.g. from the row's details.
+     */
+    public Bitmap getCached(File file, long lastModified, int sizePx) {
+        return memory.get(memoryKey(file, lastModified, sizePx));
+    }
+
+    /**
+     * Loads a thumbnail for {@code owner}, replacing whatever it requested before. {@code kind}
+     * comes from the extension or, for unknown ones, from {@link ContentTypeSniffer}. Main thread only.
+     */
+    public void load(File file, FileTypeClassifier.Category kind, int sizePx, Object owner, Callback callback) {
+        cancel(owner);
+        if (!canThumbnail(kind)) {
+            return;
+        }
+        Request request = new Request();
+        requests.put(owner, request);
+        request.future = executor.submit(() -> {
+            Bitmap bitmap = loadInBackground(file, kind, sizePx, request);
+            if (bitmap == null) {
+                return;
+            }
+            mainThreadHandler.post(() -> {
+                if (requests.get(owner) == request) {
+                    requests.remove(owner);
+                    callback.onThumbnail(file, bitmap);
+                }
+            });
+        });
+    }
+
+    /** Stops the work requested by {@code owner} (e.g. its row scrolled off). Main thread only. */
+    public void cancel(Object owner) {
+        Request previous = requests.remove(owner);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    /** Forgets the in-memory thumbnails of {@code file} and everything below it. */
+    public void invalidate(File file) {
+        String path = file.getAbsolutePath();
+        for (String key : memory.snapshot().keySet()) {
+            if (FileIndex.isInside(key.substring(0, key.indexOf('\0')), path)) {
+                memory.remove(key);
+            }
+        }
+    }
+
+    /** Gives memory back when the system asks; the disk cache keeps the work. */
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            memory.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            memory.trimToSize(memory.maxSize() / 2);
+        }
+    }
+
+    private static final class Request {
+        Future<?> future;
+        final CancellationSignal signal = new CancellationSignal(); // For the platform video decoder
+
+        void cancel() {
+            signal.cancel();
+            future.cancel(true);
+        }
+    }
+
+    /** Like {@link #diskKey}, includes the mtime, so an edited file misses; NUL never occurs in a path. */
+    static String memoryKey(File file, long lastModified, int sizePx) {
+        return file.getAbsolutePath() + '\0' + lastModified + '\0' + sizePx;
+    }
+
+    private Bitmap loadInBackground(File file, FileTypeClassifier.Category kind, int sizePx, Request request) {
+        long length = file.length();
+        long lastModified = file.lastModified();
+        if (lastModified == 0) {
+            return null; // Gone
+        }
+        String memoryKey = memoryKey(file, lastModified, sizePx);
+        Bitmap memoized = memory.get(memoryKey); // The row did not know the mtime yet
+        if (memoized != null) {
+            return memoized;
+        }
+        File cached = new File(diskDir, diskKey(file, length, lastModified, sizePx));
+        if (cached.isFile()) {
+            Bitmap bitmap = BitmapFactory.decodeFile(cached.getPath());
+            if (bitmap != null) {
+                cached.setLastModified(System.currentTimeMillis()); // Recently used, for trimDisk()
+                memory.put(memoryKey, bitmap);
+                return bitmap;
+            }
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            return null;
+        }
+        long start = System.nanoTime();
+        Bitmap bitmap;
+        try {
+            bitmap = decode(file, kind, sizePx, request.signal);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "No thumbnail for " + file + ": " + e);
+            return null;
+        } catch (OutOfMemoryError e) {
+            Log.w(TAG, "Out of memory decoding " + file);
+            memory.evictAll();
+            return null;
+        }
+        if (bitmap == null || Thread.currentThread().isInterrupted()) {
+            return null;
+        }
+        PerfMetrics.recordSince(METRIC_DECODE, start);
+        memory.put(memoryKey, bitmap);
+        writeToDisk(cached, bitmap, kind == FileTypeClassifier.Category.APK);
+        return bitmap;
+    }
+
+    private Bitmap decode(File file, FileTypeClassifier.Category kind, int sizePx, CancellationSignal signal) throws IOException {
+        switch (kind) {
+            case IMAGE:
+                return decodeImage(file, sizePx);
+            case VIDEO:
+                return decodeVideo(file, sizePx, signal);
+            case APK:
+                return decodeApkIcon(file, sizePx);
+            case PDF:
+                return renderPdfPage(file, sizePx);
+            default:
+                return null;
+        }
+    }
+
+    private static Bitmap decodeImage(File file, int sizePx) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getPath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null; // Not decodable
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize(options.outWidth, options.outHeight, sizePx);
+        Bitmap sampled = BitmapFactory.decodeFile(file.getPath(), options);
+        return sampled != null ? fit(sampled, sizePx) : null;
+    }
+
+    /** Largest power of two that keeps the shorter side at or above {@code sizePx}. */
+    static int sampleSize(int width, int height, int sizePx) {
+        int sample = 1;
+        while (Math.min(width, height) / (sample * 2) >= sizePx) {
+            sample *= 2;
+        }
+        return sample;
+    }
+
+    private static Bitmap decodeVideo(File file, int sizePx, CancellationSignal signal) throws IOException {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            return ThumbnailUtils.createVideoThumbnail(file, new Size(sizePx, sizePx), signal);
+        }
+        Bitmap frame = ThumbnailUtils.createVideoThumbnail(file.getPath(), 1 /* MINI_KIND */);
+        return frame != null ? fit(frame, sizePx) : null;
+    }
+
+    private Bitmap decodeApkIcon(File file, int sizePx) {
+        PackageManager packageManager = context.getPackageManager();
+        PackageInfo info = packageManager.getPackageArchiveInfo(file.getPath(), 0);
+        if (info == null || info.applicationInfo == null) {
+            return null;
+        }
+        ApplicationInfo app = info.applicationInfo;
+        app.sourceDir = file.getPath(); // Otherwise the icon is looked up in an installed package
+        app.publicSourceDir = file.getPath();
+        Drawable icon = app.loadIcon(packageManager);
+        if (icon == null) {
+            return null;
+        }
+        Bitmap bitmap = Bitmap.createBitmap(sizePx, sizePx, Bitmap.Config.ARGB_8888);
+        icon.setBounds(0, 0, sizePx, sizePx);
+        icon.draw(new Canvas(bitmap));
+        return bitmap;
+    }
+
+    private static Bitmap renderPdfPage(File file, int sizePx) throws IOException {
+        try (ParcelFileDescriptor descriptor = ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY);
+             PdfRenderer renderer = new PdfRenderer(descriptor)) {
+            if (renderer.getPageCount() == 0) {
+                return null;
+            }
+            try (PdfRenderer.Page page = renderer.openPage(0)) {
+                int pageWidth = Math.max(1, page.getWidth());
+                int pageHeight = Math.max(1, page.getHeight());
+                float scale = (float) sizePx / Math.max(pageWidth, pageHeight);
+                Bitmap bitmap = Bitmap.createBitmap(Math.max(1, Math.round(pageWidth * scale)),
+                        Math.max(1, Math.round(pageHeight * scale)), Bitmap.Config.ARGB_8888);
+                bitmap.eraseColor(Color.WHITE); // Pages are transparent where nothing is drawn
+                page.render(bitmap, null, null, PdfRenderer.Page.RENDER_MODE_FOR_DISPLAY);
+                return bitmap;
+            }
+        }
+    }
+
+    /** Scales {@code bitmap} down so its longer side is {@code sizePx}; small bitmaps are kept as they are. */
+    private static Bitmap fit(Bitmap bitmap, int sizePx) {
+        int longer = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        if (longer <= sizePx) {
+            return bitmap;
+        }
+        float scale = (float) sizePx / longer;
+        Bitmap scaled = Bitmap.createScaledBitmap(bitmap, Math.max(1, Math.round(bitmap.getWidth() * scale)),
+                Math.max(1, Math.round(bitmap.getHeight() * scale)), true);
+        if (scaled != bitmap) {
+            bitmap.recycle();
+        }
+        return scaled;
+    }
+
+    static String diskKey(File file, long length, long lastModified, int sizePx) {
+        String key = file.getAbsolutePath() + '\0' + length + '\0' + lastModified + '\0' + sizePx;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // SHA-1 is always available
+        }
+    }
+
+    private void writeToDisk(File target, Bitmap bitmap, boolean keepAlpha) {
+        if (!diskDir.isDirectory() && !diskDir.mkdirs()) {
+            return;
+        }
+        File tmp = new File(target.getPath() + ".tmp" + Thread.currentThread().getId());
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            bitmap.compress(keepAlpha ? Bitmap.CompressFormat.PNG : Bitmap.CompressFormat.JPEG, 85, out);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not cache thumbnail", e);
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(target)) {
+            tmp.delete();
+            return;
+        }
+        boolean trim;
+        synchronized (this) {
+            trim = ++diskWrites % TRIM_EVERY_WRITES == 0;
+        }
+        if (trim) {
+            trimDisk();
+        }
+    }
+
+    /** Deletes the least recently used files until the cache fits {@link #DISK_CACHE_BYTES}. */
+    private void trimDisk() {
+        File[] files = diskDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        long[] lastUsed = new long[files.length];
+        for (int i = 0; i < files.length; i++) {
+            lastUsed[i] = files[i].lastModified();
+            total += files[i].length();
+        }
+        if (total <= DISK_CACHE_BYTES) {
+            return;
+        }
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(lastUsed[a], lastUsed[b]));
+        for (int i = 0; i < order.length && total > DISK_CACHE_BYTES * 3 / 4; i++) {
+            File file = files[order[i]];
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+            }
+        }
+    }
+}
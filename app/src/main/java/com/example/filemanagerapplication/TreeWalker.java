@@ -0,0 +1,404 @@
+package com.example.filemanagerapplication;
+
+import android.os.Build;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
+import android.system.StructStat;
+
+import androidx.annotation.ChecksSdkIntAtLeast;
+import androidx.annotation.RequiresApi;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Depth-first walk over a file tree without Java recursion.
+ *
+ * Directories are kept on an explicit stack, so depth is limited by heap rather than the
+ * thread stack. On API 26+ directories are read through a {@link DirectoryStream}, one name
+ * at a time, instead of building a {@code File[]} for the whole directory; at most
+ * {@link #MAX_OPEN_STREAMS} streams are kept open, deeper levels read their names up front.
+ * Every entry costs exactly one lstat (a second stat only for followed symlinks), and its
+ * type, size and modification time are handed to the visitor so callers never have to stat
+ * again through {@link File#isDirectory()} or {@link File#length()}.
+ *
+ * Errors (unreadable directory, failed stat, an {@link IOException} thrown by a callback)
+ * go to {@link Visitor#visitFailed}, which decides whether the walk goes on.
+ */
+public class TreeWalker {
+
+    static final int MAX_OPEN_STREAMS = 16;
+
+    public enum SymlinkPolicy {
+        /** Resolve links and descend into linked directories (cycles are reported as errors). */
+        FOLLOW,
+        /** Ignore links completely. */
+        SKIP,
+        /** Report links to {@link Visitor#visitFile} without touching their targets. */
+        AS_FILE
+    }
+
+    public enum Action { CONTINUE, SKIP_SUBTREE, TERMINATE }
+
+    /** One visited entry. Attributes come from the single stat done by the walker. */
+    public static final class Entry {
+        private final File file;
+        private final String relativePath;
+        private final int depth;
+        private final boolean directory;
+        private final boolean regularFile;
+        private final boolean symlink;
+        private final long size;
+        private final long lastModified;
+
+        Entry(File file, String relativePath, int depth, boolean directory, boolean regularFile,
+              boolean symlink, long size, long lastModified) {
+            this.file = file;
+            this.relativePath = relativePath;
+            this.depth = depth;
+            this.directory = directory;
+            this.regularFile = regularFile;
+            this.symlink = symlink;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        public File getFile() { return file; }
+        /** Path below the walk root using "/" separators; "" for the root itself. */
+        public String getRelativePath() { return relativePath; }
+        public int getDepth() { return depth; }
+        public boolean isDirectory() { return directory; }
+        public boolean isRegularFile() { return regularFile; }
+        /** True for a link, whether it was followed or not. */
+        public boolean isSymlink() { return symlink; }
+        public long getSize() { return size; }
+        public long getLastModified() { return lastModified; }
+    }
+
+    public interface Visitor {
+        /** Called before the children of {@code dir}; SKIP_SUBTREE leaves them out. */
+        Action preVisitDirectory(Entry dir) throws IOException;
+
+        /** Called for everything that is not a directory being descended into. */
+        Action visitFile(Entry file) throws IOException;
+
+        /**
+         * Called after the children of {@code dir}.
+         *
+         * @param complete false if anything below {@code dir} failed.
+         */
+        Action postVisitDirectory(Entry dir, boolean complete) throws IOException;
+
+        /**
+         * Called when {@code file} could not be read or a callback for it threw. {@code entry}
+         * is null when the stat itself failed. Rethrowing aborts the walk.
+         */
+        Action visitFailed(File file, Entry entry, IOException error) throws IOException;
+    }
+
+    /** Visitor that continues everywhere and aborts on the first error. */
+    public static class SimpleVisitor implements Visitor {
+        @Override
+        public Action preVisitDirectory(Entry dir) throws IOException {
+            return Action.CONTINUE;
+        }
+
+        @Override
+        public Action visitFile(Entry file) throws IOException {
+            return Action.CONTINUE;
+        }
+
+        @Override
+        public Action postVisitDirectory(Entry dir, boolean complete) throws IOException {
+            return Action.CONTINUE;
+        }
+
+        @Override
+        public Action visitFailed(File file, Entry entry, IOException error) throws IOException {
+            throw error;
+        }
+    }
+
+    /** A directory on the stack together with the reader for its remaining names. */
+    private static final class Frame implements Closeable {
+        final Entry entry;
+        private DirectoryStream<Path> stream;
+        private Iterator<Path> iterator;
+        private String[] names;
+        private int index;
+        private String canonicalPath;
+        boolean complete = true;
+
+        Frame(Entry entry) {
+            this.entry = entry;
+        }
+
+        /** Next child name, or null when the directory is exhausted. */
+        String next() throws IOException {
+            if (iterator != null) {
+                try {
+                    if (iterator.hasNext()) {
+                        return iterator.next().getFileName().toString();
+                    }
+                } catch (DirectoryIteratorException e) {
+                    throw e.getCause();
+                }
+                return null;
+            }
+            return names != null && index < names.length ? names[index++] : null;
+        }
+
+        String canonicalPath() throws IOException {
+            if (canonicalPath == null) {
+                canonicalPath = entry.file.getCanonicalPath();
+            }
+            return canonicalPath;
+        }
+
+        boolean isStreaming() {
+            return stream != null;
+        }
+
+        @Override
+        public void close() {
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException ignored) {
+                }
+                stream = null;
+                iterator = null;
+            }
+        }
+    }
+
+    /**
+     * Whether to list and stat through java.nio (API 26+) instead of android.system.Os. Unit
+     * tests on a plain JVM, where SDK_INT reads 0 and Os is a stub, set it to true.
+     */
+    @ChecksSdkIntAtLeast(api = Build.VERSION_CODES.O)
+    static boolean useNio = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O;
+
+    private final SymlinkPolicy symlinkPolicy;
+    private final Deque<Frame> stack = new ArrayDeque<>();
+    private int openStreams;
+    private boolean hadFailure;
+
+    public TreeWalker(SymlinkPolicy symlinkPolicy) {
+        this.symlinkPolicy = symlinkPolicy;
+    }
+
+    /**
+     * Walks {@code root} (which may also be a plain file) depth-first, pre-order for
+     * {@link Visitor#preVisitDirectory} and post-order for {@link Visitor#postVisitDirectory}.
+     *
+     * @return true if every entry was visited without failure and the walk was not terminated.
+     * @throws IOException whatever {@link Visitor#visitFailed} rethrows.
+     */
+    public boolean walk(File root, Visitor visitor) throws IOException {
+        hadFailure = false;
+        try {
+            if (!visitChild(root, "", 0, visitor)) {
+                return false;
+            }
+            while (!stack.isEmpty()) {
+                Frame top = stack.peek();
+                String name;
+                try {
+                    name = top.next();
+                } catch (IOException e) {
+                    name = null;
+                    if (!handleFailure(top.entry.file, top.entry, e, visitor)) {
+                        return false;
+                    }
+                }
+                if (name == null) {
+                    stack.pop();
+                    if (top.isStreaming()) {
+                        openStreams--;
+                    }
+                    top.close();
+                    if (!top.complete && !stack.isEmpty()) {
+                        stack.peek().complete = false;
+                    }
+                    Action action;
+                    try {
+                        action = visitor.postVisitDirectory(top.entry, top.complete);
+                    } catch (IOException e) {
+                        if (!handleFailure(top.entry.file, top.entry, e, visitor)) {
+                            return false;
+                        }
+                        continue;
+                    }
+                    if (action == Action.TERMINATE) {
+                        return false;
+                    }
+                    continue;
+                }
+                String relativePath = top.entry.relativePath.isEmpty() ? name : top.entry.relativePath + "/" + name;
+                if (!visitChild(new File(top.entry.file, name), relativePath, top.entry.depth + 1, visitor)) {
+                    return false;
+                }
+            }
+            return !hadFailure;
+        } finally {
+            while (!stack.isEmpty()) {
+                stack.pop().close();
+            }
+            openStreams = 0;
+        }
+    }
+
+    /** Stats and visits one entry; pushes a frame for directories. Returns false to stop the walk. */
+    private boolean visitChild(File file, String relativePath, int depth, Visitor visitor) throws IOException {
+        Entry entry;
+        try {
+            entry = stat(file, relativePath, depth);
+        } catch (IOException e) {
+            return handleFailure(file, null, e, visitor);
+        }
+        if (entry == null) {
+            return true; // Skipped symlink
+        }
+        try {
+            if (!entry.directory) {
+                return visitor.visitFile(entry) != Action.TERMINATE;
+            }
+            if (entry.symlink && isAncestor(file)) {
+                throw new IOException("Symlink cycle at " + file.getAbsolutePath());
+            }
+            Action action = visitor.preVisitDirectory(entry);
+            if (action == Action.TERMINATE) {
+                return false;
+            }
+            if (action == Action.SKIP_SUBTREE) {
+                return true;
+            }
+            stack.push(open(entry));
+            return true;
+        } catch (IOException e) {
+            return handleFailure(file, entry, e, visitor);
+        }
+    }
+
+    private boolean handleFailure(File file, Entry entry, IOException error, Visitor visitor) throws IOException {
+        hadFailure = true;
+        if (!stack.isEmpty()) {
+            stack.peek().complete = false;
+        }
+        return visitor.visitFailed(file, entry, error) != Action.TERMINATE;
+    }
+
+    private boolean isAncestor(File directory) throws IOException {
+        String canonical = directory.getCanonicalPath();
+        for (Frame frame : stack) {
+            if (frame.canonicalPath().equals(canonical)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Frame open(Entry entry) throws IOException {
+        Frame frame = new Frame(entry);
+        if (useNio) {
+            openStream(frame);
+        } else {
+            frame.names = entry.file.list();
+            if (frame.names == null) {
+                throw new IOException("Cannot list directory: " + entry.file.getAbsolutePath());
+            }
+        }
+        return frame;
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    private void openStream(Frame frame) throws IOException {
+        DirectoryStream<Path> stream = Files.newDirectoryStream(toPath(frame.entry.file));
+        if (openStreams < MAX_OPEN_STREAMS) {
+            frame.stream = stream;
+            frame.iterator = stream.iterator();
+            openStreams++;
+            return;
+        }
+        // Too deep to keep another descriptor open: read this level's names and close it.
+        List<String> names = new ArrayList<>();
+        try {
+            for (Path path : stream) {
+                names.add(path.getFileName().toString());
+            }
+        } catch (DirectoryIteratorException e) {
+            throw e.getCause();
+        } finally {
+            stream.close();
+        }
+        frame.names = names.toArray(new String[0]);
+    }
+
+    /** File.toPath() throws an unchecked exception for names the platform charset cannot encode. */
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    private static Path toPath(File file) throws IOException {
+        try {
+            return file.toPath();
+        } catch (InvalidPathException e) {
+            throw new IOException("Unsupported file name: " + file.getAbsolutePath(), e);
+        }
+    }
+
+    /** One lstat (plus a stat for followed links); null if the entry is a link to skip. */
+    private Entry stat(File file, String relativePath, int depth) throws IOException {
+        if (useNio) {
+            return statNio(file, relativePath, depth);
+        }
+        try {
+            StructStat st = Os.lstat(file.getPath());
+            boolean symlink = OsConstants.S_ISLNK(st.st_mode);
+            if (symlink) {
+                if (symlinkPolicy == SymlinkPolicy.SKIP) {
+                    return null;
+                }
+                if (symlinkPolicy == SymlinkPolicy.AS_FILE) {
+                    return new Entry(file, relativePath, depth, false, false, true, st.st_size, st.st_mtime * 1000);
+                }
+                st = Os.stat(file.getPath());
+            }
+            return new Entry(file, relativePath, depth, OsConstants.S_ISDIR(st.st_mode),
+                    OsConstants.S_ISREG(st.st_mode), symlink, st.st_size, st.st_mtime * 1000);
+        } catch (ErrnoException e) {
+            throw new IOException("Cannot stat " + file.getAbsolutePath() + ": " + e.getMessage(), e);
+        }
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    private Entry statNio(File file, String relativePath, int depth) throws IOException {
+        Path path = toPath(file);
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        boolean symlink = attributes.isSymbolicLink();
+        if (symlink) {
+            if (symlinkPolicy == SymlinkPolicy.SKIP) {
+                return null;
+            }
+            if (symlinkPolicy == SymlinkPolicy.AS_FILE) {
+                return new Entry(file, relativePath, depth, false, false, true,
+                        attributes.size(), attributes.lastModifiedTime().toMillis());
+            }
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        }
+        return new Entry(file, relativePath, depth, attributes.isDirectory(), attributes.isRegularFile(),
+                symlink, attributes.size(), attributes.lastModifiedTime().toMillis());
+    }
+}
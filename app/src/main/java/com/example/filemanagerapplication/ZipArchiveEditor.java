@@ -0,0 +1,629 @@
+package com.example.filemanagerapplication;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Edits an existing zip archive in place instead of recompressing it.
+ *
+ * New entries are appended after the end of the committed archive (its central directory
+ * and end record), and {@link #commit()} writes a new central directory after them. The
+ * committed central directory, and every entry it points to, is never overwritten, so if the
+ * process dies or the disk fills during an edit, the previous version of the archive is still
+ * on disk. Closing without a commit, or a failed append, truncates the file back to it.
+ * Removed or replaced entries, and superseded central directories, are simply left behind as
+ * dead space that is reclaimed by {@link #compact()}, which copies the live entries raw
+ * (no inflate/deflate) into a fresh file and renames it over the archive.
+ *
+ * Only classic (non-ZIP64) archives are supported: archives and entries must stay
+ * below 4 GB and 65535 entries.
+ */
+public class ZipArchiveEditor implements Closeable {
+
+    /** Fraction of dead bytes in the data region above which {@link #commit()} compacts. */
+    public static final double DEFAULT_COMPACTION_THRESHOLD = 0.25;
+
+    private static final int LOCAL_HEADER_SIG = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIR_SIG = 0x06054b50;
+    private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+    private static final int DATA_DESCRIPTOR_SIG = 0x08074b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int END_OF_CENTRAL_DIR_SIZE = 22;
+    private static final int FLAG_UTF8 = 0x0800;
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+    private static final int VERSION_NEEDED = 20;
+    private static final long MAX_32 = 0xFFFFFFFFL;
+    private static final int MAX_ENTRIES = 0xFFFF;
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    private final File zipFile;
+    private RandomAccessFile raf;
+    /** Live entries in central directory order. */
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, Entry> entriesByName = new HashMap<>();
+    private byte[] archiveComment;
+    /** Offset of the committed central directory. */
+    private long cdOffset;
+    /** End of the committed archive (after its end record); nothing before it is overwritten. */
+    private long committedEnd;
+    /** Offset where the next local entry is written, at or after {@link #committedEnd}. */
+    private long appendOffset;
+    private long deadBytes;
+    private boolean appended; // Bytes written after committedEnd since the last commit
+    private double compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+    private boolean dirty;
+
+    /** One central directory record, kept raw so untouched entries are rewritten byte for byte. */
+    private static final class Entry {
+        final String name;
+        final byte[] centralRecord;
+        long localOffset;
+        /** Bytes used by the local header, data and optional data descriptor. */
+        long span;
+
+        Entry(String name, byte[] centralRecord, long localOffset) {
+            this.name = name;
+            this.centralRecord = centralRecord;
+            this.localOffset = localOffset;
+        }
+    }
+
+    private ZipArchiveEditor(File zipFile) {
+        this.zipFile = zipFile;
+    }
+
+    /**
+     * Opens {@code zipFile} for editing and reads its central directory.
+     *
+     * @throws IOException if the file is not a readable classic zip archive.
+     */
+    public static ZipArchiveEditor open(File zipFile) throws IOException {
+        ZipArchiveEditor editor = new ZipArchiveEditor(zipFile);
+        editor.raf = new RandomAccessFile(zipFile, "rw");
+        try {
+            editor.readCentralDirectory();
+        } catch (IOException | RuntimeException e) {
+            editor.raf.close();
+            throw e;
+        }
+        return editor;
+    }
+
+    public void setCompactionThreshold(double threshold) {
+        this.compactionThreshold = threshold;
+    }
+
+    public boolean contains(String entryName) {
+        return entriesByName.containsKey(entryName);
+    }
+
+    public List<String> getEntryNames() {
+        List<String> names = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            names.add(entry.name);
+        }
+        return names;
+    }
+
+    public int getEntryCount() {
+        return entries.size();
+    }
+
+    /** Bytes occupied by removed or replaced entries that {@link #compact()} would reclaim. */
+    public long getDeadBytes() {
+        return deadBytes;
+    }
+
+    /**
+     * Compresses {@code source} into a new entry. An existing entry with the same name is
+     * replaced once the new data is written; its old data becomes dead space. If the write
+     * fails, the existing entry is kept.
+     */
+    public void addFile(File source, String entryName) throws IOException {
+        entryName = normalizeName(entryName);
+        byte[] nameBytes = entryName.getBytes(StandardCharsets.UTF_8);
+        int dosTime = toDosTime(source.lastModified());
+        long headerOffset = appendOffset;
+        checkOffset(headerOffset);
+        appended = true;
+        Entry added;
+        try {
+            added = appendDeflated(source, entryName, nameBytes, dosTime, headerOffset);
+        } catch (IOException | RuntimeException e) {
+            discardAppended(headerOffset);
+            throw e;
+        }
+        Entry replaced = entriesByName.get(entryName);
+        addEntry(added);
+        if (replaced != null) {
+            removeEntry(replaced); // After addEntry, so its bytes count as dead instead of being reused
+        }
+    }
+
+    private Entry appendDeflated(File source, String entryName, byte[] nameBytes, int dosTime, long headerOffset)
+            throws IOException {
+        raf.seek(headerOffset);
+        raf.write(localHeader(nameBytes, METHOD_DEFLATED, dosTime, 0, 0, 0));
+
+        CRC32 crc = new CRC32();
+        long uncompressedSize = 0;
+        long compressedSize = 0;
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        byte[] input = new byte[IO_BUFFER_SIZE];
+        byte[] output = new byte[IO_BUFFER_SIZE];
+        try (InputStream in = new FileInputStream(source)) {
+            int read;
+            while ((read = in.read(input)) != -1) {
+                crc.update(input, 0, read);
+                uncompressedSize += read;
+                deflater.setInput(input, 0, read);
+                while (!deflater.needsInput()) {
+                    int n = deflater.deflate(output);
+                    raf.write(output, 0, n);
+                    compressedSize += n;
+                }
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                int n = deflater.deflate(output);
+                raf.write(output, 0, n);
+                compressedSize += n;
+            }
+        } finally {
+            deflater.end();
+        }
+        if (uncompressedSize >= MAX_32 || compressedSize >= MAX_32) {
+            throw new IOException("Entry too large for a non-ZIP64 archive: " + entryName);
+        }
+        long end = raf.getFilePointer();
+
+        // Patch CRC and sizes into the local header now that they are known.
+        ByteBuffer patch = littleEndian(12);
+        patch.putInt((int) crc.getValue()).putInt((int) compressedSize).putInt((int) uncompressedSize);
+        raf.seek(headerOffset + 14);
+        raf.write(patch.array());
+
+        return newEntry(entryName, nameBytes, METHOD_DEFLATED, dosTime, crc.getValue(),
+                compressedSize, uncompressedSize, 0, headerOffset, end - headerOffset);
+    }
+
+    /** Adds an empty directory entry; {@code entryName} gets a trailing "/" if missing. */
+    public void addDirectory(String entryName) throws IOException {
+        entryName = normalizeName(entryName);
+        if (!entryName.endsWith("/")) {
+            entryName = entryName + "/";
+        }
+        if (entriesByName.containsKey(entryName)) {
+            return; // Directory entries carry no data, nothing to update
+        }
+        byte[] nameBytes = entryName.getBytes(StandardCharsets.UTF_8);
+        int dosTime = toDosTime(System.currentTimeMillis());
+        long headerOffset = appendOffset;
+        checkOffset(headerOffset);
+        appended = true;
+        byte[] header = localHeader(nameBytes, METHOD_STORED, dosTime, 0, 0, 0);
+        try {
+            raf.seek(headerOffset);
+            raf.write(header);
+        } catch (IOException e) {
+            discardAppended(headerOffset);
+            throw e;
+        }
+        addEntry(newEntry(entryName, nameBytes, METHOD_STORED, dosTime, 0, 0, 0, 0x10, headerOffset, header.length));
+    }
+
+    /**
+     * Removes an entry. If {@code entryName} names a directory (trailing "/"), every entry
+     * below it is removed as well.
+     *
+     * @return true if at least one entry was removed.
+     */
+    public boolean remove(String entryName) {
+        entryName = normalizeName(entryName);
+        boolean removed = removeInternal(entryName);
+        if (entryName.endsWith("/")) {
+            for (String name : getEntryNames()) {
+                if (name.startsWith(entryName)) {
+                    removed |= removeInternal(name);
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Writes a new central directory after the appended entries; the old one becomes dead
+     * space. Compacts instead when dead space would exceed the compaction threshold.
+     */
+    public void commit() throws IOException {
+        long dead = deadBytes + (dirty ? committedEnd - cdOffset : 0);
+        if (appendOffset > 0 && dead > appendOffset * compactionThreshold) {
+            compact();
+            return;
+        }
+        if (!dirty) {
+            return;
+        }
+        writeCentralDirectory(raf, appendOffset, entries);
+        deadBytes = dead;
+        cdOffset = appendOffset;
+        committedEnd = raf.length();
+        appendOffset = committedEnd;
+        appended = false;
+        dirty = false;
+    }
+
+    /**
+     * Rewrites the archive without dead space. Live entries are copied raw into a temporary
+     * file next to the archive, which then replaces the original. The editor only switches to
+     * the new layout once the rename succeeded; until then it still describes the old file.
+     */
+    public void compact() throws IOException {
+        File parent = zipFile.getAbsoluteFile().getParentFile();
+        File temp = new File(parent, "." + zipFile.getName() + ".compact");
+        List<Entry> compacted = new ArrayList<>(entries.size()); // Central directory order
+        Map<Entry, Entry> movedTo = new HashMap<>();
+        for (Entry entry : entries) {
+            Entry moved = new Entry(entry.name, entry.centralRecord.clone(), 0);
+            moved.span = entry.span;
+            compacted.add(moved);
+            movedTo.put(entry, moved);
+        }
+        List<Entry> byOffset = new ArrayList<>(entries);
+        Collections.sort(byOffset, (a, b) -> Long.compare(a.localOffset, b.localOffset));
+
+        long newCdOffset;
+        long newCommittedEnd;
+        try (RandomAccessFile out = new RandomAccessFile(temp, "rw")) {
+            out.setLength(0);
+            FileChannel source = raf.getChannel();
+            FileChannel target = out.getChannel();
+            long position = 0;
+            for (Entry entry : byOffset) {
+                long copied = 0;
+                while (copied < entry.span) {
+                    long n = source.transferTo(entry.localOffset + copied, entry.span - copied, target);
+                    if (n <= 0) {
+                        throw new IOException("Unexpected end of archive while compacting: " + entry.name);
+                    }
+                    copied += n;
+                }
+                Entry moved = movedTo.get(entry);
+                moved.localOffset = position;
+                putInt(moved.centralRecord, 42, (int) position);
+                position += entry.span;
+            }
+            writeCentralDirectory(out, position, compacted);
+            newCdOffset = position;
+            newCommittedEnd = out.length();
+        } catch (IOException | RuntimeException e) {
+            //noinspection ResultOfMethodCallIgnored
+            temp.delete();
+            throw e;
+        }
+
+        raf.close();
+        if (!temp.renameTo(zipFile)) {
+            //noinspection ResultOfMethodCallIgnored
+            temp.delete();
+            raf = new RandomAccessFile(zipFile, "rw");
+            throw new IOException("Could not replace archive with compacted copy: " + zipFile.getAbsolutePath());
+        }
+        entries.clear();
+        entriesByName.clear();
+        for (Entry moved : compacted) {
+            entries.add(moved);
+            entriesByName.put(moved.name, moved);
+        }
+        cdOffset = newCdOffset;
+        committedEnd = newCommittedEnd;
+        raf = new RandomAccessFile(zipFile, "rw");
+        appendOffset = committedEnd;
+        appended = false;
+        deadBytes = 0;
+        dirty = false;
+    }
+
+    /** Closes the archive; changes since the last {@link #commit()} are discarded. */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (appended) {
+                raf.setLength(committedEnd); // Drop entries appended without a commit
+            }
+        } finally {
+            raf.close();
+        }
+    }
+
+    // --- Central directory I/O ---
+
+    private void readCentralDirectory() throws IOException {
+        long fileLength = raf.length();
+        if (fileLength < END_OF_CENTRAL_DIR_SIZE) {
+            throw new IOException("Not a zip archive: " + zipFile.getName());
+        }
+        // The EOCD record sits at the end, followed by a comment of at most 65535 bytes.
+        int tailLength = (int) Math.min(fileLength, END_OF_CENTRAL_DIR_SIZE + 0xFFFF);
+        byte[] tail = new byte[tailLength];
+        raf.seek(fileLength - tailLength);
+        raf.readFully(tail);
+        ByteBuffer tailBuf = ByteBuffer.wrap(tail).order(ByteOrder.LITTLE_ENDIAN);
+        int eocd = -1;
+        for (int i = tailLength - END_OF_CENTRAL_DIR_SIZE; i >= 0; i--) {
+            if (tailBuf.getInt(i) == END_OF_CENTRAL_DIR_SIG) {
+                eocd = i;
+                break;
+            }
+        }
+        if (eocd < 0) {
+            throw new IOException("End of central directory not found: " + zipFile.getName());
+        }
+        if (eocd >= 20 && tailBuf.getInt(eocd - 20) == ZIP64_LOCATOR_SIG) {
+            throw new IOException("ZIP64 archives are not supported.");
+        }
+        int totalEntries = tailBuf.getShort(eocd + 10) & 0xFFFF;
+        long cdSize = tailBuf.getInt(eocd + 12) & MAX_32;
+        cdOffset = tailBuf.getInt(eocd + 16) & MAX_32;
+        int commentLength = tailBuf.getShort(eocd + 20) & 0xFFFF;
+        archiveComment = new byte[Math.min(commentLength, tailLength - eocd - END_OF_CENTRAL_DIR_SIZE)];
+        System.arraycopy(tail, eocd + END_OF_CENTRAL_DIR_SIZE, archiveComment, 0, archiveComment.length);
+        if (cdOffset + cdSize > fileLength - (tailLength - eocd)) {
+            throw new IOException("Corrupt central directory: " + zipFile.getName());
+        }
+
+        byte[] cd = new byte[(int) cdSize];
+        raf.seek(cdOffset);
+        raf.readFully(cd);
+        ByteBuffer cdBuf = ByteBuffer.wrap(cd).order(ByteOrder.LITTLE_ENDIAN);
+        int pos = 0;
+        for (int i = 0; i < totalEntries; i++) {
+            if (pos + CENTRAL_HEADER_SIZE > cd.length || cdBuf.getInt(pos) != CENTRAL_HEADER_SIG) {
+                throw new IOException("Corrupt central directory entry #" + i);
+            }
+            long compressedSize = cdBuf.getInt(pos + 20) & MAX_32;
+            long uncompressedSize = cdBuf.getInt(pos + 24) & MAX_32;
+            int nameLength = cdBuf.getShort(pos + 28) & 0xFFFF;
+            int extraLength = cdBuf.getShort(pos + 30) & 0xFFFF;
+            int entryCommentLength = cdBuf.getShort(pos + 32) & 0xFFFF;
+            long localOffset = cdBuf.getInt(pos + 42) & MAX_32;
+            if (compressedSize == MAX_32 || uncompressedSize == MAX_32 || localOffset == MAX_32) {
+                throw new IOException("ZIP64 entries are not supported.");
+            }
+            int recordLength = CENTRAL_HEADER_SIZE + nameLength + extraLength + entryCommentLength;
+            byte[] record = new byte[recordLength];
+            System.arraycopy(cd, pos, record, 0, recordLength);
+            String name = new String(cd, pos + CENTRAL_HEADER_SIZE, nameLength, StandardCharsets.UTF_8);
+            Entry entry = new Entry(name, record, localOffset);
+            entries.add(entry);
+            entriesByName.put(name, entry);
+            pos += recordLength;
+        }
+
+        // Measure every entry from its local header so gaps left by earlier edits count as dead.
+        FileChannel channel = raf.getChannel();
+        ByteBuffer header = littleEndian(LOCAL_HEADER_SIZE);
+        long liveBytes = 0;
+        for (Entry entry : entries) {
+            header.clear();
+            readFully(channel, header, entry.localOffset);
+            if (header.getInt(0) != LOCAL_HEADER_SIG) {
+                throw new IOException("Corrupt local header for entry: " + entry.name);
+            }
+            int flags = header.getShort(6) & 0xFFFF;
+            long compressedSize = getInt(entry.centralRecord, 20) & MAX_32;
+            long span = LOCAL_HEADER_SIZE
+                    + (header.getShort(26) & 0xFFFF)
+                    + (header.getShort(28) & 0xFFFF)
+                    + compressedSize;
+            if ((flags & 0x08) != 0) {
+                // Data descriptor: crc + sizes, optionally preceded by its own signature.
+                ByteBuffer signature = littleEndian(4);
+                readFully(channel, signature, entry.localOffset + span);
+                span += (signature.getInt(0) == DATA_DESCRIPTOR_SIG) ? 16 : 12;
+            }
+            if (entry.localOffset + span > cdOffset) {
+                throw new IOException("Entry overlaps central directory: " + entry.name);
+            }
+            entry.span = span;
+            liveBytes += span;
+        }
+        committedEnd = fileLength - tailLength + eocd + END_OF_CENTRAL_DIR_SIZE + archiveComment.length;
+        appendOffset = committedEnd;
+        deadBytes = Math.max(0, cdOffset - liveBytes);
+    }
+
+    private void writeCentralDirectory(RandomAccessFile out, long offset, List<Entry> entries) throws IOException {
+        if (entries.size() > MAX_ENTRIES) {
+            throw new IOException("Too many entries for a non-ZIP64 archive: " + entries.size());
+        }
+        checkOffset(offset);
+        out.seek(offset);
+        long cdSize = 0;
+        byte[] buffer = new byte[IO_BUFFER_SIZE];
+        int buffered = 0;
+        for (Entry entry : entries) {
+            byte[] record = entry.centralRecord;
+            if (buffered + record.length > buffer.length) {
+                out.write(buffer, 0, buffered);
+                buffered = 0;
+            }
+            if (record.length > buffer.length) {
+                out.write(record);
+            } else {
+                System.arraycopy(record, 0, buffer, buffered, record.length);
+                buffered += record.length;
+            }
+            cdSize += record.length;
+        }
+        out.write(buffer, 0, buffered);
+        checkOffset(offset + cdSize);
+
+        ByteBuffer eocd = littleEndian(END_OF_CENTRAL_DIR_SIZE + archiveComment.length);
+        eocd.putInt(END_OF_CENTRAL_DIR_SIG)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) entries.size())
+                .putShort((short) entries.size())
+                .putInt((int) cdSize)
+                .putInt((int) offset)
+                .putShort((short) archiveComment.length)
+                .put(archiveComment);
+        out.write(eocd.array());
+        out.setLength(out.getFilePointer());
+    }
+
+    // --- Entry bookkeeping ---
+
+    private boolean removeInternal(String entryName) {
+        Entry entry = entriesByName.get(entryName);
+        if (entry == null) {
+            return false;
+        }
+        removeEntry(entry);
+        return true;
+    }
+
+    private void removeEntry(Entry entry) {
+        entriesByName.remove(entry.name, entry);
+        entries.remove(entry);
+        if (entry.localOffset >= committedEnd && entry.localOffset + entry.span == appendOffset) {
+            // Appended since the last commit, and last: no central directory points to it
+            appendOffset = entry.localOffset;
+        } else {
+            deadBytes += entry.span;
+        }
+        dirty = true;
+    }
+
+    /** Builds the central directory record for an entry written at {@code localOffset}; does not add it. */
+    private static Entry newEntry(String name, byte[] nameBytes, int method, int dosTime, long crc,
+                                  long compressedSize, long uncompressedSize, int externalAttributes,
+                                  long localOffset, long span) {
+        ByteBuffer record = littleEndian(CENTRAL_HEADER_SIZE + nameBytes.length);
+        record.putInt(CENTRAL_HEADER_SIG)
+                .putShort((short) VERSION_NEEDED)      // version made by
+                .putShort((short) VERSION_NEEDED)      // version needed to extract
+                .putShort((short) FLAG_UTF8)
+                .putShort((short) method)
+                .putInt(dosTime)
+                .putInt((int) crc)
+                .putInt((int) compressedSize)
+                .putInt((int) uncompressedSize)
+                .putShort((short) nameBytes.length)
+                .putShort((short) 0)                   // extra length
+                .putShort((short) 0)                   // comment length
+                .putShort((short) 0)                   // disk number
+                .putShort((short) 0)                   // internal attributes
+                .putInt(externalAttributes)
+                .putInt((int) localOffset)
+                .put(nameBytes);
+        Entry entry = new Entry(name, record.array(), localOffset);
+        entry.span = span;
+        return entry;
+    }
+
+    private void addEntry(Entry entry) {
+        entries.add(entry);
+        entriesByName.put(entry.name, entry);
+        appendOffset = entry.localOffset + entry.span;
+        dirty = true;
+    }
+
+    /** Cuts off a partly written entry so a full disk does not leave garbage after the archive. */
+    private void discardAppended(long offset) {
+        try {
+            raf.setLength(Math.max(offset, committedEnd));
+        } catch (IOException ignored) {
+            // close() truncates to the committed archive again
+        }
+    }
+
+    private static byte[] localHeader(byte[] nameBytes, int method, int dosTime, long crc,
+                                      long compressedSize, long uncompressedSize) {
+        ByteBuffer header = littleEndian(LOCAL_HEADER_SIZE + nameBytes.length);
+        header.putInt(LOCAL_HEADER_SIG)
+                .putShort((short) VERSION_NEEDED)
+                .putShort((short) FLAG_UTF8)
+                .putShort((short) method)
+                .putInt(dosTime)
+                .putInt((int) crc)
+                .putInt((int) compressedSize)
+                .putInt((int) uncompressedSize)
+                .putShort((short) nameBytes.length)
+                .putShort((short) 0)
+                .put(nameBytes);
+        return header.array();
+    }
+
+    // --- Helpers ---
+
+    private static String normalizeName(String entryName) {
+        String name = entryName.replace('\\', '/');
+        while (name.startsWith("/")) {
+            name = name.substring(1);
+        }
+        return name;
+    }
+
+    private static void checkOffset(long offset) throws IOException {
+        if (offset >= MAX_32) {
+            throw new IOException("Archive too large for a non-ZIP64 archive.");
+        }
+    }
+
+    private static ByteBuffer littleEndian(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int getInt(byte[] source, int offset) {
+        return ByteBuffer.wrap(source).order(ByteOrder.LITTLE_ENDIAN).getInt(offset);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            if (channel.read(target, position + target.position()) < 0) {
+                throw new IOException("Unexpected end of archive.");
+            }
+        }
+    }
+
+    private static void putInt(byte[] target, int offset, int value) {
+        ByteBuffer.wrap(target).order(ByteOrder.LITTLE_ENDIAN).putInt(offset, value);
+    }
+
+    /** Packs a Java timestamp as MS-DOS time (low 16 bits) and date (high 16 bits). */
+    private static int toDosTime(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            return (1 << 21) | (1 << 16); // 1980-01-01 00:00
+        }
+        return (year - 1980) << 25
+                | (calendar.get(Calendar.MONTH) + 1) << 21
+                | calendar.get(Calendar.DAY_OF_MONTH) << 16
+                | calendar.get(Calendar.HOUR_OF_DAY) << 11
+                | calendar.get(Calendar.MINUTE) << 5
+                | calendar.get(Calendar.SECOND) >> 1;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.filemanagerapplication;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Checks the Boyer-Moore-Horspool matcher of {@link ContentSearcher} against {@link String#indexOf}. */
+public class ContentSearcherTest {
+
+    private static int naiveIndexOf(String text, String query, int from) {
+        return text.toLowerCase(Locale.ROOT).indexOf(query.toLowerCase(Locale.ROOT), from);
+    }
+
+    @Test
+    public void horspoolMatchesIndexOfIgnoringAsciiCase() {
+        Random random = new Random(3);
+        String alphabet = "abcABC \n";
+        for (int round = 0; round < 2000; round++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(200);
+            for (int i = 0; i < length; i++) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            StringBuilder query = new StringBuilder();
+            int queryLength = 1 + random.nextInt(4);
+            for (int i = 0; i < queryLength; i++) {
+                query.append(alphabet.charAt(random.nextInt(6)));
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.US_ASCII));
+            ContentSearcher.BytePattern pattern = ContentSearcher.BytePattern.compile(query.toString());
+            int from = length > 0 ? random.nextInt(length) : 0;
+            assertEquals(text + " / " + query, naiveIndexOf(text.toString(), query.toString(), from),
+                    pattern.indexOf(buffer, from, length));
+        }
+    }
+
+    @Test
+    public void nonAsciiQueriesMatchExactBytes() {
+        ByteBuffer buffer = ByteBuffer.wrap("tệp nhật ký: Lỗi kết nối".getBytes(StandardCharsets.UTF_8));
+        int end = buffer.capacity();
+        assertTrue(ContentSearcher.BytePattern.compile("lỗi").indexOf(buffer, 0, end) > 0);
+        assertEquals(0, ContentSearcher.BytePattern.compile("Tệp").indexOf(buffer, 0, end));
+        assertEquals(-1, ContentSearcher.BytePattern.compile("TỆP").indexOf(buffer, 0, end));
+    }
+
+    @Test
+    public void nulByteMarksBinary() {
+        assertTrue(ContentSearcher.isBinary(ByteBuffer.wrap(new byte[]{'P', 'K', 3, 4, 0, 0}), 6));
+        assertFalse(ContentSearcher.isBinary(ByteBuffer.wrap("plain text\n".getBytes(StandardCharsets.US_ASCII)), 11));
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.filemanagerapplication;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+/** Checks the magic-byte rules of {@link ContentTypeSniffer} on synthetic headers. */
+public class ContentTypeSnifferTest {
+
+    private static ContentTypeSniffer.Verdict detect(byte[] bytes) {
+        byte[] header = new byte[ContentTypeSniffer.HEADER_BYTES];
+        int length = Math.min(bytes.length, header.length);
+        System.arraycopy(bytes, 0, header, 0, length);
+        return ContentTypeSniffer.detect(header, length);
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] result = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (byte) values[i];
+        }
+        return result;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /** Stored (uncompressed), like the mimetype entry of ODF files. */
+    private static byte[] zipWithFirstEntry(String name, String content) throws IOException {
+        byte[] data = content.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(buffer)) {
+            ZipEntry entry = new ZipEntry(name);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(data.length);
+            entry.setCrc(crc.getValue());
+            zip.putNextEntry(entry);
+            zip.write(data);
+            zip.closeEntry();
+        }
+        return buffer.toByteArray();
+    }
+
+    @Test
+    public void detectsImagesAndMedia() {
+        assertEquals("image/jpeg", detect(bytes(0xFF, 0xD8, 0xFF, 0xE0, 0, 0x10)).mimeType);
+        assertEquals("image/png", detect(bytes(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0)).mimeType);
+        assertEquals("image/gif", detect(ascii("GIF89a....")).mimeType);
+        assertEquals("image/webp", detect(ascii("RIFF\0\0\0\0WEBPVP8 ")).mimeType);
+        assertEquals("image/heic", detect(ascii("\0\0\0\u0018ftypheic\0\0\0\0")).mimeType);
+        assertEquals("video/mp4", detect(ascii("\0\0\0 ftypisom\0\0\0\0")).mimeType);
+        assertEquals("video/3gpp", detect(ascii("\0\0\0\u0018ftyp3gp4\0\0\0\0")).mimeType);
+        assertEquals("audio/mp4", detect(ascii("\0\0\0 ftypM4A \0\0\0\0")).mimeType);
+        assertEquals("video/webm", detect(bytes(0x1A, 0x45, 0xDF, 0xA3, 0x9F, 0x42, 0x82, 0x84, 'w', 'e', 'b', 'm')).mimeType);
+        assertEquals("audio/mpeg", detect(ascii("ID3\u0004\0\0\0\0")).mimeType);
+        assertEquals("audio/mpeg", detect(bytes(0xFF, 0xFB, 0x90, 0x64)).mimeType);
+        assertEquals("audio/flac", detect(ascii("fLaC\0\0\0\"")).mimeType);
+        assertEquals(FileTypeClassifier.Category.VIDEO, detect(ascii("RIFF\0\0\0\0AVI LIST")).category);
+    }
+
+    @Test
+    public void detectsDocumentsAndArchives() throws IOException {
+        assertEquals(FileTypeClassifier.Category.PDF, detect(ascii("%PDF-1.7\n%âã")).category);
+        assertEquals("application/vnd.android.package-archive",
+                detect(zipWithFirstEntry("AndroidManifest.xml", "<manifest/>")).mimeType);
+        assertEquals("application/vnd.oasis.opendocument.text",
+                detect(zipWithFirstEntry("mimetype", "application/vnd.oasis.opendocument.text")).mimeType);
+        assertEquals("application/zip", detect(zipWithFirstEntry("notes.txt", "hello")).mimeType);
+        assertEquals("application/gzip", detect(bytes(0x1F, 0x8B, 0x08, 0)).mimeType);
+        assertEquals("application/x-7z-compressed", detect(bytes('7', 'z', 0xBC, 0xAF, 0x27, 0x1C)).mimeType);
+
+        byte[] tar = new byte[512];
+        System.arraycopy(ascii("hello.txt"), 0, tar, 0, 9);
+        System.arraycopy(ascii("ustar\0"), 0, tar, 257, 6);
+        assertEquals("application/x-tar", detect(tar).mimeType);
+    }
+
+    @Test
+    public void detectsTextAndRejectsBinary() {
+        assertEquals("text/plain", detect("Xin chào, thế giới\n".getBytes(StandardCharsets.UTF_8)).mimeType);
+        assertEquals("text/html", detect(ascii("  <!DOCTYPE html><html>")).mimeType);
+        assertEquals("text/xml", detect(ascii("<?xml version=\"1.0\"?>")).mimeType);
+        byte[] cut = "ế".getBytes(StandardCharsets.UTF_8);
+        assertEquals("text/plain", detect(new byte[]{'a', cut[0], cut[1]}).mimeType); // Header ends mid-character
+
+        assertNull(detect(bytes(0x7F, 'E', 'L', 'F', 2, 1, 1, 0)).mimeType);
+        assertNull(detect(bytes('a', 0xC0, 0x80)).mimeType); // Overlong encoding
+        assertNull(detect(new byte[0]).mimeType);
+    }
+}
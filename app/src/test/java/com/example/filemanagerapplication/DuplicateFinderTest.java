@@ -0,0 +1,123 @@
+package com.example.filemanagerapplication;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/** Runs the size, edge and full-content stages of {@link DuplicateFinder} on crafted files. */
+public class DuplicateFinderTest {
+
+    private static final int LARGE = DuplicateFinder.EDGE_BYTES * 4; // Has a middle the edges do not cover
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+    private DuplicateFinder finder;
+    private final List<String> stages = new ArrayList<>();
+
+    @BeforeClass
+    public static void walkWithNio() {
+        TreeWalker.useNio = true; // SDK_INT reads 0 on the JVM, where android.system.Os is a stub
+    }
+
+    @Before
+    public void setUp() {
+        finder = new DuplicateFinder(2);
+    }
+
+    @After
+    public void tearDown() {
+        finder.shutdown();
+    }
+
+    private static byte[] pattern(int size) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) (i * 31 + 7);
+        }
+        return bytes;
+    }
+
+    private File write(String path, byte[] bytes, long lastModified) throws IOException {
+        File file = new File(tempFolder.getRoot(), path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), bytes);
+        file.setLastModified(lastModified);
+        return file;
+    }
+
+    private List<DuplicateFinder.Group> find() throws InterruptedException {
+        return finder.find(tempFolder.getRoot(), new FileSearcher.Handle(), (stage, done, total) -> stages.add(stage + " " + done + "/" + total));
+    }
+
+    @Test
+    public void identicalFilesAreGroupedOldestFirst() throws IOException, InterruptedException {
+        byte[] large = pattern(LARGE);
+        File newest = write("b/copy.bin", large, 3_000_000L);
+        File oldest = write("a/original.bin", large, 1_000_000L);
+        File middle = write("c/d/again.bin", large, 2_000_000L);
+        write("small1.txt", "same".getBytes(), 1_000_000L);
+        write("small2.txt", "same".getBytes(), 2_000_000L);
+        write("unique.bin", pattern(LARGE + 1), 1_000_000L);
+        write("empty1", new byte[0], 1_000_000L); // Empty files are never duplicates
+        write("empty2", new byte[0], 1_000_000L);
+
+        List<DuplicateFinder.Group> groups = find();
+        assertEquals(2, groups.size());
+        assertEquals(Arrays.asList(oldest, middle, newest), groups.get(0).files); // Largest reclaimable first
+        assertEquals(2L * LARGE, groups.get(0).getReclaimableBytes());
+        assertEquals(4, groups.get(1).size);
+        assertEquals(2, groups.get(1).files.size());
+        assertTrue(stages.contains("Comparing full contents 3/3")); // Small files were settled by their edges
+    }
+
+    @Test
+    public void sameSizeWithDifferentEdgesStopsBeforeTheFullHash() throws IOException, InterruptedException {
+        byte[] first = pattern(LARGE);
+        byte[] second = pattern(LARGE);
+        second[0] ^= 1;
+        byte[] third = pattern(LARGE);
+        third[LARGE - 1] ^= 1;
+        write("first.bin", first, 1_000_000L);
+        write("second.bin", second, 1_000_000L);
+        write("third.bin", third, 1_000_000L);
+
+        assertTrue(find().isEmpty());
+        assertEquals(Arrays.asList("Comparing file edges 3/3"), stages); // No full read
+    }
+
+    @Test
+    public void sameEdgesWithADifferentMiddleAreToldApartByTheFullHash() throws IOException, InterruptedException {
+        byte[] first = pattern(LARGE);
+        byte[] second = pattern(LARGE);
+        second[LARGE / 2] ^= 1;
+        File a = write("first.bin", first, 1_000_000L);
+        File b = write("second.bin", second, 1_000_000L);
+
+        assertEquals(DuplicateFinder.hash(a, LARGE, true), DuplicateFinder.hash(b, LARGE, true));
+        assertNotEquals(DuplicateFinder.hash(a, LARGE, false), DuplicateFinder.hash(b, LARGE, false));
+
+        assertTrue(find().isEmpty());
+        assertEquals(Arrays.asList("Comparing file edges 2/2", "Comparing full contents 2/2"), stages);
+    }
+
+    @Test
+    public void cancelledSearchReturnsNothingFurther() throws IOException, InterruptedException {
+        write("first.bin", pattern(LARGE), 1_000_000L);
+        write("second.bin", pattern(LARGE), 1_000_000L);
+        FileSearcher.Handle handle = new FileSearcher.Handle();
+        handle.cancel();
+        assertTrue(finder.find(tempFolder.getRoot(), handle, null).isEmpty());
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.filemanagerapplication;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks {@link ExtractionPipeline} against the single-threaded inflate/write loop it
+ * replaced in {@code FileListActivity.extractItem()}, and benchmarks the two with the same
+ * buffer size; timings go to {@link PerfMetrics}.
+ */
+public class ExtractionPipelineTest {
+
+    private static final int FILE_COUNT = 24;
+    private static final int FILE_SIZE = 1024 * 1024;
+    private static final int BUFFER_SIZE = ExtractionPipeline.DEFAULT_BUFFER_SIZE;
+    private static final int BENCHMARK_RUNS = 5;
+    private static final String METRIC_SEQUENTIAL = "test.extract.sequential";
+    private static final String METRIC_PIPELINED = "test.extract.pipelined";
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+    private File archive;
+
+    @Before
+    public void setUp() throws IOException {
+        archive = new File(tempFolder.getRoot(), "input.zip");
+        Random random = new Random(42);
+        byte[] data = new byte[FILE_SIZE];
+        try (ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(archive)))) {
+            for (int i = 0; i < FILE_COUNT; i++) {
+                // Half-compressible content so inflation has real work to do
+                for (int j = 0; j < data.length; j++) {
+                    data[j] = (byte) (j % 3 == 0 ? random.nextInt() : 'a' + (j % 26));
+                }
+                zos.putNextEntry(new ZipEntry("dir/file" + i + ".bin"));
+                zos.write(data);
+                zos.closeEntry();
+            }
+            zos.putNextEntry(new ZipEntry("empty.txt"));
+            zos.closeEntry();
+        }
+    }
+
+    @Test
+    public void pipelinedExtractionMatchesSequential() throws IOException {
+        File sequentialDir = new File(tempFolder.getRoot(), "sequential");
+        File pipelinedDir = new File(tempFolder.getRoot(), "pipelined");
+        extractSequential(archive, sequentialDir, BUFFER_SIZE);
+        long written = extractPipelined(archive, pipelinedDir);
+
+        assertEquals((long) FILE_COUNT * FILE_SIZE, written);
+        assertEquals(0, new File(pipelinedDir, "empty.txt").length());
+        for (int i = 0; i < FILE_COUNT; i++) {
+            String name = "dir/file" + i + ".bin";
+            assertArrayEquals(Files.readAllBytes(new File(sequentialDir, name).toPath()),
+                    Files.readAllBytes(new File(pipelinedDir, name).toPath()));
+        }
+    }
+
+    @Test
+    public void writeFailureIsReportedOnClose() throws IOException {
+        File blocker = new File(tempFolder.getRoot(), "not-a-dir");
+        assertTrue(blocker.createNewFile());
+        ExtractionPipeline pipeline = new ExtractionPipeline(2, 1024);
+        try (ZipInputStream zis = new ZipInputStream(new FileInputStream(archive))) {
+            zis.getNextEntry();
+            // The writer cannot open a file below a regular file; the producer must not hang.
+            pipeline.extract(zis, new File(blocker, "child.bin"), 0);
+        } catch (IOException expected) {
+            // Also acceptable: the failure surfaces while the entry is still being queued
+        }
+        try {
+            pipeline.close();
+            fail("close() should rethrow the write failure");
+        } catch (IOException expected) {
+            // ok
+        }
+    }
+
+    @Test
+    public void benchmarkAgainstSequentialLoop() throws IOException {
+        // Warm up both paths once; each run then alternates so disk caching favours neither.
+        extractSequential(archive, new File(tempFolder.getRoot(), "warmup-seq"), BUFFER_SIZE);
+        extractPipelined(archive, new File(tempFolder.getRoot(), "warmup-pipe"));
+        for (int run = 0; run < BENCHMARK_RUNS; run++) {
+            long start = System.nanoTime();
+            extractSequential(archive, new File(tempFolder.getRoot(), "seq" + run), BUFFER_SIZE);
+            PerfMetrics.recordSince(METRIC_SEQUENTIAL, start);
+
+            start = System.nanoTime();
+            extractPipelined(archive, new File(tempFolder.getRoot(), "pipe" + run));
+            PerfMetrics.recordSince(METRIC_PIPELINED, start);
+        }
+        PerfMetrics.Summary sequential = PerfMetrics.summary(METRIC_SEQUENTIAL);
+        PerfMetrics.Summary pipelined = PerfMetrics.summary(METRIC_PIPELINED);
+        // Relative, so a slow machine slows both: the handoff to the writer must not cost more than the loop itself
+        assertTrue(pipelined + " vs " + sequential, pipelined.p50Millis <= 2 * sequential.p50Millis + 10);
+    }
+
+    /** The loop extractItem() used before the pipeline: inflate and write alternate on one thread. */
+    private static void extractSequential(File zipFile, File targetDir, int bufferSize) throws IOException {
+        try (ZipInputStream zis = new ZipInputStream(new BufferedInputStream(new FileInputStream(zipFile), bufferSize))) {
+            ZipEntry entry;
+            byte[] buffer = new byte[bufferSize];
+            while ((entry = zis.getNextEntry()) != null) {
+                File newFile = new File(targetDir, entry.getName());
+                newFile.getParentFile().mkdirs();
+                try (BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(newFile), buffer.length)) {
+                    int len;
+                    while ((len = zis.read(buffer)) > 0) {
+                        bos.write(buffer, 0, len);
+                    }
+                }
+            }
+        }
+    }
+
+    private static long extractPipelined(File zipFile, File targetDir) throws IOException {
+        ExtractionPipeline pipeline = new ExtractionPipeline(ExtractionPipeline.DEFAULT_BUFFER_COUNT, BUFFER_SIZE);
+        try (ZipInputStream zis = new ZipInputStream(new BufferedInputStream(new FileInputStream(zipFile), BUFFER_SIZE))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                File newFile = new File(targetDir, entry.getName());
+                newFile.getParentFile().mkdirs();
+                pipeline.extract(zis, newFile, 0);
+            }
+        } finally {
+            pipeline.close();
+        }
+        return pipeline.getBytesWritten();
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.example.filemanagerapplication;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/** Checks that {@link FileClipboard} survives a restart and forgets files that are gone. */
+public class FileClipboardTest {
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void keepsEntriesAcrossRestartsAndForgetsDeletedOnes() throws Exception {
+        File store = new File(tempFolder.getRoot(), "clipboard");
+        FileClipboard clipboard = new FileClipboard(store);
+        assertEquals(-1, clipboard.sizeIfLoaded());
+        assertEquals(3, clipboard.addAll(Arrays.asList(new File("/s/a/1.txt"), new File("/s/b"), new File("/s/c/2.txt"))));
+        assertEquals(0, clipboard.addAll(Collections.singletonList(new File("/s/b/inside.txt"))));
+        clipboard.awaitIdle();
+
+        FileClipboard restarted = new FileClipboard(store); // As after process death
+        assertEquals(3, restarted.size());
+        restarted.forget(new File("/s/b"));
+        restarted.awaitIdle();
+        restarted.awaitIdle(); // The save queued by forget
+        assertEquals(2, restarted.sizeIfLoaded());
+        assertEquals(Arrays.asList("/s/a/1.txt", "/s/c/2.txt"), new FileClipboard(store).snapshot().paths());
+
+        restarted.clear();
+        restarted.awaitIdle();
+        assertFalse(store.exists());
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.filemanagerapplication;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks {@link FileIndex} queries against a brute-force scan of the same synthetic tree,
+ * up to a million paths; their latency goes to {@link PerfMetrics}.
+ */
+public class FileIndexTest {
+
+    private static final String[] WORDS = {"img", "photo", "report", "invoice", "backup", "music", "track",
+            "video", "draft", "notes", "Screenshot", "download", "thumb", "cache", "Ảnh", "tài_liệu"};
+    private static final String[] EXTENSIONS = {".jpg", ".png", ".mp3", ".mp4", ".pdf", ".txt", ".zip", ""};
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    /** Builds a random tree into {@code builder}; returns every path except the root, with "/" appended to folders. */
+    private static List<String> buildTree(FileIndex.Builder builder, int entries, long seed) {
+        Random random = new Random(seed);
+        List<String> paths = new ArrayList<>(entries);
+        List<Integer> dirIds = new ArrayList<>();
+        List<String> dirPaths = new ArrayList<>();
+        dirIds.add(builder.add(-1, "/storage/emulated/0", true));
+        dirPaths.add("/storage/emulated/0");
+        for (int i = 1; i < entries; i++) {
+            int parent = random.nextInt(dirIds.size());
+            boolean directory = random.nextInt(10) == 0;
+            String name = WORDS[random.nextInt(WORDS.length)] + "_" + random.nextInt(100_000)
+                    + (directory ? "" : EXTENSIONS[random.nextInt(EXTENSIONS.length)]);
+            int id = builder.add(dirIds.get(parent), name, directory);
+            String path = dirPaths.get(parent) + "/" + name;
+            if (directory) {
+                dirIds.add(id);
+                dirPaths.add(path);
+            }
+            paths.add(directory ? path + "/" : path);
+        }
+        return paths;
+    }
+
+    private static List<String> query(FileIndex.MappedIndex index, NameMatcher matcher, String under,
+                                      FileIndex.Delta delta) {
+        List<FileIndex.Hit> hits = new ArrayList<>();
+        index.query(matcher, under, Integer.MAX_VALUE, delta, hits);
+        List<String> paths = new ArrayList<>();
+        for (FileIndex.Hit hit : hits) {
+            paths.add(hit.directory ? hit.file.getPath() + "/" : hit.file.getPath());
+        }
+        Collections.sort(paths);
+        return paths;
+    }
+
+    private static List<String> bruteForce(List<String> paths, NameMatcher matcher, String under) {
+        List<String> expected = new ArrayList<>();
+        for (String path : paths) {
+            String plain = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+            if (plain.startsWith(under + "/") && matcher.matches(plain.substring(plain.lastIndexOf('/') + 1))) {
+                expected.add(path);
+            }
+        }
+        Collections.sort(expected);
+        return expected;
+    }
+
+    @Test
+    public void queriesMatchBruteForce() throws IOException {
+        FileIndex.Builder builder = new FileIndex.Builder();
+        List<String> paths = buildTree(builder, 20_000, 7);
+        File file = new File(tempFolder.getRoot(), "names.idx");
+        builder.writeTo(file);
+        FileIndex.MappedIndex index = FileIndex.MappedIndex.open(file);
+        assertEquals("/storage/emulated/0", index.rootPath);
+        assertEquals(20_000, index.entryCount);
+
+        String someDir = null;
+        for (String path : paths) {
+            if (path.endsWith("/")) {
+                someDir = path.substring(0, path.length() - 1);
+                break;
+            }
+        }
+        assertNotNull(someDir);
+        for (String under : Arrays.asList("/storage/emulated/0", someDir)) {
+            for (NameMatcher matcher : Arrays.asList(
+                    NameMatcher.create(NameMatcher.Mode.SUBSTRING, "REPORT_1"),
+                    NameMatcher.create(NameMatcher.Mode.SUBSTRING, "ản"),
+                    NameMatcher.create(NameMatcher.Mode.SUBSTRING, "g_"),
+                    NameMatcher.create(NameMatcher.Mode.SUBSTRING, "notes_9.txt"),
+                    NameMatcher.create(NameMatcher.Mode.GLOB, "*photo_1?.jp[gx]"),
+                    NameMatcher.create(NameMatcher.Mode.REGEX, "^track_\\d{2}\\.mp3$"))) {
+                List<String> expected = bruteForce(paths, matcher, under);
+                assertEquals(expected, query(index, matcher, under, FileIndex.Delta.EMPTY));
+            }
+        }
+    }
+
+    @Test
+    public void deltaHidesRemovedSubtreesAndReplacedEntries() {
+        FileIndex.Delta delta = FileIndex.Delta.EMPTY;
+        assertFalse(delta.hides("/a/b"));
+        FileIndex.Delta removed = delta.withRemoved("/a/b");
+        assertTrue(removed.hides("/a/b"));
+        assertTrue(removed.hides("/a/b/c/d.txt"));
+        assertFalse(removed.hides("/a/bc"));
+        assertFalse(removed.hides("/a"));
+        FileIndex.Delta readded = removed.withAdded("/a/b", true).withAdded("/a/b/new.txt", false);
+        assertTrue(readded.hides("/a/b/c/d.txt"));
+        assertEquals(2, readded.added.size());
+        FileIndex.Delta removedAgain = readded.withRemoved("/a");
+        assertTrue(removedAgain.added.isEmpty());
+    }
+
+    @Test
+    public void millionPathQueriesMatchBruteForce() throws IOException {
+        FileIndex.Builder builder = new FileIndex.Builder();
+        long buildStart = System.nanoTime();
+        List<String> paths = buildTree(builder, 1_000_000, 11);
+        File file = new File(tempFolder.getRoot(), "names.idx");
+        builder.writeTo(file);
+        PerfMetrics.recordSince(FileIndex.METRIC_BUILD, buildStart);
+        FileIndex.MappedIndex index = FileIndex.MappedIndex.open(file);
+        assertEquals(1_000_000, index.entryCount);
+
+        for (String query : new String[]{"report_123", "invoice_99", "ảnh_4", "music_12345.mp3"}) {
+            NameMatcher matcher = NameMatcher.create(NameMatcher.Mode.SUBSTRING, query);
+            long start = System.nanoTime();
+            List<String> found = query(index, matcher, index.rootPath, FileIndex.Delta.EMPTY);
+            PerfMetrics.recordSince(FileIndex.METRIC_QUERY, start); // Latency is watched there, not asserted
+            assertEquals(query, bruteForce(paths, matcher, index.rootPath), found);
+        }
+
+        // A common word stops at the limit, with only matching names
+        NameMatcher common = NameMatcher.create(NameMatcher.Mode.SUBSTRING, "backup");
+        List<FileIndex.Hit> hits = new ArrayList<>();
+        index.query(common, index.rootPath, 5000, FileIndex.Delta.EMPTY, hits);
+        assertEquals(5000, hits.size());
+        for (FileIndex.Hit hit : hits) {
+            assertTrue(hit.file.getPath(), common.matches(hit.file.getName()));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.filemanagerapplication;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/** Runs {@link FileSearcher} over a generated tree, to the end and cancelled part way. */
+public class FileSearcherTest {
+
+    private static final int FOLDERS = 40;
+    private static final int FILES_PER_FOLDER = 25;
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+    private FileSearcher searcher;
+
+    @BeforeClass
+    public static void walkWithNio() {
+        TreeWalker.useNio = true; // SDK_INT reads 0 on the JVM, where android.system.Os is a stub
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        for (int i = 0; i < FOLDERS; i++) {
+            File folder = new File(tempFolder.getRoot(), "folder" + i + "/sub");
+            folder.mkdirs();
+            for (int j = 0; j < FILES_PER_FOLDER; j++) {
+                new File(folder, "file" + j + (j % 5 == 0 ? ".log" : ".txt")).createNewFile();
+            }
+        }
+        searcher = new FileSearcher(4);
+    }
+
+    @After
+    public void tearDown() {
+        searcher.shutdown();
+    }
+
+    /** Collects matches and waits for onFinished; optionally cancels after the first match. */
+    private static class Collector implements FileSearcher.Listener {
+        final List<String> matches = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger finishedCalls = new AtomicInteger();
+        final CountDownLatch finished = new CountDownLatch(1);
+        final boolean cancelOnFirstMatch;
+        volatile int directoriesScanned;
+        volatile boolean cancelled;
+
+        Collector(boolean cancelOnFirstMatch) {
+            this.cancelOnFirstMatch = cancelOnFirstMatch;
+        }
+
+        @Override
+        public void onMatch(FileSearcher.Handle search, File file, boolean isDirectory) {
+            matches.add(file.getName());
+            if (cancelOnFirstMatch) {
+                search.cancel();
+            }
+        }
+
+        @Override
+        public void onFinished(FileSearcher.Handle search, int directoriesScanned, boolean cancelled) {
+            this.directoriesScanned = directoriesScanned;
+            this.cancelled = cancelled;
+            finishedCalls.incrementAndGet();
+            finished.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("search did not finish", finished.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void findsEveryMatchBelowTheRoot() throws InterruptedException {
+        Collector collector = new Collector(false);
+        searcher.search(tempFolder.getRoot(), NameMatcher.create(NameMatcher.Mode.GLOB, "*.log"), collector);
+        collector.await();
+
+        assertEquals(FOLDERS * FILES_PER_FOLDER / 5, collector.matches.size());
+        assertFalse(collector.cancelled);
+        assertEquals(1 + FOLDERS * 2, collector.directoriesScanned); // Root, each folder and its sub
+        Thread.sleep(50);
+        assertEquals(1, collector.finishedCalls.get());
+    }
+
+    @Test
+    public void cancelStopsTheSearchAndStillFinishesOnce() throws InterruptedException {
+        Collector collector = new Collector(true);
+        FileSearcher.Handle handle = searcher.search(tempFolder.getRoot(), NameMatcher.create(NameMatcher.Mode.SUBSTRING, "file"), collector);
+        collector.await();
+
+        assertTrue(handle.isCancelled());
+        assertTrue(collector.cancelled);
+        // Tasks already reading a folder stop at their next entry: far fewer than all matches
+        assertTrue(collector.matches.size() < FOLDERS * FILES_PER_FOLDER / 2);
+        assertTrue(collector.directoriesScanned < 1 + FOLDERS * 2);
+        Thread.sleep(50);
+        assertEquals(1, collector.finishedCalls.get());
+    }
+}
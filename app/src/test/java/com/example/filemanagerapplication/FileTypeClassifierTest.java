@@ -0,0 +1,107 @@
+package com.example.filemanagerapplication;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/** Checks the extension table of {@link FileTypeClassifier} and benchmarks its per-row cost. */
+public class FileTypeClassifierTest {
+
+    private static final String METRIC_TABLE = "test.classify.table";
+    private static final String METRIC_OLD = "test.classify.mimeLookup";
+
+    @Test
+    public void classifiesByExtensionIgnoringCase() {
+        assertEquals(FileTypeClassifier.Category.IMAGE, FileTypeClassifier.forName("IMG_0001.JPG"));
+        assertEquals(FileTypeClassifier.Category.IMAGE, FileTypeClassifier.forName("photo.jpeg"));
+        assertEquals(FileTypeClassifier.Category.VIDEO, FileTypeClassifier.forName("clip.Mp4"));
+        assertEquals(FileTypeClassifier.Category.AUDIO, FileTypeClassifier.forName("song.flac"));
+        assertEquals(FileTypeClassifier.Category.PDF, FileTypeClassifier.forName("a.b.pdf"));
+        assertEquals(FileTypeClassifier.Category.ARCHIVE, FileTypeClassifier.forName("backup.tar.gz"));
+        assertEquals(FileTypeClassifier.Category.APK, FileTypeClassifier.forName("app-release.apk"));
+        assertEquals(FileTypeClassifier.Category.DOCUMENT, FileTypeClassifier.forName("notes.txt"));
+        assertEquals(FileTypeClassifier.Category.DOCUMENT, FileTypeClassifier.forName("main.c"));
+    }
+
+    @Test
+    public void namesWithoutKnownExtensionAreOther() {
+        assertEquals(FileTypeClassifier.Category.OTHER, FileTypeClassifier.forName("README"));
+        assertEquals(FileTypeClassifier.Category.OTHER, FileTypeClassifier.forName(".nomedia"));
+        assertEquals(FileTypeClassifier.Category.OTHER, FileTypeClassifier.forName("trailing."));
+        assertEquals(FileTypeClassifier.Category.OTHER, FileTypeClassifier.forName("data.jpgx"));
+        assertEquals(FileTypeClassifier.Category.OTHER, FileTypeClassifier.forName("data.jp"));
+        assertEquals(FileTypeClassifier.Category.OTHER, FileTypeClassifier.forName("ảnh.jpğ"));
+        assertEquals(FileTypeClassifier.Category.OTHER, FileTypeClassifier.forName("archive.verylongextension"));
+    }
+
+    @Test
+    public void classifiesManyRowNamesLikeTheirExtension() {
+        String[] extensions = {"jpg", "PNG", "mp4", "mp3", "pdf", "docx", "zip", "apk", "txt", "bin"};
+        FileTypeClassifier.Category[] expected = {
+                FileTypeClassifier.Category.IMAGE, FileTypeClassifier.Category.IMAGE,
+                FileTypeClassifier.Category.VIDEO, FileTypeClassifier.Category.AUDIO,
+                FileTypeClassifier.Category.PDF, FileTypeClassifier.Category.DOCUMENT,
+                FileTypeClassifier.Category.ARCHIVE, FileTypeClassifier.Category.APK,
+                FileTypeClassifier.Category.DOCUMENT, FileTypeClassifier.Category.OTHER};
+        for (int i = 0; i < 10_000; i++) {
+            String name = String.format(Locale.US, "IMG_2024%04d_%d.%s", i, i * 7, extensions[i % extensions.length]);
+            assertEquals(name, expected[i % extensions.length], FileTypeClassifier.forName(name));
+        }
+    }
+
+    /** The lookup the adapter used to do on every bind, with a map standing in for MimeTypeMap. */
+    private static String oldLookup(Map<String, String> mimeTypes, String name) {
+        String fileName = name.toLowerCase();
+        String extension = "";
+        int lastDot = fileName.lastIndexOf('.');
+        if (lastDot > 0 && lastDot < fileName.length() - 1) {
+            extension = fileName.substring(lastDot + 1);
+        }
+        return mimeTypes.get(extension);
+    }
+
+    @Test
+    public void benchmarkPerRowCost() {
+        String[] extensions = {"jpg", "PNG", "mp4", "mp3", "pdf", "docx", "zip", "apk", "txt", "bin"};
+        String[] names = new String[10_000];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = String.format(Locale.US, "IMG_2024%04d_%d.%s", i, i * 7, extensions[i % extensions.length]);
+        }
+        Map<String, String> mimeTypes = new HashMap<>();
+        for (String extension : extensions) {
+            mimeTypes.put(extension.toLowerCase(Locale.ROOT), "type/" + extension);
+        }
+        int passes = 20; // Rows per round: enough for whole milliseconds
+        int sink = 0;
+        for (int round = 0; round < 15; round++) {
+            long start = System.nanoTime();
+            for (int pass = 0; pass < passes; pass++) {
+                for (String name : names) {
+                    sink += FileTypeClassifier.forName(name).ordinal();
+                }
+            }
+            PerfMetrics.recordSince(METRIC_TABLE, start);
+            start = System.nanoTime();
+            for (int pass = 0; pass < passes; pass++) {
+                for (String name : names) {
+                    String type = oldLookup(mimeTypes, name);
+                    sink += type != null ? type.length() : 0;
+                }
+            }
+            PerfMetrics.recordSince(METRIC_OLD, start);
+        }
+        assertTrue(sink > 0); // Keeps the loops from being optimised away
+
+        PerfMetrics.Summary table = PerfMetrics.summary(METRIC_TABLE);
+        PerfMetrics.Summary old = PerfMetrics.summary(METRIC_OLD);
+        long rows = (long) passes * names.length;
+        String message = String.format(Locale.US, "per row: table %d ns, lowercase+substring+lookup %d ns",
+                table.p50Millis * 1_000_000 / rows, old.p50Millis * 1_000_000 / rows);
+        // Relative, so a slow machine slows both: the table must not lose to the path it replaced
+        assertTrue(message, table.p50Millis <= old.p50Millis);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.filemanagerapplication;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/** Checks the row bookkeeping of {@link FolderTree} as branches open and close. */
+public class FolderTreeTest {
+
+    private static FolderTree.Node expandWith(FolderTree tree, FolderTree.Node node, String... names) {
+        File[] children = new File[names.length];
+        for (int i = 0; i < names.length; i++) {
+            children[i] = new File(node.dir, names[i]);
+        }
+        node.setChildren(Arrays.asList(children));
+        assertEquals(names.length, tree.expand(node));
+        return node;
+    }
+
+    @Test
+    public void expandAndCollapseReportTheRowsChanged() {
+        FolderTree tree = new FolderTree(new File("/s"));
+        FolderTree.Node root = tree.root();
+        assertEquals(-1, root.childCount());
+
+        expandWith(tree, root, "a", "b", "c");
+        FolderTree.Node b = tree.get(2);
+        assertEquals(new File("/s/b"), b.dir);
+        assertEquals(1, b.depth);
+        expandWith(tree, b, "x", "y");
+        assertEquals(6, tree.size());
+        assertEquals(new File("/s/b/y"), tree.get(4).dir);
+        assertEquals(new File("/s/c"), tree.get(5).dir);
+
+        assertEquals(2, tree.collapse(b));
+        assertEquals(4, tree.size());
+        assertEquals(0, tree.collapse(b));
+        assertEquals(3, tree.collapse(root));
+        assertEquals(1, tree.size());
+    }
+
+    @Test
+    public void reopeningABranchRestoresItsExpandedChildren() {
+        FolderTree tree = new FolderTree(new File("/s"));
+        FolderTree.Node root = tree.root();
+        expandWith(tree, root, "a", "b");
+        FolderTree.Node a = tree.childFor(root, new File("/s/a"));
+        expandWith(tree, a, "deep");
+        tree.collapse(root);
+        assertEquals(-1, tree.indexOf(a));
+
+        assertEquals(3, tree.expand(root)); // a, a/deep, b
+        assertSame(a, tree.get(1));
+        assertEquals(new File("/s/a/deep"), tree.get(2).dir);
+
+        a.setChildren(Collections.emptyList()); // A late prefetch does not replace the listing
+        assertEquals(1, a.childCount());
+    }
+
+    private static List<File> folders(FolderTree.Node node, String... names) {
+        File[] children = new File[names.length];
+        for (int i = 0; i < names.length; i++) {
+            children[i] = new File(node.dir, names[i]);
+        }
+        return Arrays.asList(children);
+    }
+
+    @Test
+    public void nodeOpenedWhileLoadingShowsItsRowsOnAttach() {
+        FolderTree tree = new FolderTree(new File("/s"));
+        FolderTree.Node root = tree.root();
+        root.loading = true;
+        assertEquals(0, tree.expand(root)); // Nothing to show yet, but the intent is kept
+        assertTrue(root.expanded);
+        assertEquals(0, tree.expand(root)); // A second tap while loading changes nothing
+
+        assertEquals(2, tree.attachChildren(root, folders(root, "a", "b")));
+        assertFalse(root.loading);
+        assertEquals(3, tree.size());
+        assertEquals(0, tree.attachChildren(root, folders(root, "late"))); // A late listing is ignored
+        assertEquals(3, tree.size());
+    }
+
+    @Test
+    public void nodeCollapsedWhileLoadingStaysClosed() {
+        FolderTree tree = new FolderTree(new File("/s"));
+        FolderTree.Node root = tree.root();
+        expandWith(tree, root, "a", "b");
+        FolderTree.Node a = tree.childFor(root, new File("/s/a"));
+        a.loading = true;
+        tree.expand(a);
+        assertEquals(0, tree.collapse(a)); // No rows were shown
+        assertFalse(a.expanded);
+
+        assertEquals(0, tree.attachChildren(a, folders(a, "x")));
+        assertFalse(a.expanded);
+        assertEquals(1, a.childCount());
+        assertEquals(3, tree.size());
+    }
+
+    @Test
+    public void pendingNodeHiddenByItsParentIsNotOpenedOnAttach() {
+        FolderTree tree = new FolderTree(new File("/s"));
+        FolderTree.Node root = tree.root();
+        expandWith(tree, root, "a", "b");
+        FolderTree.Node a = tree.childFor(root, new File("/s/a"));
+        a.loading = true;
+        tree.expand(a);
+        tree.collapse(root);
+        assertEquals(2, tree.expand(root)); // a is still waiting for its listing: no rows below it
+        tree.collapse(root);
+
+        assertEquals(0, tree.attachChildren(a, folders(a, "x")));
+        assertFalse(a.expanded); // Hidden when the listing came: closed, can be opened again
+        assertEquals(2, tree.expand(root));
+        assertEquals(1, tree.expand(a));
+    }
+
+    @Test
+    public void pathFromRootToTarget() {
+        assertEquals(Arrays.asList(new File("/s"), new File("/s/a"), new File("/s/a/b")),
+                FolderTree.pathFrom(new File("/s"), new File("/s/a/b")));
+        assertEquals(Collections.singletonList(new File("/s")),
+                FolderTree.pathFrom(new File("/s"), new File("/s")));
+        assertEquals(Collections.singletonList(new File("/s")),
+                FolderTree.pathFrom(new File("/s"), new File("/other/a")));
+    }
+}
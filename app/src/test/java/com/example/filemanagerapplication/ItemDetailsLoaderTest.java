@@ -0,0 +1,96 @@
+package com.example.filemanagerapplication;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Loads details with {@link ItemDetailsLoader} and checks its memo. Main-thread callbacks are
+ * not delivered on the JVM, so the tests wait for the memo instead.
+ */
+public class ItemDetailsLoaderTest {
+
+    private final ItemDetailsLoader loader = ItemDetailsLoader.get();
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+    private File folder;
+    private File file;
+    private File sibling;
+
+    @BeforeClass
+    public static void walkWithNio() {
+        TreeWalker.useNio = true; // SDK_INT reads 0 on the JVM, where android.system.Os is a stub
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        folder = new File(tempFolder.getRoot(), "folder");
+        folder.mkdirs();
+        file = new File(folder, "a.bin");
+        Files.write(file.toPath(), new byte[300]);
+        sibling = new File(folder, "b.bin");
+        Files.write(sibling.toPath(), new byte[200]);
+    }
+
+    @After
+    public void tearDown() {
+        loader.invalidate(tempFolder.getRoot());
+    }
+
+    private ItemDetailsLoader.Details load(File target) throws InterruptedException {
+        loader.load(target, new Object(), (loaded, details) -> { });
+        for (int i = 0; i < 500; i++) {
+            ItemDetailsLoader.Details details = loader.getCached(target);
+            if (details != null) {
+                return details;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("no details for " + target);
+    }
+
+    @Test
+    public void detailsAreMemoizedUntilTheFileChanges() throws InterruptedException, IOException {
+        ItemDetailsLoader.Details details = load(file);
+        assertEquals(300, details.bytes);
+        assertEquals(-1, details.childCount);
+        assertEquals(file.lastModified(), details.lastModified);
+
+        Files.write(file.toPath(), new byte[50]); // Not reported: the memo is what rows show
+        assertSame(details, loader.getCached(file));
+
+        ItemDetailsLoader.Details folderDetails = load(folder);
+        assertEquals(250, folderDetails.bytes); // A folder not memoized yet is summed as it is now
+        assertEquals(2, folderDetails.childCount);
+        assertTrue(folderDetails.isComplete());
+    }
+
+    @Test
+    public void invalidateDropsTheFileItsSubtreeAndItsAncestors() throws InterruptedException {
+        load(file);
+        load(sibling);
+        load(folder);
+        load(tempFolder.getRoot());
+
+        // What notifyCreated and notifyDeleted do for a changed file
+        loader.invalidate(file);
+        assertNull(loader.getCached(file));
+        assertNull(loader.getCached(folder)); // Its size included the file
+        assertNull(loader.getCached(tempFolder.getRoot()));
+        assertNotNull(loader.getCached(sibling));
+
+        load(file);
+        loader.invalidate(folder); // A folder deleted or moved as a whole
+        assertNull(loader.getCached(file));
+        assertNull(loader.getCached(sibling));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.filemanagerapplication;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/** Checks that {@link ListingCache} reuses listings only while valid and stays within its bound. */
+public class ListingCacheTest {
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private static ListingCache.Listing listingOf(File dir, int size) {
+        return new ListingCache.Listing(new File[size], new FileTypeClassifier.Category[size], dir.lastModified());
+    }
+
+    private File mkdir(String name) {
+        File dir = new File(tempFolder.getRoot(), name);
+        assertTrue(dir.mkdir());
+        return dir;
+    }
+
+    @Test
+    public void reusesListingUntilFolderChanges() {
+        File dir = mkdir("a");
+        ListingCache cache = new ListingCache(100);
+        ListingCache.Listing listing = listingOf(dir, 3);
+        cache.put(dir, listing);
+        assertSame(listing, cache.get(dir));
+
+        assertTrue(dir.setLastModified(dir.lastModified() - 10_000)); // As if an entry was added
+        assertNull(cache.get(dir));
+    }
+
+    @Test
+    public void invalidateDropsParentAndSubtree() {
+        File parent = mkdir("p");
+        File child = new File(parent, "c");
+        assertTrue(child.mkdir());
+        File other = mkdir("o");
+        ListingCache cache = new ListingCache(100);
+        cache.put(parent, listingOf(parent, 1));
+        cache.put(child, listingOf(child, 1));
+        cache.put(other, listingOf(other, 1));
+
+        cache.invalidate(child);
+        assertNull(cache.get(parent));
+        assertNull(cache.get(child));
+        assertNotNull(cache.get(other));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedBeyondEntryBound() {
+        File a = mkdir("a");
+        File b = mkdir("b");
+        File c = mkdir("c");
+        ListingCache cache = new ListingCache(10);
+        cache.put(a, listingOf(a, 4));
+        cache.put(b, listingOf(b, 4));
+        assertNotNull(cache.get(a)); // b is now the least recently used
+        cache.put(c, listingOf(c, 4));
+
+        assertNotNull(cache.get(a));
+        assertNull(cache.get(b));
+        assertNotNull(cache.get(c));
+
+        File huge = mkdir("huge");
+        cache.put(huge, listingOf(huge, 6)); // Over half the bound: not cached at all
+        assertNull(cache.get(huge));
+        assertNotNull(cache.get(a));
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.filemanagerapplication;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Checks that {@link ListingFilter} refining per keystroke matches a full rescan, and times a keystroke. */
+public class ListingFilterTest {
+
+    private static final String METRIC_KEYSTROKE = "test.filter.keystroke_20k_rows";
+
+    private static int[] rescan(String[] keys, int[] all, String query) {
+        String folded = SortMode.foldName(query.trim());
+        List<Integer> matches = new ArrayList<>();
+        for (int index : all) {
+            if (keys[index].contains(folded)) {
+                matches.add(index);
+            }
+        }
+        return matches.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Test
+    public void refinedResultsEqualFullRescanWhileTypingAndDeleting() {
+        Random random = new Random(11);
+        String[] names = new String[5000];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = (random.nextBoolean() ? "Ảnh_" : "IMG_") + random.nextInt(100_000) + (random.nextBoolean() ? ".jpg" : ".mp4");
+        }
+        String[] keys = new String[names.length];
+        int[] all = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            keys[i] = SortMode.foldName(names[i]);
+            all[names.length - 1 - i] = i; // Some display order other than listing order
+        }
+        ListingFilter filter = new ListingFilter(keys, all);
+        String[] typed = {"a", "an", "anh", "anh_", "anh_1", "anh_12", "anh_1", "anh", "ANH_9", "mp", ".mp4", "", "img", "IMG_7"};
+        for (String query : typed) {
+            assertArrayEquals(query, rescan(keys, all, query), filter.update(query));
+        }
+        assertSame(all, filter.update("  "));
+    }
+
+    @Test
+    public void benchmarkTypingIntoTwentyThousandRows() {
+        int n = 20_000;
+        String[] keys = new String[n];
+        int[] all = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = SortMode.foldName("Document " + i + (i % 3 == 0 ? ".pdf" : ".txt"));
+            all[i] = i;
+        }
+        ListingFilter filter = new ListingFilter(keys, all);
+        String query = "document 1234";
+        for (int round = 0; round < 5; round++) { // Later rounds run warm
+            filter.update("");
+            for (int length = 1; length <= query.length(); length++) {
+                long start = System.nanoTime();
+                filter.update(query.substring(0, length));
+                if (round > 0) {
+                    PerfMetrics.recordSince(METRIC_KEYSTROKE, start);
+                }
+            }
+        }
+        assertEquals(11, filter.update(query).length); // 1234 and 12340..12349
+    }
+}
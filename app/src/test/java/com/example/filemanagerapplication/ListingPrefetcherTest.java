@@ -0,0 +1,92 @@
+package com.example.filemanagerapplication;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/** Checks how {@link ListingPrefetcher} ranks, budgets and counts its guesses. */
+public class ListingPrefetcherTest {
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private File folder(String name, int files) throws IOException {
+        File folder = new File(tempFolder.getRoot(), name);
+        assertTrue(folder.mkdirs());
+        for (int i = 0; i < files; i++) {
+            assertTrue(new File(folder, "f" + i).createNewFile());
+        }
+        return folder;
+    }
+
+    @Test
+    public void ranksParentThenMostVisitedAndRemembersVisitsAcrossRestarts() throws Exception {
+        File visits = new File(tempFolder.getRoot(), "visits");
+        ListingPrefetcher prefetcher = new ListingPrefetcher(visits);
+        File parent = new File("/p");
+        List<File> visible = Arrays.asList(new File("/p/a"), new File("/p/b"), new File("/p/c"),
+                new File("/p/d"), new File("/p/e"));
+        for (int i = 0; i < 3; i++) {
+            prefetcher.onOpened(new File("/p/d"), false);
+        }
+        prefetcher.onOpened(new File("/p/b"), false);
+        prefetcher.awaitIdle(); // Visits are counted on the worker
+
+        assertEquals(Arrays.asList(parent, new File("/p/d"), new File("/p/b"), new File("/p/a")),
+                prefetcher.rank(parent, visible));
+
+        for (int i = 0; i < 16; i++) { // Enough visits to save the counts
+            prefetcher.onOpened(new File("/p/e"), false);
+        }
+        prefetcher.awaitIdle();
+        ListingPrefetcher restarted = new ListingPrefetcher(visits);
+        assertEquals(new File("/p/e"), restarted.rank(null, visible).get(0));
+    }
+
+    @Test
+    public void prefetchedFolderIsCachedAndCountedAsHitWhenOpened() throws Exception {
+        File small = folder("small", 3);
+        File huge = folder("huge", ListingPrefetcher.MAX_FOLDER_ENTRIES + 1);
+        ListingPrefetcher prefetcher = new ListingPrefetcher(new File(tempFolder.getRoot(), "visits"));
+
+        prefetcher.prefetch(null, Arrays.asList(huge, small), SortMode.DEFAULT);
+        prefetcher.awaitIdle();
+        assertTrue(ListingCache.get().contains(small.getAbsolutePath()));
+        assertFalse(ListingCache.get().contains(huge.getAbsolutePath())); // Too large to keep on a guess
+
+        prefetcher.onOpened(small, true);
+        prefetcher.onOpened(huge, false);
+        prefetcher.awaitIdle();
+        assertEquals(1, prefetcher.hits());
+        assertTrue(prefetcher.stats().startsWith("prefetch: 1/2 opens hit (50%)"));
+    }
+
+    @Test
+    public void stopsHoldingGuessesOverTheBudgetUntilOneIsOpened() throws Exception {
+        File[] folders = new File[4];
+        for (int i = 0; i < folders.length; i++) {
+            folders[i] = folder("big" + i, 4_000); // Three of them exceed MAX_UNUSED_ENTRIES
+        }
+        ListingPrefetcher prefetcher = new ListingPrefetcher(new File(tempFolder.getRoot(), "visits"));
+        prefetcher.prefetch(null, Arrays.asList(folders), SortMode.DEFAULT);
+        prefetcher.awaitIdle();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(ListingCache.get().contains(folders[i].getAbsolutePath()));
+        }
+        assertFalse(ListingCache.get().contains(folders[3].getAbsolutePath()));
+
+        prefetcher.onOpened(folders[0], true);
+        prefetcher.onOpened(folders[1], true);
+        prefetcher.prefetch(null, Collections.singletonList(folders[3]), SortMode.DEFAULT);
+        prefetcher.awaitIdle();
+        assertTrue(ListingCache.get().contains(folders[3].getAbsolutePath()));
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.filemanagerapplication;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/** Checks that {@link ListingStore} restores unchanged folders and evicts the least recently used. */
+public class ListingStoreTest {
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+    private File storeDir;
+
+    @Before
+    public void setUp() {
+        storeDir = new File(tempFolder.getRoot(), "store");
+    }
+
+    private static void deleteRecursive(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursive(child);
+            }
+        }
+        file.delete();
+    }
+
+    private File folderWith(String name, int files) throws IOException {
+        File folder = new File(tempFolder.getRoot(), name);
+        assertTrue(folder.mkdir());
+        for (int i = 0; i < files; i++) {
+            Files.write(new File(folder, "file" + i + ".txt").toPath(), new byte[i]);
+        }
+        assertTrue(new File(folder, "sub").mkdir());
+        assertTrue(folder.setLastModified(1_600_000_000_000L));
+        return folder;
+    }
+
+    @Test
+    public void restoresUnchangedFolderWithStatsAndDropsChangedOne() throws Exception {
+        File folder = folderWith("photos", 30);
+        ListingStore store = new ListingStore(storeDir, 1 << 20, 10);
+        ListingCache.Listing listed = ListingCache.list(folder);
+        store.save(folder, listed);
+        store.awaitIdle();
+
+        ListingStore reopened = new ListingStore(storeDir, 1 << 20, 10); // As after a restart
+        ListingCache.Listing restored = reopened.load(folder);
+        assertNotNull(restored);
+        assertTrue(ListingStore.sameEntries(listed, restored));
+        assertTrue(restored.takeRestored());
+        assertFalse(restored.takeRestored());
+        assertFalse(listed.takeRestored());
+
+        assertTrue(new File(folder, "new.txt").createNewFile());
+        assertTrue(folder.setLastModified(1_700_000_000_000L));
+        assertNull(reopened.load(folder));
+    }
+
+    @Test
+    public void revalidationReportsFilesRewrittenInPlace() throws Exception {
+        File folder = folderWith("docs", 20);
+        ListingStore store = new ListingStore(storeDir, 1 << 20, 10);
+        store.save(folder, ListingCache.list(folder));
+        store.awaitIdle();
+        ListingCache.Listing restored = store.load(folder);
+
+        AtomicReference<ListingCache.Listing> changed = new AtomicReference<>();
+        store.revalidate(folder, restored, changed::set);
+        store.awaitIdle();
+        assertNull(changed.get()); // Nothing changed
+
+        Files.write(new File(folder, "file3.txt").toPath(), new byte[500]); // Same entries, folder mtime kept
+        assertTrue(folder.setLastModified(1_600_000_000_000L));
+        store.revalidate(folder, restored, changed::set);
+        store.awaitIdle();
+        assertNotNull(changed.get());
+        assertTrue(ListingStore.sameEntries(changed.get(), store.load(folder))); // Saved as well
+    }
+
+    @Test
+    public void smallFoldersAreNotStoredAndColdFoldersAreEvicted() throws Exception {
+        File small = folderWith("small", 3);
+        File a = folderWith("a", 40);
+        File b = folderWith("b", 40);
+        File c = folderWith("c", 40);
+        ListingStore probe = new ListingStore(storeDir, Long.MAX_VALUE, 10);
+        probe.save(a, ListingCache.list(a));
+        probe.awaitIdle();
+        long oneRecord = new File(storeDir, ListingStore.recordName(a)).length();
+        deleteRecursive(storeDir);
+
+        ListingStore store = new ListingStore(storeDir, oneRecord * 2 + oneRecord / 2, 10);
+        store.save(small, ListingCache.list(small));
+        store.save(a, ListingCache.list(a));
+        store.save(b, ListingCache.list(b));
+        store.awaitIdle();
+        assertNull(store.load(small));
+        assertNotNull(store.load(a)); // Now b is the least recently used
+        store.save(c, ListingCache.list(c));
+        store.awaitIdle();
+
+        assertNull(store.load(b));
+        assertNotNull(store.load(a));
+        assertNotNull(store.load(c));
+
+        store.invalidate(new File(c, "file1.txt"));
+        store.awaitIdle();
+        assertNull(store.load(c));
+    }
+}
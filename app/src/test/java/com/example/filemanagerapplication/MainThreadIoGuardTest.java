@@ -0,0 +1,40 @@
+package com.example.filemanagerapplication;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/** Checks which StrictMode violations {@link MainThreadIoGuard} treats as the app's own. */
+public class MainThreadIoGuardTest {
+
+    private static StackTraceElement frame(String className) {
+        return new StackTraceElement(className, "run", className + ".java", 1);
+    }
+
+    @Test
+    public void appPackageIsThisPackageWithTrailingDot() {
+        assertEquals("com.example.filemanagerapplication.", MainThreadIoGuard.APP_PACKAGE);
+    }
+
+    @Test
+    public void violationsPassingThroughAppCodeAreTheApps() {
+        assertTrue(MainThreadIoGuard.isFromApp(new StackTraceElement[] {
+                frame("java.io.File"),
+                frame("android.os.StrictMode$AndroidBlockGuardPolicy"),
+                frame("com.example.filemanagerapplication.FileListActivity$1"),
+                frame("android.os.Looper")}));
+        assertTrue(MainThreadIoGuard.isFromApp(new StackTraceElement[] {frame("com.example.filemanagerapplication.MyAdapter")}));
+    }
+
+    @Test
+    public void frameworkOnlyAndLookAlikePackagesAreNot() {
+        assertFalse(MainThreadIoGuard.isFromApp(new StackTraceElement[0]));
+        assertFalse(MainThreadIoGuard.isFromApp(new StackTraceElement[] {
+                frame("android.content.res.ResourcesImpl"),
+                frame("android.app.SharedPreferencesImpl"),
+                frame("android.os.Looper")}));
+        assertFalse(MainThreadIoGuard.isFromApp(new StackTraceElement[] {
+                frame("com.example.filemanagerapplicationextras.Helper"), // Same prefix, other package
+                frame("com.example.Other")}));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.filemanagerapplication;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/** Checks substring, glob and regex matching of {@link NameMatcher}. */
+public class NameMatcherTest {
+
+    @Test
+    public void substringMatchesAnywhereIgnoringCase() {
+        NameMatcher matcher = NameMatcher.create(NameMatcher.Mode.SUBSTRING, "Rep");
+        assertTrue(matcher.matches("report.pdf"));
+        assertTrue(matcher.matches("Q3 REPORT.pdf"));
+        assertTrue(matcher.matches("rep"));
+        assertFalse(matcher.matches("re"));
+        assertFalse(matcher.matches("r-e-p"));
+        assertEquals("Rep", matcher.requiredLiteral());
+        assertTrue(NameMatcher.create(NameMatcher.Mode.SUBSTRING, "").matches("anything"));
+    }
+
+    @Test
+    public void globMatchesTheWholeName() {
+        NameMatcher matcher = NameMatcher.create(NameMatcher.Mode.GLOB, "IMG_*.jp?g");
+        assertTrue(matcher.matches("IMG_0001.jpeg"));
+        assertTrue(matcher.matches("img_.JPEG"));
+        assertFalse(matcher.matches("IMG_0001.jpg")); // ? needs exactly one character
+        assertFalse(matcher.matches("old IMG_0001.jpeg")); // Anchored at both ends
+        assertFalse(matcher.matches("IMG_0001.jpeg.bak"));
+        assertEquals("IMG_", matcher.requiredLiteral());
+    }
+
+    @Test
+    public void globClassesAndRegexCharactersAreHandled() {
+        NameMatcher digit = NameMatcher.create(NameMatcher.Mode.GLOB, "file[0-9].txt");
+        assertTrue(digit.matches("file7.txt"));
+        assertFalse(digit.matches("fileA.txt"));
+        assertFalse(digit.matches("file7Xtxt")); // The dot is literal
+
+        NameMatcher negated = NameMatcher.create(NameMatcher.Mode.GLOB, "[!a]*");
+        assertFalse(negated.matches("apple"));
+        assertTrue(negated.matches("banana"));
+
+        NameMatcher literal = NameMatcher.create(NameMatcher.Mode.GLOB, "a+b (1)$[x");
+        assertTrue(literal.matches("A+B (1)$[X")); // No closing bracket: '[' is literal
+        assertFalse(literal.matches("aab (1)$[x"));
+        assertEquals("a+b (1)$[x", literal.requiredLiteral());
+
+        assertNull(NameMatcher.create(NameMatcher.Mode.GLOB, "*?*").requiredLiteral());
+        assertEquals(".backup", NameMatcher.longestGlobLiteral("a*.backup[0-9]"));
+    }
+
+    @Test
+    public void regexIsFoundAnywhere() {
+        NameMatcher matcher = NameMatcher.create(NameMatcher.Mode.REGEX, "\\d{4}-\\d{2}");
+        assertTrue(matcher.matches("photo 2024-05.jpg"));
+        assertFalse(matcher.matches("photo 24-05.jpg"));
+        assertNull(matcher.requiredLiteral());
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.filemanagerapplication;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class PathLockManagerTest {
+
+    private final PathLockManager locks = new PathLockManager(4);
+
+    @Test
+    public void disjointSubtreesDoNotBlock() throws Exception {
+        PathLockManager.Lease first = locks.acquire(new PathLockManager.LockSet().exclusive(new File("/root/a/b")));
+        assertTrue("sibling must not wait", acquiresWithin(new PathLockManager.LockSet().exclusive(new File("/root/a/c")), 1000));
+        first.close();
+    }
+
+    @Test
+    @SuppressWarnings("try") // The lease is only held, never read
+    public void exclusiveParentBlocksSharedChild() throws Exception {
+        PathLockManager.Lease parent = locks.acquire(new PathLockManager.LockSet().exclusive(new File("/root/a")));
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread reader = new Thread(() -> {
+            try (PathLockManager.Lease ignored = locks.acquire(new PathLockManager.LockSet().shared(new File("/root/a/b/c")))) {
+                acquired.countDown();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        reader.start();
+        assertFalse("child read must wait for the parent writer", acquired.await(200, TimeUnit.MILLISECONDS));
+        parent.close();
+        assertTrue(acquired.await(2, TimeUnit.SECONDS));
+        reader.join();
+        assertEquals(0, locks.activeNodeCount());
+    }
+
+    @Test
+    public void overlappingPathsInOneSetDoNotSelfDeadlock() throws Exception {
+        // e.g. copying /root/a/x into /root/a: shared source inside the exclusive destination
+        PathLockManager.LockSet set = new PathLockManager.LockSet()
+                .exclusive(new File("/root/a"))
+                .shared(new File("/root/a/x"));
+        assertTrue(acquiresWithin(set, 1000));
+        assertEquals(0, locks.activeNodeCount());
+    }
+
+    @Test
+    public void interruptedWaiterLeavesNoState() throws Exception {
+        PathLockManager.Lease holder = locks.acquire(new PathLockManager.LockSet().exclusive(new File("/root/a")));
+        AtomicReference<Throwable> outcome = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                locks.acquire(new PathLockManager.LockSet().exclusive(new File("/root/a/b")));
+                outcome.set(new AssertionError("should not have been granted"));
+            } catch (InterruptedException expected) {
+                outcome.set(expected);
+            }
+        });
+        waiter.start();
+        Thread.sleep(100);
+        waiter.interrupt();
+        waiter.join(2000);
+        assertTrue(outcome.get() instanceof InterruptedException);
+        holder.close();
+        assertEquals(0, locks.activeNodeCount());
+    }
+
+    @Test
+    public void normalizeAndOrder() {
+        assertEquals("/", PathLockManager.normalize(new File("/")));
+        assertEquals("/a/c", PathLockManager.normalize(new File("/a/./b/../c/")));
+        assertEquals("/a", PathLockManager.parentOf("/a/b"));
+        assertEquals("/", PathLockManager.parentOf("/a"));
+        assertNull(PathLockManager.parentOf("/"));
+        assertTrue(PathLockManager.comparePaths("/a", "/a/b") < 0);
+        assertTrue(PathLockManager.comparePaths("/a/b", "/a-b") < 0);
+    }
+
+    /**
+     * Randomized operations on a small tree, so overlaps are frequent. A shadow table
+     * records what every thread believes it holds and flags any two overlapping holdings
+     * where one side is exclusive. Threads that do not finish in time indicate a deadlock.
+     */
+    @Test
+    @SuppressWarnings("try") // The lease is only held, never read
+    public void randomizedConcurrentOperationsKeepInvariants() throws Exception {
+        final String[] paths = buildPaths();
+        final int threads = 8;
+        final int operationsPerThread = 3000;
+        final ShadowTable shadow = new ShadowTable();
+        final AtomicInteger completed = new AtomicInteger();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int owner = t;
+            final Random random = new Random(1234 + t);
+            Thread worker = new Thread(() -> {
+                try {
+                    for (int op = 0; op < operationsPerThread; op++) {
+                        int count = 1 + random.nextInt(3);
+                        List<String> held = new ArrayList<>();
+                        List<Boolean> exclusive = new ArrayList<>();
+                        PathLockManager.LockSet set = new PathLockManager.LockSet();
+                        for (int i = 0; i < count; i++) {
+                            String path = paths[random.nextInt(paths.length)];
+                            boolean write = random.nextInt(3) == 0;
+                            if (write) set.exclusive(new File(path)); else set.shared(new File(path));
+                            held.add(path);
+                            exclusive.add(write);
+                        }
+                        try (PathLockManager.Lease ignored = locks.acquire(set)) {
+                            shadow.enter(owner, held, exclusive);
+                            if (random.nextInt(4) == 0) {
+                                Thread.yield();
+                            }
+                            shadow.exit(owner);
+                        }
+                    }
+                    completed.incrementAndGet();
+                } catch (Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join(60_000);
+        }
+        if (error.get() != null) {
+            throw new AssertionError("worker failed", error.get());
+        }
+        assertEquals("threads still blocked: possible deadlock", threads, completed.get());
+        assertNull(shadow.violation, shadow.violation);
+        assertEquals(0, locks.activeNodeCount());
+    }
+
+    @SuppressWarnings("try") // The lease is only held, never read
+    private boolean acquiresWithin(PathLockManager.LockSet set, long millis) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            try (PathLockManager.Lease ignored = locks.acquire(set)) {
+                done.countDown();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        thread.start();
+        boolean acquired = done.await(millis, TimeUnit.MILLISECONDS);
+        thread.interrupt();
+        thread.join();
+        return acquired;
+    }
+
+    private static String[] buildPaths() {
+        List<String> paths = new ArrayList<>();
+        paths.add("/s");
+        for (String a : new String[]{"a", "b", "c"}) {
+            paths.add("/s/" + a);
+            for (String b : new String[]{"x", "y", "x-y"}) {
+                paths.add("/s/" + a + "/" + b);
+                paths.add("/s/" + a + "/" + b + "/f");
+            }
+        }
+        return paths.toArray(new String[0]);
+    }
+
+    /** What each owner currently holds, checked for conflicts on every entry. */
+    private static final class ShadowTable {
+        private final List<Object[]> holdings = new ArrayList<>();
+        volatile String violation;
+
+        synchronized void enter(int owner, List<String> paths, List<Boolean> exclusive) {
+            for (Object[] other : holdings) {
+                int otherOwner = (Integer) other[0];
+                if (otherOwner == owner) continue;
+                for (int i = 0; i < paths.size(); i++) {
+                    String path = paths.get(i);
+                    boolean otherExclusive = (Boolean) other[2];
+                    String otherPath = (String) other[1];
+                    if ((exclusive.get(i) || otherExclusive) && overlaps(path, otherPath)) {
+                        violation = "owner " + owner + " got " + path + (exclusive.get(i) ? " X" : " S")
+                                + " while owner " + otherOwner + " holds " + otherPath + (otherExclusive ? " X" : " S");
+                    }
+                }
+            }
+            for (int i = 0; i < paths.size(); i++) {
+                holdings.add(new Object[]{owner, paths.get(i), exclusive.get(i)});
+            }
+        }
+
+        synchronized void exit(int owner) {
+            holdings.removeIf(h -> (Integer) h[0] == owner);
+        }
+
+        private static boolean overlaps(String a, String b) {
+            return a.equals(b) || a.startsWith(b + "/") || b.startsWith(a + "/");
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.filemanagerapplication;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/** Checks the set semantics and the encoding of {@link PathTrie}. */
+public class PathTrieTest {
+
+    @Test
+    public void gathersPathsFromSeveralFoldersAndListsThemSorted() {
+        PathTrie trie = new PathTrie();
+        assertTrue(trie.add("/storage/emulated/0/DCIM/b.jpg"));
+        assertTrue(trie.add("/storage/emulated/0/DCIM/a.jpg"));
+        assertTrue(trie.add("/storage/emulated/0/Download/report.pdf"));
+        assertTrue(trie.add("/storage/emulated/0/DCIM/a.jpg.bak")); // Shares characters, not a segment
+        assertFalse(trie.add("/storage/emulated/0/DCIM/a.jpg/")); // Same path
+
+        assertEquals(4, trie.size());
+        assertEquals(Arrays.asList("/storage/emulated/0/DCIM/a.jpg", "/storage/emulated/0/DCIM/a.jpg.bak",
+                "/storage/emulated/0/DCIM/b.jpg", "/storage/emulated/0/Download/report.pdf"), trie.paths());
+        assertTrue(trie.covers("/storage/emulated/0/DCIM/a.jpg"));
+        assertFalse(trie.covers("/storage/emulated/0/DCIM"));
+        assertFalse(trie.covers("/storage/emulated/0/DCIM/a"));
+    }
+
+    @Test
+    public void aFolderCoversWhatIsInsideIt() {
+        PathTrie trie = new PathTrie();
+        trie.add("/s/Music/x.mp3");
+        trie.add("/s/Music/Live/y.mp3");
+        trie.add("/s/Movies/z.mkv");
+
+        assertTrue(trie.add("/s/Music")); // Replaces the two entries inside it
+        assertEquals(Arrays.asList("/s/Movies/z.mkv", "/s/Music"), trie.paths());
+        assertEquals(2, trie.size());
+        assertFalse(trie.add("/s/Music/Live/new.mp3"));
+        assertTrue(trie.covers("/s/Music/Live/new.mp3"));
+        assertFalse(trie.covers("/s/MusicVideos"));
+    }
+
+    @Test
+    public void removeDropsTheBranchAndKeepsTheRest() {
+        PathTrie trie = new PathTrie();
+        trie.add("/s/a/one");
+        trie.add("/s/a/two");
+        trie.add("/s/b/deep/three");
+        trie.add("/s/b/deep/four");
+
+        assertEquals(0, trie.remove("/s/b/dee"));
+        assertEquals(0, trie.remove("/s/a/one/inside")); // Below an entry
+        assertEquals(2, trie.remove("/s/b")); // Deleted folder
+        assertEquals(1, trie.remove("/s/a/one"));
+        assertEquals(Collections.singletonList("/s/a/two"), trie.paths());
+        assertTrue(trie.add("/s/a/three")); // Splits the merged node again
+        assertEquals(Arrays.asList("/s/a/three", "/s/a/two"), trie.paths());
+        assertEquals(2, trie.remove("/"));
+        assertTrue(trie.isEmpty());
+    }
+
+    @Test
+    public void roundTripsThroughBytesAndStaysCompact() throws Exception {
+        PathTrie trie = new PathTrie();
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            files.add(new File("/storage/emulated/0/DCIM/Camera/IMG_" + i + ".jpg"));
+        }
+        assertEquals(10_000, trie.addAll(files));
+        trie.add("/storage/emulated/0/Download");
+
+        byte[] bytes = trie.toBytes();
+        PathTrie restored = PathTrie.fromBytes(bytes);
+        assertEquals(trie.paths(), restored.paths());
+        assertEquals(trie.paths(), trie.copy().paths());
+        int fullPaths = 0;
+        for (File file : files) {
+            fullPaths += file.getPath().length();
+        }
+        assertTrue(bytes.length < fullPaths / 2); // The shared folder is stored once
+
+        try {
+            PathTrie.fromBytes(Arrays.copyOf(bytes, bytes.length - 3));
+            fail("Truncated bytes were accepted");
+        } catch (java.io.IOException expected) {
+            // Corrupt input is reported, not half-read
+        }
+    }
+
+    @Test
+    public void commonPrefixStopsAtWholeSegments() {
+        assertEquals(2, PathTrie.commonPrefix("ab/c", "ab/d"));
+        assertEquals(2, PathTrie.commonPrefix("ab", "ab/c"));
+        assertEquals(0, PathTrie.commonPrefix("ab", "abc"));
+        assertEquals(4, PathTrie.commonPrefix("ab/c", "ab/c"));
+    }
+}
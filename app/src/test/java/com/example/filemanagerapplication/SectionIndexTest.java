@@ -0,0 +1,108 @@
+package com.example.filemanagerapplication;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Checks the fast-scroll sections {@link SectionIndex} derives from a sorted listing. */
+public class SectionIndexTest {
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private static ListingCache.Listing listingOf(File... files) {
+        return new ListingCache.Listing(files, FileTypeClassifier.classifyAll(Arrays.asList(files)), 1);
+    }
+
+    private static List<String> labels(SectionIndex index) {
+        List<String> labels = new ArrayList<>();
+        for (int section = 0; section < index.size(); section++) {
+            labels.add(index.labelOf(section));
+        }
+        return labels;
+    }
+
+    private static SectionIndex index(ListingCache.Listing listing, SortMode mode) {
+        return SectionIndex.of(listing.sectionKeysFor(mode), listing.orderFor(mode));
+    }
+
+    @Test
+    public void namesSplitByFoldedInitialInBothDirections() {
+        ListingCache.Listing listing = listingOf(new File("banana.txt"), new File("Ảnh.jpg"), new File("apple.txt"),
+                new File("2024.pdf"), new File("_notes"), new File("Zebra.png"));
+
+        SectionIndex ascending = index(listing, SortMode.DEFAULT);
+        assertEquals(Arrays.asList("#", "•", "A", "B", "Z"), labels(ascending));
+        assertEquals(2, ascending.startOf(2));
+        assertEquals("A", ascending.labelAt(3)); // Ảnh.jpg and apple.txt share "A"
+        assertEquals("Z", ascending.labelAt(5));
+        assertNull(ascending.labelAt(6));
+        assertEquals(-1, ascending.sectionAt(-1));
+
+        SectionIndex descending = index(listing, new SortMode(SortMode.Key.NAME, true, true));
+        assertEquals(Arrays.asList("Z", "B", "A", "•", "#"), labels(descending));
+        assertSame(listing.sectionKeysFor(SortMode.DEFAULT), listing.sectionKeysFor(new SortMode(SortMode.Key.NAME, true, true)));
+    }
+
+    @Test
+    public void sizesDatesAndTypesGetTheirOwnSectionsWithFoldersApart() throws IOException {
+        File big = new File(tempFolder.getRoot(), "big.mp4");
+        Files.write(big.toPath(), new byte[150_000]);
+        File small = new File(tempFolder.getRoot(), "small.jpg");
+        Files.write(small.toPath(), new byte[20]);
+        File folder = new File(tempFolder.getRoot(), "docs");
+        assertTrue(folder.mkdir());
+        assertTrue(big.setLastModified(1_700_000_000_000L)); // November 2023
+        assertTrue(small.setLastModified(1_600_000_000_000L)); // September 2020
+        assertTrue(folder.setLastModified(1_700_000_000_000L));
+        ListingCache.Listing listing = listingOf(big, small, folder);
+
+        assertEquals(Arrays.asList("Folders", "100 KB+", "< 1 KB"),
+                labels(index(listing, new SortMode(SortMode.Key.SIZE, true, true))));
+        assertEquals(Arrays.asList("Folders", "Image", "Video"),
+                labels(index(listing, new SortMode(SortMode.Key.TYPE, false, true))));
+
+        SectionIndex byDate = index(listing, new SortMode(SortMode.Key.DATE, true, true));
+        assertEquals(3, byDate.size()); // The folder's month is not merged into the files' November
+        assertEquals(byDate.labelOf(0), byDate.labelOf(1));
+        assertEquals(2, index(listing, new SortMode(SortMode.Key.DATE, true, false)).size());
+    }
+
+    @Test
+    public void filteredRowsOfHundredThousandNamesSplitAtEveryInitial() {
+        Random random = new Random(5);
+        int n = 100_000;
+        File[] files = new File[n];
+        for (int i = 0; i < n; i++) {
+            files[i] = new File((char) ('a' + random.nextInt(26)) + "file_" + i + ".txt");
+        }
+        ListingCache.Listing listing = listingOf(files);
+        int[] order = listing.orderFor(SortMode.DEFAULT);
+        SectionIndex.Keys keys = listing.sectionKeysFor(SortMode.DEFAULT);
+        SectionIndex index = SectionIndex.of(keys, order);
+
+        assertEquals(26, index.size());
+        for (int position = 0; position < n; position += 997) {
+            String expected = files[order[position]].getName().substring(0, 1).toUpperCase();
+            assertEquals(expected, index.labelAt(position));
+        }
+
+        int[] filtered = new ListingFilter(listing.nameKeys(), order).update("_99");
+        SectionIndex narrowed = SectionIndex.of(keys, filtered);
+        assertTrue(narrowed.size() <= 26);
+        for (int section = 1; section < narrowed.size(); section++) {
+            assertTrue(narrowed.startOf(section) > narrowed.startOf(section - 1));
+            assertTrue(narrowed.labelOf(section).compareTo(narrowed.labelOf(section - 1)) > 0);
+        }
+    }
+}
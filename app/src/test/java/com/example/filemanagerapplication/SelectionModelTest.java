@@ -0,0 +1,93 @@
+package com.example.filemanagerapplication;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Checks {@link SelectionModel} against {@link BitSet} under random toggles and ranges. */
+public class SelectionModelTest {
+
+    private static void assertSame(BitSet expected, SelectionModel model) {
+        assertEquals(expected.cardinality(), model.count());
+        for (int i = 0; i < model.size(); i++) {
+            assertEquals("row " + i, expected.get(i), model.isSelected(i));
+        }
+        assertEquals(expected.nextSetBit(0), model.nextSelected(0));
+    }
+
+    @Test
+    public void matchesBitSetUnderRandomOperations() {
+        Random random = new Random(7);
+        for (int size : new int[]{0, 1, 63, 64, 65, 130, 1000}) {
+            SelectionModel model = new SelectionModel();
+            model.reset(size);
+            BitSet expected = new BitSet(size);
+            for (int step = 0; step < 400 && size > 0; step++) {
+                int op = random.nextInt(12);
+                if (op < 6) {
+                    int index = random.nextInt(size);
+                    expected.flip(index);
+                    assertEquals(expected.get(index), model.toggle(index));
+                } else if (op < 8) {
+                    int index = random.nextInt(size);
+                    boolean selected = random.nextBoolean();
+                    assertEquals(expected.get(index) != selected, model.set(index, selected));
+                    expected.set(index, selected);
+                } else if (op < 11) {
+                    int a = random.nextInt(size + 1);
+                    int b = random.nextInt(size + 1);
+                    boolean selected = random.nextBoolean();
+                    model.setRange(Math.min(a, b), Math.max(a, b), selected);
+                    expected.set(Math.min(a, b), Math.max(a, b), selected);
+                } else if (random.nextBoolean()) {
+                    model.selectAll();
+                    expected.set(0, size);
+                } else {
+                    model.clear();
+                    expected.clear();
+                }
+                assertSame(expected, model);
+            }
+        }
+    }
+
+    @Test
+    public void materializesSelectedRowsInOrderAndResetsOnNewListing() {
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            rows.add("file" + i);
+        }
+        SelectionModel model = new SelectionModel();
+        model.reset(rows.size());
+        model.toggle(150);
+        model.setRange(3, 6, true);
+        model.toggle(64);
+        assertEquals(List.of("file3", "file4", "file5", "file64", "file150"), model.materialize(rows));
+        assertEquals(150, model.nextSelected(65));
+        assertEquals(-1, model.nextSelected(151));
+
+        model.reset(10);
+        assertEquals(0, model.count());
+        assertFalse(model.isSelected(3));
+        assertFalse(model.isSelected(150)); // Outside the new listing
+    }
+
+    @Test
+    public void selectAllOfHundredThousandRows() {
+        SelectionModel model = new SelectionModel();
+        model.reset(100_000);
+        model.selectAll();
+        assertEquals(100_000, model.count());
+        assertTrue(model.isSelected(99_999));
+        assertFalse(model.isSelected(100_000)); // Past the listing
+        model.toggle(99_999);
+        assertEquals(99_999, model.count());
+        assertEquals(99_999, model.materialize(Collections.nCopies(100_000, "x")).size());
+    }
+}
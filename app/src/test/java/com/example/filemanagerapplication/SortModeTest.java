@@ -0,0 +1,146 @@
+package com.example.filemanagerapplication;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Checks the orders {@link SortMode} produces from a listing's precomputed keys. */
+public class SortModeTest {
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private static ListingCache.Listing listingOf(File... files) {
+        return new ListingCache.Listing(files, FileTypeClassifier.classifyAll(Arrays.asList(files)), 1);
+    }
+
+    private static List<String> names(ListingCache.Listing listing, SortMode mode) {
+        List<String> names = new ArrayList<>();
+        for (int index : mode.order(listing)) {
+            names.add(listing.files[index].getName());
+        }
+        return names;
+    }
+
+    private File file(String name, int bytes, long mtime) throws IOException {
+        File file = new File(tempFolder.getRoot(), name);
+        Files.write(file.toPath(), new byte[bytes]);
+        assertTrue(file.setLastModified(mtime));
+        return file;
+    }
+
+    private File folder(String name) {
+        File folder = new File(tempFolder.getRoot(), name);
+        assertTrue(folder.mkdir());
+        return folder;
+    }
+
+    @Test
+    public void comparesNumbersByValueAndFoldsCaseAndAccents() {
+        List<String> names = new ArrayList<>(Arrays.asList("img10.jpg", "IMG9.jpg", "img009.jpg", "Ảnh 2", "anh 10", "b", "A"));
+        List<File> files = new ArrayList<>();
+        for (String name : names) {
+            files.add(new File(name));
+        }
+        SortMode.sortByName(files);
+        List<String> sorted = new ArrayList<>();
+        for (File file : files) {
+            sorted.add(file.getName());
+        }
+        assertEquals(Arrays.asList("A", "Ảnh 2", "anh 10", "b", "IMG9.jpg", "img009.jpg", "img10.jpg"), sorted);
+        assertEquals("anh dep.jpg", SortMode.foldName("Ảnh Đẹp.JPG"));
+        assertTrue(SortMode.compareNatural("x2", "x10") < 0);
+        assertTrue(SortMode.compareNatural("x", "x0") < 0);
+    }
+
+    @Test
+    public void collationKeysCompareLikeNaturalOrder() {
+        Random random = new Random(7);
+        String alphabet = "0012aA9./ _";
+        for (int round = 0; round < 20_000; round++) {
+            String a = randomName(random, alphabet);
+            String b = randomName(random, alphabet);
+            int expected = Integer.signum(SortMode.compareNatural(a, b));
+            int actual = Integer.signum(SortMode.collationKey(a).compareTo(SortMode.collationKey(b)));
+            assertEquals(a + " vs " + b, expected, actual);
+        }
+        assertEquals("report.txt", SortMode.collationKey("report.txt")); // No digits: the name itself
+    }
+
+    private static String randomName(Random random, String alphabet) {
+        char[] name = new char[random.nextInt(7)];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+        }
+        return new String(name);
+    }
+
+    @Test
+    public void sortsBySizeDateAndTypeWithOptionalFoldersFirst() throws IOException {
+        ListingCache.Listing listing = listingOf(
+                file("small.txt", 10, 3_000_000L),
+                file("big.mp4", 300, 1_000_000L),
+                file("mid.jpg", 100, 2_000_000L),
+                folder("zeta"),
+                folder("alpha"));
+
+        assertEquals(Arrays.asList("alpha", "zeta", "big.mp4", "mid.jpg", "small.txt"),
+                names(listing, SortMode.DEFAULT));
+        assertEquals(Arrays.asList("alpha", "zeta", "big.mp4", "mid.jpg", "small.txt"),
+                names(listing, new SortMode(SortMode.Key.SIZE, true, true)));
+        assertEquals(Arrays.asList("alpha", "zeta", "small.txt", "mid.jpg", "big.mp4"),
+                names(listing, new SortMode(SortMode.Key.SIZE, false, false))); // Folders have size -1
+        assertEquals(Arrays.asList("small.txt", "mid.jpg", "big.mp4"),
+                names(listing, new SortMode(SortMode.Key.DATE, true, true)).subList(2, 5));
+        assertEquals(Arrays.asList("alpha", "zeta", "mid.jpg", "big.mp4", "small.txt"), // Image, video, document
+                names(listing, new SortMode(SortMode.Key.TYPE, false, true)));
+        assertEquals(Arrays.asList("zeta", "alpha", "small.txt", "mid.jpg", "big.mp4"), // Folders stay first
+                names(listing, new SortMode(SortMode.Key.NAME, true, true)));
+    }
+
+    @Test
+    public void reusesLastOrderAndRoundTripsEncoding() {
+        ListingCache.Listing listing = listingOf(new File("b"), new File("a"));
+        SortMode mode = new SortMode(SortMode.Key.NAME, true, false);
+        int[] first = listing.orderFor(mode);
+        assertSame(first, listing.orderFor(new SortMode(SortMode.Key.NAME, true, false)));
+        assertFalse(first == listing.orderFor(SortMode.DEFAULT));
+
+        assertEquals(mode, SortMode.decode(mode.encode()));
+        assertEquals(SortMode.DEFAULT, SortMode.decode("bogus"));
+        assertEquals(SortMode.DEFAULT, SortMode.decode(null));
+    }
+
+    @Test
+    public void parallelSortOfHundredThousandNamesIsOrdered() {
+        Random random = new Random(3);
+        int n = 100_000;
+        File[] files = new File[n];
+        for (int i = 0; i < n; i++) {
+            files[i] = new File("File " + random.nextInt(1_000_000) + "_" + i + (random.nextBoolean() ? ".jpg" : ".txt"));
+        }
+        ListingCache.Listing listing = listingOf(files);
+        listing.nameKeys(); // Keys are computed once per listing, not per sort
+        SortMode.DEFAULT.order(listing); // Warm up; also computes the listing's name order
+        long start = System.nanoTime();
+        int[] order = SortMode.DEFAULT.order(listing);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue("re-sorting 100k names took " + millis + " ms", millis < 2_000); // Well under on any machine
+
+        assertTrue(n >= SortMode.PARALLEL_THRESHOLD);
+        String[] keys = listing.nameKeys();
+        for (int i = 1; i < n; i++) {
+            assertTrue(SortMode.compareNatural(keys[order[i - 1]], keys[order[i]]) <= 0);
+        }
+    }
+}
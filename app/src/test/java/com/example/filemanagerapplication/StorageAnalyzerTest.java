@@ -0,0 +1,144 @@
+package com.example.filemanagerapplication;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Sums a small tree with {@link StorageAnalyzer}. A file rewritten in place leaves its folder's
+ * mtime alone, so a stale total shows that the folder came from the cache.
+ */
+public class StorageAnalyzerTest {
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+    private File root;
+    private File cacheFile;
+
+    @BeforeClass
+    public static void walkWithNio() {
+        TreeWalker.useNio = true; // SDK_INT reads 0 on the JVM, where android.system.Os is a stub
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        root = new File(tempFolder.getRoot(), "root");
+        cacheFile = new File(tempFolder.getRoot(), "sizes.cache");
+        write("a.bin", 100);
+        write("music/b.bin", 1_000);
+        write("music/live/c.bin", 10_000);
+        write("photos/d.bin", 50);
+    }
+
+    private File write(String path, int size) throws IOException {
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        long folderMtime = file.getParentFile().lastModified();
+        boolean existed = file.exists();
+        Files.write(file.toPath(), new byte[size]);
+        if (existed) {
+            file.getParentFile().setLastModified(folderMtime); // Rewritten in place: the folder does not change
+        }
+        return file;
+    }
+
+    private static StorageAnalyzer.Node child(StorageAnalyzer.Node node, String name) {
+        for (StorageAnalyzer.Node child : node.children) {
+            if (child.dir.getName().equals(name)) {
+                return child;
+            }
+        }
+        throw new AssertionError("no " + name + " below " + node.dir);
+    }
+
+    private static StorageAnalyzer.Node analyze(StorageAnalyzer analyzer, File dir) {
+        return analyzer.analyze(dir, new FileSearcher.Handle(), null);
+    }
+
+    @Test
+    public void sumsTheTreeLargestFirst() {
+        StorageAnalyzer.Node node = analyze(new StorageAnalyzer(cacheFile), root);
+        assertEquals(11_150, node.totalBytes);
+        assertEquals(4, node.totalFiles);
+        assertEquals(100, node.ownBytes);
+        assertEquals("music", node.children.get(0).dir.getName());
+        assertEquals(11_000, node.children.get(0).totalBytes);
+        assertEquals(10_000, child(child(node, "music"), "live").ownBytes);
+    }
+
+    @Test
+    public void unchangedFoldersAreReusedFromTheCache() throws IOException {
+        StorageAnalyzer analyzer = new StorageAnalyzer(cacheFile);
+        analyze(analyzer, root);
+        write("music/b.bin", 5_000);
+
+        StorageAnalyzer.Node again = analyze(analyzer, root);
+        assertEquals(1_000, child(again, "music").ownBytes); // Not listed again
+        assertEquals(11_150, again.totalBytes);
+
+        analyzer.clearCache();
+        assertEquals(15_150, analyze(analyzer, root).totalBytes);
+    }
+
+    @Test
+    public void addingAChildRescansItsFolder() throws IOException {
+        StorageAnalyzer analyzer = new StorageAnalyzer(cacheFile);
+        analyze(analyzer, root);
+        File photos = new File(root, "photos");
+        long before = photos.lastModified();
+        write("photos/e.bin", 7);
+        write("photos/new/f.bin", 3);
+        photos.setLastModified(before + 10_000); // In case the clock did not tick between the writes
+
+        StorageAnalyzer.Node node = analyze(analyzer, root);
+        StorageAnalyzer.Node rescanned = child(node, "photos");
+        assertEquals(57, rescanned.ownBytes);
+        assertEquals(2, rescanned.ownFiles);
+        assertEquals(3, child(rescanned, "new").totalBytes);
+        assertEquals(11_160, node.totalBytes);
+    }
+
+    @Test
+    public void cacheFileRoundTripsIntoANewAnalyzer() throws IOException {
+        analyze(new StorageAnalyzer(cacheFile), root);
+        assertTrue(cacheFile.isFile());
+        write("music/live/c.bin", 1); // Invisible to an analyzer that read the saved cache
+
+        StorageAnalyzer.Node node = analyze(new StorageAnalyzer(cacheFile), root);
+        assertEquals(10_000, child(child(node, "music"), "live").ownBytes);
+        assertEquals(11_150, node.totalBytes);
+
+        assertTrue(cacheFile.delete());
+        assertEquals(1_151, analyze(new StorageAnalyzer(cacheFile), root).totalBytes);
+    }
+
+    @Test
+    public void foldersTheWalkNoLongerSeesAreDroppedFromTheCache() throws IOException {
+        StorageAnalyzer analyzer = new StorageAnalyzer(cacheFile);
+        analyze(analyzer, root);
+        assertEquals(4, analyzer.cachedFolders());
+
+        File photos = new File(root, "photos");
+        long before = root.lastModified();
+        assertTrue(new File(photos, "d.bin").delete());
+        assertTrue(photos.delete());
+        root.setLastModified(before + 10_000); // In case the clock did not tick since the first walk
+        assertEquals(11_100, analyze(analyzer, root).totalBytes);
+        assertEquals(3, analyzer.cachedFolders());
+
+        // Another root replaces the cached tree, also in the saved file
+        analyze(analyzer, new File(root, "music"));
+        assertEquals(2, analyzer.cachedFolders());
+        StorageAnalyzer reloaded = new StorageAnalyzer(cacheFile);
+        analyze(reloaded, new File(root, "music/live"));
+        assertEquals(1, reloaded.cachedFolders());
+    }
+}
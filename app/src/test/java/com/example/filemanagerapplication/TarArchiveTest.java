@@ -0,0 +1,142 @@
+package com.example.filemanagerapplication;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+/** Writes archives with {@link TarArchiveWriter} and {@link ParallelGzipOutputStream} and reads them back. */
+public class TarArchiveTest {
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private File source(String content) throws IOException {
+        File file = File.createTempFile("src", ".txt", tempFolder.getRoot());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void longNamesWithoutAUsableSplitRoundTripThroughPax() throws IOException {
+        String noSlash = repeat('a', 150) + ".txt";
+        String longLastSegment = "dir/" + repeat('b', 120) + ".txt"; // Name part alone exceeds 100 bytes
+        String splittable = repeat('c', 80) + "/" + repeat('d', 60) + ".txt"; // Fits as ustar prefix + name
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveWriter tar = new TarArchiveWriter(bytes)) {
+            tar.putFile(source("one"), noSlash);
+            tar.putFile(source("two"), longLastSegment);
+            tar.putFile(source("three"), splittable);
+            tar.putDirectory(repeat('e', 130), 0);
+        }
+
+        try (TarArchiveReader reader = new TarArchiveReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            TarArchiveReader.Entry entry = reader.getNextEntry();
+            assertEquals(noSlash, entry.getName());
+            assertEquals("one", new String(readAll(reader), StandardCharsets.UTF_8));
+            entry = reader.getNextEntry();
+            assertEquals(longLastSegment, entry.getName());
+            assertEquals("two", new String(readAll(reader), StandardCharsets.UTF_8));
+            entry = reader.getNextEntry();
+            assertEquals(splittable, entry.getName());
+            assertEquals("three", new String(readAll(reader), StandardCharsets.UTF_8));
+            entry = reader.getNextEntry();
+            assertEquals(repeat('e', 130) + "/", entry.getName());
+            assertTrue(entry.isDirectory());
+            assertNull(reader.getNextEntry());
+        }
+    }
+
+    @Test
+    public void sizesAtTheEightGigabyteBoundaryRoundTrip() throws IOException {
+        long largestOctal = TarArchiveWriter.MAX_OCTAL_SIZE;
+        assertEquals(8L * 1024 * 1024 * 1024 - 1, largestOctal);
+        // Only the headers are written: the reader reports the size before any data is read
+        for (long size : new long[] {largestOctal, largestOctal + 1}) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            TarArchiveWriter tar = new TarArchiveWriter(bytes);
+            tar.writeHeader("big.bin", size, 1_000_000L, '0', 0644);
+            byte[] headers = bytes.toByteArray();
+            boolean pax = headers.length > TarArchiveWriter.BLOCK_SIZE;
+            assertEquals("PAX header for " + size, size > largestOctal, pax);
+
+            TarArchiveReader reader = new TarArchiveReader(new ByteArrayInputStream(headers));
+            TarArchiveReader.Entry entry = reader.getNextEntry();
+            assertEquals("big.bin", entry.getName());
+            assertEquals(size, entry.getSize());
+            assertEquals(1_000_000L, entry.getLastModified());
+            assertTrue(entry.isFile());
+        }
+    }
+
+    @Test
+    public void parallelGzipOutputDecodesWithGzipInputStream() throws IOException {
+        Random random = new Random(5);
+        byte[] data = new byte[1_000_000]; // Several blocks, the last one partial
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (random.nextInt(4) == 0 ? random.nextInt(256) : 'a' + i % 7); // Compressible, not trivially
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(compressed, Deflater.DEFAULT_COMPRESSION, 3)) {
+            gzip.write(data, 0, 1000);
+            gzip.write(data[1000]);
+            gzip.write(data, 1001, data.length - 1001);
+        }
+        assertTrue(compressed.size() < data.length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertArrayEquals(data, readAll(in)); // GZIPInputStream also checks the CRC and length trailer
+        }
+
+        ByteArrayOutputStream empty = new ByteArrayOutputStream();
+        new ParallelGzipOutputStream(empty, Deflater.BEST_SPEED, 2).close();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(empty.toByteArray()))) {
+            assertEquals(0, readAll(in).length);
+        }
+    }
+
+    @Test
+    public void tarGzOfFilesRoundTrips() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (TarArchiveWriter tar = new TarArchiveWriter(new ParallelGzipOutputStream(compressed, Deflater.DEFAULT_COMPRESSION, 2))) {
+            tar.putDirectory("folder", 0);
+            tar.putFile(source(repeat('x', 300_000)), "folder/x.txt");
+        }
+        try (TarArchiveReader reader = new TarArchiveReader(new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray())))) {
+            assertEquals("folder/", reader.getNextEntry().getName());
+            TarArchiveReader.Entry entry = reader.getNextEntry();
+            assertEquals("folder/x.txt", entry.getName());
+            assertEquals(300_000, entry.getSize());
+            assertEquals(repeat('x', 300_000), new String(readAll(reader), StandardCharsets.UTF_8));
+            assertNull(reader.getNextEntry());
+        }
+    }
+}
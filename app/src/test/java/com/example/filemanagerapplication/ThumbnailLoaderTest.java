@@ -0,0 +1,47 @@
+package com.example.filemanagerapplication;
+
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/** Checks the subsampling and cache keys of {@link ThumbnailLoader}. */
+public class ThumbnailLoaderTest {
+
+    @Test
+    public void sampleSizeKeepsTheShorterSideAtLeastTheTarget() {
+        assertEquals(1, ThumbnailLoader.sampleSize(100, 100, 96));
+        assertEquals(1, ThumbnailLoader.sampleSize(191, 4000, 96)); // Halving would drop below 96
+        assertEquals(2, ThumbnailLoader.sampleSize(192, 4000, 96));
+        assertEquals(32, ThumbnailLoader.sampleSize(8160, 6120, 128)); // 50 MP photo
+        assertEquals(1, ThumbnailLoader.sampleSize(50, 50, 96)); // Never upsampled
+        for (int side = 96; side < 10_000; side += 37) {
+            int sample = ThumbnailLoader.sampleSize(side, side * 2, 96);
+            assertEquals(0, sample & (sample - 1)); // Power of two
+            assertTrue(side / sample >= 96);
+            assertTrue(side / (sample * 2) < 96);
+        }
+    }
+
+    @Test
+    public void diskKeyChangesWithEveryPartOfTheFileState() {
+        File file = new File("/sdcard/DCIM/photo.jpg");
+        String key = ThumbnailLoader.diskKey(file, 1_000, 5_000, 96);
+        assertTrue(key.matches("[0-9a-f]{40}")); // SHA-1 in hex: a safe file name
+        assertEquals(key, ThumbnailLoader.diskKey(new File("/sdcard/DCIM/photo.jpg"), 1_000, 5_000, 96));
+        assertNotEquals(key, ThumbnailLoader.diskKey(new File("/sdcard/DCIM/other.jpg"), 1_000, 5_000, 96));
+        assertNotEquals(key, ThumbnailLoader.diskKey(file, 1_001, 5_000, 96));
+        assertNotEquals(key, ThumbnailLoader.diskKey(file, 1_000, 5_001, 96));
+        assertNotEquals(key, ThumbnailLoader.diskKey(file, 1_000, 5_000, 128));
+    }
+
+    @Test
+    public void memoryKeyIncludesTheMtimeAndStartsWithThePath() {
+        File file = new File("/sdcard/a@b/photo@2x.png");
+        String key = ThumbnailLoader.memoryKey(file, 5_000, 96);
+        assertNotEquals(key, ThumbnailLoader.memoryKey(file, 5_001, 96)); // An edited file misses
+        assertNotEquals(key, ThumbnailLoader.memoryKey(file, 5_000, 128));
+        assertEquals(file.getAbsolutePath(), key.substring(0, key.indexOf('\0'))); // What invalidate() compares
+    }
+}
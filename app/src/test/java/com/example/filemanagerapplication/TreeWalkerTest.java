@@ -0,0 +1,214 @@
+package com.example.filemanagerapplication;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/** Walks small trees with {@link TreeWalker} and checks the order and outcome of the callbacks. */
+public class TreeWalkerTest {
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void walkWithNio() {
+        TreeWalker.useNio = true; // SDK_INT reads 0 on the JVM, where android.system.Os is a stub
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        write("a/one.txt", 3);
+        write("a/b/two.txt", 5);
+        write("a/b/c/three.txt", 7);
+        write("d/four.txt", 11);
+        write("five.txt", 13);
+    }
+
+    private void write(String path, int size) throws IOException {
+        File file = new File(tempFolder.getRoot(), path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), new byte[size]);
+    }
+
+    /** Records "pre ", "file " and "post " events by relative path. */
+    private static class Recorder extends TreeWalker.SimpleVisitor {
+        final List<String> events = new ArrayList<>();
+        final List<String> failures = new ArrayList<>();
+
+        @Override
+        public TreeWalker.Action preVisitDirectory(TreeWalker.Entry dir) throws IOException {
+            events.add("pre " + dir.getRelativePath());
+            return TreeWalker.Action.CONTINUE;
+        }
+
+        @Override
+        public TreeWalker.Action visitFile(TreeWalker.Entry file) throws IOException {
+            events.add("file " + file.getRelativePath());
+            return TreeWalker.Action.CONTINUE;
+        }
+
+        @Override
+        public TreeWalker.Action postVisitDirectory(TreeWalker.Entry dir, boolean complete) throws IOException {
+            events.add("post " + dir.getRelativePath() + (complete ? "" : " incomplete"));
+            return TreeWalker.Action.CONTINUE;
+        }
+
+        @Override
+        public TreeWalker.Action visitFailed(File file, TreeWalker.Entry entry, IOException error) {
+            failures.add(file.getName());
+            return TreeWalker.Action.CONTINUE;
+        }
+    }
+
+    private static String parentOf(String path) {
+        int slash = path.lastIndexOf('/');
+        return slash < 0 ? "" : path.substring(0, slash);
+    }
+
+    /** Every event belongs to the directory on top of the stack: no subtree is left and re-entered. */
+    private static void assertDepthFirst(List<String> events) {
+        Deque<String> open = new ArrayDeque<>();
+        for (String event : events) {
+            String path = event.substring(event.indexOf(' ') + 1).replace(" incomplete", "");
+            if (event.startsWith("post ")) {
+                assertEquals(event, open.pop(), path);
+                continue;
+            }
+            if (!open.isEmpty()) {
+                assertEquals(event, open.peek(), parentOf(path));
+            }
+            if (event.startsWith("pre ")) {
+                open.push(path);
+            }
+        }
+        assertTrue(open.isEmpty());
+    }
+
+    @Test
+    public void visitsDepthFirstWithPreAndPostOrder() throws IOException {
+        Recorder recorder = new Recorder();
+        assertTrue(new TreeWalker(TreeWalker.SymlinkPolicy.SKIP).walk(tempFolder.getRoot(), recorder));
+
+        assertDepthFirst(recorder.events);
+        assertEquals("pre ", recorder.events.get(0));
+        assertEquals("post ", recorder.events.get(recorder.events.size() - 1));
+        List<String> sorted = new ArrayList<>(recorder.events);
+        Collections.sort(sorted);
+        assertEquals(Arrays.asList("file a/b/c/three.txt", "file a/b/two.txt", "file a/one.txt", "file d/four.txt",
+                "file five.txt", "post ", "post a", "post a/b", "post a/b/c", "post d",
+                "pre ", "pre a", "pre a/b", "pre a/b/c", "pre d"), sorted);
+        assertTrue(recorder.failures.isEmpty());
+    }
+
+    @Test
+    public void entriesCarryTheirStat() throws IOException {
+        List<String> files = new ArrayList<>();
+        new TreeWalker(TreeWalker.SymlinkPolicy.SKIP).walk(tempFolder.getRoot(), new TreeWalker.SimpleVisitor() {
+            @Override
+            public TreeWalker.Action visitFile(TreeWalker.Entry file) {
+                assertTrue(file.isRegularFile());
+                assertEquals(file.getFile().length(), file.getSize());
+                assertEquals(file.getRelativePath().split("/").length, file.getDepth());
+                files.add(file.getRelativePath());
+                return TreeWalker.Action.CONTINUE;
+            }
+        });
+        assertEquals(5, files.size());
+    }
+
+    @Test
+    public void symlinkLoopsAreReportedWhenFollowedAndIgnoredOtherwise() throws IOException {
+        Files.createSymbolicLink(new File(tempFolder.getRoot(), "a/b/loop").toPath(), new File(tempFolder.getRoot(), "a").toPath());
+
+        Recorder followed = new Recorder();
+        assertFalse(new TreeWalker(TreeWalker.SymlinkPolicy.FOLLOW).walk(tempFolder.getRoot(), followed)); // Finishes, but reports the loop
+        assertEquals(Collections.singletonList("loop"), followed.failures);
+        assertDepthFirst(followed.events);
+        assertTrue(followed.events.contains("post a/b incomplete"));
+        assertTrue(followed.events.contains("post  incomplete"));
+
+        Recorder skipped = new Recorder();
+        assertTrue(new TreeWalker(TreeWalker.SymlinkPolicy.SKIP).walk(tempFolder.getRoot(), skipped));
+        assertFalse(skipped.events.toString().contains("loop"));
+
+        Recorder asFile = new Recorder();
+        assertTrue(new TreeWalker(TreeWalker.SymlinkPolicy.AS_FILE).walk(tempFolder.getRoot(), asFile));
+        assertTrue(asFile.events.contains("file a/b/loop"));
+        assertFalse(asFile.events.toString().contains("a/b/loop/"));
+    }
+
+    @Test
+    public void terminateStopsTheWalkAtOnce() throws IOException {
+        List<String> seen = new ArrayList<>();
+        boolean finished = new TreeWalker(TreeWalker.SymlinkPolicy.SKIP).walk(tempFolder.getRoot(), new Recorder() {
+            @Override
+            public TreeWalker.Action visitFile(TreeWalker.Entry file) {
+                seen.add(file.getRelativePath());
+                return TreeWalker.Action.TERMINATE; // As a cancelled search does
+            }
+
+            @Override
+            public TreeWalker.Action postVisitDirectory(TreeWalker.Entry dir, boolean complete) {
+                fail("post-visit after terminate: " + dir.getRelativePath());
+                return TreeWalker.Action.CONTINUE;
+            }
+        });
+        assertFalse(finished);
+        assertEquals(1, seen.size());
+    }
+
+    @Test
+    public void skipSubtreeLeavesOutChildren() throws IOException {
+        Recorder recorder = new Recorder() {
+            @Override
+            public TreeWalker.Action preVisitDirectory(TreeWalker.Entry dir) throws IOException {
+                super.preVisitDirectory(dir);
+                return dir.getRelativePath().equals("a/b") ? TreeWalker.Action.SKIP_SUBTREE : TreeWalker.Action.CONTINUE;
+            }
+        };
+        assertTrue(new TreeWalker(TreeWalker.SymlinkPolicy.SKIP).walk(tempFolder.getRoot(), recorder));
+        assertTrue(recorder.events.contains("pre a/b"));
+        assertFalse(recorder.events.contains("post a/b"));
+        assertFalse(recorder.events.toString().contains("a/b/"));
+    }
+
+    @Test
+    public void callbackErrorsGoToVisitFailed() throws IOException {
+        Recorder recorder = new Recorder() {
+            @Override
+            public TreeWalker.Action visitFile(TreeWalker.Entry file) throws IOException {
+                if (file.getFile().getName().equals("two.txt")) {
+                    throw new IOException("cannot read");
+                }
+                return super.visitFile(file);
+            }
+        };
+        assertFalse(new TreeWalker(TreeWalker.SymlinkPolicy.SKIP).walk(tempFolder.getRoot(), recorder)); // A failure was seen
+        assertEquals(Collections.singletonList("two.txt"), recorder.failures);
+        assertTrue(recorder.events.contains("file a/b/c/three.txt")); // The walk went on
+        assertTrue(recorder.events.contains("post a/b incomplete"));
+        assertTrue(recorder.events.contains("post a incomplete"));
+        assertTrue(recorder.events.contains("post d"));
+
+        try {
+            new TreeWalker(TreeWalker.SymlinkPolicy.SKIP).walk(new File(tempFolder.getRoot(), "missing"), new TreeWalker.SimpleVisitor());
+            fail("SimpleVisitor rethrows");
+        } catch (IOException expected) {
+            // The stat of the root failed
+        }
+    }
+}
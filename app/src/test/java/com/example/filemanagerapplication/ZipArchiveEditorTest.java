@@ -0,0 +1,180 @@
+package com.example.filemanagerapplication;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+/** Edits archives with {@link ZipArchiveEditor} and reads them back with {@link ZipFile}. */
+public class ZipArchiveEditorTest {
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+    private File archive;
+
+    @Before
+    public void setUp() throws IOException {
+        archive = new File(tempFolder.getRoot(), "test.zip");
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(archive))) {
+            for (String name : new String[] {"a.txt", "b.txt", "dir/c.txt"}) {
+                zos.putNextEntry(new ZipEntry(name));
+                zos.write(("content of " + name).getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+            }
+        }
+    }
+
+    private File source(String name, String content) throws IOException {
+        File file = new File(tempFolder.getRoot(), name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String read(ZipFile zip, String name) throws IOException {
+        ZipEntry entry = zip.getEntry(name);
+        assertNotNull("missing " + name, entry);
+        try (InputStream in = zip.getInputStream(entry)) {
+            byte[] bytes = new byte[(int) entry.getSize()];
+            int off = 0;
+            while (off < bytes.length) {
+                int n = in.read(bytes, off, bytes.length - off);
+                assertTrue(n > 0);
+                off += n;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static List<String> names(File archive) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(archive)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                names.add(entries.nextElement().getName());
+            }
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    @Test
+    public void addReplaceAndRemoveRoundTripThroughZipFile() throws IOException {
+        try (ZipArchiveEditor editor = ZipArchiveEditor.open(archive)) {
+            editor.setCompactionThreshold(1.0); // Keep the dead space so the in-place path is exercised
+            editor.addFile(source("new.txt", "brand new"), "new.txt");
+            editor.addFile(source("b2.txt", "replaced b"), "b.txt");
+            editor.addDirectory("empty");
+            assertTrue(editor.remove("dir/"));
+            editor.commit();
+            assertTrue(editor.getDeadBytes() > 0);
+        }
+
+        assertEquals(Arrays.asList("a.txt", "b.txt", "empty/", "new.txt"), names(archive));
+        try (ZipFile zip = new ZipFile(archive)) {
+            assertEquals("content of a.txt", read(zip, "a.txt"));
+            assertEquals("replaced b", read(zip, "b.txt"));
+            assertEquals("brand new", read(zip, "new.txt"));
+        }
+
+        try (ZipArchiveEditor reopened = ZipArchiveEditor.open(archive)) { // Central directory survives reopening
+            assertEquals(4, reopened.getEntryCount());
+            assertTrue(reopened.getDeadBytes() > 0);
+        }
+    }
+
+    @Test
+    public void compactReclaimsDeadSpaceAndKeepsEntries() throws IOException {
+        try (ZipArchiveEditor editor = ZipArchiveEditor.open(archive)) {
+            editor.setCompactionThreshold(1.0);
+            for (int i = 0; i < 5; i++) {
+                editor.addFile(source("big.txt", new String(new char[10_000]).replace('\0', (char) ('a' + i))), "big.txt");
+            }
+            editor.commit();
+        }
+        long before = archive.length();
+        try (ZipArchiveEditor editor = ZipArchiveEditor.open(archive)) {
+            assertTrue(editor.getDeadBytes() > 0);
+            editor.compact();
+            assertEquals(0, editor.getDeadBytes());
+        }
+        assertTrue(archive.length() < before);
+        assertEquals(Arrays.asList("a.txt", "b.txt", "big.txt", "dir/c.txt"), names(archive));
+        try (ZipFile zip = new ZipFile(archive)) {
+            assertEquals(new String(new char[10_000]).replace('\0', 'e'), read(zip, "big.txt"));
+            assertEquals("content of dir/c.txt", read(zip, "dir/c.txt"));
+        }
+    }
+
+    @Test
+    public void committedArchiveStaysOnDiskUntilTheNextCommit() throws IOException {
+        byte[] original = Files.readAllBytes(archive.toPath());
+        ZipArchiveEditor editor = ZipArchiveEditor.open(archive);
+        editor.addFile(source("new.txt", "appended"), "new.txt");
+        assertTrue(editor.remove("a.txt"));
+
+        // As if the process died here: the original bytes are still the start of the file
+        byte[] current = Files.readAllBytes(archive.toPath());
+        assertTrue(current.length > original.length);
+        assertArrayEquals(original, Arrays.copyOf(current, original.length));
+
+        editor.close(); // No commit: the appended entry is dropped
+        assertArrayEquals(original, Files.readAllBytes(archive.toPath()));
+        assertEquals(Arrays.asList("a.txt", "b.txt", "dir/c.txt"), names(archive));
+    }
+
+    @Test
+    public void failedReplacementKeepsTheOldEntry() throws IOException {
+        try (ZipArchiveEditor editor = ZipArchiveEditor.open(archive)) {
+            try {
+                editor.addFile(new File(tempFolder.getRoot(), "missing.txt"), "a.txt");
+                fail("expected the missing source to fail");
+            } catch (IOException expected) {
+            }
+            assertTrue(editor.contains("a.txt"));
+            editor.addFile(source("new.txt", "brand new"), "new.txt");
+            editor.commit();
+        }
+        try (ZipFile zip = new ZipFile(archive)) {
+            assertEquals("content of a.txt", read(zip, "a.txt"));
+            assertEquals("brand new", read(zip, "new.txt"));
+        }
+    }
+
+    @Test
+    public void editedArchiveExtractsTheLiveEntries() throws IOException {
+        try (ZipArchiveEditor editor = ZipArchiveEditor.open(archive)) {
+            editor.setCompactionThreshold(1.0); // Stale a.txt stays in front of the old central directory
+            editor.addFile(source("a2.txt", "replaced a"), "a.txt");
+            editor.addFile(source("two.txt", "appended"), "two.txt");
+            assertTrue(editor.remove("b.txt"));
+            editor.commit();
+        }
+
+        File extractDir = new File(tempFolder.getRoot(), "out");
+        assertTrue(extractDir.mkdirs());
+        try (ExtractionPipeline pipeline = new ExtractionPipeline()) {
+            FileListActivity.extractZipEntries(archive, extractDir, pipeline);
+        }
+        assertEquals("replaced a", new String(Files.readAllBytes(new File(extractDir, "a.txt").toPath()), StandardCharsets.UTF_8));
+        assertEquals("appended", new String(Files.readAllBytes(new File(extractDir, "two.txt").toPath()), StandardCharsets.UTF_8));
+        assertEquals("content of dir/c.txt", new String(Files.readAllBytes(new File(extractDir, "dir/c.txt").toPath()), StandardCharsets.UTF_8));
+        assertFalse(new File(extractDir, "b.txt").exists());
+    }
+}